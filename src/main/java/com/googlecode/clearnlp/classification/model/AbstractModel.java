@@ -24,6 +24,8 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
@@ -40,6 +42,7 @@ import com.googlecode.clearnlp.classification.prediction.IntPrediction;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.util.UTArray;
+import com.googlecode.clearnlp.util.metric.Metrics;
 import com.googlecode.clearnlp.util.pair.Pair;
 
 /**
@@ -246,6 +249,12 @@ abstract public class AbstractModel
 	 */
 	public double[] getScores(SparseFeatureVector x)
 	{
+		if (Metrics.isEnabled())
+		{
+			Metrics.count(Metrics.COUNT_CLASSIFICATIONS, 1);
+			Metrics.count(Metrics.COUNT_FEATURES, x.size());
+		}
+		
 		return isBinaryLabel() ? getScoresBinary(x) : getScoresMulti(x);
 	}
 	
@@ -344,6 +353,31 @@ abstract public class AbstractModel
 		fout.println(UTArray.join(a_labels, " "));
 	}
 	
+	/** Loads labels from the specific binary stream. */
+	protected void loadLabels(DataInputStream fin) throws IOException
+	{
+		n_labels = fin.readInt();
+		a_labels = new String[n_labels];
+		m_labels = new ObjectIntOpenHashMap<String>();
+		
+		int i;
+		for (i=0; i<n_labels; i++)
+		{
+			a_labels[i] = fin.readUTF();
+			m_labels.put(a_labels[i], i+1);
+		}
+	}
+	
+	/** Saves labels to the specific binary stream. */
+	protected void saveLabels(DataOutputStream fout) throws IOException
+	{
+		int i;
+		fout.writeInt(n_labels);
+		
+		for (i=0; i<n_labels; i++)
+			fout.writeUTF(a_labels[i]);
+	}
+	
 	/**
 	 * Loads the weight vector from the specific reader.
 	 * @param fin the reader to load the weight vector from.
@@ -20,12 +20,14 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 
-import com.carrotsearch.hppc.DoubleArrayList;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
@@ -34,6 +36,7 @@ import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
 import com.googlecode.clearnlp.util.UTArray;
+import com.googlecode.clearnlp.util.list.PagedDoubleArray;
 import com.googlecode.clearnlp.util.pair.Pair;
 
 /**
@@ -45,14 +48,18 @@ public class ONStringModel extends StringModel
 {
 	private final Logger LOG = Logger.getLogger(this.getClass());
 	
-	/** The weight vector for all labels. */
-	protected List<DoubleArrayList> d_weights;
+	/** The weight vector for all labels (feature x label). */
+	protected PagedDoubleArray d_weights;
 	/** The list of all labels. */
 	protected List<String> a_labels;
-	/** Update counts for AdaGrad. */
-	protected List<DoubleArrayList> d_gs;
+	/** Update counts for AdaGrad (feature x label). */
+	protected PagedDoubleArray d_gs;
 	/** AdaGrad parameters. */
 	protected double d_alpha, d_rho;
+	/** Feature types whose values have changed since the last snapshot. */
+	protected Set<String> s_dirty = new HashSet<String>();
+	/** Feature maps of the last snapshot, which are never modified. */
+	protected Map<String,ObjectIntOpenHashMap<String>> m_published;
 
 	// ----------------------------------- CONSTRUCTORS -----------------------------------
 	
@@ -72,42 +79,42 @@ public class ONStringModel extends StringModel
 		initAdaGrad(alpha, rho);
 	}
 	
+	/** Constructs a read-only snapshot of the specific model; called by {@link ONStringModel#getSnapshot()}. */
+	private ONStringModel(ONStringModel model, Map<String,ObjectIntOpenHashMap<String>> features)
+	{
+		n_labels   = model.n_labels;
+		n_features = model.n_features;
+		i_solver   = model.i_solver;
+		a_labels   = new ArrayList<String>(model.a_labels);
+		m_labels   = model.m_labels.clone();
+		m_features = features;
+		d_weights  = model.d_weights.getSnapshot();
+		d_alpha    = model.d_alpha;
+		d_rho      = model.d_rho;
+	}
+	
 	private void initModel()
 	{
 		n_labels   = 0;
 		n_features = 1;
-		d_weights  = new ArrayList<DoubleArrayList>();
-		d_gs       = new ArrayList<DoubleArrayList>();
+		d_weights  = new PagedDoubleArray(n_labels);
 		a_labels   = new ArrayList<String>();
 		m_labels   = new ObjectIntOpenHashMap<String>();
 		m_features = new HashMap<String,ObjectIntOpenHashMap<String>>();
 		i_solver   = AbstractAlgorithm.SOLVER_ADAGRAD_HINGE;
 		
-		d_weights.add(getBlankDoubleArrayList(n_labels));
+		d_weights.ensureRowSize(n_features);
 	}
 	
 	private void initAdaGrad(double alpha, double rho)
 	{
-		d_gs = new ArrayList<DoubleArrayList>(n_features);
-		
-		int i; for (i=0; i<n_features; i++)
-			d_gs.add(getBlankDoubleArrayList(n_labels));
+		d_gs = new PagedDoubleArray(n_labels);
+		d_gs.ensureRowSize(n_features);
 		
 		d_alpha = alpha;
 		d_rho   = rho;
 	}
 	
-	protected DoubleArrayList getBlankDoubleArrayList(int size)
-	{
-		DoubleArrayList list = new DoubleArrayList(size);
-		int i;
-		
-		for (i=0; i<size; i++)
-			list.add(0);
-		
-		return list;
-	}
-	
 	// ----------------------------------- LOAD MODELS -----------------------------------
 	
 	@Override
@@ -173,16 +180,15 @@ public class ONStringModel extends StringModel
 	protected void loadWeightVector(BufferedReader fin) throws Exception
 	{
 		int[] buffer = new int[128];
-		DoubleArrayList weight;
 		int i, j, b, ch;
 		
-		d_weights = new ArrayList<DoubleArrayList>(n_features);
+		d_weights = new PagedDoubleArray(n_labels);
 		Integer.parseInt(fin.readLine());	// for compatibility
 		
 		for (i=0; i<n_features; i++)
 		{
 			if (i%100000 == 0)	LOG.debug(".");
-			weight = new DoubleArrayList(n_labels);
+			d_weights.addRow();
 			
 			for (j=0; j<n_labels; j++)
 			{
@@ -196,10 +202,8 @@ public class ONStringModel extends StringModel
 					else			buffer[b++] = ch;
 				}
 				
-				weight.add(Double.parseDouble((new String(buffer, 0, b))));
+				d_weights.set(i, j, Double.parseDouble((new String(buffer, 0, b))));
 			}
-			
-			d_weights.add(weight);
 		}
 	
 		LOG.debug("\n");
@@ -263,7 +267,6 @@ public class ONStringModel extends StringModel
 	@Override
 	protected void saveWeightVector(PrintStream fout)
 	{
-		DoubleArrayList weight;
 		StringBuilder build;
 		int i, j;
 		
@@ -272,12 +275,11 @@ public class ONStringModel extends StringModel
 		for (i=0; i<n_features; i++)
 		{
 			if (i%100000 == 0)	LOG.debug(".");
-			weight = d_weights.get(i);
-			build  = new StringBuilder();
+			build = new StringBuilder();
 			
 			for (j=0; j<n_labels; j++)
 			{
-				build.append(weight.get(j));
+				build.append(d_weights.get(i, j));
 				build.append(' ');
 			}
 			
@@ -303,11 +305,8 @@ public class ONStringModel extends StringModel
 	
 	private void addLabelAux()
 	{
-		int i; for (i=0; i<n_features; i++)
-		{
-			d_weights.get(i).add(0);
-			d_gs.get(i).add(0);
-		}
+		d_weights.addColumn();
+		d_gs.addColumn();
 	}
 	
 	@Override
@@ -324,14 +323,15 @@ public class ONStringModel extends StringModel
 		if (!map.containsKey(value))
 		{
 			map.put(value, n_features++);
+			s_dirty.add(type);
 			addFeatureAux();
 		}
 	}
 	
 	private void addFeatureAux()
 	{
-		d_weights.add(getBlankDoubleArrayList(n_labels));
-		d_gs.add(getBlankDoubleArrayList(n_labels));
+		d_weights.addRow();
+		d_gs.addRow();
 	}
 	
 	public void addFeatures(StringFeatureVector vector)
@@ -342,31 +342,29 @@ public class ONStringModel extends StringModel
 			addFeature(vector.getType(i), vector.getValue(i));
 	}
 	
+	@Override
+	public String getLabel(int index)
+	{
+		return a_labels.get(index);
+	}
+	
 	// ----------------------------------- PREDICT SPARSE -----------------------------------
 	
 	@Override
 	public double[] getScores(SparseFeatureVector x)
 	{
-		double[] scores = d_weights.get(0).toArray();
-		int i, index, label, size = x.size();
-		DoubleArrayList weight;
-		double value = 1;
+		double[] scores = d_weights.getRow(0);
+		int i, index, size = x.size();
 		
 		// features
 		for (i=0; i<size; i++)
 		{
 			index = x.getIndex(i);
-			if (x.hasWeight())	value = x.getWeight(i);
 			
 			if (isRange(index))
 			{
-				weight = d_weights.get(index);
-				
-				for (label=0; label<n_labels; label++)
-				{
-					if (x.hasWeight())	scores[label] += weight.get(label) * value;
-					else				scores[label] += weight.get(label);
-				}
+				if (x.hasWeight())	d_weights.addRowTo(index, x.getWeight(i), scores);
+				else				d_weights.addRowTo(index, scores);
 			}
 		}
 		
@@ -386,6 +384,40 @@ public class ONStringModel extends StringModel
 		return list;		
 	}
 	
+	// ----------------------------------- SNAPSHOT -----------------------------------
+	
+	/**
+	 * Returns a read-only snapshot of this model that is not affected by later updates to this model.
+	 * Weights are shared page by page until this model writes to them.
+	 * Feature maps are copied only for feature types that have changed since the last snapshot.
+	 * This method and updates must be called by the same thread; the snapshot can be read by any thread.
+	 * @return a read-only snapshot of this model.
+	 */
+	public ONStringModel getSnapshot()
+	{
+		Map<String,ObjectIntOpenHashMap<String>> features = new HashMap<String,ObjectIntOpenHashMap<String>>(m_features.size());
+		ObjectIntOpenHashMap<String> map;
+		
+		for (String type : m_features.keySet())
+		{
+			if (m_published == null || s_dirty.contains(type) || (map = m_published.get(type)) == null)
+				map = m_features.get(type).clone();
+			
+			features.put(type, map);
+		}
+		
+		m_published = features;
+		s_dirty.clear();
+		
+		return new ONStringModel(this, features);
+	}
+	
+	/** @return {@code true} if this model is a read-only snapshot. */
+	public boolean isSnapshot()
+	{
+		return d_gs == null;
+	}
+	
 	// ----------------------------------- UPDATE -----------------------------------
 	
 	public void updateWeights(List<Pair<String,StringFeatureVector>> instances)
@@ -396,6 +428,9 @@ public class ONStringModel extends StringModel
 	
 	public void updateWeights(String label, StringFeatureVector vector)
 	{
+		if (isSnapshot())
+			throw new UnsupportedOperationException("A snapshot cannot be updated.");
+		
 		addLabel(label);
 		addFeatures(vector);
 		
@@ -421,8 +456,7 @@ public class ONStringModel extends StringModel
 	
 	private void updateCounts(int yp, int yn, SparseFeatureVector x)
 	{
-		int i, len = x.size();
-		DoubleArrayList g;
+		int i, xi, len = x.size();
 		
 		if (x.hasWeight())
 		{
@@ -430,21 +464,21 @@ public class ONStringModel extends StringModel
 			
 			for (i=0; i<len; i++)
 			{
-				g = d_gs.get(x.getIndex(i));
-				d = x.getWeight(i) * x.getWeight(i);
+				xi = x.getIndex(i);
+				d  = x.getWeight(i) * x.getWeight(i);
 
-				add(g, yp, d);
-				add(g, yn, d);
+				d_gs.add(xi, yp, d);
+				d_gs.add(xi, yn, d);
 			}
 		}
 		else
 		{
 			for (i=0; i<len; i++)
 			{
-				g = d_gs.get(x.getIndex(i));
+				xi = x.getIndex(i);
 				
-				add(g, yp, 1);
-				add(g, yn, 1);
+				d_gs.add(xi, yp, 1);
+				d_gs.add(xi, yn, 1);
 			}
 		}
 	}
@@ -452,7 +486,6 @@ public class ONStringModel extends StringModel
 	private void updateWeights(int yp, int yn, SparseFeatureVector x)
 	{
 		int i, xi, len = x.size();
-		DoubleArrayList w;
 		double vi;
 		
 		if (x.hasWeight())
@@ -461,10 +494,9 @@ public class ONStringModel extends StringModel
 			{
 				xi = x.getIndex(i);
 				vi = x.getWeight(i);
-				w  = d_weights.get(xi);
 				
-				add(w, yp,  vi * getUpdate(yp, xi));
-				add(w, yn, -vi * getUpdate(yn, xi));
+				d_weights.add(xi, yp,  vi * getUpdate(yp, xi));
+				d_weights.add(xi, yn, -vi * getUpdate(yn, xi));
 			}
 		}
 		else
@@ -472,21 +504,15 @@ public class ONStringModel extends StringModel
 			for (i=0; i<len; i++)
 			{
 				xi = x.getIndex(i);
-				w  = d_weights.get(xi);
 				
-				add(w, yp,  getUpdate(yp, xi));
-				add(w, yn, -getUpdate(yn, xi));
+				d_weights.add(xi, yp,  getUpdate(yp, xi));
+				d_weights.add(xi, yn, -getUpdate(yn, xi));
 			}
 		}
 	}
 	
-	private void add(DoubleArrayList list, int index, double value)
-	{
-		list.set(index, list.get(index) + value);
-	}
-	
 	private double getUpdate(int y, int x)
 	{
-		return d_alpha / (d_rho + Math.sqrt(d_gs.get(x).get(y)));
+		return d_alpha / (d_rho + Math.sqrt(d_gs.get(x, y)));
 	}
 }
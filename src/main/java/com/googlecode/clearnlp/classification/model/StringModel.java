@@ -24,6 +24,8 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashMap;
@@ -74,18 +76,24 @@ public class StringModel extends AbstractModel
 	 */
 	public void load(BufferedReader reader)
 	{
-		LOG.info("Loading model:\n");
-		
 		try
 		{
-			i_solver = Byte.parseByte(reader.readLine());
-			loadLabels(reader);
-			loadFeatures(reader);
-			loadWeightVector(reader);			
+			loadModel(reader);
 		}
 		catch (Exception e) {e.printStackTrace();}
 	}
 	
+	/** Loads this model from the specific reader; unlike {@link StringModel#load(BufferedReader)}, errors are thrown to the caller. */
+	public void loadModel(BufferedReader reader) throws Exception
+	{
+		LOG.info("Loading model:\n");
+		
+		i_solver = Byte.parseByte(reader.readLine());
+		loadLabels(reader);
+		loadFeatures(reader);
+		loadWeightVector(reader);
+	}
+	
 	/* (non-Javadoc)
 	 * @see edu.colorado.clear.classification.model.AbstractModel#save(java.io.PrintStream)
 	 */
@@ -103,6 +111,23 @@ public class StringModel extends AbstractModel
 		catch (Exception e) {e.printStackTrace();}
 	}
 
+	/**
+	 * Loads labels and features, but not weights, from the specific binary stream.
+	 * @see StringModel#saveLabelsAndFeatures(DataOutputStream)
+	 */
+	public void loadLabelsAndFeatures(DataInputStream fin) throws IOException
+	{
+		loadLabels(fin);
+		loadFeatures(fin);
+	}
+	
+	/** Saves labels and features, but not weights, to the specific binary stream. */
+	public void saveLabelsAndFeatures(DataOutputStream fout) throws IOException
+	{
+		saveLabels(fout);
+		saveFeatures(fout);
+	}
+
 	protected void loadFeatures(BufferedReader fin) throws IOException
 	{
 		ObjectIntOpenHashMap<String> map;
@@ -161,6 +186,52 @@ public class StringModel extends AbstractModel
 		}
 	}
 	
+	protected void loadFeatures(DataInputStream fin) throws IOException
+	{
+		ObjectIntOpenHashMap<String> map;
+		int i, j, typeSize, valueSize;
+		String type;
+		
+		n_features = fin.readInt();
+		typeSize   = fin.readInt();
+		m_features = new HashMap<String, ObjectIntOpenHashMap<String>>();
+		
+		for (i=0; i<typeSize; i++)
+		{
+			type = fin.readUTF();
+			valueSize = fin.readInt();
+			map  = new ObjectIntOpenHashMap<String>(valueSize);
+			
+			for (j=0; j<valueSize; j++)
+				map.put(fin.readUTF(), fin.readInt());
+			
+			m_features.put(type, map);
+		}
+	}
+	
+	protected void saveFeatures(DataOutputStream fout) throws IOException
+	{
+		ObjectIntOpenHashMap<String> map;
+		String value;
+		
+		fout.writeInt(n_features);
+		fout.writeInt(m_features.size());
+		
+		for (String type : m_features.keySet())
+		{
+			map = m_features.get(type);
+			fout.writeUTF(type);
+			fout.writeInt(map.size());
+			
+			for (ObjectCursor<String> cur : map.keys())
+			{
+				value = cur.value;
+				fout.writeUTF(value);
+				fout.writeInt(map.get(value));
+			}
+		}
+	}
+	
 	/**
 	 * Adds the specific feature to this model.
 	 * @param type the feature type.
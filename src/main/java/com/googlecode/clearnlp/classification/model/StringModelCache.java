@@ -0,0 +1,166 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.compress.utils.IOUtils;
+
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.metric.Metrics;
+
+/**
+ * Array of string models that are parsed on first use and kept in a bounded cache.
+ * Each model is held in its serialized form, compressed, until {@link StringModelCache#get(int)} is called;
+ * parsed models are evicted in least-recently-used order once their total number of weights exceeds the cache size.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class StringModelCache
+{
+	/** The default maximum number of weights held by parsed models (128MB of doubles). */
+	static public final long DEFAULT_CACHE_SIZE = 1L << 24;
+	
+	private byte[][] b_models;
+	private Map<Integer,StringModel> m_cache;
+	private long n_maxWeights;
+	private long n_weights;
+	
+	/**
+	 * @param size the number of models.
+	 * @param maxWeights the maximum number of weights held by parsed models.
+	 */
+	public StringModelCache(int size, long maxWeights)
+	{
+		b_models     = new byte[size][];
+		m_cache      = new LinkedHashMap<Integer,StringModel>(16, 0.75f, true);
+		n_maxWeights = maxWeights;
+		n_weights    = 0;
+	}
+	
+	/** Stores the serialized model read from the specific stream (see {@link StringModel#save(java.io.PrintStream)}) without parsing it. */
+	public void put(int index, InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DeflaterOutputStream  dout = new DeflaterOutputStream(bout, new Deflater(Deflater.BEST_SPEED));
+		
+		IOUtils.copy(in, dout);
+		dout.close();
+		
+		b_models[index] = bout.toByteArray();
+	}
+	
+	/** @return the specific model, parsed if it is not in the cache; {@code null} if the model does not exist. */
+	synchronized public StringModel get(int index)
+	{
+		StringModel model = m_cache.get(index);
+		
+		if (model != null)
+		{
+			Metrics.count(Metrics.COUNT_CACHE_HITS, 1);
+			return model;
+		}
+		
+		if (b_models[index] == null)	return null;
+		Metrics.count(Metrics.COUNT_CACHE_MISSES, 1);
+		
+		model = parse(index);
+		m_cache.put(index, model);
+		n_weights += getWeightSize(model);
+		
+		evict(index);
+		return model;
+	}
+	
+	/** Removes the least recently used models except the specific one until the cache fits. */
+	private void evict(int index)
+	{
+		Iterator<Map.Entry<Integer,StringModel>> it = m_cache.entrySet().iterator();
+		Map.Entry<Integer,StringModel> entry;
+		
+		while (n_weights > n_maxWeights && it.hasNext())
+		{
+			entry = it.next();
+			if (entry.getKey() == index)	continue;
+			
+			n_weights -= getWeightSize(entry.getValue());
+			it.remove();
+		}
+	}
+	
+	private StringModel parse(int index)
+	{
+		StringModel model = new StringModel();
+		model.load(UTInput.createBufferedReader(new InflaterInputStream(new ByteArrayInputStream(b_models[index]))));
+		
+		return model;
+	}
+	
+	private long getWeightSize(StringModel model)
+	{
+		double[] weights = model.getWeights();
+		return (weights != null) ? weights.length : 0;
+	}
+	
+	/** @return all models, where models not in the cache are parsed without being added to the cache. */
+	synchronized public StringModel[] toArray()
+	{
+		int i, size = b_models.length;
+		StringModel[] models = new StringModel[size];
+		
+		for (i=0; i<size; i++)
+		{
+			if ((models[i] = m_cache.get(i)) == null && b_models[i] != null)
+				models[i] = parse(i);
+		}
+		
+		return models;
+	}
+	
+	/** Sets the maximum number of weights held by parsed models. */
+	synchronized public void setCacheSize(long maxWeights)
+	{
+		n_maxWeights = maxWeights;
+		evict(-1);
+	}
+	
+	/** @return the total number of models. */
+	public int size()
+	{
+		return b_models.length;
+	}
+	
+	/** @return the number of parsed models in the cache. */
+	synchronized public int getCachedSize()
+	{
+		return m_cache.size();
+	}
+	
+	/** @return the total number of weights held by parsed models in the cache. */
+	synchronized public long getCachedWeightSize()
+	{
+		return n_weights;
+	}
+}
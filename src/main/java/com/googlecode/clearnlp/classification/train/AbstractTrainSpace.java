@@ -24,6 +24,8 @@
 package com.googlecode.clearnlp.classification.train;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
@@ -35,6 +37,7 @@ import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.model.AbstractModel;
 import com.googlecode.clearnlp.classification.vector.AbstractFeatureVector;
 import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.UTOutput;
 
 
 /**
@@ -232,6 +235,68 @@ abstract public class AbstractTrainSpace
 		return true;
 	}
 	
+	/** Saves the built instances to the specific binary stream. */
+	protected void saveInstances(DataOutputStream fout) throws IOException
+	{
+		int i, j, len, size = a_ys.size();
+		int[] xs; double[] vs;
+		
+		fout.writeInt(size);
+		
+		for (i=0; i<size; i++)
+		{
+			xs  = a_xs.get(i);
+			len = xs.length;
+			
+			UTOutput.writeVarInt(fout, a_ys.get(i));
+			UTOutput.writeVarInt(fout, len);
+			
+			for (j=0; j<len; j++)
+				UTOutput.writeVarInt(fout, xs[j]);
+			
+			if (b_weight)
+			{
+				vs = a_vs.get(i);
+				
+				for (j=0; j<len; j++)
+					fout.writeDouble(vs[j]);
+			}
+		}
+	}
+	
+	/** Loads built instances saved by {@link AbstractTrainSpace#saveInstances(DataOutputStream)}. */
+	protected void loadInstances(DataInputStream fin) throws IOException
+	{
+		int i, j, len, size = fin.readInt();
+		int[] xs; double[] vs;
+		
+		a_ys = new IntArrayList(size);
+		a_xs = new ArrayList<int[]>(size);
+		if (b_weight)	a_vs = new ArrayList<double[]>(size);
+		
+		for (i=0; i<size; i++)
+		{
+			a_ys.add(UTInput.readVarInt(fin));
+			len = UTInput.readVarInt(fin);
+			xs  = new int[len];
+			
+			for (j=0; j<len; j++)
+				xs[j] = UTInput.readVarInt(fin);
+			
+			a_xs.add(xs);
+			
+			if (b_weight)
+			{
+				vs = new double[len];
+				
+				for (j=0; j<len; j++)
+					vs[j] = fin.readDouble();
+				
+				a_vs.add(vs);
+			}
+		}
+	}
+	
 	public void printInstances(PrintStream fout)
 	{
 		int i, j, len, size = a_ys.size();
@@ -23,6 +23,9 @@
 */
 package com.googlecode.clearnlp.classification.train;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,6 +52,10 @@ public class StringTrainSpace extends AbstractTrainSpace
 {
 	private final Logger LOG = Logger.getLogger(this.getClass());
 	
+	/** The header of a binary train space ({@code "CLTS"}). */
+	static private final int BINARY_MAGIC   = 0x434c5453;
+	static private final int BINARY_VERSION = 1;
+	
 	/** Casted from {@likn AbstractTrainSpace#m_model}. */
 	private StringModel s_model;
 	/** The label count cutoff (exclusive). */
@@ -218,6 +225,10 @@ public class StringTrainSpace extends AbstractTrainSpace
 	@Override
 	public void build(boolean clearInstances)
 	{
+		// already built (e.g., loaded by StringTrainSpace#load(DataInputStream))
+		if (s_instances.isEmpty() && !a_ys.isEmpty())
+			return;
+		
 		LOG.info("Building:\n");
 		initModelMaps();
 		
@@ -256,6 +267,42 @@ public class StringTrainSpace extends AbstractTrainSpace
 		build(true);
 	}
 	
+	/**
+	 * Saves the built vector space (labels, features, and instances) to the specific binary stream.
+	 * This space must be built before this method is called.
+	 * @see StringTrainSpace#load(DataInputStream)
+	 */
+	public void save(DataOutputStream fout) throws IOException
+	{
+		fout.writeInt(BINARY_MAGIC);
+		fout.writeInt(BINARY_VERSION);
+		fout.writeBoolean(b_weight);
+		s_model.saveLabelsAndFeatures(fout);
+		saveInstances(fout);
+	}
+	
+	/**
+	 * Loads a vector space saved by {@link StringTrainSpace#save(DataOutputStream)}.
+	 * The loaded space is already built; {@link StringTrainSpace#build()} does nothing afterwards.
+	 */
+	public void load(DataInputStream fin) throws IOException
+	{
+		if (fin.readInt() != BINARY_MAGIC || fin.readInt() != BINARY_VERSION)
+			throw new IOException("Not a binary train space");
+		
+		if (fin.readBoolean() != b_weight)
+			throw new IOException("Mismatched feature weight flag");
+		
+		clear();
+		s_model.loadLabelsAndFeatures(fin);
+		loadInstances(fin);
+		
+		LOG.info("Loading:\n");
+		LOG.info("- # of labels   : "+s_model.getLabelSize()+"\n");
+		LOG.info("- # of features : "+s_model.getFeatureSize()+"\n");
+		LOG.info("- # of instances: "+a_ys.size()+"\n");
+	}
+	
 	/** Called by {@link StringTrainSpace#build()}. */
 	private void initModelMaps()
 	{
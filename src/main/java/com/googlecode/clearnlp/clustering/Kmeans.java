@@ -29,7 +29,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 import com.carrotsearch.hppc.cursors.IntCursor;
@@ -40,6 +44,9 @@ import com.googlecode.clearnlp.util.pair.IntDoublePair;
 
 /**
  * K-means clustering.
+ * Centroids are kept sparse as an inverted index from each lexicon to the centroids containing it,
+ * so the similarities between a unit and all centroids are accumulated over the lexica of the unit only.
+ * Assignments and centroid updates are distributed over multiple threads.
  * @since 1.0.0
  * @author Jinho D. Choi ({@code choijd@colorado.edu})
  */
@@ -47,16 +54,38 @@ public class Kmeans
 {
 	private final int RAND_SEED = 0;
 	private int K, N, D;
+	private int n_threads;
 	
 	private ObjectIntOpenHashMap<String> m_lexica;
 	private List<int[]> v_units;
-	private double[] d_centroid;
+	
+	/** The entries of lexicon {@code d} are from {@code c_begins[d]} to {@code c_begins[d+1]} in {@link Kmeans#c_clusters} and {@link Kmeans#c_values}. */
+	private int[]    c_begins;
+	/** The centroid index of each entry. */
+	private int[]    c_clusters;
+	/** The centroid value of each entry. */
+	private double[] c_values;
 	private double[] d_scala;
 	
+	/** The centroid index of each unit. */
+	private int[]    a_clusters;
+	/** The similarity between each unit and its centroid. */
+	private double[] a_sims;
+	/** The RSS of the clusters returned by {@link Kmeans#cluster(int, double, boolean)}. */
+	private double   d_rss;
+	private ExecutorService e_pool;
+	
 	public Kmeans()
 	{
-		m_lexica = new ObjectIntOpenHashMap<String>();
-		v_units  = new ArrayList<int[]>();
+		this(1);
+	}
+	
+	/** @param numThreads the number of threads used for clustering. */
+	public Kmeans(int numThreads)
+	{
+		m_lexica  = new ObjectIntOpenHashMap<String>();
+		v_units   = new ArrayList<int[]>();
+		n_threads = Math.max(1, numThreads);
 	}
 	
 	public void addUnit(Set<String> lexica)
@@ -104,13 +133,23 @@ public class Kmeans
 		addUnit(lexica);
 	}
 
+	/**
+	 * K-means clustering with random seeds.
+	 * @see Kmeans#cluster(int, double, boolean)
+	 */
+	public List<List<IntDoublePair>> cluster(int k, double threshold)
+	{
+		return cluster(k, threshold, false);
+	}
+	
 	/**
 	 * K-means clustering.
 	 * @param threshold minimum RSS.
+	 * @param plusPlus if {@code true}, seeds are selected by k-means++; otherwise, seeds are selected randomly.
 	 * @return each row represents a cluster, and
 	 *         each column represents a pair of (index of a unit vector, similarity to the centroid).
 	 */
-	public List<List<IntDoublePair>> cluster(int k, double threshold)
+	public List<List<IntDoublePair>> cluster(int k, double threshold, boolean plusPlus)
 	{
 		List<List<IntDoublePair>> currCluster = null;
 		List<List<IntDoublePair>> prevCluster = null;
@@ -120,122 +159,236 @@ public class Kmeans
 		N = v_units.size();
 		D = m_lexica.size();
 		
-		initCentroids();
-		int iter, max = N / K;
+		a_clusters = new int[N];
+		a_sims     = new double[N];
+		e_pool     = Executors.newFixedThreadPool(n_threads);
 		
-		for (iter=0; iter<max; iter++) 
+		try
 		{
-			System.out.printf("===== Iteration: %d =====\n", iter);
-			
-			currCluster = getClusters();
-			updateCentroids(currCluster);
-			currRss = getRSS(currCluster);
-			
-			if (prevRss >= currRss)		return prevCluster;
-			if (currRss >= threshold)	break;
+			initCentroids(plusPlus ? getPlusPlusSeeds() : getRandomSeeds());
+			int iter, max = N / K;
 			
-			prevRss     = currRss;
-			prevCluster = currCluster;
+			for (iter=0; iter<max; iter++) 
+			{
+				System.out.printf("===== Iteration: %d =====\n", iter);
+				
+				currRss     = assign();
+				currCluster = getClusters();
+				updateCentroids(currCluster);
+				
+				if (prevRss >= currRss)
+				{
+					d_rss = prevRss;
+					return prevCluster;
+				}
+				
+				d_rss = currRss;
+				if (currRss >= threshold)	break;
+				
+				prevRss     = currRss;
+				prevCluster = currCluster;
+			}
+		}
+		finally
+		{
+			e_pool.shutdown();
 		}
 
 		return currCluster;
 	}
 	
-	/** Initializes random centroids. */
-	private void initCentroids()
+	/** @return the RSS of the clusters returned by the last call to {@link Kmeans#cluster(int, double, boolean)}, which is the average similarity between each unit and the centroid it was assigned to. */
+	public double getRSS()
+	{
+		return d_rss;
+	}
+	
+//	====================================== SEEDS ======================================
+	
+	/** @return the indices of {@code K} random units. */
+	private int[] getRandomSeeds()
 	{
 		IntOpenHashSet set = new IntOpenHashSet();
 		Random rand = new Random(RAND_SEED);
-		d_centroid  = new double[K*D];
-		d_scala     = new double[K];
+		int[] seeds = new int[K];
+		int k = 0;
 		
 		while (set.size() < K)
 			set.add(rand.nextInt(N));
-
-		int[] unit;
-		int k = 0;
 		
 		for (IntCursor cur : set)
+			seeds[k++] = cur.value;
+		
+		return seeds;
+	}
+	
+	/** @return the indices of {@code K} units selected by k-means++, where the distance between units is {@code 1 - cosine}. */
+	private int[] getPlusPlusSeeds()
+	{
+		Random rand = new Random(RAND_SEED);
+		double[] dists = new double[N];
+		int[] seeds = new int[K];
+		double sum, r;
+		int i, k;
+		
+		System.out.print("Seeding: ");
+		Arrays.fill(dists, Double.MAX_VALUE);
+		seeds[0] = rand.nextInt(N);
+		
+		for (k=1; k<K; k++)
 		{
-			unit = v_units.get(cur.value);
+			runTasks(getSeedTasks(v_units.get(seeds[k-1]), dists));
+			sum = 0;
 			
-			for (int index : unit)
-				d_centroid[getCentroidIndex(k, index)] = 1;
+			for (i=0; i<N; i++)
+				sum += dists[i] * dists[i];
 			
-			d_scala[k++] = Math.sqrt(unit.length);
+			if (sum > 0)
+			{
+				r = rand.nextDouble() * sum;
+				
+				for (i=0; i<N-1; i++)
+				{
+					if ((r -= dists[i] * dists[i]) < 0)
+						break;
+				}
+			}
+			else
+				i = rand.nextInt(N);
+			
+			seeds[k] = i;
+			if (k%100 == 0)	System.out.print(".");
 		}
+		
+		System.out.println();
+		return seeds;
 	}
 	
-	/** @return centroid of each cluster. */
+	private List<Runnable> getSeedTasks(int[] seed, double[] dists)
+	{
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		int i, size = getShardSize(N);
+		
+		for (i=0; i<size; i++)
+			tasks.add(new SeedTask(N * i / size, N * (i+1) / size, seed, dists));
+		
+		return tasks;
+	}
+	
+	/** Initializes the centroids with the specific seed units. */
+	private void initCentroids(int[] seeds)
+	{
+		int[][]    indices = new int[K][];
+		double[][] values  = new double[K][];
+		int k;
+		
+		for (k=0; k<K; k++)
+		{
+			indices[k] = v_units.get(seeds[k]);
+			values [k] = new double[indices[k].length];
+			Arrays.fill(values[k], 1);
+		}
+		
+		setCentroids(indices, values);
+	}
+	
+//	====================================== CENTROIDS ======================================
+	
+	/** Updates the centroid of each cluster. */
 	private void updateCentroids(List<List<IntDoublePair>> cluster)
 	{
-		List<IntDoublePair> ck;
-		int i, k, size;
-		double scala;
+		int[][]    indices = new int[K][];
+		double[][] values  = new double[K][];
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		int i, size = Math.min(n_threads, K);
 		
-		Arrays.fill(d_centroid, 0);
-		Arrays.fill(d_scala   , 0);
+		System.out.println("Updating centroids");
 		
-		System.out.print("Updating centroids: ");
+		for (i=0; i<size; i++)
+			tasks.add(new UpdateTask(K * i / size, K * (i+1) / size, cluster, indices, values));
+		
+		runTasks(tasks);
+		setCentroids(indices, values);
+	}
+	
+	/** Builds the inverted index of the specific sparse centroids. */
+	private void setCentroids(int[][] indices, double[][] values)
+	{
+		int i, k, index, size = 0;
+		double scala;
+		
+		c_begins = new int[D+1];
+		d_scala  = new double[K];
 		
 		for (k=0; k<K; k++)
 		{
-			ck = cluster.get(k);
+			for (int d : indices[k])
+				c_begins[d+1]++;
 			
-			for (IntDoublePair p : ck)
-			{
-				for (int index : v_units.get(p.i))
-					d_centroid[getCentroidIndex(k, index)] += 1;
-			}
-			
-			size  = ck.size();
+			size += indices[k].length;
+		}
+		
+		for (i=0; i<D; i++)
+			c_begins[i+1] += c_begins[i];
+		
+		int[] next = Arrays.copyOf(c_begins, D);
+		c_clusters = new int[size];
+		c_values   = new double[size];
+		
+		for (k=0; k<K; k++)
+		{
 			scala = 0;
 			
-			for (i=k*D; i<(k+1)*D; i++)
+			for (i=0; i<indices[k].length; i++)
 			{
-				if (d_centroid[i] > 0)
-				{
-					d_centroid[i] /= size;
-					scala += d_centroid[i] * d_centroid[i];	
-				}
+				index = next[indices[k][i]]++;
+				c_clusters[index] = k;
+				c_values  [index] = values[k][i];
+				scala += values[k][i] * values[k][i];
 			}
 			
 			d_scala[k] = Math.sqrt(scala);
-			System.out.print(".");
 		}
+	}
+	
+//	====================================== ASSIGN ======================================
+	
+	/**
+	 * Assigns each unit to its most similar centroid.
+	 * @return the RSS of the assignments.
+	 */
+	private double assign()
+	{
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		int i, size = getShardSize(N);
+		double sim = 0;
 		
-		System.out.println();
+		System.out.println("Clustering");
+		
+		for (i=0; i<size; i++)
+			tasks.add(new AssignTask(N * i / size, N * (i+1) / size));
+		
+		runTasks(tasks);
+		
+		for (Runnable task : tasks)
+			sim += ((AssignTask)task).d_sim;
+		
+		sim /= N;
+		System.out.println("RSS = "+sim);
+		return sim;
 	}
 	
 	/** Each cluster contains indices of {@link Kmeans#v_units}. */
 	private List<List<IntDoublePair>> getClusters()
 	{
 		List<List<IntDoublePair>> cluster = new ArrayList<List<IntDoublePair>>(K);
-		IntDoublePair max = new IntDoublePair(-1, -1);
-		int[] unit;
-		int i, k;	double sim;
+		int i, k;
 		
 		for (k=0; k<K; k++)
 			cluster.add(new ArrayList<IntDoublePair>());
 		
-		System.out.print("Clustering: ");
-		
 		for (i=0; i<N; i++)
-		{
-			unit = v_units.get(i);
-			max.set(-1, -1);
-			
-			for (k=0; k<K; k++)
-			{
-				if ((sim = cosine(unit, k)) > max.d)
-					max.set(k, sim);
-			}
-			
-			cluster.get(max.i).add(new IntDoublePair(i, max.d));
-			if (i%10000 == 0)	System.out.print(".");
-		}
-		
-		System.out.println();
+			cluster.get(a_clusters[i]).add(new IntDoublePair(i, a_sims[i]));
 		
 		for (k=0; k<K; k++)
 			System.out.printf("- %4d: %d\n", k, cluster.get(k).size());
@@ -243,42 +396,186 @@ public class Kmeans
 		return cluster;
 	}
 	
-	/**
-	 * @param k     [0, K-1].
-	 * @param index [0, D-1].
-	 */
-	private int getCentroidIndex(int k, int index)
+//	====================================== THREADS ======================================
+	
+	/** @return the number of shards that {@code size} items are split into. */
+	private int getShardSize(int size)
 	{
-		return k * D + index;
+		return Math.max(1, Math.min(size, n_threads * 4));
 	}
 	
-	private double getRSS(List<List<IntDoublePair>> cluster)
+	/** Runs the specific tasks on {@link Kmeans#e_pool} and waits until all tasks are finished. */
+	private void runTasks(List<Runnable> tasks)
 	{
-		double sim = 0;
-		System.out.print("Calulating RSS: ");
+		List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+		
+		for (Runnable task : tasks)
+			futures.add(e_pool.submit(task));
+		
+		try
+		{
+			for (Future<?> future : futures)
+				future.get();
+		}
+		catch (Exception e) {throw new IllegalStateException(e);}
+	}
+	
+	/** Assigns units in {@code [begin, end)} to their most similar centroids. */
+	private class AssignTask implements Runnable
+	{
+		int    i_begin, i_end;
+		/** The sum of similarities between the units and their centroids. */
+		double d_sim;
+		
+		public AssignTask(int begin, int end)
+		{
+			i_begin = begin;
+			i_end   = end;
+		}
+		
+		public void run()
+		{
+			double[] dots = new double[K];
+			int i, j, k, maxK, end;
+			double norm, sim, max;
+			
+			for (i=i_begin; i<i_end; i++)
+			{
+				int[] unit = v_units.get(i);
+				Arrays.fill(dots, 0);
+				
+				for (int index : unit)
+				{
+					end = c_begins[index+1];
+					
+					for (j=c_begins[index]; j<end; j++)
+						dots[c_clusters[j]] += c_values[j];
+				}
+				
+				norm = Math.sqrt(unit.length);
+				maxK = 0;
+				max  = -1;
+				
+				for (k=0; k<K; k++)
+				{
+					if ((sim = dots[k] / (norm * d_scala[k])) > max)
+					{
+						maxK = k;
+						max  = sim;
+					}
+				}
+				
+				if (max < 0)	max = 0;
+				a_clusters[i] = maxK;
+				a_sims    [i] = max;
+				d_sim += max;
+			}
+		}
+	}
+	
+	/** Computes the sparse centroids of clusters in {@code [begin, end)}. */
+	private class UpdateTask implements Runnable
+	{
+		int i_begin, i_end;
+		List<List<IntDoublePair>> l_cluster;
+		int[][]    a_indices;
+		double[][] a_values;
 		
-		for (int k=0; k<K; k++)
+		public UpdateTask(int begin, int end, List<List<IntDoublePair>> cluster, int[][] indices, double[][] values)
 		{
-			for (IntDoublePair tup : cluster.get(k))
-				sim += cosine(v_units.get(tup.i), k);
+			i_begin   = begin;
+			i_end     = end;
+			l_cluster = cluster;
+			a_indices = indices;
+			a_values  = values;
+		}
+		
+		public void run()
+		{
+			IntArrayList touched = new IntArrayList();
+			int[] counts = new int[D];
+			List<IntDoublePair> ck;
+			int i, k, index, size;
+			int[] indices;
+			double[] values;
 			
-			System.out.print(".");
+			for (k=i_begin; k<i_end; k++)
+			{
+				ck = l_cluster.get(k);
+				touched.clear();
+				
+				for (IntDoublePair p : ck)
+				{
+					for (int d : v_units.get(p.i))
+						if (counts[d]++ == 0)	touched.add(d);
+				}
+				
+				indices = touched.toArray();
+				Arrays.sort(indices);
+				values  = new double[indices.length];
+				size    = ck.size();
+				
+				for (i=0; i<indices.length; i++)
+				{
+					index = indices[i];
+					values[i] = (double)counts[index] / size;
+					counts[index] = 0;
+				}
+				
+				a_indices[k] = indices;
+				a_values [k] = values;
+			}
 		}
+	}
+	
+	/** Updates the distance between each unit in {@code [begin, end)} and its nearest seed. */
+	private class SeedTask implements Runnable
+	{
+		int i_begin, i_end;
+		int[] a_seed;
+		double[] d_dists;
 		
-		System.out.println();
-		sim /= N;
+		public SeedTask(int begin, int end, int[] seed, double[] dists)
+		{
+			i_begin = begin;
+			i_end   = end;
+			a_seed  = seed;
+			d_dists = dists;
+		}
 		
-		System.out.println("RSS = "+sim);
-		return sim / N;
+		public void run()
+		{
+			double dist;
+			int i;
+			
+			for (i=i_begin; i<i_end; i++)
+			{
+				dist = 1 - cosine(v_units.get(i), a_seed);
+				if (dist < d_dists[i])	d_dists[i] = dist;
+			}
+		}
 	}
 	
-	private double cosine(int[] unit, int k)
+	/** @return the cosine similarity between the specific binary units whose indices are sorted. */
+	private double cosine(int[] unit1, int[] unit2)
 	{
-		double dot = 0;
+		if (unit1.length == 0 || unit2.length == 0)
+			return 0;
+		
+		int i = 0, j = 0, dot = 0;
 		
-		for (int index : unit)
-			dot += d_centroid[getCentroidIndex(k, index)];
+		while (i < unit1.length && j < unit2.length)
+		{
+			if      (unit1[i] < unit2[j])	i++;
+			else if (unit1[i] > unit2[j])	j++;
+			else
+			{
+				dot++;
+				i++;
+				j++;
+			}
+		}
 		
-		return dot / (Math.sqrt(unit.length) * d_scala[k]);
+		return dot / Math.sqrt((double)unit1.length * unit2.length);
 	}
 }
@@ -16,6 +16,7 @@
 package com.googlecode.clearnlp.component;
 
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.util.metric.Metrics;
 
 /**
  * @since 1.3.0
@@ -30,6 +31,20 @@ abstract public class AbstractComponent
 	protected final byte FLAG_DEVELOP	= 4;
 	
 	protected byte i_flag;
+	/** The name of the stage whose latency is measured for this component (see {@link Metrics}). */
+	private String s_stageName;
+	
+	/** Sets the name of the stage whose latency is measured for this component (e.g., {@code pos}). */
+	public void setStageName(String name)
+	{
+		s_stageName = name;
+	}
+	
+	/** @return the name of the stage of this component; if no name is set, the simple name of its class. */
+	public String getStageName()
+	{
+		return (s_stageName != null) ? s_stageName : getClass().getSimpleName();
+	}
 	
 	/** Process this joint-component. */
 	abstract public void process(DEPTree tree);
@@ -17,12 +17,16 @@ package com.googlecode.clearnlp.component;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -30,8 +34,10 @@ import java.util.zip.ZipOutputStream;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.log4j.Logger;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.model.ONStringModel;
 import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.model.StringModelCache;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
 import com.googlecode.clearnlp.dependency.DEPTree;
@@ -39,9 +45,11 @@ import com.googlecode.clearnlp.feature.xml.FtrTemplate;
 import com.googlecode.clearnlp.feature.xml.FtrToken;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.reader.AbstractColumnReader;
+import com.googlecode.clearnlp.util.UTHash;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTOutput;
 import com.googlecode.clearnlp.util.pair.Pair;
+import com.googlecode.clearnlp.util.set.LongPairOpenHashSet;
 
 /**
  * @since 1.3.0
@@ -53,9 +61,15 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 	
 	protected StringTrainSpace[]	s_spaces;
 	protected StringModel[]			s_models;
+	/** Models parsed on first use; if not {@code null}, used instead of {@link AbstractStatisticalComponent#s_models}. */
+	protected StringModelCache		c_models;
 	protected JointFtrXml[]			f_xmls;
 	protected DEPTree				d_tree;
 	protected int 					t_size;		// size of d_tree
+	/** Parses models while the rest of the zip is being read; see {@link AbstractStatisticalComponent#finishStatisticalModels()}. */
+	private ExecutorService			e_loader;
+	/** The results of the models submitted to {@link AbstractStatisticalComponent#e_loader}. */
+	private List<Future<Void>>		l_loads;
 	
 //	====================================== CONSTRUCTORS ======================================
 	
@@ -112,7 +126,10 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 
 //	====================================== LOAD/SAVE MODELS ======================================
 
-	/** Loads all models of this joint-component. */
+	/**
+	 * Loads all models of this joint-component.
+	 * @throws IllegalStateException if any entry fails to load; no partially loaded component is left behind.
+	 */
 	abstract public void loadModels(ZipInputStream zin);
 	
 	protected void loadDefaultConfiguration(ZipInputStream zin) throws Exception
@@ -150,11 +167,99 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 		return new ByteArrayInputStream(build.toString().getBytes());
 	}
 	
-	/** Called by {@link AbstractStatisticalComponent#loadModels(ZipInputStream)}}. */
+	/**
+	 * Called by {@link AbstractStatisticalComponent#loadModels(ZipInputStream)}}.
+	 * The model is parsed on a separate thread so other entries can be read meanwhile;
+	 * {@link AbstractStatisticalComponent#finishStatisticalModels()} must be called after all entries are read,
+	 * and {@link AbstractStatisticalComponent#shutdownStatisticalModels()} if reading the entries fails.
+	 */
 	protected void loadStatisticalModels(ZipInputStream zin, int index) throws Exception
 	{
-		BufferedReader fin = UTInput.createBufferedReader(zin);
-		s_models[index] = new StringModel(fin);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		IOUtils.copy(zin, bout);
+		
+		if (e_loader == null)
+		{
+			e_loader = Executors.newFixedThreadPool(Math.max(1, Math.min(s_models.length, Runtime.getRuntime().availableProcessors())));
+			l_loads  = new ArrayList<Future<Void>>();
+		}
+		
+		l_loads.add(e_loader.submit(new LoadModelTask(bout.toByteArray(), index)));
+	}
+	
+	/**
+	 * Waits until all models passed to {@link AbstractStatisticalComponent#loadStatisticalModels(ZipInputStream, int)} are parsed.
+	 * @throws Exception the first error thrown while parsing a model.
+	 */
+	protected void finishStatisticalModels() throws Exception
+	{
+		if (e_loader == null)	return;
+		
+		try
+		{
+			for (Future<Void> load : l_loads)
+			{
+				try
+				{
+					load.get();
+				}
+				catch (ExecutionException e)
+				{
+					if (e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					
+					throw e;
+				}
+			}
+		}
+		finally
+		{
+			shutdownStatisticalModels();
+		}
+	}
+	
+	/** Stops parsing the models passed to {@link AbstractStatisticalComponent#loadStatisticalModels(ZipInputStream, int)}; called when reading the entries fails. */
+	protected void shutdownStatisticalModels()
+	{
+		if (e_loader == null)	return;
+		
+		e_loader.shutdownNow();
+		e_loader = null;
+		l_loads  = null;
+	}
+	
+	/** Called by {@link AbstractStatisticalComponent#loadStatisticalModels(ZipInputStream, int)}. */
+	private class LoadModelTask implements Callable<Void>
+	{
+		byte[] b_model;
+		int    i_model;
+		
+		public LoadModelTask(byte[] model, int index)
+		{
+			b_model = model;
+			i_model = index;
+		}
+		
+		public Void call() throws Exception
+		{
+			StringModel model = new StringModel();
+			model.loadModel(UTInput.createBufferedReader(new ByteArrayInputStream(b_model)));
+			s_models[i_model] = model;
+			
+			return null;
+		}
+	}
+	
+	/**
+	 * Called by {@link AbstractStatisticalComponent#loadModels(ZipInputStream)}}.
+	 * Keeps the model serialized until {@link AbstractStatisticalComponent#getModel(int)} is called.
+	 */
+	protected void loadLazyStatisticalModels(ZipInputStream zin, int index) throws Exception
+	{
+		if (c_models == null)
+			c_models = new StringModelCache(s_models.length, StringModelCache.DEFAULT_CACHE_SIZE);
+		
+		c_models.put(index, zin);
 	}
 	
 	/** For online decoders. */
@@ -199,14 +304,15 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 	/** Called by {@link AbstractStatisticalComponent#saveModels(ZipOutputStream)}}. */
 	protected void saveStatisticalModels(ZipOutputStream zout, String entryName) throws Exception
 	{
-		int i, size = s_models.length;
+		StringModel[] models = getModels();
+		int i, size = models.length;
 		PrintStream fout;
 		
 		for (i=0; i<size; i++)
 		{
 			zout.putNextEntry(new ZipEntry(entryName+i));
 			fout = UTOutput.createPrintBufferedStream(zout);
-			s_models[i].save(fout);
+			models[i].save(fout);
 			fout.flush();
 			zout.closeEntry();			
 		}
@@ -223,7 +329,25 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 	/** @return all models of this joint-components. */
 	public StringModel[] getModels()
 	{
-		return s_models;
+		return (c_models != null) ? c_models.toArray() : s_models;
+	}
+	
+	/** @return the specific model of this joint-components. */
+	protected StringModel getModel(int index)
+	{
+		return (c_models != null) ? c_models.get(index) : s_models[index];
+	}
+	
+	/** @return the cache of models parsed on first use, or {@code null} if all models are loaded eagerly. */
+	public StringModelCache getModelCache()
+	{
+		return c_models;
+	}
+	
+	/** @return all feature templates of this joint-components. */
+	public JointFtrXml[] getFeatureTemplates()
+	{
+		return f_xmls;
 	}
 	
 	/** @return all objects containing lexica. */
@@ -308,23 +432,76 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 			vector.addFeature(type, prev);
 	}
 	
+	/** @return the list of unique instances, where duplicates (same label and features) are dropped. */
 	protected List<Pair<String,StringFeatureVector>> getTrimmedInstances(List<Pair<String,StringFeatureVector>> insts)
+	{
+		return getTrimmedInstances(insts, null);
+	}
+	
+	/**
+	 * Returns the list of unique instances, where duplicates (same label and features) are dropped.
+	 * Instances are compared by their 128-bit fingerprints so no key string is created per instance.
+	 * @param counts if not {@code null}, the number of occurrences of each returned instance is appended to this list,
+	 * so a duplicate adds to the weight of its first occurrence instead of being lost.
+	 * @return the list of unique instances, which are the first occurrences in their original order.
+	 */
+	protected List<Pair<String,StringFeatureVector>> getTrimmedInstances(List<Pair<String,StringFeatureVector>> insts, IntArrayList counts)
 	{
 		List<Pair<String,StringFeatureVector>> nInsts = new ArrayList<Pair<String,StringFeatureVector>>();
-		Set<String> set = new HashSet<String>();
-		String key;
+		LongPairOpenHashSet set = new LongPairOpenHashSet(insts.size());
+		int idx, offset = (counts != null) ? counts.size() : 0;
 		
 		for (Pair<String,StringFeatureVector> p : insts)
 		{
-			key = p.o1+" "+p.o2.toString();
+			idx = set.add(getFingerprint(p, true), getFingerprint(p, false));
 			
-			if (!set.contains(key))
+			if (idx < 0)
 			{
 				nInsts.add(p);
-				set.add(key);
+				if (counts != null)	counts.add(1);
+			}
+			else if (counts != null)
+			{
+				idx += offset;
+				counts.set(idx, counts.get(idx)+1);
 			}
 		}
 		
 		return nInsts;
 	}
+	
+	/**
+	 * Called by {@link AbstractStatisticalComponent#getTrimmedInstances(List, IntArrayList)}.
+	 * Feature hashes are summed so the fingerprint does not depend on the order of features.
+	 * @param laneA if {@code true}, returns the upper 64 bits of the fingerprint; otherwise, the lower 64 bits.
+	 */
+	private long getFingerprint(Pair<String,StringFeatureVector> p, boolean laneA)
+	{
+		StringFeatureVector vector = p.o2;
+		int i, size = vector.size();
+		long h, sum = 0;
+		
+		for (i=0; i<size; i++)
+		{
+			if (laneA)
+			{
+				h = UTHash.hashA(UTHash.SEED_A, vector.getType(i));
+				h = UTHash.hashA(UTHash.hashA(h, ':'), vector.getValue(i));
+				if (vector.hasWeight())	h = UTHash.hashA(h, Double.doubleToLongBits(vector.getWeight(i)));
+			}
+			else
+			{
+				h = UTHash.hashB(UTHash.SEED_B, vector.getType(i));
+				h = UTHash.hashB(UTHash.hashB(h, ':'), vector.getValue(i));
+				if (vector.hasWeight())	h = UTHash.hashB(h, Double.doubleToLongBits(vector.getWeight(i)));
+			}
+			
+			sum += UTHash.mix(h);
+		}
+		
+		if (laneA)	h = UTHash.hashA(UTHash.hashA(UTHash.hashA(UTHash.SEED_A, p.o1), size), sum);
+		else		h = UTHash.hashB(UTHash.hashB(UTHash.hashB(UTHash.SEED_B, p.o1), size), sum);
+		
+		return UTHash.mix(h);
+	}
 }
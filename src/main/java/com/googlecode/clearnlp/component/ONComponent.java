@@ -0,0 +1,36 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component;
+
+import com.googlecode.clearnlp.classification.model.ONStringModel;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/**
+ * Component that learns incrementally using an online model.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public interface ONComponent
+{
+	/** Updates the online model of this component using the specific gold-standard tree. */
+	public void train(DEPTree tree);
+	
+	/** @return the online model of this component. */
+	public ONStringModel getOnlineModel();
+	
+	/** Replaces the online model of this component (e.g., with a snapshot). */
+	public void setOnlineModel(ONStringModel model);
+}
@@ -0,0 +1,240 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.googlecode.clearnlp.classification.model.ONStringModel;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/**
+ * Applies online updates to a component on a single learner thread while decoders read published snapshots.
+ * Gold-standard trees are queued by {@link ONConcurrentLearner#submit(DEPTree)} from any thread.
+ * A new snapshot of the learner's model is published after every {@code publishTrees} updates
+ * or {@code publishMillis} milliseconds, whichever comes first.
+ * Each decoder thread owns its own component (e.g., {@code new ONPOSTagger(xmls, lexica, learner.getSnapshot())})
+ * and calls {@link ONConcurrentLearner#refresh(ONComponent)} between trees to pick up the latest snapshot.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ONConcurrentLearner implements Runnable
+{
+	private final Logger LOG = Logger.getLogger(this.getClass());
+
+	private ONComponent				c_learner;
+	private BlockingQueue<TimedTree>	q_trees;
+	private int						n_publishTrees;
+	private long					n_publishMillis;
+	private Thread					t_learner;
+
+	volatile private ONStringModel	m_snapshot;
+	volatile private boolean		b_running;
+	volatile private long			n_version;
+	volatile private long			l_lastLag;
+
+	private AtomicLong n_submitted = new AtomicLong();
+	private AtomicLong n_trained   = new AtomicLong();
+	private AtomicLong n_failed    = new AtomicLong();
+	private AtomicLong l_maxLag    = new AtomicLong();
+	private AtomicLong l_totalLag  = new AtomicLong();
+
+	/**
+	 * @param learner the component whose model is updated; must not be used by any other thread.
+	 * @param publishTrees the number of updated trees after which a snapshot is published.
+	 * @param publishMillis the number of milliseconds after which pending updates are published.
+	 */
+	public ONConcurrentLearner(ONComponent learner, int publishTrees, long publishMillis)
+	{
+		c_learner       = learner;
+		q_trees         = new LinkedBlockingQueue<TimedTree>();
+		n_publishTrees  = publishTrees;
+		n_publishMillis = publishMillis;
+		m_snapshot      = learner.getOnlineModel().getSnapshot();
+	}
+
+	/** Starts the learner thread. */
+	public void start()
+	{
+		b_running = true;
+		t_learner = new Thread(this, "ONConcurrentLearner");
+		t_learner.setDaemon(true);
+		t_learner.start();
+	}
+
+	/** Stops the learner thread after all submitted trees are learned and published; does nothing if the learner has not been started. */
+	public void stop()
+	{
+		b_running = false;
+		if (t_learner == null)	return;
+
+		try
+		{
+			t_learner.join();
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+	}
+
+	/** Queues the specific gold-standard tree to be learned; the tree must not be modified afterwards. */
+	public void submit(DEPTree tree)
+	{
+		q_trees.add(new TimedTree(tree, System.currentTimeMillis()));
+		n_submitted.incrementAndGet();
+	}
+
+	/** @return the most recently published snapshot. */
+	public ONStringModel getSnapshot()
+	{
+		return m_snapshot;
+	}
+
+	/** Sets the most recently published snapshot to the specific decoder if it is not up-to-date. */
+	public void refresh(ONComponent decoder)
+	{
+		ONStringModel snapshot = m_snapshot;
+
+		if (decoder.getOnlineModel() != snapshot)
+			decoder.setOnlineModel(snapshot);
+	}
+
+	public void run()
+	{
+		long oldest = -1, lastPublish = System.currentTimeMillis(), wait;
+		int count = 0;
+		TimedTree item;
+
+		while (b_running || !q_trees.isEmpty())
+		{
+			wait = Math.max(1, n_publishMillis - (System.currentTimeMillis() - lastPublish));
+
+			try
+			{
+				item = q_trees.poll(wait, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {break;}
+
+			if (item != null)
+			{
+				try
+				{
+					c_learner.train(item.tree);
+					
+					if (oldest < 0)	oldest = item.time;
+					n_trained.incrementAndGet();
+					count++;
+				}
+				catch (Exception e)
+				{
+					// a failed tree does not change the model, so it counts neither as learned nor toward the lag
+					LOG.error("Failed to learn a tree: "+e.getMessage()+"\n");
+					n_failed.incrementAndGet();
+				}
+			}
+
+			if (count > 0 && (count >= n_publishTrees || System.currentTimeMillis() - lastPublish >= n_publishMillis))
+			{
+				publish(oldest);
+				lastPublish = System.currentTimeMillis();
+				oldest = -1;
+				count  = 0;
+			}
+		}
+
+		if (count > 0)	publish(oldest);
+	}
+
+	/** Called by {@link ONConcurrentLearner#run()}. */
+	private void publish(long oldest)
+	{
+		m_snapshot = c_learner.getOnlineModel().getSnapshot();
+		n_version++;
+
+		long lag = System.currentTimeMillis() - oldest;
+		long max;
+
+		l_lastLag = lag;
+		l_totalLag.addAndGet(lag);
+
+		while ((max = l_maxLag.get()) < lag && !l_maxLag.compareAndSet(max, lag));
+	}
+
+//	====================================== METRICS ======================================
+
+	/** @return the number of snapshots published since this learner was created. */
+	public long getVersion()
+	{
+		return n_version;
+	}
+
+	/** @return the number of trees submitted. */
+	public long getSubmittedSize()
+	{
+		return n_submitted.get();
+	}
+
+	/** @return the number of trees learned, excluding trees that failed to be learned. */
+	public long getTrainedSize()
+	{
+		return n_trained.get();
+	}
+
+	/** @return the number of trees that failed to be learned. */
+	public long getFailedSize()
+	{
+		return n_failed.get();
+	}
+
+	/** @return the number of trees waiting to be learned. */
+	public int getPendingSize()
+	{
+		return q_trees.size();
+	}
+
+	/** @return the milliseconds between the submission of the oldest tree in the last snapshot and its publication. */
+	public long getLastLag()
+	{
+		return l_lastLag;
+	}
+
+	/** @return the maximum of {@link ONConcurrentLearner#getLastLag()} over all snapshots. */
+	public long getMaxLag()
+	{
+		return l_maxLag.get();
+	}
+
+	/** @return the average of {@link ONConcurrentLearner#getLastLag()} over all snapshots. */
+	public double getAverageLag()
+	{
+		long version = n_version;
+		return (version > 0) ? (double)l_totalLag.get() / version : 0;
+	}
+
+	private class TimedTree
+	{
+		DEPTree tree;
+		long    time;
+
+		public TimedTree(DEPTree tree, long time)
+		{
+			this.tree = tree;
+			this.time = time;
+		}
+	}
+}
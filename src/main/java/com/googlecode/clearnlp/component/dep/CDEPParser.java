@@ -28,6 +28,8 @@ import java.util.zip.ZipOutputStream;
 
 import org.apache.log4j.Logger;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
@@ -45,6 +47,7 @@ import com.googlecode.clearnlp.nlp.NLPLib;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTOutput;
 import com.googlecode.clearnlp.util.map.Prob1DMap;
+import com.googlecode.clearnlp.util.metric.Metrics;
 import com.googlecode.clearnlp.util.pair.Pair;
 import com.googlecode.clearnlp.util.pair.StringIntPair;
 import com.googlecode.clearnlp.util.triple.Triple;
@@ -56,7 +59,7 @@ import com.googlecode.clearnlp.util.triple.Triple;
  */
 public class CDEPParser extends AbstractStatisticalComponent
 {
-	private final Logger LOG = Logger.getLogger(this.getClass());
+	static private final Logger LOG = Logger.getLogger(CDEPParser.class);
 	
 	protected final String ENTRY_CONFIGURATION = NLPLib.MODE_DEP + NLPLib.ENTRY_CONFIGURATION;
 	protected final String ENTRY_FEATURE	   = NLPLib.MODE_DEP + NLPLib.ENTRY_FEATURE;
@@ -82,6 +85,23 @@ public class CDEPParser extends AbstractStatisticalComponent
 	
 	protected List<List<StringIntPair>> l_2nd;
 	
+	/** The default margin between the best and second-best scores below which second-best arcs are kept for {@link CDEPParser#postProcess()}. */
+	static public final double DEFAULT_SECOND_MARGIN = 1;
+	/** See {@link CDEPParser#setSecondBestMargin(double)}. */
+	protected double d_secondMargin = DEFAULT_SECOND_MARGIN;
+	/** The labels of {@link CDEPParser#m_labels} split into arcs, lists, and dependency labels. */
+	private DEPLabel[]  a_labels;
+	private StringModel m_labels;
+	/** The indices of labels in {@link CDEPParser#a_labels} with left and right arcs. */
+	private int[]       a_leftLabels, a_rightLabels;
+	/** The indices of the best and second-best labels of the current transition. */
+	private int[]       a_top = new int[2];
+	
+	/** See {@link CDEPParser#setPostProcessWindow(int)}. */
+	protected int n_postWindow = 0;
+	/** The scores of transitions within {@link CDEPParser#n_postWindow}, keyed by {@code lambda * size + beta}. */
+	protected IntObjectOpenHashMap<double[]> m_scores;
+	
 //	====================================== CONSTRUCTORS ======================================
 
 	public CDEPParser() {}
@@ -149,8 +169,61 @@ public class CDEPParser extends AbstractStatisticalComponent
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
+			
+			finishStatisticalModels();
+			if (s_models != null)	initLabels(s_models[0]);
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	/** Splits the labels of the specific model so that no label is parsed per transition. */
+	private void initLabels(StringModel model)
+	{
+		int i, size = model.getLabelSize();
+		DEPLabel[] labels = new DEPLabel[size];
+		IntArrayList left  = new IntArrayList();
+		IntArrayList right = new IntArrayList();
+		
+		for (i=0; i<size; i++)
+		{
+			labels[i] = new DEPLabel(model.getLabel(i));
+			
+			if      (labels[i].isArc(LB_LEFT))	left .add(i);
+			else if (labels[i].isArc(LB_RIGHT))	right.add(i);
+		}
+		
+		a_labels      = labels;
+		a_leftLabels  = left .toArray();
+		a_rightLabels = right.toArray();
+		m_labels      = model;
+	}
+	
+	/**
+	 * Sets the margin between the best and second-best scores below which the second-best arc of each transition is kept for {@link CDEPParser#postProcess()}.
+	 * If the margin is not positive, only the best label is found and no second-best arc is kept.
+	 * @param margin the margin (default: {@link CDEPParser#DEFAULT_SECOND_MARGIN}).
+	 */
+	public void setSecondBestMargin(double margin)
+	{
+		d_secondMargin = margin;
+	}
+	
+	/**
+	 * Sets the maximum distance between a token left without a head and its candidate heads in {@link CDEPParser#postProcess()}.
+	 * If the window is positive, scores computed during parsing are reused for candidates within the window,
+	 * and other candidates are scored without creating predictions; otherwise, all tokens in the sentence are considered.
+	 * @param window the maximum distance (default: 0).
+	 */
+	public void setPostProcessWindow(int window)
+	{
+		n_postWindow = window;
 	}
 	
 	protected void loadLexica(ZipInputStream zin) throws Exception
@@ -251,6 +324,8 @@ public class CDEPParser extends AbstractStatisticalComponent
 	 	int i; for (i=0; i<t_size; i++)
 	 		l_2nd.add(new ArrayList<StringIntPair>());
 	 	
+	 	m_scores = (n_postWindow > 0 && (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)) ? new IntObjectOpenHashMap<double[]>() : null;
+	 	
 	 	if (i_flag != FLAG_DECODE)
 	 	{
 	 		g_heads = tree.getHeads();
@@ -299,9 +374,12 @@ public class CDEPParser extends AbstractStatisticalComponent
 		List<Pair<String,StringFeatureVector>> insts = new ArrayList<Pair<String,StringFeatureVector>>();
 		DEPNode  lambda, beta;
 		DEPLabel label;
+		int transitions = 0;
 		
 		while (i_beta < t_size)
 		{
+			transitions++;
+			
 			if (i_lambda < 0)
 			{
 				noShift();
@@ -343,6 +421,8 @@ public class CDEPParser extends AbstractStatisticalComponent
 			}
 		}
 		
+		Metrics.count(Metrics.COUNT_TRANSITIONS, transitions);
+		
 		if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 			postProcess();
 		
@@ -445,32 +525,86 @@ public class CDEPParser extends AbstractStatisticalComponent
 		return true;
 	}
 	
-	/** Called by {@link CDEPParser#getLabel()}. */
+	/**
+	 * Called by {@link CDEPParser#getLabel()}.
+	 * The returned label is shared across transitions and must not be modified.
+	 */
 	private DEPLabel getAutoLabel(StringFeatureVector vector)
 	{
-		Pair<StringPrediction,StringPrediction> ps = s_models[0].predictTwo(vector);
-		DEPLabel fst = new DEPLabel(ps.o1.label);
-		DEPLabel snd = new DEPLabel(ps.o2.label);
-		List<StringIntPair> p;
+		StringModel model = s_models[0];
+		double[] scores = model.getScores(model.toSparseFeatureVector(vector));
+		int i, fst = 0, snd, size = model.getLabelSize();
 		
-		if (ps.o1.score - ps.o2.score < 1)
+		if (m_labels != model || a_labels.length != size)
+			initLabels(model);
+		
+		if (m_scores != null && i_beta - i_lambda <= n_postWindow)
+			m_scores.put(i_lambda * t_size + i_beta, scores);
+		
+		if (d_secondMargin <= 0 || size < 2)
 		{
-			if (fst.isArc(LB_NO))
+			for (i=1; i<size; i++)
+				if (scores[fst] < scores[i])	fst = i;
+			
+			return a_labels[fst];
+		}
+		
+		getBestTwo(scores, size, a_top);
+		fst = a_top[0];
+		snd = a_top[1];
+		
+		if (isSecondBestKept(scores[fst], scores[snd]))
+			add2ndHead(a_labels[fst], a_labels[snd]);
+		
+		return a_labels[fst];
+	}
+	
+	/**
+	 * Stores the indices of the best and second-best scores among the first {@code size} scores to {@code top},
+	 * breaking ties the same way as {@link StringModel#predictTwo(List)}.
+	 * @param size the number of scores, which must be at least 2.
+	 */
+	static void getBestTwo(double[] scores, int size, int[] top)
+	{
+		int i, fst = 0, snd = 1;
+		
+		if (scores[fst] < scores[snd])
+		{
+			fst = 1;
+			snd = 0;
+		}
+		
+		for (i=2; i<size; i++)
+		{
+			if (scores[fst] < scores[i])
 			{
-				if (snd.isArc(LB_LEFT))
-				{
-					p = l_2nd.get(i_lambda);
-					p.add(new StringIntPair(snd.deprel, i_beta));
-				}
-				else if (snd.isArc(LB_RIGHT))
-				{
-					p = l_2nd.get(i_beta);
-					p.add(new StringIntPair(snd.deprel, i_lambda));
-				}
+				snd = fst;
+				fst = i;
 			}
+			else if (scores[snd] < scores[i])
+				snd = i;
 		}
 		
-		return fst;
+		top[0] = fst;
+		top[1] = snd;
+	}
+	
+	/** @return {@code true} if the second-best arc is kept given the best and second-best scores (see {@link CDEPParser#setSecondBestMargin(double)}). */
+	boolean isSecondBestKept(double fstScore, double sndScore)
+	{
+		return d_secondMargin > 0 && fstScore - sndScore < d_secondMargin;
+	}
+	
+	/** Keeps the arc of the second-best label if the best label has no arc. */
+	private void add2ndHead(DEPLabel fst, DEPLabel snd)
+	{
+		if (fst.isArc(LB_NO))
+		{
+			if (snd.isArc(LB_LEFT))
+				l_2nd.get(i_lambda).add(new StringIntPair(snd.deprel, i_beta));
+			else if (snd.isArc(LB_RIGHT))
+				l_2nd.get(i_beta).add(new StringIntPair(snd.deprel, i_lambda));
+		}
 	}
 	
 	protected int[] getCosts()
@@ -640,8 +774,16 @@ public class CDEPParser extends AbstractStatisticalComponent
 				{
 					max.set(root, DEPLibEn.DEP_ROOT, -1d);
 					
-					postProcessAux(node, -1, max);
-					postProcessAux(node, +1, max);
+					if (n_postWindow > 0)
+					{
+						postProcessWindow(node, -1, max);
+						postProcessWindow(node, +1, max);
+					}
+					else
+					{
+						postProcessAux(node, -1, max);
+						postProcessAux(node, +1, max);
+					}
 					
 					node.setHead(max.o1, max.o2);					
 				}
@@ -685,6 +827,80 @@ public class CDEPParser extends AbstractStatisticalComponent
 		}
 	}
 
+	/**
+	 * Called by {@link CDEPParser#postProcess()} if {@link CDEPParser#n_postWindow} is positive.
+	 * Finds the same head as {@link CDEPParser#postProcessAux(DEPNode, int, Triple)} among candidates within the window,
+	 * except that the scores of candidates scored during parsing are reused.
+	 */
+	protected void postProcessWindow(DEPNode node, int dir, Triple<DEPNode,String,Double> max)
+	{
+		StringModel model = s_models[0];
+		int i, label, end, size = d_tree.size();
+		double[] scores;
+		DEPNode head;
+		double score;
+		
+		if (m_labels != model || a_labels.length != model.getLabelSize())
+			initLabels(model);
+		
+		int[] labels = (dir < 0) ? a_rightLabels : a_leftLabels;
+		
+		if (dir < 0)
+		{
+			i_beta = node.id;
+			end    = Math.max(node.id - n_postWindow, 0) - 1;
+		}
+		else
+		{
+			i_lambda = node.id;
+			end      = Math.min(node.id + n_postWindow, size - 1) + 1;
+		}
+		
+		for (i=node.id+dir; i!=end; i+=dir)
+		{
+			head = d_tree.get(i);
+			if (head.isDescendentOf(node))	continue;
+			
+			if (dir < 0)	i_lambda = i;
+			else			i_beta   = i;
+			
+			if ((scores = m_scores.get(i_lambda * t_size + i_beta)) == null)
+				scores = model.getScores(model.toSparseFeatureVector(getFeatureVector(f_xmls[0])));
+			
+			if ((label = getBestLabel(scores, labels)) < 0)
+				continue;
+			
+			if ((score = getNormalizedScore(scores, label)) > max.o3)
+				max.set(head, a_labels[label].deprel, score);
+		}
+	}
+	
+	/** @return the index of the label with the highest score among the specific labels, or {@code -1} if there is no label. */
+	private int getBestLabel(double[] scores, int[] labels)
+	{
+		int i, best = -1;
+		
+		for (i=0; i<labels.length; i++)
+		{
+			if (best < 0 || scores[best] < scores[labels[i]])
+				best = labels[i];
+		}
+		
+		return best;
+	}
+	
+	/** @return the score of the specific label normalized as in {@link StringModel#normalizeScores(List)}. */
+	private double getNormalizedScore(double[] scores, int label)
+	{
+		int i, size = a_labels.length;
+		double sum = 0;
+		
+		for (i=0; i<size; i++)
+			sum += 1 / (1 + Math.exp(-scores[i]));
+		
+		return 1 / (1 + Math.exp(-scores[label])) / sum;
+	}
+
 //	================================ FEATURE EXTRACTION ================================
 
 	@Override
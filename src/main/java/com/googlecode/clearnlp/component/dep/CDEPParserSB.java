@@ -162,8 +162,17 @@ public class CDEPParserSB extends AbstractStatisticalComponent
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
+			
+			finishStatisticalModels();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
 	}
 	
 	protected void loadConfiguration(ZipInputStream zin) throws Exception
@@ -137,8 +137,17 @@ public class CPOSTagger extends AbstractStatisticalComponent
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
+			
+			finishStatisticalModels();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
 	}
 	
 	protected void loadLexica(ZipInputStream zin) throws Exception
@@ -152,8 +152,17 @@ public class CPOSTaggerSB extends AbstractStatisticalComponent
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
+			
+			finishStatisticalModels();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
 	}
 	
 	protected void loadLexica(ZipInputStream zin) throws Exception
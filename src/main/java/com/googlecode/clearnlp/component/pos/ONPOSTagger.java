@@ -23,6 +23,7 @@ import java.util.zip.ZipInputStream;
 
 import com.googlecode.clearnlp.classification.model.ONStringModel;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.ONComponent;
 import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.util.pair.Pair;
@@ -32,7 +33,7 @@ import com.googlecode.clearnlp.util.pair.Pair;
  * @since 1.3.0
  * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
  */
-public class ONPOSTagger extends CPOSTagger
+public class ONPOSTagger extends CPOSTagger implements ONComponent
 {
 	ONStringModel o_model;
 	
@@ -46,6 +47,15 @@ public class ONPOSTagger extends CPOSTagger
 		initOnline();
 	}
 	
+	/** Constructs a decoder sharing feature templates and lexica with another component (e.g., a learner). */
+	public ONPOSTagger(JointFtrXml[] xmls, Object[] lexica, ONStringModel model)
+	{
+		f_xmls   = xmls;
+		s_models = new ONStringModel[]{model};
+		initLexia(lexica);
+		initOnline();
+	}
+	
 	public ONPOSTagger(ZipInputStream zin, double alpha, double rho)
 	{
 		loadModels(zin, alpha, rho);
@@ -58,6 +68,20 @@ public class ONPOSTagger extends CPOSTagger
 		o_model = (ONStringModel)s_models[0];
 	}
 	
+//	====================================== GETTERS/SETTERS ======================================
+	
+	@Override
+	public ONStringModel getOnlineModel()
+	{
+		return o_model;
+	}
+	
+	@Override
+	public void setOnlineModel(ONStringModel model)
+	{
+		s_models[0] = o_model = model;
+	}
+	
 //	====================================== LOAD/SAVE MODELS ======================================
 	
 	public void loadModels(ZipInputStream zin, double alpha, double rho)
@@ -132,6 +156,7 @@ public class ONPOSTagger extends CPOSTagger
 		i_flag = flag;		
 	}
 	
+	@Override
 	public void train(DEPTree tree)
 	{
 		byte flag = i_flag;
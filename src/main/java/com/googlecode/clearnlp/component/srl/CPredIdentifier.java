@@ -103,8 +103,17 @@ public class CPredIdentifier extends AbstractStatisticalComponent
 				else if (entry.startsWith(ENTRY_MODEL))
 					loadStatisticalModels(zin, Integer.parseInt(entry.substring(mLen)));
 			}		
+			
+			finishStatisticalModels();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
 	}
 
 	@Override
@@ -157,8 +157,17 @@ public class CSRLabeler extends AbstractStatisticalComponent
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
+			
+			finishStatisticalModels();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
+		finally
+		{
+			shutdownStatisticalModels();
 		}
-		catch (Exception e) {e.printStackTrace();}
 	}
 	
 	private void loadLexica(ZipInputStream zin) throws Exception
@@ -142,12 +142,15 @@ public class CSenseClassifier extends AbstractStatisticalComponent
 				else if (entry.startsWith(ENTRY_FEATURE))
 					loadFeatureTemplates(zin, Integer.parseInt(entry.substring(fLen)));
 				else if (entry.startsWith(ENTRY_MODEL))
-					loadStatisticalModels(zin, Integer.parseInt(entry.substring(mLen)));
+					loadLazyStatisticalModels(zin, Integer.parseInt(entry.substring(mLen)));
 				else if (entry.equals(ENTRY_LEXICA))
 					loadLexica(zin);
 			}		
 		}
-		catch (Exception e) {e.printStackTrace();}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Failed to load models.", e);
+		}
 	}
 	
 	private void loadLexica(ZipInputStream zin) throws Exception
@@ -362,7 +365,7 @@ public class CSenseClassifier extends AbstractStatisticalComponent
 	/** Called by {@link CSenseClassifier#getLabel()}. */
 	private String getAutoLabel(StringFeatureVector vector, int modelId)
 	{
-		StringPrediction p = s_models[modelId].predictBest(vector);
+		StringPrediction p = getModel(modelId).predictBest(vector);
 		return p.label;
 	}
 
@@ -48,6 +48,10 @@ public class CTNode implements Comparable<CTNode>
 {
 	/** The phrase or pos tag of this node. */
 	public String      pTag;
+	/** The ID of {@link CTNode#pTag} (see {@link CTNode#getPTagId()}). */
+	private int         i_pTagId;
+	/** The value of {@link CTNode#pTag} for which {@link CTNode#i_pTagId} is assigned. */
+	private String      s_pTagId;
 	/** The function tags of this node (default: empty). */
 	protected Set<String> s_fTags;
 	/** The co-index of this node (default: {@code -1}). */
@@ -132,6 +136,22 @@ public class CTNode implements Comparable<CTNode>
 		return build.toString();
 	}
 	
+	/**
+	 * Returns the ID of the phrase or pos tag of this node (see {@link CTTagIndex}).
+	 * The ID is updated whenever {@link CTNode#pTag} is reassigned.
+	 * @return the ID of the phrase or pos tag of this node.
+	 */
+	public int getPTagId()
+	{
+		if (s_pTagId != pTag)
+		{
+			i_pTagId = CTTagIndex.getId(pTag);
+			s_pTagId = pTag;
+		}
+		
+		return i_pTagId;
+	}
+	
 	/**
      * Returns the set of function tags of this node.
      * @return the set of function tags of this node.
@@ -23,12 +23,16 @@
 */
 package com.googlecode.clearnlp.constituent;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.StringTokenizer;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 /**
  * Constituent tree reader.
@@ -38,14 +42,30 @@ import java.util.StringTokenizer;
  */
 public class CTReader
 {
-	private LineNumberReader f_in;
-	private Deque<String>    d_tokens;
+	static private final String LRB = "(";
+	static private final String RRB = ")";
+	
+	private Reader f_in;
+	/** The buffer of characters read from {@link CTReader#f_in}, valid from {@link CTReader#i_pos} to {@link CTReader#i_end}. */
+	private char[] c_buffer;
+	private int    i_pos;
+	private int    i_end;
+	/** The line and column (starting at 1) of the character at {@link CTReader#i_pos}. */
+	private int    i_line, i_column;
+	/** The line and column of the last token returned by {@link CTReader#nextToken()}. */
+	private int    t_line, t_column;
+	/** {@code true} if the previous character is {@code '\r'}. */
+	private boolean b_cr;
+	/** The file opened for random access (see {@link CTReader#open(String, long[])}). */
+	private RandomAccessFile f_file;
+	/** The byte offset of each tree in {@link CTReader#f_file}. */
+	private long[]           l_offsets;
 	
 	public CTReader() {}
 	
 	/**
 	 * Creates a constituent tree reader from the specific reader.
-	 * @param in an input reader, which gets internally wrapped with {@code new LineNumberReader(in)}.
+	 * @param in an input reader.
 	 */
 	public CTReader(BufferedReader in)
 	{
@@ -54,21 +74,96 @@ public class CTReader
 	
 	public void open(BufferedReader in)
 	{
-		f_in     = new LineNumberReader(in);
-		d_tokens = new ArrayDeque<String>();
+		init(in);
+	}
+	
+	private void init(Reader in)
+	{
+		f_in     = in;
+		if (c_buffer == null)	c_buffer = new char[8192];
+		i_pos    = 0;
+		i_end    = 0;
+		i_line   = 1;
+		i_column = 1;
+		b_cr     = false;
+	}
+	
+	/**
+	 * Opens the specific file for random access by tree ID (see {@link CTReader#getTree(int)}).
+	 * @param filename the name of the Treebank file.
+	 * @param offsets the byte offset of each tree in the file (see {@link CTReader#getTreeOffsets(InputStream)}).
+	 */
+	public void open(String filename, long[] offsets) throws IOException
+	{
+		f_file    = new RandomAccessFile(filename, "r");
+		l_offsets = offsets;
 	}
 	
 	/** Closes the current reader. */
 	public void close()
 	{
-		if (f_in != null)
+		try
 		{
-			try
+			if (f_in   != null)	f_in.close();
+			if (f_file != null)	f_file.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		f_file = null;
+	}
+	
+	/**
+	 * Returns the tree with the specific ID (starting at 0) without parsing any preceding tree.
+	 * The file must be opened by {@link CTReader#open(String, long[])}.
+	 * Subsequent calls to {@link CTReader#nextTree()} return the trees following this tree.
+	 * @param treeId the ID of the tree.
+	 * @return the tree with the specific ID, or {@code null} if the tree does not exist.
+	 */
+	public CTTree getTree(int treeId)
+	{
+		if (treeId < 0 || treeId >= l_offsets.length)
+			return null;
+		
+		try
+		{
+			FileChannel channel = f_file.getChannel();
+			channel.position(l_offsets[treeId]);
+			
+			init(new InputStreamReader(Channels.newInputStream(channel), "UTF-8"));
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		return nextTree();
+	}
+	
+	/**
+	 * Returns the byte offset of each tree in the specific stream.
+	 * A tree begins with an open bracket outside of any other bracket.
+	 * @param in the stream containing trees in the Penn Treebank format; not closed by this method.
+	 * @return the byte offset of each tree in the specific stream.
+	 */
+	static public long[] getTreeOffsets(InputStream in) throws IOException
+	{
+		InputStream fin = new BufferedInputStream(in, 65536);
+		long[] offsets = new long[64];
+		int b, size = 0, depth = 0;
+		long offset;
+		
+		for (offset=0; (b = fin.read()) >= 0; offset++)
+		{
+			if (b == '(')
 			{
-				f_in.close();
+				if (depth++ == 0)
+				{
+					if (size == offsets.length)	offsets = Arrays.copyOf(offsets, size*2);
+					offsets[size++] = offset;
+				}
 			}
-			catch (IOException e) {e.printStackTrace();}			
+			else if (b == ')' && depth > 0)
+				depth--;
 		}
+		
+		return Arrays.copyOf(offsets, size);
 	}
 	
 	/**
@@ -85,30 +180,31 @@ public class CTReader
 		if (token == null)
 			return null;
 		
-		if (!token.equals("("))
+		if (token != LRB)
 		{
-			System.err.println("Error: \""+token+"\" found, \"(\" expected - line "+f_in.getLineNumber());
+			System.err.println("Error: \""+token+"\" found, \"(\" expected - line "+t_line+", column "+t_column);
 			return null;
 		}
 		
 		CTNode root   = new CTNode(CTLib.PTAG_TOP, null);
 		CTNode curr   = root, node;
-		int nBrackets = 1, startLine = f_in.getLineNumber();
+		int nBrackets = 1, startLine = t_line, startColumn = t_column;
 		
 		while ((token = nextToken()) != null)
 		{
 			if (nBrackets == 1 && token.equals(CTLib.PTAG_TOP))
 				continue;
 			
-			if (token.equals("("))
+			if (token == LRB)
 			{
-				tags = nextToken();
+				if ((tags = nextToken()) == null)	break;
 				node = new CTNode(tags);
+				node.getPTagId();	// interns the phrase tag
 				curr.addChild(node);
 				curr = node;
 				nBrackets++;
 			}
-			else if (token.equals(")"))
+			else if (token == RRB)
 			{
 				curr = curr.parent;
 				nBrackets--;
@@ -125,7 +221,7 @@ public class CTReader
 			}
 		}
 		
-		System.err.println("Error: brackets mismatch - starting line "+startLine);
+		System.err.println("Error: brackets mismatch - starting line "+startLine+", column "+startColumn);
 		return null;
 	}
 	
@@ -139,36 +235,101 @@ public class CTReader
 		return tree;
 	}
 
-	/** @return if exists ? next token : null. */
+	/**
+	 * Returns the next bracket ({@link CTReader#LRB} or {@link CTReader#RRB}), tag, or word-form.
+	 * Tokens are delimited by brackets and whitespaces; the position of the token is stored in {@link CTReader#t_line} and {@link CTReader#t_column}.
+	 * @return if exists ? next token : null.
+	 */
 	private String nextToken()
 	{
-		if (d_tokens.isEmpty())
+		char c;
+		
+		// skip whitespaces
+		while (true)
 		{
-			String line = null;
-			
-			try
-			{
-				line = f_in.readLine();
-			}
-			catch (IOException e) {e.printStackTrace();}
-
-			if (line == null)
+			if (i_pos == i_end && !fill(i_pos))
 				return null;
 			
-			line = line.trim();
-			if (line.isEmpty())
-				return nextToken();
+			if ((c = c_buffer[i_pos]) > ' ')
+				break;
 			
-			StringTokenizer tok = new StringTokenizer(line, "() \t\n\r\f", true);
-			String str;
+			i_pos++;
 			
-			while (tok.hasMoreTokens())
+			if (c == '\n')
+			{
+				if (!b_cr)	i_line++;
+				i_column = 1;
+				b_cr = false;
+			}
+			else if (c == '\r')
+			{
+				i_line++;
+				i_column = 1;
+				b_cr = true;
+			}
+			else
+			{
+				i_column++;
+				b_cr = false;
+			}
+		}
+		
+		t_line   = i_line;
+		t_column = i_column;
+		b_cr     = false;
+		
+		if (c == '(' || c == ')')
+		{
+			i_pos++;
+			i_column++;
+			return (c == '(') ? LRB : RRB;
+		}
+		
+		int begin = i_pos;
+		
+		while (true)
+		{
+			if (i_pos == i_end)
 			{
-				str = tok.nextToken().trim();
-				if (!str.isEmpty()) d_tokens.add(str);
+				int len = i_pos - begin;
+				boolean more = fill(begin);
+				begin = i_pos - len;
+				if (!more)	break;
 			}
+			
+			c = c_buffer[i_pos];
+			if (c <= ' ' || c == '(' || c == ')')	break;
+			
+			i_pos++;
+			i_column++;
+		}
+		
+		return new String(c_buffer, begin, i_pos - begin);
+	}
+	
+	/**
+	 * Reads more characters into the buffer, keeping the characters from {@code keep} to {@link CTReader#i_end} at the beginning of the buffer.
+	 * @return {@code true} if any character is read.
+	 */
+	private boolean fill(int keep)
+	{
+		int len = i_end - keep, n;
+		
+		if (len == c_buffer.length)
+			c_buffer = Arrays.copyOf(c_buffer, len * 2);
+		
+		System.arraycopy(c_buffer, keep, c_buffer, 0, len);
+		i_pos -= keep;
+		i_end  = len;
+		
+		try
+		{
+			while ((n = f_in.read(c_buffer, i_end, c_buffer.length - i_end)) == 0);
+			if (n < 0)	return false;
+			i_end += n;
 		}
+		catch (IOException e) {e.printStackTrace(); return false;}
 		
-		return d_tokens.pop();
+		return true;
 	}
 }
@@ -0,0 +1,58 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.constituent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns small integer IDs to phrase and pos tags.
+ * IDs start at 0, are never reassigned, and are shared by all trees in the same JVM.
+ * @see CTNode#getPTagId()
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class CTTagIndex
+{
+	static private final ConcurrentMap<String,Integer> m_ids = new ConcurrentHashMap<String,Integer>();
+	
+	/** @return the ID of the specific tag; a new ID is assigned if the tag has not been seen. */
+	static public int getId(String tag)
+	{
+		Integer id = m_ids.get(tag);
+		return (id != null) ? id : addId(tag);
+	}
+	
+	/** Called by {@link CTTagIndex#getId(String)}. */
+	static synchronized private int addId(String tag)
+	{
+		Integer id = m_ids.get(tag);
+		
+		if (id == null)
+		{
+			id = m_ids.size();
+			m_ids.put(tag, id);
+		}
+		
+		return id;
+	}
+	
+	/** @return the number of tags with IDs. */
+	static public int size()
+	{
+		return m_ids.size();
+	}
+}
@@ -0,0 +1,274 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.constituent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.UTOutput;
+
+/**
+ * Random access to constituent trees in a Treebank directory.
+ * The byte offset of every tree in each Treebank file is indexed the first time the file is accessed,
+ * and the index is saved to {@link CTTreebank#INDEX_FILENAME} in the directory by {@link CTTreebank#close()} so it is built only once.
+ * An index entry is rebuilt if the length or the modification time of its file changes.
+ * Recently accessed trees are kept in a cache, so instances of the same tree share the same object while it is cached.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class CTTreebank
+{
+	/** The name of the index file in the Treebank directory. */
+	static public final String INDEX_FILENAME = ".ctindex";
+	/** The default number of cached trees. */
+	static public final int    DEFAULT_CACHE_SIZE = 1024;
+	
+	static private final int MAGIC   = 0x434c5449;
+	static private final int VERSION = 1;
+	
+	private String s_treeDir;
+	private Map<String,FileIndex> m_index;
+	private Map<String,CTTree>    m_cache;
+	private boolean  b_modified;
+	private CTReader c_reader;
+	private String   s_treePath;
+	
+	/** Calls {@link CTTreebank#CTTreebank(String, int)} with {@link CTTreebank#DEFAULT_CACHE_SIZE}. */
+	public CTTreebank(String treeDir)
+	{
+		this(treeDir, DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * @param treeDir the Treebank directory path.
+	 * @param cacheSize the maximum number of cached trees.
+	 */
+	@SuppressWarnings("serial")
+	public CTTreebank(String treeDir, final int cacheSize)
+	{
+		s_treeDir  = treeDir;
+		m_index    = new HashMap<String,FileIndex>();
+		b_modified = false;
+		c_reader   = new CTReader();
+		s_treePath = null;
+		
+		m_cache = new LinkedHashMap<String,CTTree>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,CTTree> eldest)
+			{
+				return size() > cacheSize;
+			}
+		};
+		
+		loadIndex();
+	}
+	
+	/**
+	 * Returns the tree with the specific ID in the specific file.
+	 * Only the requested tree is parsed unless it is already in the cache.
+	 * @param treePath the path of the Treebank file relative to the Treebank directory.
+	 * @param treeId the ID of the tree (starting at 0).
+	 * @return the tree with the specific ID in the specific file, or {@code null} if the tree does not exist.
+	 */
+	public CTTree getTree(String treePath, int treeId)
+	{
+		String key = treePath + " " + treeId;
+		CTTree tree = m_cache.get(key);
+		
+		if (tree == null && (tree = readTree(treePath, treeId)) != null)
+			m_cache.put(key, tree);
+		
+		return tree;
+	}
+	
+	/** @return the number of trees in the specific file. */
+	public int getTreeSize(String treePath)
+	{
+		FileIndex index = getFileIndex(treePath);
+		return (index != null) ? index.offsets.length : 0;
+	}
+	
+	/** Closes the current Treebank file and saves the index if it has changed. */
+	public void close()
+	{
+		c_reader.close();
+		s_treePath = null;
+		m_cache.clear();
+		
+		if (b_modified)	saveIndex();
+	}
+	
+	/** Called by {@link CTTreebank#getTree(String, int)}. */
+	private CTTree readTree(String treePath, int treeId)
+	{
+		if (!treePath.equals(s_treePath))
+		{
+			FileIndex index = getFileIndex(treePath);
+			if (index == null)	return null;
+			
+			try
+			{
+				c_reader.close();
+				c_reader.open(getFilename(treePath), index.offsets);
+				s_treePath = treePath;
+			}
+			catch (IOException e) {e.printStackTrace(); return null;}
+		}
+		
+		return c_reader.getTree(treeId);
+	}
+	
+	/** @return the index of the specific file, built if it does not exist or is out of date; {@code null} if the file cannot be read. */
+	private FileIndex getFileIndex(String treePath)
+	{
+		FileIndex index = m_index.get(treePath);
+		File file = new File(getFilename(treePath));
+		
+		if (index != null && index.length == file.length() && index.lastModified == file.lastModified())
+			return index;
+		
+		try
+		{
+			InputStream fin = new FileInputStream(file);
+			index = new FileIndex(file.length(), file.lastModified(), CTReader.getTreeOffsets(fin));
+			fin.close();
+		}
+		catch (IOException e) {e.printStackTrace(); return null;}
+		
+		m_index.put(treePath, index);
+		b_modified = true;
+		
+		return index;
+	}
+	
+	private String getFilename(String treePath)
+	{
+		return s_treeDir + File.separator + treePath;
+	}
+	
+//	====================================== INDEX FILE ======================================
+
+	private void loadIndex()
+	{
+		File file = new File(s_treeDir, INDEX_FILENAME);
+		if (!file.isFile())	return;
+		
+		try
+		{
+			DataInputStream fin = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			
+			if (fin.readInt() == MAGIC && fin.readInt() == VERSION)
+			{
+				int i, j, size = fin.readInt(), len;
+				String treePath;
+				long length, lastModified, offset;
+				long[] offsets;
+				
+				for (i=0; i<size; i++)
+				{
+					treePath     = fin.readUTF();
+					length       = fin.readLong();
+					lastModified = fin.readLong();
+					offsets      = new long[len = UTInput.readVarInt(fin)];
+					
+					for (j=0, offset=0; j<len; j++)
+						offsets[j] = offset += UTInput.readVarInt(fin);
+					
+					m_index.put(treePath, new FileIndex(length, lastModified, offsets));
+				}
+			}
+			
+			fin.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Warning: cannot read the Treebank index '"+file.getPath()+"'; rebuilding it");
+			m_index.clear();
+		}
+	}
+	
+	/** Writes to a temporary file first so that a partially written index is never loaded. */
+	private void saveIndex()
+	{
+		File file = new File(s_treeDir, INDEX_FILENAME);
+		File temp = new File(s_treeDir, INDEX_FILENAME+".tmp");
+		
+		try
+		{
+			DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			FileIndex index;
+			long prev;
+			
+			fout.writeInt(MAGIC);
+			fout.writeInt(VERSION);
+			fout.writeInt(m_index.size());
+			
+			for (Map.Entry<String,FileIndex> entry : m_index.entrySet())
+			{
+				index = entry.getValue();
+				fout.writeUTF(entry.getKey());
+				fout.writeLong(index.length);
+				fout.writeLong(index.lastModified);
+				UTOutput.writeVarInt(fout, index.offsets.length);
+				prev = 0;
+				
+				// trees are far smaller than 2GB, so the gaps between offsets fit in integers
+				for (long offset : index.offsets)
+				{
+					UTOutput.writeVarInt(fout, (int)(offset - prev));
+					prev = offset;
+				}
+			}
+			
+			fout.close();
+			file.delete();
+			
+			if (temp.renameTo(file))
+				b_modified = false;
+		}
+		catch (IOException e)
+		{
+			System.err.println("Warning: cannot save the Treebank index '"+file.getPath()+"'");
+			temp.delete();
+		}
+	}
+	
+	private class FileIndex
+	{
+		long   length;
+		long   lastModified;
+		long[] offsets;
+		
+		public FileIndex(long length, long lastModified, long[] offsets)
+		{
+			this.length       = length;
+			this.lastModified = lastModified;
+			this.offsets      = offsets;
+		}
+	}
+}
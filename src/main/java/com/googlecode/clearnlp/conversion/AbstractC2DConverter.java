@@ -23,8 +23,6 @@
 */
 package com.googlecode.clearnlp.conversion;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import com.googlecode.clearnlp.constituent.CTLib;
@@ -82,7 +80,7 @@ abstract public class AbstractC2DConverter
 		}
 		
 		// find the headrule of the current node
-		HeadRule rule = m_headrules.get(curr.pTag);
+		HeadRule rule = m_headrules.get(curr);
 				
 		if (rule == null)
 		{
@@ -103,14 +101,13 @@ abstract public class AbstractC2DConverter
 	 */
 	protected CTNode getHead(HeadRule rule, List<CTNode> nodes, int flagSize)
 	{
-		nodes = new ArrayList<CTNode>(nodes);
-		if (rule.isRightToLeft())	Collections.reverse(nodes);
-		
-		int i, size = nodes.size(), flag;
+		// nodes are visited in the search direction of the headrule without copying the list
+		boolean r2l = rule.isRightToLeft();
+		int i, size = nodes.size(), last = size - 1, flag;
 		int[] flags = new int[size];
 		
 		for (i=0; i<size; i++)
-			flags[i] = getHeadFlag(nodes.get(i));
+			flags[i] = getHeadFlag(nodes.get(r2l ? last-i : i));
 		
 		CTNode head = null, child;
 		
@@ -120,9 +117,7 @@ abstract public class AbstractC2DConverter
 			{
 				for (i=0; i<size; i++)
 				{
-					child = nodes.get(i);
-					
-					if (flags[i] == flag && tagset.matches(child))
+					if (flags[i] == flag && tagset.matches(child = nodes.get(r2l ? last-i : i)))
 					{
 						head = child;
 						break outer;
@@ -139,10 +134,12 @@ abstract public class AbstractC2DConverter
 		
 		CTNode parent = head.getParent();
 		
-		for (CTNode node : nodes)
+		for (i=0; i<size; i++)
 		{
-			if (node != head && !node.c2d.hasHead())
-				node.c2d.setHead(head, getDEPLabel(node, parent, head));
+			child = nodes.get(r2l ? last-i : i);
+			
+			if (child != head && !child.c2d.hasHead())
+				child.c2d.setHead(head, getDEPLabel(child, parent, head));
 		}
 		
 		return head;
@@ -165,6 +165,11 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 		d_feats.remove(key);
 	}
 	
+	public DEPFeat getFeats()
+	{
+		return d_feats;
+	}
+	
 	public void setFeats(DEPFeat feats)
 	{
 		d_feats = feats;
@@ -755,6 +760,11 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 		return x_heads;
 	}
 	
+	public void setXHeads(List<DEPArc> xHeads)
+	{
+		x_heads = xHeads;
+	}
+	
 	public Set<DEPNode> getXAncestorSet()
 	{
 		Set<DEPNode> set = new HashSet<DEPNode>();
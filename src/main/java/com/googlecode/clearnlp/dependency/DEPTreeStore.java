@@ -0,0 +1,330 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.carrotsearch.hppc.ByteArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.googlecode.clearnlp.coreference.Mention;
+
+/**
+ * Column-oriented store of dependency trees.
+ * Each field of all nodes is kept in a parallel array of integers, where strings (forms, lemmas, tags, labels, and features)
+ * are represented by their IDs in a string pool shared by all trees; secondary and semantic heads are kept in flat arrays.
+ * {@link DEPTreeStore#get(int)} creates a new tree from the columns each time it is called,
+ * so changes to the returned tree do not affect this store.
+ * {@link DEPTreeStore#getForm(int, int)} and its siblings read a field of a node without creating the tree.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPTreeStore extends AbstractList<DEPTree>
+{
+	static private final byte FLAG_XHEADS     = 1;
+	static private final byte FLAG_SHEADS     = 1 << 1;
+	static private final byte FLAG_TERMINAL   = 1 << 2;
+	static private final byte FLAG_DEPENDENTS = 1 << 3;
+	
+	/** The string pool, where the string ID 0 indicates {@code null}. */
+	private List<String>                  l_strings;
+	private ObjectIntOpenHashMap<String>  m_strings;
+	
+	/** The index of the first node of each tree (excluding the root). */
+	private IntArrayList  i_trees;
+	/** The flags of the root of each tree. */
+	private ByteArrayList b_roots;
+	/** The mentions of trees containing coreference information. */
+	private IntObjectOpenHashMap<List<Mention>> m_mentions;
+	
+	private IntArrayList  i_forms;
+	private IntArrayList  i_simplifiedForms;
+	private IntArrayList  i_lowerSimplifiedForms;
+	private IntArrayList  i_lemmas;
+	private IntArrayList  i_pos;
+	private IntArrayList  i_namex;
+	private IntArrayList  i_feats;
+	/** The ID of the head of each node, or {@code -1} if the node has no head. */
+	private IntArrayList  i_heads;
+	private IntArrayList  i_labels;
+	private ByteArrayList b_flags;
+	
+	/** The index of the first secondary head of each node in {@link DEPTreeStore#i_xHeads}. */
+	private IntArrayList  i_xBegins;
+	private IntArrayList  i_xHeads;
+	private IntArrayList  i_xLabels;
+	/** The index of the first semantic head of each node in {@link DEPTreeStore#i_sHeads}. */
+	private IntArrayList  i_sBegins;
+	private IntArrayList  i_sHeads;
+	private IntArrayList  i_sLabels;
+	
+	public DEPTreeStore()
+	{
+		l_strings  = new ArrayList<String>();
+		m_strings  = new ObjectIntOpenHashMap<String>();
+		i_trees    = new IntArrayList();
+		b_roots    = new ByteArrayList();
+		m_mentions = new IntObjectOpenHashMap<List<Mention>>();
+		
+		i_forms  = new IntArrayList();
+		i_simplifiedForms      = new IntArrayList();
+		i_lowerSimplifiedForms = new IntArrayList();
+		i_lemmas = new IntArrayList();
+		i_pos    = new IntArrayList();
+		i_namex  = new IntArrayList();
+		i_feats  = new IntArrayList();
+		i_heads  = new IntArrayList();
+		i_labels = new IntArrayList();
+		b_flags  = new ByteArrayList();
+		
+		i_xBegins = new IntArrayList();
+		i_xHeads  = new IntArrayList();
+		i_xLabels = new IntArrayList();
+		i_sBegins = new IntArrayList();
+		i_sHeads  = new IntArrayList();
+		i_sLabels = new IntArrayList();
+		
+		l_strings.add(null);
+	}
+	
+//	====================================== ADD ======================================
+	
+	/**
+	 * Adds the specific tree to the end of this store.
+	 * The tree is copied to the columns so that it can be garbage-collected afterwards.
+	 * Dependents of the root are not stored except for whether or not {@link DEPTree#setDependents()} has been called.
+	 */
+	@Override
+	public boolean add(DEPTree tree)
+	{
+		DEPNode root = tree.get(0);
+		int i, size = tree.size();
+		
+		i_trees.add(i_forms.size());
+		b_roots.add(getFlags(root));
+		
+		for (i=1; i<size; i++)
+			addNode(tree.get(i));
+		
+		if (tree.getMentions() != null)
+			m_mentions.put(i_trees.size()-1, copyMentions(tree.getMentions()));
+		
+		return true;
+	}
+	
+	private void addNode(DEPNode node)
+	{
+		DEPNode head = node.getHead();
+		
+		i_forms .add(getStringId(node.form));
+		i_simplifiedForms.add(getStringId(node.simplifiedForm));
+		i_lowerSimplifiedForms.add(getStringId(node.lowerSimplifiedForm));
+		i_lemmas.add(getStringId(node.lemma));
+		i_pos   .add(getStringId(node.pos));
+		i_namex .add(getStringId(node.nament));
+		i_feats .add(getStringId(node.getFeats().toString()));
+		i_heads .add((head != null) ? head.id : -1);
+		i_labels.add(getStringId(node.getLabel()));
+		b_flags .add(getFlags(node));
+		
+		i_xBegins.add(i_xHeads.size());
+		i_sBegins.add(i_sHeads.size());
+		
+		if (node.getXHeads() != null)	addArcs(node.getXHeads(), i_xHeads, i_xLabels);
+		if (node.getSHeads() != null)	addArcs(node.getSHeads(), i_sHeads, i_sLabels);
+	}
+	
+	private void addArcs(List<DEPArc> arcs, IntArrayList heads, IntArrayList labels)
+	{
+		for (DEPArc arc : arcs)
+		{
+			heads .add(arc.getNode().id);
+			labels.add(getStringId(arc.getLabel()));
+		}
+	}
+	
+	private byte getFlags(DEPNode node)
+	{
+		byte flags = 0;
+		
+		if (node.getXHeads() != null)		flags |= FLAG_XHEADS;
+		if (node.getSHeads() != null)		flags |= FLAG_SHEADS;
+		if (node.getDependents() != null)	flags |= FLAG_DEPENDENTS;
+		if (node.b_terminal)				flags |= FLAG_TERMINAL;
+		
+		return flags;
+	}
+	
+	/** @return the ID of the specific string in the string pool. */
+	private int getStringId(String s)
+	{
+		if (s == null)	return 0;
+		int id = m_strings.get(s);
+		
+		if (id == 0)
+		{
+			id = l_strings.size();
+			l_strings.add(s);
+			m_strings.put(s, id);
+		}
+		
+		return id;
+	}
+	
+	private List<Mention> copyMentions(List<Mention> mentions)
+	{
+		List<Mention> copy = new ArrayList<Mention>(mentions.size());
+		
+		for (Mention mention : mentions)
+			copy.add(new Mention(mention.id, mention.type, mention.beginIndex, mention.endIndex));
+		
+		return copy;
+	}
+	
+//	====================================== GET ======================================
+	
+	/** @return a new dependency tree created from the columns of the specific tree. */
+	@Override
+	public DEPTree get(int treeId)
+	{
+		int i, j, size = getTreeSize(treeId), begin = i_trees.get(treeId);
+		DEPTree tree = new DEPTree();
+		DEPNode node;
+		byte flags;
+		
+		for (i=1; i<size; i++)
+			tree.add(new DEPNode());
+		
+		setArcLists(tree.get(0), b_roots.get(treeId));
+		
+		for (i=1,j=begin; i<size; i++,j++)
+		{
+			node = tree.get(i);
+			node.init(i, getString(i_forms, j), getString(i_lemmas, j), getString(i_pos, j), new DEPFeat(getString(i_feats, j)));
+			node.nament = getString(i_namex, j);
+			node.simplifiedForm = getString(i_simplifiedForms, j);
+			node.lowerSimplifiedForm = getString(i_lowerSimplifiedForms, j);
+			
+			if (i_heads.get(j) >= 0)
+				node.setHead(tree.get(i_heads.get(j)), getString(i_labels, j));
+			else
+				node.setLabel(getString(i_labels, j));
+			
+			setArcLists(node, flags = b_flags.get(j));
+			node.b_terminal = (flags & FLAG_TERMINAL) != 0;
+			
+			if (node.getXHeads() != null)	getArcs(tree, node.getXHeads(), i_xBegins.get(j), getEnd(i_xBegins, i_xHeads, j), i_xHeads, i_xLabels);
+			if (node.getSHeads() != null)	getArcs(tree, node.getSHeads(), i_sBegins.get(j), getEnd(i_sBegins, i_sHeads, j), i_sHeads, i_sLabels);
+		}
+		
+		if ((b_roots.get(treeId) & FLAG_DEPENDENTS) != 0)
+			tree.setDependents();
+		
+		if (m_mentions.containsKey(treeId))
+			tree.setMentions(copyMentions(m_mentions.get(treeId)));
+		
+		return tree;
+	}
+	
+	private void setArcLists(DEPNode node, byte flags)
+	{
+		if ((flags & FLAG_XHEADS) != 0)	node.setXHeads(new ArrayList<DEPArc>());
+		if ((flags & FLAG_SHEADS) != 0)	node.setSHeads(new ArrayList<DEPArc>());
+	}
+	
+	private void getArcs(DEPTree tree, List<DEPArc> arcs, int begin, int end, IntArrayList heads, IntArrayList labels)
+	{
+		for (; begin<end; begin++)
+			arcs.add(new DEPArc(tree.get(heads.get(begin)), getString(labels, begin)));
+	}
+	
+	/** @return the index after the last arc of the specific node. */
+	private int getEnd(IntArrayList begins, IntArrayList arcs, int index)
+	{
+		return (index+1 < begins.size()) ? begins.get(index+1) : arcs.size();
+	}
+	
+	private String getString(IntArrayList column, int index)
+	{
+		return l_strings.get(column.get(index));
+	}
+	
+	/** @return the number of trees in this store. */
+	@Override
+	public int size()
+	{
+		return i_trees.size();
+	}
+	
+	/** @return the number of nodes in the specific tree, including the root. */
+	public int getTreeSize(int treeId)
+	{
+		int end = (treeId+1 < i_trees.size()) ? i_trees.get(treeId+1) : i_forms.size();
+		return end - i_trees.get(treeId) + 1;
+	}
+	
+	/** @return the total number of nodes in this store, excluding roots. */
+	public int getNodeSize()
+	{
+		return i_forms.size();
+	}
+	
+	/** @return the number of distinct strings in the string pool. */
+	public int getStringPoolSize()
+	{
+		return l_strings.size() - 1;
+	}
+	
+//	====================================== NODE ======================================
+	
+	/** @return the word-form of the specific node ({@code nodeId > 0}) in the specific tree. */
+	public String getForm(int treeId, int nodeId)
+	{
+		return getString(i_forms, getIndex(treeId, nodeId));
+	}
+	
+	/** @return the lemma of the specific node ({@code nodeId > 0}) in the specific tree. */
+	public String getLemma(int treeId, int nodeId)
+	{
+		return getString(i_lemmas, getIndex(treeId, nodeId));
+	}
+	
+	/** @return the part-of-speech tag of the specific node ({@code nodeId > 0}) in the specific tree. */
+	public String getPOS(int treeId, int nodeId)
+	{
+		return getString(i_pos, getIndex(treeId, nodeId));
+	}
+	
+	/** @return the ID of the head of the specific node ({@code nodeId > 0}) in the specific tree, or {@code -1} if the node has no head. */
+	public int getHeadId(int treeId, int nodeId)
+	{
+		return i_heads.get(getIndex(treeId, nodeId));
+	}
+	
+	/** @return the dependency label of the specific node ({@code nodeId > 0}) in the specific tree. */
+	public String getLabel(int treeId, int nodeId)
+	{
+		return getString(i_labels, getIndex(treeId, nodeId));
+	}
+	
+	private int getIndex(int treeId, int nodeId)
+	{
+		return i_trees.get(treeId) + nodeId - 1;
+	}
+}
@@ -132,6 +132,28 @@ public class SRLEval
 		las[IDX_GOLD] += gold.length;
 	}
 	
+	/** Adds all counts of the specific evaluator to this evaluator. */
+	public void merge(SRLEval eval)
+	{
+		int[] counts;
+		int i;
+		
+		for (String label : eval.m_counts.keySet())
+		{
+			if ((counts = m_counts.get(label)) == null)
+				m_counts.put(label, counts = new int[3]);
+			
+			for (i=0; i<counts.length; i++)
+				counts[i] += eval.m_counts.get(label)[i];
+		}
+	}
+	
+	/** @return the counts of the specific label in the order of correct, system, and gold, or {@code null} if the label is not found. */
+	public int[] getCounts(String label)
+	{
+		return m_counts.get(label);
+	}
+	
 	private int[] getArray(String label)
 	{
 		if (label.startsWith("C-"))
@@ -0,0 +1,425 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPArc;
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.util.UTHash;
+import com.googlecode.clearnlp.util.metric.Metrics;
+
+/**
+ * Cache of the results of a component chain keyed by the mode and the word-forms of a sentence.
+ * A repeated sentence is answered by copying its lemmas, POS tags, features, named entity tags, dependency heads, secondary heads, and semantic heads onto the new tree.
+ * Results are only valid for trees that contain nothing but word-forms before processing (e.g., raw, line, or tokenized input).
+ * The least recently used results are evicted once the number of sentences exceeds the cache size.
+ * A saved cache carries the fingerprint of the models and configuration that produced it and is discarded when loaded with a different fingerprint.
+ * This class is thread-safe.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class EngineCache
+{
+	static private final int  MAGIC = 0x45434832;	// "ECH2"
+	static private final char DELIM = '\n';
+	
+	private String s_mode;
+	private long   n_fingerprint;
+	private Map<String,Result> m_cache;
+	
+	/**
+	 * Creates a cache without a fingerprint.
+	 * @param mode the mode of the component chain (e.g., {@code srl}).
+	 * @param maxSentences the maximum number of sentences in the cache.
+	 */
+	public EngineCache(String mode, int maxSentences)
+	{
+		this(mode, maxSentences, 0);
+	}
+	
+	/**
+	 * @param mode the mode of the component chain (e.g., {@code srl}).
+	 * @param maxSentences the maximum number of sentences in the cache.
+	 * @param fingerprint the fingerprint of the models and configuration (see {@link EngineCache#getFingerprint(List)}).
+	 */
+	public EngineCache(String mode, final int maxSentences, long fingerprint)
+	{
+		s_mode        = mode;
+		n_fingerprint = fingerprint;
+		m_cache = new LinkedHashMap<String,Result>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,Result> eldest)
+			{
+				return size() > maxSentences;
+			}
+		};
+	}
+	
+	/** Processes the specific tree with the specific components unless its result is in the cache. */
+	public void process(AbstractComponent[] components, DEPTree tree)
+	{
+		String key = getKey(tree);
+		Result result;
+		
+		synchronized (this)
+		{
+			result = m_cache.get(key);
+		}
+		
+		if (result != null)
+		{
+			Metrics.count(Metrics.COUNT_SENTENCE_HITS, 1);
+			result.copyTo(tree);
+			return;
+		}
+		
+		Metrics.count(Metrics.COUNT_SENTENCE_MISSES, 1);
+		EngineProcess.process(components, tree);
+		result = new Result(tree);
+		
+		synchronized (this)
+		{
+			m_cache.put(key, result);
+		}
+	}
+	
+	/** @return the key of the specific tree consisting of the mode and the word-forms. */
+	private String getKey(DEPTree tree)
+	{
+		StringBuilder build = new StringBuilder(s_mode);
+		int i, size = tree.size();
+		
+		for (i=1; i<size; i++)
+		{
+			build.append(DELIM);
+			build.append(tree.get(i).form);
+		}
+		
+		return build.toString();
+	}
+	
+	/** @return the number of sentences in the cache. */
+	synchronized public int size()
+	{
+		return m_cache.size();
+	}
+	
+//	====================================== PERSISTENCE ======================================
+	
+	/** @return the fingerprint of the names and contents of the specific files; a name that is not a file contributes only its name. */
+	static public long getFingerprint(List<String> filenames) throws IOException
+	{
+		byte[] buffer = new byte[65536];
+		long h = UTHash.SEED_A;
+		InputStream fin;
+		int len;
+		
+		for (String filename : filenames)
+		{
+			h = UTHash.hashA(h, filename);
+			if (!new File(filename).isFile())	continue;
+			fin = new BufferedInputStream(new FileInputStream(filename));
+			
+			while ((len = fin.read(buffer)) > 0)
+				h = UTHash.hashA(h, buffer, len);
+			
+			fin.close();
+		}
+		
+		return h;
+	}
+	
+	/** Saves all results to the specific file, from the least to the most recently used. */
+	synchronized public void save(String filename) throws IOException
+	{
+		DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+		
+		fout.writeInt(MAGIC);
+		fout.writeLong(n_fingerprint);
+		fout.writeInt(m_cache.size());
+		
+		for (Map.Entry<String,Result> entry : m_cache.entrySet())
+		{
+			writeKey(fout, entry.getKey());
+			entry.getValue().write(fout);
+		}
+		
+		fout.close();
+	}
+	
+	/**
+	 * Loads results saved by {@link EngineCache#save(String)} if the specific file exists; results of other modes are ignored.
+	 * Nothing is loaded if the file was saved with a different fingerprint.
+	 */
+	synchronized public void load(String filename) throws IOException
+	{
+		if (!new File(filename).isFile())	return;
+		
+		DataInputStream fin = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+		String prefix = s_mode + DELIM, key;
+		Result result;
+		int i, size;
+		
+		if (fin.readInt() != MAGIC)
+		{
+			fin.close();
+			throw new IOException("Not a sentence cache: "+filename);
+		}
+		
+		if (fin.readLong() != n_fingerprint)
+		{
+			fin.close();
+			System.err.println("Warning: the sentence cache is discarded because the models or configuration have changed: "+filename);
+			return;
+		}
+		
+		size = fin.readInt();
+		
+		for (i=0; i<size; i++)
+		{
+			key    = readKey(fin);
+			result = new Result(fin);
+			
+			if (key.startsWith(prefix))
+				m_cache.put(key, result);
+		}
+		
+		fin.close();
+	}
+	
+	/** Keys are written as UTF-8 bytes with their lengths because they can be longer than {@link DataOutputStream#writeUTF(String)} allows. */
+	private void writeKey(DataOutputStream fout, String key) throws IOException
+	{
+		byte[] bytes = key.getBytes("UTF-8");
+		
+		fout.writeInt(bytes.length);
+		fout.write(bytes);
+	}
+	
+	private String readKey(DataInputStream fin) throws IOException
+	{
+		byte[] bytes = new byte[fin.readInt()];
+		
+		fin.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+//	====================================== RESULT ======================================
+	
+	/** The processed values of the nodes in a tree, excluding the root. */
+	static private class Result
+	{
+		/** The lemma, POS tag, features, named entity tag, and dependency label of each node. */
+		String[]   a_values;
+		/** The head ID of each node, or -1 if the node has no head. */
+		int[]      a_heads;
+		/** The IDs of the secondary heads of each node; {@code null} if secondary heads are not initialized. */
+		int[][]    a_xHeads;
+		/** The labels of the secondary heads of each node. */
+		String[][] a_xLabels;
+		/** The IDs of the semantic heads of each node; {@code null} if semantic heads are not initialized. */
+		int[][]    a_sHeads;
+		/** The labels of the semantic heads of each node. */
+		String[][] a_sLabels;
+		
+		public Result(DEPTree tree)
+		{
+			int i, size = tree.size() - 1;
+			DEPNode node, head;
+			
+			init(size);
+			
+			for (i=0; i<size; i++)
+			{
+				node = tree.get(i+1);
+				setValues(i, node.lemma, node.pos, node.getFeats().toString(), node.nament, node.getLabel());
+				a_heads[i] = ((head = node.getHead()) != null) ? head.id : -1;
+				setArcs(node.getXHeads(), a_xHeads, a_xLabels, i);
+				setArcs(node.getSHeads(), a_sHeads, a_sLabels, i);
+			}
+		}
+		
+		public Result(DataInputStream fin) throws IOException
+		{
+			int i, size = fin.readInt();
+			init(size);
+			
+			for (i=0; i<size; i++)
+			{
+				setValues(i, readString(fin), readString(fin), readString(fin), readString(fin), readString(fin));
+				a_heads[i] = fin.readInt();
+				readArcs(fin, a_xHeads, a_xLabels, i);
+				readArcs(fin, a_sHeads, a_sLabels, i);
+			}
+		}
+		
+		private void init(int size)
+		{
+			a_values  = new String[size * 5];
+			a_heads   = new int[size];
+			a_xHeads  = new int[size][];
+			a_xLabels = new String[size][];
+			a_sHeads  = new int[size][];
+			a_sLabels = new String[size][];
+		}
+		
+		private void setValues(int i, String lemma, String pos, String feats, String nament, String label)
+		{
+			a_values[i*5  ] = lemma;
+			a_values[i*5+1] = intern(pos);
+			a_values[i*5+2] = intern(feats);
+			a_values[i*5+3] = intern(nament);
+			a_values[i*5+4] = intern(label);
+		}
+		
+		/** Stores the specific arcs of the {@code i}'th node; nothing is stored if the arcs are {@code null}. */
+		private void setArcs(List<DEPArc> arcs, int[][] heads, String[][] labels, int i)
+		{
+			if (arcs == null)	return;
+			int j, size = arcs.size();
+			
+			heads [i] = new int   [size];
+			labels[i] = new String[size];
+			
+			for (j=0; j<size; j++)
+			{
+				heads [i][j] = arcs.get(j).getNode().id;
+				labels[i][j] = intern(arcs.get(j).getLabel());
+			}
+		}
+		
+		/** @return the arcs of the {@code i}'th node on the specific tree, or {@code null} if no arcs were stored. */
+		private List<DEPArc> getArcs(DEPTree tree, int[][] heads, String[][] labels, int i)
+		{
+			if (heads[i] == null)	return null;
+			List<DEPArc> arcs = new ArrayList<DEPArc>(heads[i].length);
+			int j;
+			
+			for (j=0; j<heads[i].length; j++)
+				arcs.add(new DEPArc(tree.get(heads[i][j]), labels[i][j]));
+			
+			return arcs;
+		}
+		
+		private String intern(String s)
+		{
+			return (s != null) ? s.intern() : null;
+		}
+		
+		public void copyTo(DEPTree tree)
+		{
+			int i, size = a_heads.length;
+			DEPNode node;
+			
+			for (i=0; i<size; i++)
+			{
+				node = tree.get(i+1);
+				node.lemma  = a_values[i*5];
+				node.pos    = a_values[i*5+1];
+				node.nament = a_values[i*5+3];
+				node.setFeats(new DEPFeat(a_values[i*5+2]));
+				
+				if (a_heads[i] >= 0)
+					node.setHead(tree.get(a_heads[i]), a_values[i*5+4]);
+				else if (a_values[i*5+4] != null)
+					node.setLabel(a_values[i*5+4]);
+				
+				if (a_xHeads[i] != null)	node.setXHeads(getArcs(tree, a_xHeads, a_xLabels, i));
+				if (a_sHeads[i] != null)	node.setSHeads(getArcs(tree, a_sHeads, a_sLabels, i));
+			}
+		}
+		
+		public void write(DataOutputStream fout) throws IOException
+		{
+			int i, j, size = a_heads.length;
+			
+			fout.writeInt(size);
+			
+			for (i=0; i<size; i++)
+			{
+				for (j=0; j<5; j++)
+					writeString(fout, a_values[i*5+j]);
+				
+				fout.writeInt(a_heads[i]);
+				writeArcs(fout, a_xHeads, a_xLabels, i);
+				writeArcs(fout, a_sHeads, a_sLabels, i);
+			}
+		}
+		
+		/** Writes -1 if no arcs were stored; otherwise, the number of arcs followed by their head IDs and labels. */
+		private void writeArcs(DataOutputStream fout, int[][] heads, String[][] labels, int i) throws IOException
+		{
+			if (heads[i] == null)
+			{
+				fout.writeInt(-1);
+				return;
+			}
+			
+			fout.writeInt(heads[i].length);
+			
+			for (int j=0; j<heads[i].length; j++)
+			{
+				fout.writeInt(heads[i][j]);
+				writeString(fout, labels[i][j]);
+			}
+		}
+		
+		private void readArcs(DataInputStream fin, int[][] heads, String[][] labels, int i) throws IOException
+		{
+			int j, len = fin.readInt();
+			if (len < 0)	return;
+			
+			heads [i] = new int   [len];
+			labels[i] = new String[len];
+			
+			for (j=0; j<len; j++)
+			{
+				heads [i][j] = fin.readInt();
+				labels[i][j] = intern(readString(fin));
+			}
+		}
+		
+		private void writeString(DataOutputStream fout, String s) throws IOException
+		{
+			fout.writeBoolean(s != null);
+			if (s != null)	fout.writeUTF(s);
+		}
+		
+		private String readString(DataInputStream fin) throws IOException
+		{
+			return fin.readBoolean() ? fin.readUTF() : null;
+		}
+	}
+}
@@ -18,8 +18,17 @@ package com.googlecode.clearnlp.engine;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipInputStream;
 
+import org.apache.log4j.Logger;
+
 import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.dep.CDEPParser;
 import com.googlecode.clearnlp.component.morph.CDefaultMPAnalyzer;
@@ -46,6 +55,8 @@ import com.googlecode.clearnlp.util.UTInput;
  */
 public class EngineGetter implements EngineLib
 {
+	static private final Logger LOG = Logger.getLogger(EngineGetter.class);
+	
 	// ============================= getter: constituent-to-dependency converter =============================
 	
 	static public AbstractC2DConverter getC2DConverter(String language, String headruleFile, String mergeLabels)
@@ -115,6 +126,74 @@ public class EngineGetter implements EngineLib
 		throw new IllegalArgumentException("The requested mode '"+mode+"' is not supported.");
 	}
 	
+	/**
+	 * Loads components from the specific streams concurrently, and logs the load time of each component.
+	 * @param streams the streams to load components from, where {@code streams[i]} corresponds to {@code modes[i]}.
+	 * @param modes the modes of the components (e.g., {@link NLPLib#MODE_POS}).
+	 * @return the components, where {@code components[i]} is loaded from {@code streams[i]}.
+	 * @throws Exception the first error thrown while loading a component, after all components are finished.
+	 */
+	static public AbstractComponent[] getComponents(InputStream[] streams, String language, String[] modes) throws Exception
+	{
+		int i, size = modes.length;
+		AbstractComponent[] components = new AbstractComponent[size];
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, size));
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(size);
+		Throwable failure = null;
+		
+		for (i=0; i<size; i++)
+			futures.add(executor.submit(new ComponentTask(streams[i], language, modes[i], components, i)));
+		
+		executor.shutdown();
+		
+		for (Future<Void> future : futures)
+		{
+			try
+			{
+				future.get();
+			}
+			catch (ExecutionException e)
+			{
+				if (failure == null)	failure = e.getCause();
+			}
+		}
+		
+		if (failure instanceof Exception)	throw (Exception)failure;
+		if (failure instanceof Error)		throw (Error)failure;
+		
+		return components;
+	}
+	
+	/** Called by {@link EngineGetter#getComponents(InputStream[], String, String[])}. */
+	static private class ComponentTask implements Callable<Void>
+	{
+		InputStream s_stream;
+		String      s_language;
+		String      s_mode;
+		AbstractComponent[] a_components;
+		int         i_component;
+		
+		public ComponentTask(InputStream stream, String language, String mode, AbstractComponent[] components, int index)
+		{
+			s_stream     = stream;
+			s_language   = language;
+			s_mode       = mode;
+			a_components = components;
+			i_component  = index;
+		}
+		
+		public Void call() throws Exception
+		{
+			long st = System.currentTimeMillis();
+			
+			a_components[i_component] = getComponent(s_stream, s_language, s_mode);
+			a_components[i_component].setStageName(s_mode);
+			LOG.info(String.format("Loaded %s in %d ms.\n", s_mode, System.currentTimeMillis() - st));
+			
+			return null;
+		}
+	}
+	
 	static private AbstractComponent getCMPAnalyzer(ZipInputStream zin, String language) throws IOException
 	{
 		if (language.equals(AbstractReader.LANG_EN))
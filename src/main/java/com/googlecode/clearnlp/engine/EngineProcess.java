@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.dependency.DEPArc;
 import com.googlecode.clearnlp.dependency.DEPFeat;
 import com.googlecode.clearnlp.dependency.DEPLib;
@@ -27,12 +28,15 @@ import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.morphology.MPLib;
 import com.googlecode.clearnlp.pos.POSNode;
+import com.googlecode.clearnlp.propbank.verbnet.PVBinaryMap;
 import com.googlecode.clearnlp.propbank.verbnet.PVMap;
 import com.googlecode.clearnlp.propbank.verbnet.PVRole;
 import com.googlecode.clearnlp.propbank.verbnet.PVRoleset;
 import com.googlecode.clearnlp.segmentation.AbstractSegmenter;
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
 import com.googlecode.clearnlp.util.UTCollection;
+import com.googlecode.clearnlp.util.metric.Metrics;
+import com.googlecode.clearnlp.util.metric.StageMetrics;
 
 /**
  * @since 1.1.0
@@ -44,14 +48,61 @@ public class EngineProcess
 	
 	static public List<List<String>> getSentences(AbstractSegmenter segmenter, BufferedReader fin)
 	{
-		return segmenter.getSentences(fin);
+		if (!Metrics.isEnabled())
+			return segmenter.getSentences(fin);
+		
+		long st = System.nanoTime();
+		List<List<String>> sentences = segmenter.getSentences(fin);
+		long et = System.nanoTime();
+		int tokens = 0;
+		
+		for (List<String> sentence : sentences)
+			tokens += sentence.size();
+		
+		Metrics.getStage(Metrics.STAGE_SEGMENT).add(tokens, et - st, -1);
+		return sentences;
 	}
 	
 	// ============================= input: sentence =============================
 	
 	static public List<String> getTokens(AbstractTokenizer tokenizer, String sentence)
 	{
-		return tokenizer.getTokens(sentence);
+		if (!Metrics.isEnabled())
+			return tokenizer.getTokens(sentence);
+		
+		long st = System.nanoTime();
+		List<String> tokens = tokenizer.getTokens(sentence);
+		
+		Metrics.getStage(Metrics.STAGE_TOKENIZE).add(tokens.size(), System.nanoTime() - st, -1);
+		return tokens;
+	}
+	
+	// ============================= process: components =============================
+	
+	/** Processes the specific tree with the specific component, measuring its latency if metrics are enabled (see {@link Metrics}). */
+	static public void process(AbstractComponent component, DEPTree tree)
+	{
+		if (!Metrics.isEnabled())
+		{
+			component.process(tree);
+			return;
+		}
+		
+		StageMetrics stage = Metrics.getStage(component.getStageName());
+		long alloc = Metrics.getAllocatedBytes();
+		long st    = System.nanoTime();
+		
+		component.process(tree);
+		
+		long et = System.nanoTime();
+		stage.add(tree.size()-1, et - st, (alloc < 0) ? -1 : Metrics.getAllocatedBytes() - alloc);
+	}
+	
+	/** Processes the specific tree with the specific components in order. */
+	static public void process(AbstractComponent[] components, DEPTree tree)
+	{
+		for (AbstractComponent component : components)
+			process(component, tree);
 	}
 	
 	// ============================= process: DEPTree =============================
@@ -114,6 +165,35 @@ public class EngineProcess
 					}
 	}
 	
+	/** Equivalent to {@link EngineProcess#addVerbNet(PVMap, DEPTree)} using the pre-sorted VerbNet classes of the compiled map. */
+	static public void addVerbNet(PVBinaryMap map, DEPTree tree)
+	{
+		int i, k, r, len, size = tree.size();
+		int[] rolesets = new int[size];
+		String rolesetId, vntheta, label;
+		DEPNode node;
+		char c;
+		
+		for (i=1; i<size; i++)
+		{
+			node = tree.get(i);
+			rolesets[i] = -1;
+			
+			if ((rolesetId = node.getFeat(DEPLib.FEAT_PB)) != null && (r = map.getRolesetIndex(rolesetId)) >= 0)
+			{
+				node.addFeat(DEPLib.FEAT_VN, map.getVNClasses(r));
+				rolesets[i] = r;
+			}
+		}
+		
+		for (i=1; i<size; i++)
+			for (DEPArc arc : tree.get(i).getSHeads())
+				if ((r = rolesets[arc.getNode().id]) >= 0 && (label = arc.getLabel()).length() > 1 && (c = label.charAt(1)) >= '0' && c <= '9')
+					for (k=0, len=map.getVNClassSize(r); k<len; k++)
+						if ((vntheta = map.getVNTheta(r, k, c - '0')) != null)
+							arc.appendLabel(vntheta);
+	}
+	
 	// ============================= conversion =============================
 	
 	static public POSNode[] toPOSNodes(List<String> tokens)
@@ -0,0 +1,268 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/**
+ * Processes batches of trees with multiple workers, where each worker owns a chain of components that is used by no other thread.
+ * The cost of each tree is estimated from its number of tokens (see {@link EngineScheduler#getCost(DEPTree)}).
+ * Trees are assigned longest-first to the least loaded worker; a worker that runs out of trees steals the shortest remaining tree from another worker.
+ * Trees are processed in place, so the batch keeps its input order.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class EngineScheduler
+{
+	private AbstractComponent[][] a_components;
+	private ExecutorService e_executor;
+	/** The sentence cache shared by all workers, or {@code null} if not used. */
+	private EngineCache     g_cache;
+	/** The nanoseconds each worker spends on processing trees. */
+	private long[] n_busy;
+	/** The number of trees processed by each worker. */
+	private long[] n_trees;
+	/** The number of trees stolen by each worker. */
+	private long[] n_steals;
+	/** The nanoseconds spent on {@link EngineScheduler#process(List)}. */
+	private long   n_wall;
+	
+	/** @param components the chain of components of each worker. */
+	public EngineScheduler(AbstractComponent[][] components)
+	{
+		int size = components.length;
+		
+		a_components = components;
+		e_executor   = Executors.newFixedThreadPool(size);
+		n_busy       = new long[size];
+		n_trees      = new long[size];
+		n_steals     = new long[size];
+		n_wall       = 0;
+	}
+	
+	/** Sets the sentence cache shared by all workers; {@code null} to process every tree. */
+	public void setCache(EngineCache cache)
+	{
+		g_cache = cache;
+	}
+	
+	/** @return the number of workers. */
+	public int getWorkerSize()
+	{
+		return a_components.length;
+	}
+	
+	/**
+	 * Parsing and semantic role labeling are quadratic in the worst case, so the cost grows with the square of the number of tokens.
+	 * @return the estimated cost of processing the specific tree.
+	 */
+	static public long getCost(DEPTree tree)
+	{
+		long n = tree.size() - 1;
+		return n * n + n + 1;
+	}
+	
+	/**
+	 * Processes all trees in the specific batch and returns when all workers are done.
+	 * A tree that fails does not stop the other trees from being processed.
+	 * @throws IllegalStateException if any tree fails, where the cause is the first failure.
+	 */
+	public void process(List<DEPTree> trees)
+	{
+		long st = System.nanoTime();
+		List<LinkedBlockingDeque<Integer>> queues = assign(trees);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		int i, size = a_components.length;
+		boolean interrupted = false;
+		
+		for (i=0; i<size; i++)
+			futures.add(e_executor.submit(new WorkerTask(i, trees, queues, failure)));
+		
+		// waits for every worker so no tree is being changed after this method returns
+		for (Future<?> future : futures)
+		{
+			while (true)
+			{
+				try
+				{
+					future.get();
+					break;
+				}
+				catch (InterruptedException e) {interrupted = true;}
+				catch (ExecutionException e)
+				{
+					failure.compareAndSet(null, e.getCause());
+					break;
+				}
+			}
+		}
+		
+		n_wall += System.nanoTime() - st;
+		if (interrupted)	Thread.currentThread().interrupt();
+		
+		if (failure.get() != null)
+			throw new IllegalStateException("Failed to process "+trees.size()+" trees.", failure.get());
+	}
+	
+	/** @return the queue of tree indices for each worker, where each queue is sorted by cost in descending order. */
+	private List<LinkedBlockingDeque<Integer>> assign(List<DEPTree> trees)
+	{
+		int i, w, size = trees.size(), workers = a_components.length;
+		List<LinkedBlockingDeque<Integer>> queues = new ArrayList<LinkedBlockingDeque<Integer>>(workers);
+		final long[] costs = new long[size];
+		Integer[] indices = new Integer[size];
+		long[] loads = new long[workers];
+		
+		for (i=0; i<size; i++)
+		{
+			costs[i]   = getCost(trees.get(i));
+			indices[i] = i;
+		}
+		
+		Arrays.sort(indices, new Comparator<Integer>()
+		{
+			public int compare(Integer i1, Integer i2)
+			{
+				long diff = costs[i2] - costs[i1];
+				return (diff > 0) ? 1 : (diff < 0) ? -1 : i1 - i2;
+			}
+		});
+		
+		for (w=0; w<workers; w++)
+			queues.add(new LinkedBlockingDeque<Integer>());
+		
+		for (Integer index : indices)
+		{
+			w = getMinIndex(loads);
+			queues.get(w).add(index);
+			loads[w] += costs[index];
+		}
+		
+		return queues;
+	}
+	
+	private int getMinIndex(long[] loads)
+	{
+		int i, min = 0;
+		
+		for (i=1; i<loads.length; i++)
+			if (loads[i] < loads[min])	min = i;
+		
+		return min;
+	}
+	
+	/** @return the report of the utilization of each worker since this scheduler was created. */
+	public String getUtilizationReport()
+	{
+		StringBuilder build = new StringBuilder();
+		int i, size = a_components.length;
+		
+		build.append("Worker utilization:\n");
+		
+		for (i=0; i<size; i++)
+		{
+			build.append(String.format("- %d: %5.1f%% (%d trees, %d stolen)\n", i, (n_wall > 0) ? 100d * n_busy[i] / n_wall : 0d, n_trees[i], n_steals[i]));
+		}
+		
+		return build.toString();
+	}
+	
+	/** @return the number of trees processed by each worker. */
+	public long[] getTreeCounts()
+	{
+		return n_trees.clone();
+	}
+	
+	/** Stops the worker threads. */
+	public void shutdown()
+	{
+		e_executor.shutdown();
+	}
+	
+	/** Called by {@link EngineScheduler#process(List)}. */
+	private class WorkerTask implements Runnable
+	{
+		int w_id;
+		List<DEPTree> w_trees;
+		List<LinkedBlockingDeque<Integer>> w_queues;
+		AtomicReference<Throwable> w_failure;
+		
+		public WorkerTask(int id, List<DEPTree> trees, List<LinkedBlockingDeque<Integer>> queues, AtomicReference<Throwable> failure)
+		{
+			w_id      = id;
+			w_trees   = trees;
+			w_queues  = queues;
+			w_failure = failure;
+		}
+		
+		public void run()
+		{
+			AbstractComponent[] components = a_components[w_id];
+			Integer index;
+			long st;
+			
+			while ((index = next()) != null)
+			{
+				st = System.nanoTime();
+				
+				try
+				{
+					if (g_cache != null)
+						g_cache.process(components, w_trees.get(index));
+					else
+						EngineProcess.process(components, w_trees.get(index));
+				}
+				catch (RuntimeException e) {w_failure.compareAndSet(null, e);}
+				
+				n_busy [w_id] += System.nanoTime() - st;
+				n_trees[w_id]++;
+			}
+		}
+		
+		/** @return the longest tree of this worker, or the shortest tree stolen from another worker; {@code null} if no tree is left. */
+		private Integer next()
+		{
+			Integer index = w_queues.get(w_id).pollFirst();
+			if (index != null)	return index;
+			
+			int i, size = w_queues.size();
+			
+			for (i=1; i<size; i++)
+			{
+				if ((index = w_queues.get((w_id + i) % size).pollLast()) != null)
+				{
+					n_steals[w_id]++;
+					return index;
+				}
+			}
+			
+			return null;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+import org.kohsuke.args4j.Option;
+import org.w3c.dom.Element;
+
+import com.googlecode.clearnlp.component.dep.CDEPParser;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.nlp.AbstractNLP;
+import com.googlecode.clearnlp.reader.AbstractReader;
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.UTXml;
+
+/**
+ * Parses the same sentences with and without a post-processing window (see {@link CDEPParser#setPostProcessWindow(int)}),
+ * and reports the latency percentiles per sentence and the agreement of heads between the two settings.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPPostProcessBenchmark extends AbstractNLP
+{
+	@Option(name="-c", usage="configuration file (required)", required=true, metaVar="<filename>")
+	private String s_configXml;
+	@Option(name="-i", usage="input file containing part-of-speech tagged sentences (required)", required=true, metaVar="<filename>")
+	private String s_inputFile;
+	@Option(name="-m", usage="dependency parsing model file (required)", required=true, metaVar="<filename>")
+	private String s_modelFile;
+	@Option(name="-pw", usage="post-processing window (default: 5)", required=false, metaVar="<integer>")
+	private int n_window = 5;
+	@Option(name="-r", usage="number of rounds, where all but the last round warm up (default: 3)", required=false, metaVar="<integer>")
+	private int n_rounds = 3;
+	
+	public DEPPostProcessBenchmark(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			run(s_configXml, s_inputFile, s_modelFile);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	public void run(String configXml, String inputFile, String modelFile) throws Exception
+	{
+		Element eConfig = UTXml.getDocumentElement(new FileInputStream(configXml));
+		AbstractReader<?> reader = getReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+		CDEPParser parser = new CDEPParser(new ZipInputStream(new FileInputStream(modelFile)));
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		reader.open(UTInput.createBufferedFileReader(inputFile));
+		
+		while ((tree = (DEPTree)reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		
+		int[][] heads = new int[trees.size()][];
+		
+		System.out.println("Sentences: "+trees.size());
+		print("window = none", parse(parser, trees, 0, heads));
+		print("window = "+n_window, parse(parser, trees, n_window, heads));
+		System.out.printf("Agreement: %5.2f%% of heads\n", getAgreement(trees, heads));
+	}
+	
+	/**
+	 * Parses the specific trees for {@link DEPPostProcessBenchmark#n_rounds} rounds.
+	 * @param heads if {@code heads[i]} is {@code null}, the heads of the {@code i}'th tree are stored; otherwise, they are kept.
+	 * @return the latencies of the last round in nanoseconds, sorted.
+	 */
+	private long[] parse(CDEPParser parser, List<DEPTree> trees, int window, int[][] heads)
+	{
+		int i, r, size = trees.size();
+		long[] latencies = new long[size];
+		DEPTree tree;
+		long st;
+		
+		parser.setPostProcessWindow(window);
+		
+		for (r=0; r<n_rounds; r++)
+		{
+			for (i=0; i<size; i++)
+			{
+				tree = trees.get(i);
+				tree.clearHeads();
+				
+				st = System.nanoTime();
+				parser.process(tree);
+				latencies[i] = System.nanoTime() - st;
+			}
+		}
+		
+		for (i=0; i<size; i++)
+			if (heads[i] == null)	heads[i] = getHeads(trees.get(i));
+		
+		Arrays.sort(latencies);
+		return latencies;
+	}
+	
+	private int[] getHeads(DEPTree tree)
+	{
+		int i, size = tree.size();
+		int[] heads = new int[size];
+		DEPNode head;
+		
+		for (i=1; i<size; i++)
+			heads[i] = ((head = tree.get(i).getHead()) != null) ? head.id : -1;
+		
+		return heads;
+	}
+	
+	/** @return the percentage of heads in the specific trees that are the same as the specific heads. */
+	private double getAgreement(List<DEPTree> trees, int[][] heads)
+	{
+		int i, j, size, same = 0, total = 0;
+		int[] curr;
+		
+		for (i=0; i<heads.length; i++)
+		{
+			curr = getHeads(trees.get(i));
+			size = curr.length;
+			
+			for (j=1; j<size; j++)
+				if (curr[j] == heads[i][j])	same++;
+			
+			total += size - 1;
+		}
+		
+		return (total > 0) ? 100d * same / total : 100;
+	}
+	
+	private void print(String title, long[] latencies)
+	{
+		System.out.printf("%-15s: p50 = %.3fms, p95 = %.3fms, p99 = %.3fms, max = %.3fms\n", title, getPercentile(latencies, 0.5), getPercentile(latencies, 0.95), getPercentile(latencies, 0.99), getPercentile(latencies, 1));
+	}
+	
+	/** @return the latency of the specific percentile in milliseconds. */
+	private double getPercentile(long[] latencies, double p)
+	{
+		if (latencies.length == 0)	return 0;
+		int index = (int)Math.ceil(p * latencies.length) - 1;
+		return latencies[Math.max(0, index)] / 1e6;
+	}
+	
+	static public void main(String[] args)
+	{
+		new DEPPostProcessBenchmark(args);
+	}
+}
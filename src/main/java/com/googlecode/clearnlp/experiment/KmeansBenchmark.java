@@ -0,0 +1,85 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.googlecode.clearnlp.clustering.Kmeans;
+import com.googlecode.clearnlp.util.pair.IntDoublePair;
+
+/**
+ * Benchmarks {@link Kmeans} on a synthetic corpus, where each unit draws most of its lexica from the vocabulary of one topic.
+ * Usage: {@code KmeansBenchmark <units> <lexica> <topics> <lexica per unit> <threads>}.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class KmeansBenchmark
+{
+	static public Kmeans getKmeans(int numUnits, int numLexica, int numTopics, int unitSize, int numThreads)
+	{
+		Kmeans kmeans = new Kmeans(numThreads);
+		Random rand = new Random(0);
+		int i, j, topic, topicSize = numLexica / numTopics;
+		Set<String> unit;
+		
+		for (i=0; i<numUnits; i++)
+		{
+			unit  = new HashSet<String>();
+			topic = i % numTopics;
+			
+			for (j=0; j<unitSize; j++)
+			{
+				if (rand.nextInt(10) < 8)
+					unit.add("w"+(topic * topicSize + rand.nextInt(topicSize)));
+				else
+					unit.add("w"+rand.nextInt(numLexica));
+			}
+			
+			kmeans.addUnit(unit);
+		}
+		
+		return kmeans;
+	}
+	
+	static public void main(String[] args)
+	{
+		int numUnits   = Integer.parseInt(args[0]);
+		int numLexica  = Integer.parseInt(args[1]);
+		int numTopics  = Integer.parseInt(args[2]);
+		int unitSize   = Integer.parseInt(args[3]);
+		int numThreads = Integer.parseInt(args[4]);
+		
+		List<List<IntDoublePair>> cluster;
+		long st, et;
+		
+		for (int threads : new int[]{1, numThreads})
+		{
+			for (boolean plusPlus : new boolean[]{false, true})
+			{
+				Kmeans kmeans = getKmeans(numUnits, numLexica, numTopics, unitSize, threads);
+				
+				st = System.currentTimeMillis();
+				cluster = kmeans.cluster(numTopics, 1, plusPlus);
+				et = System.currentTimeMillis();
+				
+				System.out.printf("threads = %d, k-means++ = %b: %d clusters, %d ms\n", threads, plusPlus, cluster.size(), et-st);
+			}
+		}
+	}
+}
@@ -15,12 +15,12 @@
 */
 package com.googlecode.clearnlp.experiment;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.googlecode.clearnlp.component.dep.CDEPParser;
 import com.googlecode.clearnlp.component.dep.ONDEPPassParser;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.dependency.DEPTreeStore;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.nlp.NLPTrain;
 import com.googlecode.clearnlp.reader.JointReader;
@@ -57,7 +57,7 @@ public class NLPOnline extends NLPTrain
 	
 	public List<DEPTree> getTrees(JointReader reader, String[] trainFiles, int devId)
 	{
-		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTreeStore trees = new DEPTreeStore();
 		int i, size = trainFiles.length;
 		DEPTree tree;
 		
@@ -16,7 +16,6 @@
 package com.googlecode.clearnlp.experiment;
 
 import java.io.FileInputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.w3c.dom.Element;
@@ -25,6 +24,7 @@ import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
 import com.googlecode.clearnlp.component.pos.CPOSTagger;
 import com.googlecode.clearnlp.component.pos.ONPOSTagger;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.dependency.DEPTreeStore;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.nlp.NLPDevelop;
 import com.googlecode.clearnlp.nlp.NLPLib;
@@ -84,7 +84,7 @@ public class ONPOSTrain extends NLPDevelop
 	
 	protected List<DEPTree> getTrees(JointReader reader, String[] inputFiles)
 	{
-		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTreeStore trees = new DEPTreeStore();
 		DEPTree tree;
 		
 		for (String inputFile : inputFiles)
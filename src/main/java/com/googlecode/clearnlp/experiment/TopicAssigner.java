@@ -22,6 +22,9 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import com.carrotsearch.hppc.IntOpenHashSet;
@@ -38,24 +41,33 @@ public class TopicAssigner
 	final Pattern P_COLON = Pattern.compile(":");
 	final Pattern P_UNDER = Pattern.compile("_");
 	
-	public TopicAssigner(String depDir, String tpcDir, int threshold) throws IOException
+	public TopicAssigner(String depDir, String tpcDir, int threshold) throws Exception
 	{
+		this(depDir, tpcDir, threshold, 1);
+	}
+	
+	/** Assigns topics to the files in the specific directory using {@code numThreads} threads, one file per thread. */
+	public TopicAssigner(String depDir, String tpcDir, int threshold, int numThreads) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
 		String depFile, tpcFile, outFile;
 		
 		for (String basename : new File(depDir).list(new FileExtFilter("dep.2")))
 		{
-			System.out.println(basename);
 			depFile = depDir + File.separator + basename;
 			tpcFile = tpcDir + File.separator + basename;
 			outFile = depDir + File.separator + basename + ".tpc";
 			
-			assign(depFile, tpcFile, outFile, threshold);
+			executor.execute(new AssignTask(basename, depFile, tpcFile, outFile, threshold));
 		}
+		
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
 	}
 	
 	public void assign(String depFile, String tpcFile, String outFile, int threshold) throws IOException
 	{
-		List<List<String[]>> topics = getTopics(tpcFile, threshold);
+		TopicMatcher matcher = new TopicMatcher(getTopics(tpcFile, threshold));
 		DEPReader reader = new DEPReader(0, 1, 2, 3, 4, 5, 6);
 		reader.open(UTInput.createBufferedFileReader(depFile));
 		PrintStream fout = UTOutput.createPrintBufferedFileStream(outFile);
@@ -68,7 +80,7 @@ public class TopicAssigner
 		
 		while ((tree = reader.next()) != null)
 		{
-			sets  = assignTopics(topics, tree);
+			sets  = matcher.getTopics(tree);
 			size  = sets.length;
 			build = new StringBuilder();
 			
@@ -97,45 +109,6 @@ public class TopicAssigner
 		fout.close();
 	}
 	
-	private IntOpenHashSet[] assignTopics(List<List<String[]>> topics, DEPTree tree)
-	{
-		int nodeId, topicId, i, nSize = tree.size(), tSize = topics.size(), iSize;
-		IntOpenHashSet[] sets = new IntOpenHashSet[nSize];
-		boolean match;
-		
-		for (nodeId=1; nodeId<nSize; nodeId++)
-			sets[nodeId] = new IntOpenHashSet();
-		
-		for (nodeId=1; nodeId<nSize; nodeId++)
-		{
-			for (topicId=0; topicId<tSize; topicId++)
-			{
-				for (String[] topic : topics.get(topicId))
-				{
-					iSize = topic.length;
-					match = true;
-					
-					for (i=0; i<iSize; i++)
-					{
-						if (nodeId+i >= nSize || !tree.get(nodeId+i).form.toLowerCase().equals(topic[i]))
-						{
-							match = false;
-							break;
-						}
-					}
-					
-					if (match)
-					{
-						for (i=0; i<iSize; i++)
-							sets[nodeId+i].add(topicId);
-					}
-				}
-			}
-		}
-		
-		return sets;
-	}
-	
 	public List<List<String[]>> getTopics(String tpcFile, int threshold) throws IOException
 	{
 		BufferedReader fin = UTInput.createBufferedFileReader(tpcFile);
@@ -165,11 +138,37 @@ public class TopicAssigner
 		return topics;
 	}
 	
+	private class AssignTask implements Runnable
+	{
+		String s_basename, s_depFile, s_tpcFile, s_outFile;
+		int    n_threshold;
+		
+		public AssignTask(String basename, String depFile, String tpcFile, String outFile, int threshold)
+		{
+			s_basename  = basename;
+			s_depFile   = depFile;
+			s_tpcFile   = tpcFile;
+			s_outFile   = outFile;
+			n_threshold = threshold;
+		}
+		
+		public void run()
+		{
+			try
+			{
+				assign(s_depFile, s_tpcFile, s_outFile, n_threshold);
+				System.out.println(s_basename);
+			}
+			catch (Exception e) {e.printStackTrace();}
+		}
+	}
+	
 	static public void main(String[] args)
 	{
 		try
 		{
-			new TopicAssigner(args[0], args[1], Integer.parseInt(args[2]));
+			int numThreads = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+			new TopicAssigner(args[0], args[1], Integer.parseInt(args[2]), numThreads);
 		}
 		catch (Exception e) {e.printStackTrace();}
 	}
@@ -0,0 +1,230 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/**
+ * Aho-Corasick automaton matching multi-word topic phrases against lowercased word-forms.
+ * Tokens of phrases are mapped to IDs when the automaton is compiled,
+ * so each tree is matched in a single pass over its nodes regardless of the number of phrases.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class TopicMatcher
+{
+	/** The ID of each token in phrases plus 1 (so that 0 indicates an unknown token). */
+	private ObjectIntOpenHashMap<String> m_tokens;
+	/** The transitions from the root state, indexed by token IDs. */
+	private int[] a_root;
+	/** The transitions from non-root states, keyed by {@code (state << 32) | tokenId}. */
+	private LongIntOpenHashMap m_goto;
+	/** The failure state of each state. */
+	private int[] a_fail;
+	/** The topic IDs of phrases ending at each state, including the ones reachable by failure states. */
+	private int[][] a_topics;
+	/** The lengths of the phrases in {@link TopicMatcher#a_topics}. */
+	private int[][] a_lengths;
+	
+	/** @param topics the list of phrases of each topic, where each phrase is an array of lowercased tokens. */
+	public TopicMatcher(List<List<String[]>> topics)
+	{
+		m_tokens = new ObjectIntOpenHashMap<String>();
+		m_goto   = new LongIntOpenHashMap();
+		
+		List<IntArrayList> outputs = new ArrayList<IntArrayList>();
+		IntArrayList depths = new IntArrayList();
+		int topicId, size = topics.size();
+		
+		outputs.add(new IntArrayList());
+		depths.add(0);
+		
+		for (topicId=0; topicId<size; topicId++)
+			for (String[] phrase : topics.get(topicId))
+				addPhrase(phrase, topicId, outputs, depths);
+		
+		initFailures(outputs, depths);
+	}
+	
+	private void addPhrase(String[] phrase, int topicId, List<IntArrayList> outputs, IntArrayList depths)
+	{
+		int state = 0, next, tokenId;
+		long key;
+		
+		for (String token : phrase)
+		{
+			if ((tokenId = m_tokens.get(token)) == 0)
+				m_tokens.put(token, tokenId = m_tokens.size() + 1);
+			
+			key = getKey(state, tokenId);
+			
+			if ((next = m_goto.get(key)) == 0)
+			{
+				next = outputs.size();
+				outputs.add(new IntArrayList());
+				depths.add(depths.get(state) + 1);
+				m_goto.put(key, next);
+			}
+			
+			state = next;
+		}
+		
+		if (state > 0)
+			outputs.get(state).add(topicId);
+	}
+	
+	/** Computes failure states in breadth-first order and merges the outputs of failure states. */
+	private void initFailures(List<IntArrayList> outputs, IntArrayList depths)
+	{
+		int i, state, next, fail, tokenId, size = outputs.size();
+		List<IntArrayList> children = new ArrayList<IntArrayList>(size);
+		List<IntArrayList> tokenIds = new ArrayList<IntArrayList>(size);
+		long[] keys = m_goto.keys;
+		int[]  vals = m_goto.values;
+		boolean[] allocated = m_goto.allocated;
+		int[] queue = new int[size];
+		int head = 0, tail = 0;
+		
+		a_root    = new int[m_tokens.size() + 1];
+		a_fail    = new int[size];
+		a_topics  = new int[size][];
+		a_lengths = new int[size][];
+		
+		for (i=0; i<size; i++)
+		{
+			children.add(new IntArrayList());
+			tokenIds.add(new IntArrayList());
+		}
+		
+		for (i=0; i<keys.length; i++)
+		{
+			if (allocated[i])
+			{
+				state = (int)(keys[i] >>> 32);
+				children.get(state).add(vals[i]);
+				tokenIds.get(state).add((int)keys[i]);
+				if (state == 0)	a_root[(int)keys[i]] = vals[i];
+			}
+		}
+		
+		queue[tail++] = 0;
+		a_topics [0] = new int[0];
+		a_lengths[0] = new int[0];
+		
+		while (head < tail)
+		{
+			state = queue[head++];
+			
+			for (i=children.get(state).size()-1; i>=0; i--)
+			{
+				next    = children.get(state).get(i);
+				tokenId = tokenIds.get(state).get(i);
+				
+				if (state == 0)
+					fail = 0;
+				else
+				{
+					fail = a_fail[state];
+					while (fail > 0 && getNext(fail, tokenId) == 0)	fail = a_fail[fail];
+					fail = getNext(fail, tokenId);
+				}
+				
+				a_fail[next] = fail;
+				setOutputs(next, outputs.get(next), depths.get(next), fail);
+				queue[tail++] = next;
+			}
+		}
+	}
+	
+	private void setOutputs(int state, IntArrayList topicIds, int depth, int fail)
+	{
+		int i, size = topicIds.size(), fSize = a_topics[fail].length;
+		int[] topics  = Arrays.copyOf(topicIds.toArray(), size + fSize);
+		int[] lengths = new int[size + fSize];
+		
+		Arrays.fill(lengths, 0, size, depth);
+		
+		for (i=0; i<fSize; i++)
+		{
+			topics [size+i] = a_topics [fail][i];
+			lengths[size+i] = a_lengths[fail][i];
+		}
+		
+		a_topics [state] = topics;
+		a_lengths[state] = lengths;
+	}
+	
+	/** @return the next state of the specific state given the token ID, or 0 if there is no transition. */
+	private int getNext(int state, int tokenId)
+	{
+		return (state == 0) ? a_root[tokenId] : m_goto.get(getKey(state, tokenId));
+	}
+	
+	private long getKey(int state, int tokenId)
+	{
+		return ((long)state << 32) | tokenId;
+	}
+	
+	/**
+	 * Returns the set of topic IDs of each node, where a node gets a topic ID if it is covered by a phrase of the topic.
+	 * @return the set of topic IDs of each node (the 0th set is {@code null}).
+	 */
+	public IntOpenHashSet[] getTopics(DEPTree tree)
+	{
+		int nodeId, state = 0, tokenId, i, j, size = tree.size();
+		IntOpenHashSet[] sets = new IntOpenHashSet[size];
+		int[] topics, lengths;
+		
+		for (nodeId=1; nodeId<size; nodeId++)
+			sets[nodeId] = new IntOpenHashSet();
+		
+		for (nodeId=1; nodeId<size; nodeId++)
+		{
+			if ((tokenId = m_tokens.get(tree.get(nodeId).form.toLowerCase())) == 0)
+			{
+				state = 0;
+				continue;
+			}
+			
+			while (state > 0 && getNext(state, tokenId) == 0)
+				state = a_fail[state];
+			
+			state   = getNext(state, tokenId);
+			topics  = a_topics [state];
+			lengths = a_lengths[state];
+			
+			for (i=0; i<topics.length; i++)
+				for (j=nodeId-lengths[i]+1; j<=nodeId; j++)
+					sets[j].add(topics[i]);
+		}
+		
+		return sets;
+	}
+	
+	/** @return the number of states in this automaton. */
+	public int getStateSize()
+	{
+		return a_fail.length;
+	}
+}
@@ -26,9 +26,14 @@ package com.googlecode.clearnlp.headrule;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import com.googlecode.clearnlp.constituent.CTNode;
+import com.googlecode.clearnlp.constituent.CTTagIndex;
 
 /**
  * Headrule map.
@@ -42,6 +47,9 @@ public class HeadRuleMap extends HashMap<String, HeadRule>
 	/** The delimiter between columns ({@code "\t"}). */
 	static final public String DELIM_COLUMN = "\t";
 	
+	/** The headrules indexed by the IDs of their phrase tags; {@code null} if this map has changed since it was built. */
+	volatile private HeadRule[] a_rules;
+	
 	/**
 	 * Constructs a headrule map from the specific reader.
 	 * @param in the reader containing headrules.
@@ -68,6 +76,66 @@ public class HeadRuleMap extends HashMap<String, HeadRule>
 		catch (IOException e) {e.printStackTrace();}
 	}
 	
+	/**
+	 * Returns the headrule of the phrase tag of the specific node, equivalent to {@code get(node.pTag)}.
+	 * Looks up the headrule by the ID of the phrase tag (see {@link CTNode#getPTagId()}).
+	 * @param node the node to find the headrule of.
+	 * @return the headrule of the phrase tag of the specific node.
+	 */
+	public HeadRule get(CTNode node)
+	{
+		HeadRule[] rules = a_rules;
+		if (rules == null)	rules = initRuleArray();
+		
+		int id = node.getPTagId();
+		return (id < rules.length) ? rules[id] : null;
+	}
+	
+	/** Called by {@link HeadRuleMap#get(CTNode)}. */
+	synchronized private HeadRule[] initRuleArray()
+	{
+		if (a_rules != null)	return a_rules;
+		HeadRule[] rules = new HeadRule[0];
+		int id;
+		
+		for (Map.Entry<String,HeadRule> entry : entrySet())
+		{
+			id = CTTagIndex.getId(entry.getKey());
+			if (id >= rules.length)	rules = Arrays.copyOf(rules, id+1);
+			rules[id] = entry.getValue();
+		}
+		
+		return a_rules = rules;
+	}
+	
+	@Override
+	public HeadRule put(String pTag, HeadRule rule)
+	{
+		a_rules = null;
+		return super.put(pTag, rule);
+	}
+	
+	@Override
+	public HeadRule remove(Object pTag)
+	{
+		a_rules = null;
+		return super.remove(pTag);
+	}
+	
+	@Override
+	public void putAll(Map<? extends String,? extends HeadRule> map)
+	{
+		a_rules = null;
+		super.putAll(map);
+	}
+	
+	@Override
+	public void clear()
+	{
+		a_rules = null;
+		super.clear();
+	}
+	
 	/** Called by {@link HeadRuleMap#HeadRuleMap(BufferedReader)}. */
 	private String[][] getTagSets(String rule)
 	{
@@ -23,7 +23,8 @@
 */
 package com.googlecode.clearnlp.headrule;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -43,9 +44,19 @@ public class HeadTagSet
 	static final public char   PREFIX_FTAG = '-';
 	
 	/** The regular expression of phrase/pos tags (e.g., {@code "^(NN.*|NP)$"}). */
-	private Pattern     p_tags;
-	/** The set of function tags. */
-	private Set<String> f_tags;
+	private Pattern  p_tags;
+	/** The function tags. */
+	private String[] a_fTags;
+	/**
+	 * Whether or not {@link HeadTagSet#p_tags} matches each phrase/pos tag, indexed by the tag ID (see {@link CTNode#getPTagId()}):
+	 * {@link HeadTagSet#UNKNOWN}, {@link HeadTagSet#MATCH}, or {@link HeadTagSet#NO_MATCH}.
+	 * Filled as new tags are seen; concurrent writes store the same values, so updates lost by a race are simply recomputed.
+	 */
+	volatile private byte[] b_pTags;
+	
+	static private final byte UNKNOWN  = 0;
+	static private final byte MATCH    = 1;
+	static private final byte NO_MATCH = 2;
 	
 	/**
 	 * Construct a new head tagset by decoding the specific tags.
@@ -56,12 +67,12 @@ public class HeadTagSet
 	public HeadTagSet(String[] tags)
 	{
 		StringBuilder pTags = new StringBuilder();
-		f_tags = new HashSet<String>();
+		Set<String>   fTags = new LinkedHashSet<String>();
 		
 		for (String tag : tags)
 		{
 			if (tag.charAt(0) == PREFIX_FTAG)
-				f_tags.add(tag.substring(1));
+				fTags.add(tag.substring(1));
 			else
 			{
 				pTags.append(DELIM_TAGS);
@@ -69,7 +80,9 @@ public class HeadTagSet
 			}
 		}
 		
-		p_tags = (pTags.length() != 0) ? Pattern.compile("^("+pTags.substring(1)+")$") : null;
+		p_tags  = (pTags.length() != 0) ? Pattern.compile("^("+pTags.substring(1)+")$") : null;
+		a_fTags = fTags.toArray(new String[fTags.size()]);
+		b_pTags = new byte[64];
 	}
 	
 	/**
@@ -79,14 +92,47 @@ public class HeadTagSet
 	 */
 	public boolean matches(CTNode node)
 	{
-		if (node != null && p_tags != null && p_tags.matcher(node.pTag).find())
-			return true;
-		else if (node.hasFTagAny(f_tags))
+		if (node != null && p_tags != null && matchesPTag(node))
 			return true;
 		
+		for (String fTag : a_fTags)
+		{
+			if (node.hasFTag(fTag))
+				return true;
+		}
+		
 		return false;
 	}
 	
+	/** Called by {@link HeadTagSet#matches(CTNode)}. */
+	private boolean matchesPTag(CTNode node)
+	{
+		int id = node.getPTagId();
+		byte[] states = b_pTags;
+		
+		if (id >= states.length)
+			states = growStates(id);
+		
+		byte state = states[id];
+		
+		if (state == UNKNOWN)
+		{
+			state = p_tags.matcher(node.pTag).find() ? MATCH : NO_MATCH;
+			states[id] = state;
+		}
+		
+		return state == MATCH;
+	}
+	
+	/** Called by {@link HeadTagSet#matchesPTag(CTNode)}. */
+	synchronized private byte[] growStates(int id)
+	{
+		if (id >= b_pTags.length)
+			b_pTags = Arrays.copyOf(b_pTags, Math.max(id+1, b_pTags.length*2));
+		
+		return b_pTags;
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -102,7 +148,7 @@ public class HeadTagSet
 			build.append(tags.substring(0, tags.length()-2));
 		}
 		
-		for (String fTag : f_tags)
+		for (String fTag : a_fTags)
 		{
 			build.append(DELIM_TAGS);
 			build.append(PREFIX_FTAG);
@@ -36,8 +36,10 @@ import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.io.FileExtFilter;
 import com.googlecode.clearnlp.reader.AbstractColumnReader;
 import com.googlecode.clearnlp.reader.AbstractReader;
+import com.googlecode.clearnlp.reader.DEPBinaryReader;
 import com.googlecode.clearnlp.reader.JointReader;
 import com.googlecode.clearnlp.reader.LineReader;
+import com.googlecode.clearnlp.reader.MappedJointReader;
 import com.googlecode.clearnlp.reader.RawReader;
 import com.googlecode.clearnlp.run.LiblinearTrain;
 import com.googlecode.clearnlp.util.UTXml;
@@ -98,6 +100,19 @@ abstract public class AbstractNLP
 			return tree.toStringSRL();
 	}
 	
+	/** @return the reader type whose format {@link AbstractNLP#toString(DEPTree, String)} uses for the specific mode. */
+	protected String getOutputType(String mode)
+	{
+		if      (mode.startsWith(NLPLib.MODE_POS))
+			return AbstractReader.TYPE_POS;
+		else if (mode.equals(NLPLib.MODE_MORPH))
+			return AbstractReader.TYPE_MORPH;
+		else if (mode.startsWith(NLPLib.MODE_DEP) || mode.equals(NLPLib.MODE_PRED) || mode.equals(NLPLib.MODE_ROLE) || mode.startsWith(NLPLib.MODE_SENSE))
+			return AbstractReader.TYPE_DEP;
+		else
+			return AbstractReader.TYPE_SRL;
+	}
+	
 	// ============================= getter: language =============================
 	
 	protected String getLanguage(Element element)
@@ -154,6 +169,24 @@ abstract public class AbstractNLP
 			return getJointReader(eReader);
 	}
 	
+	/** @return a memory-mapped reader with the specific number of threads if it is positive and the specific reader reads columns; otherwise, {@code null}. */
+	protected MappedJointReader getMappedReader(Element eReader, int numThreads)
+	{
+		String type = UTXml.getTrimmedAttribute(eReader, TAG_TYPE);
+		
+		if (numThreads <= 0 || type.equals(AbstractReader.TYPE_RAW) || type.equals(AbstractReader.TYPE_LINE) || type.equals(AbstractReader.TYPE_BIN))
+			return null;
+		
+		return new MappedJointReader(getJointReader(eReader), numThreads);
+	}
+	
+	/** @return a binary tree reader if the type of the specific reader is {@link AbstractReader#TYPE_BIN}; otherwise, {@code null}. */
+	protected DEPBinaryReader getBinaryReader(Element eReader)
+	{
+		String type = UTXml.getTrimmedAttribute(eReader, TAG_TYPE);
+		return type.equals(AbstractReader.TYPE_BIN) ? new DEPBinaryReader() : null;
+	}
+	
 	protected JointReader getJointReader(Element eReader)
 	{
 		ObjectIntOpenHashMap<String> map = getFieldMap(eReader);
@@ -0,0 +1,80 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Client of {@link NLPServer}; each client holds one connection and is not thread-safe.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPClient
+{
+	private Socket           f_socket;
+	private DataInputStream  f_in;
+	private DataOutputStream f_out;
+	
+	public NLPClient(String host, int port) throws IOException
+	{
+		f_socket = new Socket(host, port);
+		f_socket.setTcpNoDelay(true);
+		f_in  = new DataInputStream (new BufferedInputStream (f_socket.getInputStream()));
+		f_out = new DataOutputStream(new BufferedOutputStream(f_socket.getOutputStream()));
+	}
+	
+	/** @return the result of the specific raw text in the default format of the server. */
+	public String process(String text) throws IOException
+	{
+		return process(NLPServer.REQUEST_RAW, "", text);
+	}
+	
+	/**
+	 * @param type {@link NLPServer#REQUEST_RAW} or {@link NLPServer#REQUEST_TOK}.
+	 * @param format an output type of {@link com.googlecode.clearnlp.writer.DEPTextWriter}, {@link NLPServer#FORMAT_CONLL}, or an empty string for the default format of the server.
+	 * @return the result of the specific text.
+	 * @throws IOException if the server fails to process the text.
+	 */
+	public String process(int type, String format, String text) throws IOException
+	{
+		f_out.writeInt(type);
+		NLPServer.writeString(f_out, format);
+		NLPServer.writeString(f_out, text);
+		f_out.flush();
+		
+		int status = f_in.readInt();
+		String output = NLPServer.readString(f_in);
+		
+		if (status != NLPServer.STATUS_OK)
+			throw new IOException(output);
+		
+		return output;
+	}
+	
+	public void close()
+	{
+		try
+		{
+			f_socket.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+}
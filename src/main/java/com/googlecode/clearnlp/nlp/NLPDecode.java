@@ -17,11 +17,18 @@ package com.googlecode.clearnlp.nlp;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipInputStream;
 
 import org.kohsuke.args4j.Option;
@@ -41,15 +48,23 @@ import com.googlecode.clearnlp.component.srl.CSRLabeler;
 import com.googlecode.clearnlp.component.srl.CSenseClassifier;
 import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.engine.EngineCache;
 import com.googlecode.clearnlp.engine.EngineGetter;
+import com.googlecode.clearnlp.engine.EngineProcess;
+import com.googlecode.clearnlp.engine.EngineScheduler;
 import com.googlecode.clearnlp.reader.AbstractReader;
-import com.googlecode.clearnlp.reader.JointReader;
+import com.googlecode.clearnlp.reader.DEPBinaryReader;
 import com.googlecode.clearnlp.reader.LineReader;
+import com.googlecode.clearnlp.reader.MappedJointReader;
 import com.googlecode.clearnlp.segmentation.AbstractSegmenter;
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
 import com.googlecode.clearnlp.util.UTInput;
-import com.googlecode.clearnlp.util.UTOutput;
 import com.googlecode.clearnlp.util.UTXml;
+import com.googlecode.clearnlp.util.metric.Metrics;
+import com.googlecode.clearnlp.util.metric.MetricsReporter;
+import com.googlecode.clearnlp.writer.AbstractWriter;
+import com.googlecode.clearnlp.writer.DEPBinaryWriter;
+import com.googlecode.clearnlp.writer.DEPTextWriter;
 
 /**
  * @since 1.3.0
@@ -71,6 +86,29 @@ public class NLPDecode extends AbstractNLP
 	protected boolean b_twit;
 	@Option(name="-beams", usage="beam size (default: 1)", required=false, metaVar="<boolean>")
 	protected int n_beams = 1;
+	@Option(name="-dm", usage="margin between the best and second-best parsing scores below which second-best arcs are kept; 0 to keep none (default: 1)", required=false, metaVar="<double>")
+	protected double d_secondMargin = CDEPParser.DEFAULT_SECOND_MARGIN;
+	@Option(name="-pw", usage="maximum distance to candidate heads of tokens left without heads after parsing; 0 for no limit (default: 0)", required=false, metaVar="<integer>")
+	protected int n_postWindow = 0;
+	@Option(name="-ob", usage="if set, write output trees in binary (see DEPBinaryWriter)", required=false, metaVar="<boolean>")
+	protected boolean b_outputBinary;
+	@Option(name="-mf", usage="if set, collect pipeline metrics and append them to this CSV file (see MetricsReporter)", required=false, metaVar="<filename>")
+	protected String s_metricsFile;
+	@Option(name="-mp", usage="period of reporting pipeline metrics in seconds (default: 60)", required=false, metaVar="<integer>")
+	protected int n_metricsPeriod = 60;
+	@Option(name="-threads", usage="number of decoding threads, each loading its own components (default: 1)", required=false, metaVar="<integer>")
+	protected int n_threads = 1;
+	@Option(name="-window", usage="number of sentences scheduled together when decoding with multiple threads (default: 4096)", required=false, metaVar="<integer>")
+	protected int n_window = 4096;
+	@Option(name="-mapped", usage="if positive, read column input files by memory-mapping them and tokenizing chunks with this many threads (default: 0)", required=false, metaVar="<integer>")
+	protected int n_mappedThreads = 0;
+	@Option(name="-cache", usage="maximum number of sentences whose results are cached for raw, line, or tokenized input; 0 to disable (default: 0)", required=false, metaVar="<integer>")
+	protected int n_cacheSize = 0;
+	@Option(name="-cf", usage="if set, load the sentence cache from this file and save it back after decoding", required=false, metaVar="<filename>")
+	protected String s_cacheFile;
+	
+	/** The sentence cache in front of the component chain, or {@code null} if not used. */
+	protected EngineCache g_cache;
 	
 	public NLPDecode() {}
 	
@@ -91,83 +129,311 @@ public class NLPDecode extends AbstractNLP
 		Element eConfig = UTXml.getDocumentElement(new FileInputStream(configXml));
 		Element eReader = UTXml.getFirstElementByTagName(eConfig, TAG_READER);
 		Element eModels = UTXml.getFirstElementByTagName(eConfig, TAG_MODELS);
-		AbstractReader<?> reader = getReader(eReader);
-		String readerType = reader.getType();
-		PrintStream fout;
+		DEPBinaryReader  bReader = getBinaryReader(eReader);
+		MappedJointReader mReader = getMappedReader(eReader, n_mappedThreads);
+		AbstractReader<?> reader = (bReader == null) ? getReader(eReader) : null;
+		String readerType = (bReader == null) ? reader.getType() : getBinaryType(filenames);
+		AbstractWriter<DEPTree> fout;
 		
-		AbstractSegmenter   segmenter  = readerType.equals(AbstractReader.TYPE_RAW)  ? getSegmenter(eModels, b_twit) : null;
-		AbstractTokenizer   tokenizer  = readerType.equals(AbstractReader.TYPE_LINE) ? getTokenizer(eModels, b_twit) : null;
-		AbstractComponent[] components = getComponent(eModels, getModes(readerType, mode));
+		// the tokenizer dictionary is loaded while components are being loaded
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		TokenizerTask tokenizerTask = new TokenizerTask(eModels, readerType);
+		List<Future<Void>> tokenizerFuture = Collections.singletonList(executor.submit(tokenizerTask));
+		executor.shutdown();
 		
-		System.out.println("Decoding:");
+		EngineScheduler scheduler = null;
+		MetricsReporter reporter  = null;
 		
-		for (String[] filename : filenames)
+		try
 		{
-			reader.open(UTInput.createBufferedFileReader(filename[0]));
-			fout = UTOutput.createPrintBufferedFileStream(filename[1]);
-			System.out.println(filename[0]);
+			List<String> modes = getModes(readerType, mode);
+			AbstractComponent[] components = getComponent(eModels, modes);
+			scheduler = (n_threads > 1) ? getScheduler(eModels, modes, components) : null;
+			waitFor(tokenizerFuture);
+			
+			AbstractSegmenter segmenter = tokenizerTask.segmenter;
+			AbstractTokenizer tokenizer = tokenizerTask.tokenizer;
+			reporter = getMetricsReporter();
+			g_cache = getCache(configXml, eModels, readerType, mode);
+			if (scheduler != null)	scheduler.setCache(g_cache);
 			
-			decode(reader, fout, segmenter, tokenizer, components, mode);
-			reader.close(); fout.close();
+			System.out.println("Decoding:");
+			
+			for (String[] filename : filenames)
+			{
+				fout = getWriter(filename[1], mode);
+				System.out.println(filename[0]);
+				
+				if (bReader != null)
+				{
+					bReader.open(new FileInputStream(filename[0]));
+					
+					if (scheduler != null)
+						decode(bReader, fout, scheduler, mode);
+					else
+						decode(bReader, fout, components, mode);
+					
+					bReader.close();
+				}
+				else if (mReader != null)
+				{
+					mReader.open(filename[0]);
+					
+					if (scheduler != null)
+						decode(mReader, fout, scheduler, mode);
+					else
+						decode(mReader, fout, components, mode);
+					
+					mReader.close();
+				}
+				else
+				{
+					reader.open(UTInput.createBufferedFileReader(filename[0]));
+					
+					if (scheduler != null)
+						decode(reader, fout, segmenter, tokenizer, scheduler, mode);
+					else
+						decode(reader, fout, segmenter, tokenizer, components, mode);
+					
+					reader.close();
+				}
+				
+				fout.close();
+			}
+			
+			if (scheduler != null)
+				System.out.print(scheduler.getUtilizationReport());
+			
+			if (g_cache != null && s_cacheFile != null)
+				g_cache.save(s_cacheFile);
 		}
+		finally
+		{
+			// the scheduler threads and the reporter are stopped even if decoding fails
+			if (scheduler != null)	scheduler.shutdown();
+			if (reporter  != null)	reporter.stop();
+		}
+	}
+	
+	/**
+	 * @return the sentence cache if {@link NLPDecode#n_cacheSize} is positive and the input contains only word-forms; otherwise, {@code null}.
+	 * The cache is fingerprinted by the configuration file and the model files so that a saved cache is not reused with different models.
+	 */
+	private EngineCache getCache(String configXml, Element eModels, String readerType, String mode) throws IOException
+	{
+		if (n_cacheSize <= 0)	return null;
+		
+		if (!readerType.equals(AbstractReader.TYPE_RAW) && !readerType.equals(AbstractReader.TYPE_LINE) && !readerType.equals(AbstractReader.TYPE_TOK))
+		{
+			System.err.println("Warning: the sentence cache is not used for the reader type '"+readerType+"'.");
+			return null;
+		}
+		
+		List<String> filenames = new ArrayList<String>();
+		NodeList list = eModels.getElementsByTagName(TAG_MODEL);
+		int i, size = list.getLength();
+		
+		filenames.add(configXml);
+		
+		for (i=0; i<size; i++)
+			filenames.add(UTXml.getTrimmedAttribute((Element)list.item(i), TAG_PATH));
+		
+		EngineCache cache = new EngineCache(mode, n_cacheSize, EngineCache.getFingerprint(filenames));
+		if (s_cacheFile != null)	cache.load(s_cacheFile);
+		
+		return cache;
+	}
+	
+	/** @return a scheduler with {@link NLPDecode#n_threads} workers, where the first worker uses the specific components and the others load their own. */
+	private EngineScheduler getScheduler(Element eModels, List<String> modes, AbstractComponent[] components) throws Exception
+	{
+		AbstractComponent[][] workers = new AbstractComponent[n_threads][];
+		workers[0] = components;
+		
+		for (int i=1; i<n_threads; i++)
+			workers[i] = getComponent(eModels, modes);
+		
+		return new EngineScheduler(workers);
+	}
+	
+	/** @return a started metrics reporter if {@link NLPDecode#s_metricsFile} is set or metrics are enabled; otherwise, {@code null}. */
+	private MetricsReporter getMetricsReporter() throws IOException
+	{
+		if (s_metricsFile == null && !Metrics.isEnabled())
+			return null;
+		
+		MetricsReporter reporter = new MetricsReporter(s_metricsFile);
+		Metrics.enable();
+		reporter.start(n_metricsPeriod);
+		
+		return reporter;
+	}
+	
+	/** @return the type of annotation recorded in the first binary input file (default: {@link AbstractReader#TYPE_SRL}). */
+	private String getBinaryType(List<String[]> filenames) throws IOException
+	{
+		return filenames.isEmpty() ? AbstractReader.TYPE_SRL : DEPBinaryReader.getType(filenames.get(0)[0]);
+	}
+	
+	/** @return a binary writer if {@link NLPDecode#b_outputBinary} is set; otherwise, a text writer for the specific mode. */
+	protected AbstractWriter<DEPTree> getWriter(String outputFile, String mode) throws IOException
+	{
+		if (b_outputBinary)
+			return new DEPBinaryWriter(new FileOutputStream(outputFile), getOutputType(mode));
+		else
+			return new DEPTextWriter(new FileOutputStream(outputFile), getOutputType(mode));
 	}
 	
 	//	===================================== decode ===================================== 
 	
-	public void decode(AbstractReader<?> reader, PrintStream fout, AbstractSegmenter segmenter, AbstractTokenizer tokenizer, AbstractComponent[] components, String mode) throws IOException
+	@SuppressWarnings("unchecked")
+	public void decode(AbstractReader<?> reader, AbstractWriter<DEPTree> fout, AbstractSegmenter segmenter, AbstractTokenizer tokenizer, AbstractComponent[] components, String mode) throws IOException
 	{
 		if      (segmenter != null)
 			decode(reader.getBufferedReader(), fout, segmenter, components, mode);
 		else if (tokenizer != null)
 			decode((LineReader)reader, fout, tokenizer, components, mode);
 		else
-			decode((JointReader)reader, fout, components, mode);
+			decode((AbstractReader<DEPTree>)reader, fout, components, mode);
 	}
 	
-	public void decode(BufferedReader reader, PrintStream fout, AbstractSegmenter segmenter, AbstractComponent[] components, String mode) throws IOException
+	public void decode(BufferedReader reader, AbstractWriter<DEPTree> fout, AbstractSegmenter segmenter, AbstractComponent[] components, String mode) throws IOException
 	{
 		DEPTree tree;
 		
-		for (List<String> tokens : segmenter.getSentences(reader))
+		for (List<String> tokens : EngineProcess.getSentences(segmenter, reader))
 		{
 			tree = toDEPTree(tokens);
+			process(components, tree);
 			
-			for (AbstractComponent component : components)
-				component.process(tree);
-			
-			fout.println(toString(tree, mode)+"\n");
+			fout.write(tree);
 		}
 	}
 	
-	public void decode(LineReader reader, PrintStream fout, AbstractTokenizer tokenizer, AbstractComponent[] components, String mode)
+	public void decode(LineReader reader, AbstractWriter<DEPTree> fout, AbstractTokenizer tokenizer, AbstractComponent[] components, String mode)
 	{
 		String sentence;
 		DEPTree tree;
 		
 		while ((sentence = reader.next()) != null)
 		{
-			tree = toDEPTree(tokenizer.getTokens(sentence));
+			tree = toDEPTree(EngineProcess.getTokens(tokenizer, sentence));
+			process(components, tree);
 			
-			for (AbstractComponent component : components)
-				component.process(tree);
-			
-			fout.println(toString(tree, mode)+"\n");
+			fout.write(tree);
 		}
 	}
 	
-	public void decode(JointReader reader, PrintStream fout, AbstractComponent[] components, String mode)
+	public void decode(AbstractReader<DEPTree> reader, AbstractWriter<DEPTree> fout, AbstractComponent[] components, String mode)
 	{
 		DEPTree tree;
 		
 		while ((tree = reader.next()) != null)
 		{
-			for (AbstractComponent component : components)
-				component.process(tree);
+			process(components, tree);
+			fout.write(tree);
+		}
+	}
+	
+	public void decode(DEPBinaryReader reader, AbstractWriter<DEPTree> fout, AbstractComponent[] components, String mode)
+	{
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+		{
+			process(components, tree);
+			fout.write(tree);
+		}
+	}
+	
+	public void decode(MappedJointReader reader, AbstractWriter<DEPTree> fout, AbstractComponent[] components, String mode)
+	{
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+		{
+			process(components, tree);
+			fout.write(tree);
+		}
+	}
+	
+	/**
+	 * Decodes trees in windows of {@link NLPDecode#n_window} sentences using the specific scheduler.
+	 * Trees in each window are processed longest-first across workers and written in input order.
+	 */
+	@SuppressWarnings("unchecked")
+	public void decode(AbstractReader<?> reader, AbstractWriter<DEPTree> fout, AbstractSegmenter segmenter, AbstractTokenizer tokenizer, EngineScheduler scheduler, String mode) throws IOException
+	{
+		Iterator<List<String>> sentences = (segmenter != null) ? EngineProcess.getSentences(segmenter, reader.getBufferedReader()).iterator() : null;
+		List<DEPTree> window = new ArrayList<DEPTree>();
+		String sentence;
+		DEPTree tree;
+		
+		while (true)
+		{
+			if (sentences != null)
+				tree = sentences.hasNext() ? toDEPTree(sentences.next()) : null;
+			else if (tokenizer != null)
+				tree = ((sentence = ((LineReader)reader).next()) != null) ? toDEPTree(EngineProcess.getTokens(tokenizer, sentence)) : null;
+			else
+				tree = ((AbstractReader<DEPTree>)reader).next();
+			
+			if (tree != null)	window.add(tree);
 			
-			fout.println(toString(tree, mode)+"\n");
+			if (window.size() >= n_window || (tree == null && !window.isEmpty()))
+				process(scheduler, window, fout);
+			
+			if (tree == null)	break;
 		}
 	}
 	
+	/** Decodes binary trees in windows of {@link NLPDecode#n_window} sentences using the specific scheduler. */
+	public void decode(DEPBinaryReader reader, AbstractWriter<DEPTree> fout, EngineScheduler scheduler, String mode)
+	{
+		List<DEPTree> window = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+		{
+			window.add(tree);
+			if (window.size() >= n_window)	process(scheduler, window, fout);
+		}
+		
+		if (!window.isEmpty())	process(scheduler, window, fout);
+	}
+	
+	/** Decodes memory-mapped trees in windows of {@link NLPDecode#n_window} sentences using the specific scheduler. */
+	public void decode(MappedJointReader reader, AbstractWriter<DEPTree> fout, EngineScheduler scheduler, String mode)
+	{
+		List<DEPTree> window = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+		{
+			window.add(tree);
+			if (window.size() >= n_window)	process(scheduler, window, fout);
+		}
+		
+		if (!window.isEmpty())	process(scheduler, window, fout);
+	}
+	
+	/** Processes the specific window of trees, writes them in order, and clears the window. */
+	private void process(EngineScheduler scheduler, List<DEPTree> window, AbstractWriter<DEPTree> fout)
+	{
+		scheduler.process(window);
+		for (DEPTree tree : window)	fout.write(tree);
+		window.clear();
+	}
+	
+	/** Processes the specific tree with the specific components, using {@link NLPDecode#g_cache} if it is set. */
+	private void process(AbstractComponent[] components, DEPTree tree)
+	{
+		if (g_cache != null)
+			g_cache.process(components, tree);
+		else
+			EngineProcess.process(components, tree);
+	}
+	
 	public DEPTree toDEPTree(List<String> tokens)
 	{
 		DEPTree tree = new DEPTree();
@@ -190,7 +456,12 @@ public class NLPDecode extends AbstractNLP
 		else if (mode.equals(NLPLib.MODE_MORPH))
 			return getMPAnalyzer(zin, language);
 		else if (mode.equals(NLPLib.MODE_DEP))
-			return new CDEPParser(zin);
+		{
+			CDEPParser parser = new CDEPParser(zin);
+			parser.setSecondBestMargin(d_secondMargin);
+			parser.setPostProcessWindow(n_postWindow);
+			return parser;
+		}
 		else if (mode.equals(NLPLib.MODE_PRED))
 			return new CPredIdentifier(zin);
 		else if (mode.equals(NLPLib.MODE_ROLE))
@@ -288,13 +559,17 @@ public class NLPDecode extends AbstractNLP
 	
 //	===================================== getComponent: protected =====================================
 	
+	/** Loads the components of the specific modes concurrently and prints the load time of each component. */
 	protected AbstractComponent[] getComponent(Element eModels, List<String> modes) throws Exception
 	{
 		AbstractComponent[] components = new AbstractComponent[modes.size()];
+		long[] times = new long[modes.size()];
 		NodeList list = eModels.getElementsByTagName(TAG_MODEL);
 		ObjectIntOpenHashMap<String> map = getModeMap(modes);
 		String language = getLanguage(eModels);
 		int i, idx, size = list.getLength();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, modes.size()));
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
 		Element eModel;
 		String mode;
 		
@@ -304,12 +579,104 @@ public class NLPDecode extends AbstractNLP
 			mode   = UTXml.getTrimmedAttribute(eModel, TAG_MODE);
 			
 			if ((idx = map.get(mode) - 1) >= 0)
-				components[idx] = getComponent(new FileInputStream(UTXml.getTrimmedAttribute(eModel, TAG_PATH)), language, mode);
+				futures.add(executor.submit(new ComponentTask(UTXml.getTrimmedAttribute(eModel, TAG_PATH), language, mode, components, times, idx)));
+		}
+		
+		executor.shutdown();
+		waitFor(futures);
+		
+		System.out.println("Loading components:");
+		
+		for (i=0; i<components.length; i++)
+		{
+			if (components[i] != null)
+				System.out.printf("- %s: %d ms\n", modes.get(i), times[i]);
 		}
 		
 		return components;
 	}
 	
+	/**
+	 * Waits until all the given tasks are finished.
+	 * @throws Exception the first error thrown by the tasks.
+	 */
+	private void waitFor(List<Future<Void>> futures) throws Exception
+	{
+		Throwable failure = null;
+		
+		for (Future<Void> future : futures)
+		{
+			try
+			{
+				future.get();
+			}
+			catch (ExecutionException e)
+			{
+				if (failure == null)	failure = e.getCause();
+			}
+		}
+		
+		if (failure instanceof Exception)	throw (Exception)failure;
+		if (failure instanceof Error)		throw (Error)failure;
+	}
+	
+	/** Called by {@link NLPDecode#getComponent(Element, List)}. */
+	private class ComponentTask implements Callable<Void>
+	{
+		String s_path;
+		String s_language;
+		String s_mode;
+		AbstractComponent[] a_components;
+		long[] a_times;
+		int    i_component;
+		
+		public ComponentTask(String path, String language, String mode, AbstractComponent[] components, long[] times, int index)
+		{
+			s_path       = path;
+			s_language   = language;
+			s_mode       = mode;
+			a_components = components;
+			a_times      = times;
+			i_component  = index;
+		}
+		
+		public Void call() throws Exception
+		{
+			long st = System.currentTimeMillis();
+			
+			a_components[i_component] = getComponent(new FileInputStream(s_path), s_language, s_mode);
+			a_components[i_component].setStageName(s_mode);
+			a_times[i_component] = System.currentTimeMillis() - st;
+			
+			return null;
+		}
+	}
+	
+	/** Called by {@link NLPDecode#decode(String, String, String, String, String)}. */
+	private class TokenizerTask implements Callable<Void>
+	{
+		Element           e_models;
+		String            s_readerType;
+		AbstractSegmenter segmenter;
+		AbstractTokenizer tokenizer;
+		
+		public TokenizerTask(Element eModels, String readerType)
+		{
+			e_models     = eModels;
+			s_readerType = readerType;
+		}
+		
+		public Void call() throws Exception
+		{
+			if      (s_readerType.equals(AbstractReader.TYPE_RAW))
+				segmenter = getSegmenter(e_models, b_twit);
+			else if (s_readerType.equals(AbstractReader.TYPE_LINE))
+				tokenizer = getTokenizer(e_models, b_twit);
+			
+			return null;
+		}
+	}
+	
 	protected AbstractSegmenter getSegmenter(Element eModels, boolean twit) throws IOException
 	{
 		AbstractTokenizer tokenizer = getTokenizer(eModels, twit);
@@ -16,9 +16,17 @@
 package com.googlecode.clearnlp.nlp;
 
 import java.io.FileInputStream;
-import java.io.PrintStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.kohsuke.args4j.Option;
 import org.w3c.dom.Element;
@@ -39,9 +47,9 @@ import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.reader.JointReader;
 import com.googlecode.clearnlp.util.UTFile;
 import com.googlecode.clearnlp.util.UTInput;
-import com.googlecode.clearnlp.util.UTOutput;
 import com.googlecode.clearnlp.util.UTXml;
 import com.googlecode.clearnlp.util.pair.ObjectDoublePair;
+import com.googlecode.clearnlp.writer.DEPTextWriter;
 
 /**
  * @since 1.3.0
@@ -55,6 +63,8 @@ public class NLPDevelop extends NLPTrain
 	protected int i_rand = 0;
 	@Option(name="-g", usage="if set, generate files", required=false, metaVar="<boolean>")
 	protected boolean b_generate = false;
+	@Option(name="-dt", usage="the number of threads for decoding development files (default: the number of processors)", required=false, metaVar="<integer>")
+	protected int n_devThreads = Runtime.getRuntime().availableProcessors();
 	
 	public NLPDevelop() {}
 	
@@ -82,11 +92,11 @@ public class NLPDevelop extends NLPTrain
 		else if (mode.equals(NLPLib.MODE_DEP))
 			developComponentBoot(eConfig, reader, xmls, trainFiles, devFiles, new CDEPParser(xmls), mode, -1);
 		else if (mode.equals(NLPLib.MODE_PRED))
-			decode(reader, getTrainedComponent(eConfig, xmls, trainFiles, null, null, mode, 0, -1), devFiles, mode, mode);
+			decode(reader, xmls, getTrainedComponent(eConfig, xmls, trainFiles, null, null, mode, 0, -1).getModels(), null, devFiles, mode, mode);
 		else if (mode.equals(NLPLib.MODE_ROLE))
-			decode(reader, getTrainedComponent(eConfig, reader, xmls, trainFiles, new CRolesetClassifier(xmls), mode, -1), devFiles, mode, mode);
+			decode(eConfig, reader, xmls, trainFiles, devFiles, getLexica(new CRolesetClassifier(xmls), reader, xmls, trainFiles, -1), mode);
 		else if (mode.startsWith(NLPLib.MODE_SENSE))
-			decode(reader, getTrainedComponent(eConfig, reader, xmls, trainFiles, new CSenseClassifier(xmls, mode.substring(mode.lastIndexOf("_")+1)), mode, -1), devFiles, mode, mode);
+			decode(eConfig, reader, xmls, trainFiles, devFiles, getLexica(new CSenseClassifier(xmls, mode.substring(mode.lastIndexOf("_")+1)), reader, xmls, trainFiles, -1), mode);
 		else if (mode.equals(NLPLib.MODE_SRL))
 			developComponentBoot(eConfig, reader, xmls, trainFiles, devFiles, new CSRLabeler(xmls), mode, -1);
 		else if (mode.equals(NLPLib.MODE_POS_BACK))
@@ -100,7 +110,6 @@ public class NLPDevelop extends NLPTrain
 		StringTrainSpace[] spaces = getStringTrainSpaces(eConfig, xmls, trainFiles, null, lexica, mode, 0, devId);
 		Element eTrain = UTXml.getFirstElementByTagName(eConfig, mode);
 		int i, mSize = spaces.length, nUpdate = 1;
-		AbstractStatisticalComponent processor;
 		
 		StringModel[] models = new StringModel[mSize];
 		double prevScore = -1, currScore = 0;
@@ -117,8 +126,7 @@ public class NLPDevelop extends NLPTrain
 				models[i] = (StringModel)spaces[i].getModel();
 			}
 
-			processor = getComponent(xmls, models, lexica, mode);
-			currScore = decode(reader, processor, devFiles, mode, Integer.toString(iter));
+			currScore = decode(reader, xmls, models, lexica, devFiles, mode, Integer.toString(iter));
 			iter++;
 		}
 		while (prevScore < currScore);
@@ -175,7 +183,6 @@ public class NLPDevelop extends NLPTrain
 		StringTrainSpace[] spaces = getStringTrainSpaces(eConfig, xmls, trainFiles, models, lexica, mode, boot, devId);
 		Element eTrain = UTXml.getFirstElementByTagName(eConfig, mode);
 		int i, mSize = spaces.length, nUpdate = 1;
-		AbstractStatisticalComponent component;
 		
 		double prevScore = -1, currScore = 0;
 		Random[] rands = new Random[mSize];
@@ -203,8 +210,7 @@ public class NLPDevelop extends NLPTrain
 				models[i] = (StringModel)spaces[i].getModel();
 			}
 			
-			component = getComponent(xmls, models, lexica, mode);
-			currScore = decode(reader, component, devFiles, mode, boot+"."+nUpdate+"."+i_rand);
+			currScore = decode(reader, xmls, models, lexica, devFiles, mode, boot+"."+nUpdate+"."+i_rand);
 			nUpdate++;
 		}
 		while (prevScore < currScore);
@@ -220,7 +226,6 @@ public class NLPDevelop extends NLPTrain
 		StringTrainSpace[] spaces = getStringTrainSpaces(eConfig, xmls, trainFiles, models, lexica, mode, boot, devId);
 		Element eTrain = UTXml.getFirstElementByTagName(eConfig, mode);
 		int nUpdate, i, j, mSize = spaces.length;
-		AbstractStatisticalComponent component;
 		double prevScore = -1, currScore;
 		double[] prevWeights, d;
 		StringModel[] tmp;
@@ -252,8 +257,7 @@ public class NLPDevelop extends NLPTrain
 				updateModel(eTrain, spaces[i], rand, nUpdate, i);
 				models[i] = (StringModel)spaces[i].getModel();
 
-				component = getComponent(xmls, models, lexica, mode);
-				currScore = decode(reader, component, devFiles, mode, Integer.toString(100*boot+nUpdate));
+				currScore = decode(reader, xmls, models, lexica, devFiles, mode, Integer.toString(100*boot+nUpdate));
 				nUpdate++;
 			}
 			while (prevScore < currScore);
@@ -264,29 +268,157 @@ public class NLPDevelop extends NLPTrain
 		return new ObjectDoublePair<StringModel[]>(models, prevScore);
 	}
 	
+	/** Trains a component with the specific lexica and evaluates it on the development files. */
+	private double decode(Element eConfig, JointReader reader, JointFtrXml[] xmls, String[] trainFiles, String[] devFiles, Object[] lexica, String mode) throws Exception
+	{
+		StringModel[] models = getTrainedComponent(eConfig, xmls, trainFiles, lexica, mode, -1).getModels();
+		return decode(reader, xmls, models, lexica, devFiles, mode, mode);
+	}
+	
+	/**
+	 * Evaluates the specific models on the development files using {@link NLPDevelop#n_devThreads} threads.
+	 * Each thread decodes with its own component sharing the models and lexica.
+	 */
+	protected double decode(JointReader reader, JointFtrXml[] xmls, StringModel[] models, Object[] lexica, String[] devFiles, String mode, String ext) throws Exception
+	{
+		int i, size = Math.max(1, n_devThreads);
+		AbstractStatisticalComponent[] components = new AbstractStatisticalComponent[size];
+		
+		for (i=0; i<size; i++)
+			components[i] = getComponent(xmls, models, lexica, mode);
+		
+		return decode(reader, components, devFiles, mode, ext);
+	}
+	
 	protected double decode(JointReader reader, AbstractStatisticalComponent component, String[] devFiles, String mode, String ext) throws Exception
 	{
-		int[] counts = getCounts(mode);
-		PrintStream fout = null;
+		return decode(reader, new AbstractStatisticalComponent[]{component}, devFiles, mode, ext);
+	}
+	
+	/**
+	 * Decodes all development trees, where each component is used by one thread, and merges their accuracy counts.
+	 * Trees are distributed dynamically so that long sentences do not leave threads idle.
+	 */
+	private double decode(JointReader reader, AbstractStatisticalComponent[] components, String[] devFiles, String mode, String ext) throws Exception
+	{
+		List<List<DEPTree>> lTrees = new ArrayList<List<DEPTree>>();
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		List<DEPTree> fTrees;
 		DEPTree tree;
 		
 		for (String devFile : devFiles)
 		{
-			if (b_generate) fout = UTOutput.createPrintBufferedFileStream(devFile+"."+ext);
+			fTrees = new ArrayList<DEPTree>();
 			reader.open(UTInput.createBufferedFileReader(devFile));
 			
 			while ((tree = reader.next()) != null)
+				fTrees.add(tree);
+			
+			reader.close();
+			lTrees.add(fTrees);
+			trees.addAll(fTrees);
+		}
+		
+		int i, size = components.length;
+		int[][] counts = new int[size][];
+		AtomicInteger index = new AtomicInteger();
+		
+		if (size == 1)
+		{
+			counts[0] = getCounts(mode);
+			new DecodeTask(components[0], trees, index, counts[0]).run();
+		}
+		else
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(size);
+			List<Future<?>> futures = new ArrayList<Future<?>>(size);
+			ExecutionException failure = null;
+			
+			for (i=0; i<size; i++)
 			{
-				component.process(tree);
-				component.countAccuracy(counts);
-				if (b_generate)	fout.println(toString(tree, mode)+"\n");
+				counts[i] = getCounts(mode);
+				futures.add(executor.submit(new DecodeTask(components[i], trees, index, counts[i])));
 			}
 			
-			reader.close();
-			if (b_generate)	fout.close();
+			executor.shutdown();
+			
+			// every task is waited on so that no tree is being decoded when the evaluation fails
+			for (Future<?> future : futures)
+			{
+				try
+				{
+					future.get();
+				}
+				catch (ExecutionException e)
+				{
+					if (failure == null)	failure = e;
+				}
+			}
+			
+			if (failure != null)
+				throw new IllegalStateException("Failed to decode development trees.", failure.getCause());
+		}
+		
+		if (b_generate)	printTrees(lTrees, devFiles, mode, ext);
+		return getScore(mode, getMergedCounts(counts));
+	}
+	
+	/** Called by {@link NLPDevelop#decode(JointReader, AbstractStatisticalComponent[], String[], String, String)}. */
+	private int[] getMergedCounts(int[][] counts)
+	{
+		int[] merged = counts[0];
+		int i, j, size = counts.length, len = merged.length;
+		
+		for (i=1; i<size; i++)
+			for (j=0; j<len; j++)
+				merged[j] += counts[i][j];
+		
+		return merged;
+	}
+	
+	/** Called by {@link NLPDevelop#decode(JointReader, AbstractStatisticalComponent[], String[], String, String)}. */
+	private void printTrees(List<List<DEPTree>> lTrees, String[] devFiles, String mode, String ext) throws IOException
+	{
+		int i, size = devFiles.length;
+		DEPTextWriter fout;
+		
+		for (i=0; i<size; i++)
+		{
+			fout = new DEPTextWriter(new FileOutputStream(devFiles[i]+"."+ext), getOutputType(mode));
+			
+			for (DEPTree tree : lTrees.get(i))
+				fout.write(tree);
+			
+			fout.close();
+		}
+	}
+	
+	/** Called by {@link NLPDevelop#decode(JointReader, AbstractStatisticalComponent[], String[], String, String)}. */
+	private class DecodeTask implements Runnable
+	{
+		AbstractStatisticalComponent d_component;
+		List<DEPTree> d_trees;
+		AtomicInteger d_index;
+		int[] d_counts;
+		
+		public DecodeTask(AbstractStatisticalComponent component, List<DEPTree> trees, AtomicInteger index, int[] counts)
+		{
+			d_component = component;
+			d_trees     = trees;
+			d_index     = index;
+			d_counts    = counts;
+		}
+		
+		public void run()
+		{
+			int i, size = d_trees.size();
+			
+			while ((i = d_index.getAndIncrement()) < size)
+			{
+				d_component.process(d_trees.get(i));
+				d_component.countAccuracy(d_counts);
+			}
 		}
-
-		return getScore(mode, counts);
 	}
 	
 	protected int[] getCounts(String mode)
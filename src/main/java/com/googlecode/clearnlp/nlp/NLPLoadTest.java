@@ -0,0 +1,140 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kohsuke.args4j.Option;
+
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Sends requests from multiple clients to a running {@link NLPServer} and reports throughput and latency percentiles.
+ * Each non-empty line of the input file is a request, sent in turn until the total number of requests is reached.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPLoadTest extends AbstractNLP
+{
+	@Option(name="-i", usage="input file, one request per line (required)", required=true, metaVar="<filename>")
+	private String s_inputFile;
+	@Option(name="-host", usage="host of the server (default: localhost)", required=false, metaVar="<string>")
+	private String s_host = "localhost";
+	@Option(name="-p", usage="port of the server (default: 7777)", required=false, metaVar="<integer>")
+	private int n_port = 7777;
+	@Option(name="-t", usage="number of clients (default: 8)", required=false, metaVar="<integer>")
+	private int n_clients = 8;
+	@Option(name="-n", usage="total number of requests (default: 10000)", required=false, metaVar="<integer>")
+	private int n_requests = 10000;
+	@Option(name="-tok", usage="if set, each line is a tokenized sentence", required=false, metaVar="<boolean>")
+	private boolean b_tok;
+	
+	private List<String>  l_texts;
+	private long[]        l_latencies;
+	private AtomicInteger i_next;
+	
+	public NLPLoadTest(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			run();
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	private void run() throws Exception
+	{
+		BufferedReader fin = UTInput.createBufferedFileReader(s_inputFile);
+		String line;
+		
+		l_texts = new ArrayList<String>();
+		
+		while ((line = fin.readLine()) != null)
+		{
+			line = line.trim();
+			if (!line.isEmpty())	l_texts.add(line);
+		}
+		
+		fin.close();
+		l_latencies = new long[n_requests];
+		i_next = new AtomicInteger();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(n_clients);
+		long st = System.nanoTime(), et;
+		
+		for (int i=0; i<n_clients; i++)
+			executor.execute(new ClientTask());
+		
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		et = System.nanoTime();
+		
+		Arrays.sort(l_latencies);
+		double sec = (et - st) / 1e9;
+		
+		System.out.printf("Requests  : %d (%d clients)\n", n_requests, n_clients);
+		System.out.printf("Throughput: %.2f requests/sec\n", n_requests / sec);
+		System.out.printf("Latency   : p50 = %.3fms, p95 = %.3fms, p99 = %.3fms, max = %.3fms\n", getPercentile(0.5), getPercentile(0.95), getPercentile(0.99), getPercentile(1));
+	}
+	
+	/** @return the latency of the specific percentile in milliseconds. */
+	private double getPercentile(double p)
+	{
+		int index = (int)Math.ceil(p * l_latencies.length) - 1;
+		return l_latencies[Math.max(0, index)] / 1e6;
+	}
+	
+	private class ClientTask implements Runnable
+	{
+		public void run()
+		{
+			int type = b_tok ? NLPServer.REQUEST_TOK : NLPServer.REQUEST_RAW, i;
+			NLPClient client = null;
+			long st;
+			
+			try
+			{
+				client = new NLPClient(s_host, n_port);
+				
+				while ((i = i_next.getAndIncrement()) < n_requests)
+				{
+					st = System.nanoTime();
+					client.process(type, "", l_texts.get(i % l_texts.size()));
+					l_latencies[i] = System.nanoTime() - st;
+				}
+			}
+			catch (Exception e) {e.printStackTrace();}
+			finally
+			{
+				if (client != null)	client.close();
+			}
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPLoadTest(args);
+	}
+}
@@ -0,0 +1,500 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.kohsuke.args4j.Option;
+import org.w3c.dom.Element;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.engine.EngineProcess;
+import com.googlecode.clearnlp.reader.AbstractReader;
+import com.googlecode.clearnlp.segmentation.AbstractSegmenter;
+import com.googlecode.clearnlp.util.UTXml;
+import com.googlecode.clearnlp.writer.DEPTextWriter;
+
+/**
+ * Local server that loads a component chain once and processes requests from {@link NLPClient}s.
+ * Each request is either raw text, which is segmented and tokenized by the server, or tokenized sentences ({@link NLPServer#REQUEST_TOK}).
+ * Requests are grouped into micro-batches by a segmentation thread and processed by a pool of workers,
+ * where each worker owns a chain of components that is used by no other thread, so batches are processed concurrently on multiple cores.
+ * <br>Protocol (all integers are big-endian, all strings are an integer length followed by UTF-8 bytes):
+ * a request is {@code (int type, string format, string text)} and a response is {@code (int status, string output)},
+ * where {@code format} is an output type of {@link DEPTextWriter}, {@link NLPServer#FORMAT_CONLL}, or an empty string for the default format of the mode.
+ * A string longer than the maximum request length is answered with {@link NLPServer#STATUS_ERROR} and the connection is closed.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPServer extends AbstractNLP
+{
+	private final Logger LOG = Logger.getLogger(this.getClass());
+	
+	/** Raw text to be segmented and tokenized by the server. */
+	static public final int REQUEST_RAW = 0;
+	/** One sentence per line, where tokens are separated by whitespaces. */
+	static public final int REQUEST_TOK = 1;
+	
+	static public final int STATUS_OK    = 0;
+	static public final int STATUS_ERROR = 1;
+	
+	/** The output format of {@link DEPTree#toStringCoNLL()}. */
+	static public final String FORMAT_CONLL = "conll";
+	/** The default maximum number of bytes of a string in a request. */
+	static public final int MAX_LENGTH = 16 * 1024 * 1024;
+	
+	static private final Pattern P_SPACE = Pattern.compile("\\s+");
+	
+	@Option(name="-c", usage="configuration file (required)", required=true, metaVar="<filename>")
+	private String s_configXml;
+	@Option(name="-z", usage="mode (pos|morph|dep|srl|sense_vn)", required=true, metaVar="<string>")
+	private String s_mode;
+	@Option(name="-p", usage="port on localhost (default: 7777)", required=false, metaVar="<integer>")
+	private int n_port = 7777;
+	@Option(name="-b", usage="maximum number of requests per batch (default: 32)", required=false, metaVar="<integer>")
+	private int n_batchSize = 32;
+	@Option(name="-bw", usage="milliseconds to wait for a batch to fill (default: 2)", required=false, metaVar="<integer>")
+	private long n_batchWait = 2;
+	@Option(name="-t", usage="number of workers, each of which loads its own components (default: 1)", required=false, metaVar="<integer>")
+	private int n_workers = 1;
+	@Option(name="-ml", usage="maximum number of bytes of a string in a request (default: 16777216)", required=false, metaVar="<integer>")
+	private int n_maxLength = MAX_LENGTH;
+	@Option(name="-twit", usage="if set, tokenize for twits", required=false, metaVar="<boolean>")
+	private boolean b_twit;
+	
+	private AbstractSegmenter     g_segmenter;
+	/** The chain of components of each worker. */
+	private AbstractComponent[][] g_components;
+	private String                s_outputType;
+	
+	/** Takes requests one at a time to build batches. */
+	private BlockingQueue<Request>       q_requests;
+	/** Takes segmented batches, which are shared by all workers. */
+	private BlockingQueue<List<Request>> q_batches;
+	private ExecutorService e_stages;
+	private ExecutorService e_clients;
+	private ServerSocket    f_server;
+	private volatile boolean b_running;
+	
+	public NLPServer(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			load(s_configXml, s_mode);
+			start(n_port);
+			LOG.info("Listening on localhost:"+getPort()+"\n");
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Creates a server with one worker using the specific components, which must not be used by any other thread.
+	 * @param segmenter the segmenter for raw text, or {@code null} if only tokenized requests are accepted.
+	 * @param outputType the default output format (see {@link DEPTextWriter}).
+	 */
+	public NLPServer(AbstractSegmenter segmenter, AbstractComponent[] components, String outputType, int batchSize, long batchWait)
+	{
+		this(segmenter, new AbstractComponent[][]{components}, outputType, batchSize, batchWait);
+	}
+	
+	/**
+	 * Creates a server with one worker per chain of components, where no chain may be used by any other thread.
+	 * @param segmenter the segmenter for raw text, or {@code null} if only tokenized requests are accepted.
+	 * @param workers the chain of components of each worker.
+	 * @param outputType the default output format (see {@link DEPTextWriter}).
+	 */
+	public NLPServer(AbstractSegmenter segmenter, AbstractComponent[][] workers, String outputType, int batchSize, long batchWait)
+	{
+		g_segmenter  = segmenter;
+		g_components = workers;
+		s_outputType = outputType;
+		n_batchSize  = batchSize;
+		n_batchWait  = batchWait;
+	}
+	
+	/** Sets the maximum number of bytes of a string in a request. */
+	public void setMaxLength(int maxLength)
+	{
+		n_maxLength = maxLength;
+	}
+	
+	private void load(String configXml, String mode) throws Exception
+	{
+		Element eConfig = UTXml.getDocumentElement(new FileInputStream(configXml));
+		Element eModels = UTXml.getFirstElementByTagName(eConfig, TAG_MODELS);
+		NLPDecode decode = new NLPDecode();
+		List<String> modes = decode.getModes(AbstractReader.TYPE_RAW, mode);
+		int i, size = Math.max(1, n_workers);
+		
+		g_segmenter  = decode.getSegmenter(eModels, b_twit);
+		g_components = new AbstractComponent[size][];
+		s_outputType = getOutputType(mode);
+		
+		for (i=0; i<size; i++)
+			g_components[i] = decode.getComponent(eModels, modes);
+	}
+	
+//	====================================== SERVER ======================================
+	
+	/**
+	 * Starts the segmentation thread and the workers, and accepts connections on the specific port of localhost.
+	 * @param port the port number, or 0 to use any free port (see {@link NLPServer#getPort()}).
+	 */
+	public void start(int port) throws IOException
+	{
+		int i, size = g_components.length;
+		
+		q_requests = new LinkedBlockingQueue<Request>();
+		q_batches  = new LinkedBlockingQueue<List<Request>>();
+		e_stages   = Executors.newFixedThreadPool(size + 1);
+		e_clients  = Executors.newCachedThreadPool();
+		f_server   = new ServerSocket(port, 50, InetAddress.getByName("localhost"));
+		b_running  = true;
+		
+		e_stages.execute(new SegmentStage());
+		
+		for (i=0; i<size; i++)
+			e_stages.execute(new WorkerStage(i));
+		
+		new Thread(new AcceptTask(), "NLPServer").start();
+	}
+	
+	/** @return the port that this server listens to. */
+	public int getPort()
+	{
+		return f_server.getLocalPort();
+	}
+	
+	/** Stops accepting connections and stops the workers. */
+	public void stop()
+	{
+		b_running = false;
+		
+		try
+		{
+			f_server.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		e_clients.shutdownNow();
+		e_stages .shutdownNow();
+	}
+	
+	/** Accepts connections. */
+	private class AcceptTask implements Runnable
+	{
+		public void run()
+		{
+			while (b_running)
+			{
+				try
+				{
+					e_clients.execute(new ClientTask(f_server.accept()));
+				}
+				catch (IOException e)
+				{
+					if (b_running)	e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	/** Reads requests from a connection and writes their responses. */
+	private class ClientTask implements Runnable
+	{
+		Socket f_socket;
+		
+		public ClientTask(Socket socket)
+		{
+			f_socket = socket;
+		}
+		
+		public void run()
+		{
+			Request request;
+			
+			try
+			{
+				DataInputStream  in  = new DataInputStream (new BufferedInputStream (f_socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(f_socket.getOutputStream()));
+				
+				while (true)
+				{
+					try
+					{
+						request = new Request(in.readInt(), readString(in, n_maxLength), readString(in, n_maxLength));
+					}
+					catch (EOFException e) {break;}
+					catch (ProtocolException e)
+					{
+						// the rest of the stream cannot be parsed, so the connection is closed after the error
+						writeResponse(out, STATUS_ERROR, e.getMessage());
+						break;
+					}
+					
+					q_requests.put(request);
+					request.l_done.await();
+					
+					if (request.s_error == null)
+					{
+						try
+						{
+							writeResponse(out, STATUS_OK, toString(request));
+						}
+						catch (RuntimeException e) {writeResponse(out, STATUS_ERROR, e.toString());}
+					}
+					else
+						writeResponse(out, STATUS_ERROR, request.s_error);
+				}
+			}
+			catch (InterruptedException e) {}
+			catch (IOException e) {if (b_running) e.printStackTrace();}
+			finally
+			{
+				try
+				{
+					f_socket.close();
+				}
+				catch (IOException e) {e.printStackTrace();}
+			}
+		}
+		
+		private void writeResponse(DataOutputStream out, int status, String output) throws IOException
+		{
+			out.writeInt(status);
+			writeString(out, output);
+			out.flush();
+		}
+		
+		/** @throws IllegalArgumentException if the format of the specific request is unknown. */
+		private String toString(Request request) throws IOException
+		{
+			String format = request.s_format.isEmpty() ? s_outputType : request.s_format;
+			
+			if (format.equals(FORMAT_CONLL))
+			{
+				StringBuilder build = new StringBuilder();
+				
+				for (DEPTree tree : request.l_trees)
+				{
+					build.append(tree.toStringCoNLL());
+					build.append("\n\n");
+				}
+				
+				return build.toString();
+			}
+			
+			if (!format.equals(AbstractReader.TYPE_POS) && !format.equals(AbstractReader.TYPE_MORPH) && !format.equals(AbstractReader.TYPE_DEP) && !format.equals(AbstractReader.TYPE_DAG) && !format.equals(AbstractReader.TYPE_SRL))
+				throw new IllegalArgumentException("Unknown format: "+format);
+			
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			DEPTextWriter fout = new DEPTextWriter(bout, format);
+			
+			for (DEPTree tree : request.l_trees)
+				fout.write(tree);
+			
+			fout.close();
+			return bout.toString("UTF-8");
+		}
+	}
+	
+	/** Builds batches of requests and creates their trees. */
+	private class SegmentStage implements Runnable
+	{
+		public void run()
+		{
+			List<Request> batch;
+			Request request;
+			long deadline, wait;
+			
+			try
+			{
+				while (true)
+				{
+					batch = new ArrayList<Request>();
+					batch.add(q_requests.take());
+					deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(n_batchWait);
+					
+					while (batch.size() < n_batchSize)
+					{
+						if (q_requests.drainTo(batch, n_batchSize - batch.size()) > 0)	continue;
+						if ((wait = deadline - System.nanoTime()) <= 0)	break;
+						if ((request = q_requests.poll(wait, TimeUnit.NANOSECONDS)) == null)	break;
+						batch.add(request);
+					}
+					
+					for (Request r : batch)
+					{
+						try
+						{
+							r.l_trees = getTrees(r);
+						}
+						catch (Exception e) {r.s_error = e.toString();}
+					}
+					
+					q_batches.put(batch);
+				}
+			}
+			catch (InterruptedException e) {}
+		}
+		
+		private List<DEPTree> getTrees(Request request)
+		{
+			List<DEPTree> trees = new ArrayList<DEPTree>();
+			
+			if (request.i_type == REQUEST_RAW)
+			{
+				if (g_segmenter == null)
+					throw new IllegalArgumentException("Raw text is not supported by this server.");
+				
+				for (List<String> tokens : EngineProcess.getSentences(g_segmenter, new BufferedReader(new StringReader(request.s_text))))
+					trees.add(EngineProcess.toDEPTree(EngineProcess.toPOSNodes(tokens)));
+			}
+			else if (request.i_type == REQUEST_TOK)
+			{
+				for (String line : request.s_text.split("\\n"))
+				{
+					line = line.trim();
+					if (!line.isEmpty())	trees.add(EngineProcess.toDEPTree(EngineProcess.toPOSNodes(Arrays.asList(P_SPACE.split(line)))));
+				}
+			}
+			else
+				throw new IllegalArgumentException("Unknown request type: "+request.i_type);
+			
+			return trees;
+		}
+	}
+	
+	/** Processes batches with the chain of components of a worker and completes their requests. */
+	private class WorkerStage implements Runnable
+	{
+		int i_worker;
+		
+		public WorkerStage(int worker)
+		{
+			i_worker = worker;
+		}
+		
+		public void run()
+		{
+			AbstractComponent[] components = g_components[i_worker];
+			List<Request> batch;
+			
+			try
+			{
+				while (true)
+				{
+					batch = q_batches.take();
+					
+					for (Request request : batch)
+					{
+						if (request.s_error == null)
+						{
+							try
+							{
+								for (DEPTree tree : request.l_trees)
+									EngineProcess.process(components, tree);
+							}
+							catch (Exception e) {request.s_error = e.toString();}
+						}
+						
+						request.l_done.countDown();
+					}
+				}
+			}
+			catch (InterruptedException e) {}
+		}
+	}
+	
+	static private class Request
+	{
+		int            i_type;
+		String         s_format;
+		String         s_text;
+		List<DEPTree>  l_trees;
+		volatile String s_error;
+		CountDownLatch l_done;
+		
+		public Request(int type, String format, String text)
+		{
+			i_type   = type;
+			s_format = format;
+			s_text   = text;
+			l_done   = new CountDownLatch(1);
+		}
+	}
+	
+//	====================================== PROTOCOL ======================================
+	
+	static public void writeString(DataOutputStream out, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes("UTF-8");
+		
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	static public String readString(DataInputStream in) throws IOException
+	{
+		return readString(in, Integer.MAX_VALUE);
+	}
+	
+	/** @throws ProtocolException if the length of the string is negative or greater than {@code maxLength}. */
+	static public String readString(DataInputStream in, int maxLength) throws IOException
+	{
+		int length = in.readInt();
+		
+		if (length < 0 || length > maxLength)
+			throw new ProtocolException("Invalid string length: "+length+" (maximum: "+maxLength+")");
+		
+		byte[] bytes = new byte[length];
+		
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPServer(args);
+	}
+}
@@ -15,9 +15,14 @@
 */
 package com.googlecode.clearnlp.nlp;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +52,7 @@ import com.googlecode.clearnlp.engine.EngineProcess;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.reader.JointReader;
 import com.googlecode.clearnlp.util.UTFile;
+import com.googlecode.clearnlp.util.UTHash;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTXml;
 import com.googlecode.clearnlp.util.map.Prob1DMap;
@@ -74,6 +80,8 @@ public class NLPTrain extends AbstractNLP
 	protected double d_margin = 0.5;
 	@Option(name="-beams", usage="the size of beam (default: 0)", required=false, metaVar="<double>")
 	protected int n_beams = 0;
+	@Option(name="-cache", usage="directory to cache extracted training spaces (optional)", required=false, metaVar="<directory>")
+	protected String s_cacheDir = null;
 	
 	public NLPTrain() {}
 	
@@ -149,6 +157,12 @@ public class NLPTrain extends AbstractNLP
 	protected AbstractStatisticalComponent getTrainedComponent(Element eConfig, JointReader reader, JointFtrXml[] xmls, String[] trainFiles, AbstractStatisticalComponent component, String mode, int devId) 
 	{
 		Object[] lexica = getLexica(component, reader, xmls, trainFiles, devId);
+		return getTrainedComponent(eConfig, xmls, trainFiles, lexica, mode, devId);
+	}
+	
+	/** @return a component trained with the specific lexica up to the bootstrapping level {@link NLPTrain#n_boot}. */
+	protected AbstractStatisticalComponent getTrainedComponent(Element eConfig, JointFtrXml[] xmls, String[] trainFiles, Object[] lexica, String mode, int devId) 
+	{
 		AbstractStatisticalComponent processor = null;
 		StringModel[] models = null;
 		int boot;
@@ -256,7 +270,164 @@ public class NLPTrain extends AbstractNLP
 		return getComponent(xmls, models, lexica, mode);
 	}
 	
+	/**
+	 * Returns training spaces extracted from the training files.
+	 * If {@link NLPTrain#s_cacheDir} is set, the spaces are built and cached in binary so that
+	 * a later run with the same mode, feature templates, reader, training files, and models skips the extraction.
+	 */
 	protected StringTrainSpace[] getStringTrainSpaces(Element eConfig, JointFtrXml[] xmls, String[] trainFiles, StringModel[] models, Object[] lexica, String mode, int boot, int devId)
+	{
+		if (s_cacheDir == null)
+			return extractStringTrainSpaces(eConfig, xmls, trainFiles, models, lexica, mode, boot, devId);
+		
+		File cacheFile = new File(s_cacheDir, getCacheFilename(eConfig, xmls, trainFiles, models, mode, boot, devId));
+		StringTrainSpace[] spaces;
+		
+		if (cacheFile.isFile() && (spaces = loadStringTrainSpaces(cacheFile, xmls, lexica, mode, boot)) != null)
+			return spaces;
+		
+		spaces = extractStringTrainSpaces(eConfig, xmls, trainFiles, models, lexica, mode, boot, devId);
+		
+		for (StringTrainSpace space : spaces)
+			space.build();
+		
+		saveStringTrainSpaces(cacheFile, spaces);
+		return spaces;
+	}
+	
+	/** Called by {@link NLPTrain#getStringTrainSpaces(Element, JointFtrXml[], String[], StringModel[], Object[], String, int, int)}. */
+	private StringTrainSpace[] loadStringTrainSpaces(File cacheFile, JointFtrXml[] xmls, Object[] lexica, String mode, int boot)
+	{
+		StringTrainSpace[] spaces = getStringTrainSpaces(xmls, lexica, mode, boot);
+		System.out.println("Loading training instances: "+cacheFile.getPath());
+		
+		try
+		{
+			DataInputStream fin = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 65536));
+			
+			if (fin.readInt() != spaces.length)
+			{
+				fin.close();
+				return null;
+			}
+			
+			for (StringTrainSpace space : spaces)
+				space.load(fin);
+			
+			fin.close();
+			return spaces;
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		return null;
+	}
+	
+	/** Called by {@link NLPTrain#getStringTrainSpaces(Element, JointFtrXml[], String[], StringModel[], Object[], String, int, int)}. */
+	private void saveStringTrainSpaces(File cacheFile, StringTrainSpace[] spaces)
+	{
+		File tmpFile = new File(cacheFile.getPath()+".tmp");
+		System.out.println("Saving training instances: "+cacheFile.getPath());
+		
+		try
+		{
+			cacheFile.getParentFile().mkdirs();
+			DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 65536));
+			fout.writeInt(spaces.length);
+			
+			for (StringTrainSpace space : spaces)
+				space.save(fout);
+			
+			fout.close();
+			
+			// rename after writing so that a crashed run never leaves a partial cache behind
+			if (!tmpFile.renameTo(cacheFile))
+				tmpFile.delete();
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Returns the name of the cache file for the specific training spaces.
+	 * The name contains a 128-bit fingerprint of everything extraction depends on:
+	 * the mode, bootstrapping level, feature templates, reader configuration, contents of the training files, and previous models.
+	 * Training parameters (e.g., the learning algorithm) are excluded so that tuning them reuses the cache.
+	 */
+	protected String getCacheFilename(Element eConfig, JointFtrXml[] xmls, String[] trainFiles, StringModel[] models, String mode, int boot, int devId)
+	{
+		long[] h = {UTHash.SEED_A, UTHash.SEED_B};
+		int i, size = trainFiles.length;
+		
+		hash(h, mode);
+		hash(h, boot);
+		hash(h, UTXml.toString(UTXml.getFirstElementByTagName(eConfig, TAG_READER)));
+		
+		for (JointFtrXml xml : xmls)
+			hash(h, xml.toString());
+		
+		for (i=0; i<size; i++)
+		{
+			if (devId != i)
+				hashFile(h, trainFiles[i]);
+		}
+		
+		if (models != null)
+		{
+			for (StringModel model : models)
+				hashModel(h, model);
+		}
+		
+		return String.format("%s.%d.%016x%016x.bin", mode, boot, h[0], h[1]);
+	}
+	
+	private void hash(long[] h, String s)
+	{
+		h[0] = UTHash.hashA(UTHash.hashA(h[0], s), s.length());
+		h[1] = UTHash.hashB(UTHash.hashB(h[1], s), s.length());
+	}
+	
+	private void hash(long[] h, long v)
+	{
+		h[0] = UTHash.hashA(h[0], v);
+		h[1] = UTHash.hashB(h[1], v);
+	}
+	
+	private void hashFile(long[] h, String filename)
+	{
+		byte[] buffer = new byte[65536];
+		long total = 0;
+		int len;
+		
+		try
+		{
+			InputStream fin = new FileInputStream(filename);
+			
+			while ((len = fin.read(buffer)) > 0)
+			{
+				h[0] = UTHash.hashA(h[0], buffer, len);
+				h[1] = UTHash.hashB(h[1], buffer, len);
+				total += len;
+			}
+			
+			fin.close();
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		hash(h, total);
+	}
+	
+	private void hashModel(long[] h, StringModel model)
+	{
+		hash(h, model.getFeatureSize());
+		
+		for (String label : model.getLabels())
+			hash(h, label);
+		
+		for (double weight : model.getWeights())
+			hash(h, Double.doubleToLongBits(weight));
+	}
+	
+	/** Called by {@link NLPTrain#getStringTrainSpaces(Element, JointFtrXml[], String[], StringModel[], Object[], String, int, int)}. */
+	protected StringTrainSpace[] extractStringTrainSpaces(Element eConfig, JointFtrXml[] xmls, String[] trainFiles, StringModel[] models, Object[] lexica, String mode, int boot, int devId)
 	{
 		Element eTrain = UTXml.getFirstElementByTagName(eConfig, mode);
 		int i, j, mSize = 1, size = trainFiles.length;
@@ -23,7 +23,6 @@
 */
 package com.googlecode.clearnlp.propbank;
 
-import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -33,8 +32,8 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import com.googlecode.clearnlp.constituent.CTLib;
-import com.googlecode.clearnlp.constituent.CTReader;
 import com.googlecode.clearnlp.constituent.CTTree;
+import com.googlecode.clearnlp.constituent.CTTreebank;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTOutput;
 
@@ -97,25 +96,30 @@ public class PBLib
 	 * @return the sorted list of PropBank instances from the specific file.
 	 */
 	static public List<PBInstance> getPBInstanceList(String propFile, String treeDir, boolean norm)
+	{
+		CTTreebank treebank = new CTTreebank(treeDir);
+		List<PBInstance> list = getPBInstanceList(propFile, treebank, norm);
+		
+		treebank.close();
+		return list;
+	}
+	
+	/**
+	 * Returns the sorted list of PropBank instances from the specific file.
+	 * Each instance takes the constituent tree associated with it, where only trees associated with instances are parsed.
+	 * @param propFile the PropBank file to retrieve instances from.
+	 * @param treebank the Treebank to retrieve constituent trees from.
+	 * @param norm if {@code true}, normalize indices of constituent trees.
+	 * @return the sorted list of PropBank instances from the specific file.
+	 */
+	static public List<PBInstance> getPBInstanceList(String propFile, CTTreebank treebank, boolean norm)
 	{
 		List<PBInstance> list = PBLib.getPBInstanceList(propFile);
-		CTReader reader = new CTReader();
-		CTTree   tree   = null;
-		String treeFile = "";
-		int    treeId   = -1;
+		CTTree tree;
 		
 		for (PBInstance instance : list)
 		{
-			if (!treeFile.equals(instance.treePath))
-			{
-				treeFile = instance.treePath;
-				treeId   = -1;
-				reader.close();
-				reader.open(UTInput.createBufferedFileReader(treeDir+File.separator+treeFile));
-			}
-			
-			for (; treeId < instance.treeId; treeId++)
-				tree = reader.nextTree();
+			tree = treebank.getTree(instance.treePath, instance.treeId);
 			
 			if (norm)	CTLib.normalizeIndices(tree);
 			tree.setPBLocs();
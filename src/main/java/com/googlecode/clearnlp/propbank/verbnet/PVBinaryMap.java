@@ -0,0 +1,235 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.propbank.verbnet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.util.UTCollection;
+
+/**
+ * Compact PropBank to VerbNet map compiled from {@link PVMap}.
+ * Each roleset keeps its VerbNet classes in sorted order, the value of the VerbNet feature (see {@link PVBinaryMap#getVNClasses(int)}),
+ * and the thematic role of each numbered argument (0 to 9) per VerbNet class.
+ * The map is saved in a binary format that loads without parsing XML.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class PVBinaryMap
+{
+	static private final int MAGIC   = 0x50564d31;	// "PVM1"
+	/** The number of numbered arguments per VerbNet class. */
+	static private final int ARGN_SIZE = 10;
+	
+	/** Roleset ID to its index + 1. */
+	private ObjectIntOpenHashMap<String> m_rolesets;
+	/** The sorted VerbNet classes of each roleset joined by {@link DEPFeat#DELIM_VALUES}. */
+	private String[] a_vnclasses;
+	/** The VerbNet classes of the {@code i}'th roleset are the entries from {@code a_begins[i]} to {@code a_begins[i+1]}. */
+	private int[]    a_begins;
+	/** The thematic role of the {@code n}'th argument in the {@code e}'th entry is {@code a_thetas[e*10+n]}; {@code null} if it does not exist. */
+	private String[] a_thetas;
+	
+	/** Compiles the specific map. */
+	public PVBinaryMap(PVMap map)
+	{
+		Set<String> rolesetSet = new HashSet<String>();
+		List<String> vnclss;
+		List<String> thetas = new ArrayList<String>();
+		int i, r, size, entries = 0;
+		PVRoleset pvRoleset;
+		PVRole pvRole;
+		
+		// only rolesets reachable by PVMap#getRoleset(String) are compiled
+		for (PVVerb pvVerb : map.values())
+			for (String rolesetId : pvVerb.keySet())
+				if (map.getRoleset(rolesetId) != null)	rolesetSet.add(rolesetId);
+		
+		List<String> rolesetIds = new ArrayList<String>(rolesetSet);
+		Collections.sort(rolesetIds);
+		size = rolesetIds.size();
+		init(size);
+		
+		for (r=0; r<size; r++)
+		{
+			pvRoleset = map.getRoleset(rolesetIds.get(r));
+			vnclss = new ArrayList<String>(pvRoleset.keySet());
+			Collections.sort(vnclss);
+			
+			m_rolesets.put(rolesetIds.get(r).intern(), r+1);
+			a_vnclasses[r] = UTCollection.toString(vnclss, DEPFeat.DELIM_VALUES);
+			a_begins[r] = entries;
+			
+			for (String vncls : vnclss)
+			{
+				for (i=0; i<ARGN_SIZE; i++)
+				{
+					pvRole = pvRoleset.get(vncls).getRole(Integer.toString(i));
+					thetas.add((pvRole != null) ? pvRole.vntheta.intern() : null);
+				}
+				
+				entries++;
+			}
+		}
+		
+		a_begins[size] = entries;
+		a_thetas = thetas.toArray(new String[thetas.size()]);
+	}
+	
+	/** Loads a map saved by {@link PVBinaryMap#save(OutputStream)}. */
+	public PVBinaryMap(InputStream in) throws IOException
+	{
+		DataInputStream fin = new DataInputStream(new BufferedInputStream(in));
+		
+		if (fin.readInt() != MAGIC)
+			throw new IOException("Not a binary PropBank to VerbNet map.");
+		
+		String[] strings = new String[fin.readInt()];
+		int i, j, size;
+		
+		for (i=0; i<strings.length; i++)
+			strings[i] = fin.readUTF();
+		
+		size = fin.readInt();
+		init(size);
+		
+		for (i=0; i<size; i++)
+		{
+			m_rolesets.put(strings[fin.readInt()], i+1);
+			a_vnclasses[i] = strings[fin.readInt()];
+		}
+		
+		for (i=0; i<=size; i++)
+			a_begins[i] = fin.readInt();
+		
+		a_thetas = new String[a_begins[size] * ARGN_SIZE];
+		
+		for (i=0; i<a_thetas.length; i++)
+			a_thetas[i] = ((j = fin.readInt()) < 0) ? null : strings[j];
+	}
+	
+	private void init(int size)
+	{
+		m_rolesets  = new ObjectIntOpenHashMap<String>(size);
+		a_vnclasses = new String[size];
+		a_begins    = new int[size+1];
+	}
+	
+	/** Saves this map in a binary format, where all strings are stored once. */
+	public void save(OutputStream out) throws IOException
+	{
+		DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(out));
+		ObjectIntOpenHashMap<String> strings = new ObjectIntOpenHashMap<String>();
+		List<String> list = new ArrayList<String>();
+		String[] rolesetIds = getRolesetIds();
+		int i, size = rolesetIds.length;
+		
+		for (String s : rolesetIds)		addString(strings, list, s);
+		for (String s : a_vnclasses)	addString(strings, list, s);
+		for (String s : a_thetas)		if (s != null)	addString(strings, list, s);
+		
+		fout.writeInt(MAGIC);
+		fout.writeInt(list.size());
+		
+		for (String s : list)
+			fout.writeUTF(s);
+		
+		fout.writeInt(size);
+		
+		for (i=0; i<size; i++)
+		{
+			fout.writeInt(strings.get(rolesetIds[i]) - 1);
+			fout.writeInt(strings.get(a_vnclasses[i]) - 1);
+		}
+		
+		for (i=0; i<=size; i++)
+			fout.writeInt(a_begins[i]);
+		
+		for (String s : a_thetas)
+			fout.writeInt((s != null) ? strings.get(s) - 1 : -1);
+		
+		fout.flush();
+	}
+	
+	private void addString(ObjectIntOpenHashMap<String> strings, List<String> list, String s)
+	{
+		if (!strings.containsKey(s))
+		{
+			list.add(s);
+			strings.put(s, list.size());
+		}
+	}
+	
+	/** @return the roleset IDs in the order of their indices. */
+	private String[] getRolesetIds()
+	{
+		String[] rolesetIds = new String[a_vnclasses.length];
+		Object[] keys = m_rolesets.keys;
+		boolean[] allocated = m_rolesets.allocated;
+		int i;
+		
+		for (i=0; i<keys.length; i++)
+			if (allocated[i])	rolesetIds[m_rolesets.values[i]-1] = (String)keys[i];
+		
+		return rolesetIds;
+	}
+	
+	/** @return the index of the specific roleset, or -1 if the roleset is not found. */
+	public int getRolesetIndex(String rolesetId)
+	{
+		return m_rolesets.get(rolesetId) - 1;
+	}
+	
+	/** @return the number of rolesets. */
+	public int size()
+	{
+		return a_vnclasses.length;
+	}
+	
+	/** @return the sorted VerbNet classes of the specific roleset joined by {@link DEPFeat#DELIM_VALUES}. */
+	public String getVNClasses(int rolesetIndex)
+	{
+		return a_vnclasses[rolesetIndex];
+	}
+	
+	/** @return the number of VerbNet classes of the specific roleset. */
+	public int getVNClassSize(int rolesetIndex)
+	{
+		return a_begins[rolesetIndex+1] - a_begins[rolesetIndex];
+	}
+	
+	/**
+	 * @param k the index of the VerbNet class in sorted order (see {@link PVBinaryMap#getVNClassSize(int)}).
+	 * @param n the number of the argument (e.g., 0 for ARG0).
+	 * @return the thematic role of the specific argument in the {@code k}'th VerbNet class of the roleset, or {@code null} if it does not exist.
+	 */
+	public String getVNTheta(int rolesetIndex, int k, int n)
+	{
+		return (n < ARGN_SIZE) ? a_thetas[(a_begins[rolesetIndex] + k) * ARGN_SIZE + n] : null;
+	}
+}
@@ -0,0 +1,233 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.reader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.googlecode.clearnlp.coreference.Mention;
+import com.googlecode.clearnlp.dependency.DEPArc;
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Reads dependency trees written by {@link com.googlecode.clearnlp.writer.DEPBinaryWriter}.
+ * Unlike {@link AbstractReader}, this reader reads bytes rather than characters, so it is opened with an input stream.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPBinaryReader
+{
+	/** The header of a binary tree stream ({@code "CLDT"}). */
+	static public final int MAGIC   = 0x434c4454;
+	static public final int VERSION = 2;
+	/** The dictionary is cleared before a tree once it contains this many strings. */
+	static public final int MAX_DICTIONARY = 1 << 20;
+	
+	private DataInputStream f_bin;
+	private List<String>    l_dictionary;
+	private byte[]          b_string = new byte[256];
+	private String          s_type = AbstractReader.TYPE_SRL;
+	
+	public void open(InputStream in)
+	{
+		f_bin = new DataInputStream(new BufferedInputStream(in, 65536));
+		l_dictionary = new ArrayList<String>();
+		
+		try
+		{
+			s_type = readHeader(f_bin);
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	/** Closes this reader. */
+	public void close()
+	{
+		try
+		{
+			f_bin.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	/** @return the type of annotation in the currently opened stream (default: {@link AbstractReader#TYPE_SRL}). */
+	public String getType()
+	{
+		return s_type;
+	}
+	
+	/** @return the type of annotation in the specific binary file. */
+	static public String getType(String filename) throws IOException
+	{
+		DataInputStream fin = new DataInputStream(new FileInputStream(filename));
+		String type = readHeader(fin);
+		
+		fin.close();
+		return type;
+	}
+	
+	static private String readHeader(DataInputStream fin) throws IOException
+	{
+		if (fin.readInt() != MAGIC || fin.readInt() != VERSION)
+			throw new IOException("Not a binary tree stream");
+		
+		return fin.readUTF();
+	}
+	
+	/** @return the next tree, or {@code null} if there is no more tree. */
+	public DEPTree next()
+	{
+		DEPTree tree = null;
+		
+		try
+		{
+			int header = f_bin.read();
+			if (header < 0)	return null;
+			
+			// the first byte of a variable-length integer
+			if ((header & 0x80) != 0)
+				header = (header & 0x7f) | (UTInput.readVarInt(f_bin) << 7);
+			
+			if ((header & 1) != 0)	l_dictionary.clear();
+			tree = readTree(header >>> 1);
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		return tree;
+	}
+	
+	private DEPTree readTree(int size) throws IOException
+	{
+		DEPTree tree = new DEPTree();
+		String form, lemma, pos, nament, label;
+		int i, headId;
+		DEPNode node;
+		
+		for (i=1; i<size; i++)
+			tree.add(new DEPNode());
+		
+		for (i=1; i<size; i++)
+		{
+			node   = tree.get(i);
+			form   = readString();
+			lemma  = readString();
+			pos    = readString();
+			nament = readString();
+			
+			node.init(i, form, lemma, pos, readFeats());
+			node.nament = nament;
+			
+			headId = UTInput.readVarInt(f_bin) - 1;
+			label  = readString();
+			
+			if (headId >= 0)	node.setHead(tree.get(headId), label);
+			else				node.setLabel(label);
+		}
+		
+		for (i=0; i<size; i++)
+		{
+			node = tree.get(i);
+			node.setXHeads(readArcs(tree));
+			node.setSHeads(readArcs(tree));
+		}
+		
+		tree.setMentions(readMentions());
+		return tree;
+	}
+	
+	private String readString() throws IOException
+	{
+		int index = UTInput.readVarInt(f_bin);
+		
+		if (index == 0)
+			return null;
+		
+		if (index > l_dictionary.size())
+		{
+			int len = UTInput.readVarInt(f_bin);
+			
+			if (len > b_string.length)
+				b_string = new byte[Math.max(len, b_string.length * 2)];
+			
+			f_bin.readFully(b_string, 0, len);
+			l_dictionary.add(new String(b_string, 0, len, "UTF-8"));
+		}
+		
+		return l_dictionary.get(index-1);
+	}
+	
+	private DEPFeat readFeats() throws IOException
+	{
+		int i, size = UTInput.readVarInt(f_bin) - 1;
+		if (size < 0)	return null;
+		
+		DEPFeat feats = new DEPFeat();
+		String key;
+		
+		for (i=0; i<size; i++)
+		{
+			key = readString();
+			feats.put(key, readString());
+		}
+		
+		return feats;
+	}
+	
+	private List<DEPArc> readArcs(DEPTree tree) throws IOException
+	{
+		int i, size = UTInput.readVarInt(f_bin) - 1;
+		if (size < 0)	return null;
+		
+		List<DEPArc> arcs = new ArrayList<DEPArc>(size);
+		DEPNode node;
+		
+		for (i=0; i<size; i++)
+		{
+			node = tree.get(UTInput.readVarInt(f_bin));
+			arcs.add(new DEPArc(node, readString()));
+		}
+		
+		return arcs;
+	}
+	
+	private List<Mention> readMentions() throws IOException
+	{
+		int i, size = UTInput.readVarInt(f_bin) - 1;
+		if (size < 0)	return null;
+		
+		List<Mention> mentions = new ArrayList<Mention>(size);
+		String id, type;
+		int begin;
+		
+		for (i=0; i<size; i++)
+		{
+			id    = readString();
+			type  = readString();
+			begin = UTInput.readVarInt(f_bin);
+			mentions.add(new Mention(id, type, begin, UTInput.readVarInt(f_bin)));
+		}
+		
+		return mentions;
+	}
+}
@@ -0,0 +1,371 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.reader;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/**
+ * Reads dependency trees in the format of {@link JointReader} from a memory-mapped file.
+ * The file is split at blank lines into chunks that are tokenized by multiple threads;
+ * trees are returned by {@link MappedJointReader#next()} in the same order and with the same contents as {@link JointReader}.
+ * Columns are tokenized by scanning bytes, and all columns except forms, lemmas, and semantic heads are interned.
+ * If a chunk fails, {@link MappedJointReader#next()} throws the failure once the trees read before it are returned.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class MappedJointReader
+{
+	static private final Charset UTF8 = Charset.forName("UTF-8");
+	/** The maximum number of bytes mapped per chunk. */
+	static private final long MAX_CHUNK = 1L << 30;
+	/** The number of trees each chunk can read ahead. */
+	static private final int QUEUE_SIZE = 1024;
+	/** The marker indicating the end of a chunk. */
+	static private final DEPTree END_OF_CHUNK = new DEPTree();
+
+	private JointReader				j_reader;
+	private int						n_threads;
+	private RandomAccessFile		f_file;
+	private ExecutorService			e_executor;
+	private List<BlockingQueue<DEPTree>> q_chunks;
+	/** The failure of each chunk, set before {@link MappedJointReader#END_OF_CHUNK} is put into its queue. */
+	private Throwable[]				a_failures;
+	private int						i_chunk;
+
+	/**
+	 * @param reader the reader whose column indices are used to create trees.
+	 * @param numThreads the number of threads to tokenize chunks with.
+	 */
+	public MappedJointReader(JointReader reader, int numThreads)
+	{
+		j_reader  = reader;
+		n_threads = Math.max(1, numThreads);
+	}
+
+	/** Maps the specific file and starts reading its chunks. */
+	public void open(String filename) throws IOException
+	{
+		f_file = new RandomAccessFile(filename, "r");
+
+		FileChannel channel = f_file.getChannel();
+		long[] bounds = getChunkBounds(channel.size());
+		int i, size = bounds.length - 1;
+		BlockingQueue<DEPTree> queue;
+
+		q_chunks   = new ArrayList<BlockingQueue<DEPTree>>(size);
+		a_failures = new Throwable[size];
+		e_executor = Executors.newFixedThreadPool(n_threads);
+		i_chunk    = 0;
+
+		// chunks are submitted in order so the chunk being consumed is always running or finished
+		for (i=0; i<size; i++)
+		{
+			q_chunks.add(queue = new ArrayBlockingQueue<DEPTree>(QUEUE_SIZE));
+			e_executor.execute(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i+1] - bounds[i]), queue, i));
+		}
+
+		e_executor.shutdown();
+	}
+
+	/**
+	 * @return the next tree, or {@code null} if there is no more tree.
+	 * @throws IllegalStateException if the chunk containing the next tree failed to be read.
+	 */
+	public DEPTree next()
+	{
+		DEPTree tree;
+
+		try
+		{
+			while (i_chunk < q_chunks.size())
+			{
+				if ((tree = q_chunks.get(i_chunk).take()) != END_OF_CHUNK)
+					return tree;
+
+				if (a_failures[i_chunk] != null)
+					throw new IllegalStateException("Failed to read chunk "+i_chunk+".", a_failures[i_chunk]);
+
+				i_chunk++;
+			}
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+
+		return null;
+	}
+
+	/** Stops reading and closes the file. */
+	public void close()
+	{
+		try
+		{
+			e_executor.shutdownNow();
+			f_file.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+
+	/** @return the offsets of chunks, where each chunk (except the first) starts right after a blank line. */
+	private long[] getChunkBounds(long fileSize) throws IOException
+	{
+		int i, size = (int)Math.max(n_threads, (fileSize + MAX_CHUNK - 1) / MAX_CHUNK);
+		long[] bounds = new long[size+1];
+		int count = 1;
+		long bound;
+
+		for (i=1; i<size; i++)
+		{
+			bound = getSentenceBoundary(fileSize * i / size, fileSize);
+			if (bound > bounds[count-1] && bound < fileSize)	bounds[count++] = bound;
+		}
+
+		bounds[count++] = fileSize;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/** @return the offset right after the first blank line starting at or after {@code offset}. */
+	private long getSentenceBoundary(long offset, long fileSize) throws IOException
+	{
+		byte[] buffer = new byte[65536];
+		boolean lineStart = false, blank = true;
+		int i, len;
+
+		f_file.seek(offset);
+
+		while ((len = f_file.read(buffer)) > 0)
+		{
+			for (i=0; i<len; i++, offset++)
+			{
+				if (buffer[i] == '\n')
+				{
+					if (lineStart && blank)	return offset + 1;
+					lineStart = true;
+					blank     = true;
+				}
+				else if ((buffer[i] & 0xff) > ' ')
+					blank = false;
+			}
+		}
+
+		return fileSize;
+	}
+
+	/** Tokenizes trees in a chunk. */
+	private class ChunkTask implements Runnable
+	{
+		private MappedByteBuffer	c_buffer;
+		private BlockingQueue<DEPTree> c_queue;
+		private StringPool			c_pool;
+		private byte[]				c_line;
+		private int					i_index;
+
+		public ChunkTask(MappedByteBuffer buffer, BlockingQueue<DEPTree> queue, int index)
+		{
+			c_buffer = buffer;
+			c_queue  = queue;
+			i_index  = index;
+			c_pool   = new StringPool();
+			c_line   = new byte[1024];
+		}
+
+		public void run()
+		{
+			List<String[]> lines = new ArrayList<String[]>();
+			int begin, end, size = c_buffer.limit();
+
+			try
+			{
+				for (begin=0; begin<size; begin=end+1)
+				{
+					end = begin;
+					while (end < size && c_buffer.get(end) != '\n')	end++;
+
+					if (isBlank(begin, end))
+					{
+						if (!lines.isEmpty())
+						{
+							c_queue.put(j_reader.getDEPTree(lines));
+							lines = new ArrayList<String[]>();
+						}
+					}
+					else
+						lines.add(split(begin, end));
+				}
+
+				if (!lines.isEmpty())
+					c_queue.put(j_reader.getDEPTree(lines));
+			}
+			catch (InterruptedException e) {return;}
+			catch (Exception e) {a_failures[i_index] = e;}
+
+			try
+			{
+				c_queue.put(END_OF_CHUNK);
+			}
+			catch (InterruptedException e) {}
+		}
+
+		/** @return {@code true} if the line has only whitespaces (see {@link AbstractColumnReader#isSkip(String)}). */
+		private boolean isBlank(int begin, int end)
+		{
+			for (; begin<end; begin++)
+				if ((c_buffer.get(begin) & 0xff) > ' ')	return false;
+
+			return true;
+		}
+
+		/** @return the columns of the specific line split by {@link AbstractColumnReader#DELIM_COLUMN}, as {@link String#split(String)}. */
+		private String[] split(int begin, int end)
+		{
+			if (end > begin && c_buffer.get(end-1) == '\r')	end--;
+
+			int i, b, column, len = end - begin;
+			if (c_line.length < len)	c_line = new byte[len * 2];
+
+			c_buffer.position(begin);
+			c_buffer.get(c_line, 0, len);
+
+			// trailing empty columns are removed
+			while (len > 0 && c_line[len-1] == '\t')	len--;
+			List<String> columns = new ArrayList<String>();
+
+			for (b=0, i=0, column=0; i<=len; i++)
+			{
+				if (i == len || c_line[i] == '\t')
+				{
+					columns.add(isInterned(column) ? c_pool.get(c_line, b, i-b) : new String(c_line, b, i-b, UTF8));
+					b = i + 1;
+					column++;
+				}
+			}
+
+			return columns.toArray(new String[columns.size()]);
+		}
+
+		private boolean isInterned(int column)
+		{
+			return column != j_reader.i_form && column != j_reader.i_lemma && column != j_reader.i_sheads && column != j_reader.i_coref;
+		}
+	}
+
+	/** Per-thread pool of strings keyed by their UTF-8 bytes; cleared when it becomes too large. */
+	static private class StringPool
+	{
+		static private final int MAX_SIZE = 1 << 16;
+
+		private byte[][] p_keys;
+		private String[] p_values;
+		private int      n_size;
+
+		public StringPool()
+		{
+			init(1024);
+		}
+
+		private void init(int capacity)
+		{
+			p_keys   = new byte[capacity][];
+			p_values = new String[capacity];
+			n_size   = 0;
+		}
+
+		public String get(byte[] bytes, int begin, int len)
+		{
+			int mask = p_keys.length - 1, slot = hash(bytes, begin, len) & mask;
+			byte[] key;
+
+			while ((key = p_keys[slot]) != null)
+			{
+				if (equals(key, bytes, begin, len))
+					return p_values[slot];
+
+				slot = (slot + 1) & mask;
+			}
+
+			String value = new String(bytes, begin, len, UTF8);
+			p_keys  [slot] = Arrays.copyOfRange(bytes, begin, begin+len);
+			p_values[slot] = value;
+
+			if (++n_size * 4 > p_keys.length * 3)
+				rehash();
+
+			return value;
+		}
+
+		private void rehash()
+		{
+			byte[][] keys = p_keys;
+			String[] values = p_values;
+			int i, slot, mask, size = keys.length;
+
+			if (n_size > MAX_SIZE)
+			{
+				init(1024);
+				return;
+			}
+
+			init(size << 1);
+			mask   = p_keys.length - 1;
+			n_size = 0;
+
+			for (i=0; i<size; i++)
+			{
+				if (keys[i] != null)
+				{
+					slot = hash(keys[i], 0, keys[i].length) & mask;
+					while (p_keys[slot] != null)	slot = (slot + 1) & mask;
+
+					p_keys  [slot] = keys[i];
+					p_values[slot] = values[i];
+					n_size++;
+				}
+			}
+		}
+
+		private int hash(byte[] bytes, int begin, int len)
+		{
+			int i, h = 0, end = begin + len;
+
+			for (i=begin; i<end; i++)
+				h = 31 * h + bytes[i];
+
+			return h ^ (h >>> 16);
+		}
+
+		private boolean equals(byte[] key, byte[] bytes, int begin, int len)
+		{
+			if (key.length != len)	return false;
+			int i;
+
+			for (i=0; i<len; i++)
+				if (key[i] != bytes[begin+i])	return false;
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,358 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.run;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.kohsuke.args4j.Option;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Evaluates a system-generated file against a gold-standard file in the tab-separated column format.
+ * Both files are read in lockstep, and only the columns to be evaluated are extracted from each line.
+ * Sentences are grouped into chunks that are counted by multiple threads, and the counts of chunks are merged in order.
+ * The overall counts of each sentence are kept so that confidence intervals can be estimated by bootstrap resampling of sentences.
+ * @param <T> the type of label-specific counts.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+abstract public class AbstractEvaluate<T> extends AbstractRun
+{
+	/** The number of sentences per chunk. */
+	static protected final int CHUNK_SIZE = 1024;
+	
+	@Option(name="-threads", usage="number of threads (default: the number of processors)", required=false, metaVar="<integer>")
+	protected int n_threads = Runtime.getRuntime().availableProcessors();
+	@Option(name="-bootstrap", usage="number of bootstrap samples for 95% confidence intervals; 0 to skip (default: 0)", required=false, metaVar="<integer>")
+	protected int n_bootstrap = 0;
+	@Option(name="-seed", usage="random seed for bootstrap resampling (default: 0)", required=false, metaVar="<integer>")
+	protected long n_seed = 0;
+	
+	/** The label-specific counts of all sentences. */
+	protected T t_counts;
+	/** The overall counts of each sentence (see {@link AbstractEvaluate#getSentenceCountSize()}), flattened. */
+	protected IntArrayList l_sentences;
+	
+	/** @return new label-specific counts. */
+	abstract protected T createCounts();
+	
+	/** Adds the label-specific counts of {@code source} to {@code target}. */
+	abstract protected void merge(T target, T source);
+	
+	/** @return the number of overall counts per sentence. */
+	abstract protected int getSentenceCountSize();
+	
+	/**
+	 * Evaluates a sentence, where each row contains the extracted columns of a token.
+	 * @param counts the label-specific counts to be updated.
+	 * @param sentence the overall counts of this sentence to be filled.
+	 */
+	abstract protected void evaluate(String[][] gold, String[][] auto, T counts, int[] sentence);
+	
+	/** @return the names of the scores returned by {@link AbstractEvaluate#getScores(long[])}. */
+	abstract protected String[] getScoreNames();
+	
+	/** @return the scores computed from the specific sums of the overall counts of sentences. */
+	abstract protected double[] getScores(long[] counts);
+	
+//	====================================== EVALUATE ======================================
+	
+	/**
+	 * Evaluates the specific files and stores the counts in {@link AbstractEvaluate#t_counts} and {@link AbstractEvaluate#l_sentences}.
+	 * @param goldColumns the indices (starting at 0) of the columns to extract from the gold-standard file.
+	 * @param autoColumns the indices (starting at 0) of the columns to extract from the system-generated file.
+	 */
+	protected void evaluate(String goldFile, String autoFile, int[] goldColumns, int[] autoColumns)
+	{
+		BufferedReader fGold = UTInput.createBufferedFileReader(goldFile);
+		BufferedReader fAuto = UTInput.createBufferedFileReader(autoFile);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, n_threads));
+		LinkedList<Future<Chunk>> futures = new LinkedList<Future<Chunk>>();
+		List<String[][]> gChunk = new ArrayList<String[][]>(), aChunk = new ArrayList<String[][]>();
+		List<String[]>   gSentence = new ArrayList<String[]>(), aSentence = new ArrayList<String[]>();
+		String gLine, aLine;
+		
+		t_counts    = createCounts();
+		l_sentences = new IntArrayList();
+		
+		try
+		{
+			while ((gLine = fGold.readLine()) != null)
+			{
+				if ((aLine = fAuto.readLine()) == null)
+				{
+					System.err.println("Error: the system-generated file has fewer lines than the gold-standard file.");
+					break;
+				}
+				
+				if (gLine.trim().isEmpty())
+				{
+					if (!gSentence.isEmpty())
+					{
+						gChunk.add(gSentence.toArray(new String[gSentence.size()][]));	gSentence.clear();
+						aChunk.add(aSentence.toArray(new String[aSentence.size()][]));	aSentence.clear();
+						
+						if (gChunk.size() == CHUNK_SIZE)
+						{
+							submit(executor, futures, gChunk, aChunk);
+							gChunk = new ArrayList<String[][]>();
+							aChunk = new ArrayList<String[][]>();
+						}
+					}
+					
+					continue;
+				}
+				
+				gSentence.add(getColumns(gLine, goldColumns));
+				aSentence.add(getColumns(aLine, autoColumns));
+			}
+			
+			if (!gSentence.isEmpty())
+			{
+				gChunk.add(gSentence.toArray(new String[gSentence.size()][]));
+				aChunk.add(aSentence.toArray(new String[aSentence.size()][]));
+			}
+			
+			if (!gChunk.isEmpty())
+				submit(executor, futures, gChunk, aChunk);
+			
+			while (!futures.isEmpty())
+				merge(futures.removeFirst().get());
+			
+			fGold.close();
+			fAuto.close();
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		executor.shutdown();
+	}
+	
+	/** Submits a chunk and merges finished chunks in order so that at most twice as many chunks as threads are held in memory. */
+	private void submit(ExecutorService executor, LinkedList<Future<Chunk>> futures, List<String[][]> gold, List<String[][]> auto) throws Exception
+	{
+		futures.add(executor.submit(new ChunkTask(gold, auto)));
+		
+		while (futures.size() > 2 * Math.max(1, n_threads))
+			merge(futures.removeFirst().get());
+	}
+	
+	private void merge(Chunk chunk)
+	{
+		merge(t_counts, chunk.t_counts);
+		l_sentences.addAll(chunk.l_sentences);
+	}
+	
+	/**
+	 * Returns the specific columns of the line without splitting the other columns.
+	 * As {@link String#split(String)}, a missing column is an empty string.
+	 */
+	static public String[] getColumns(String line, int[] columns)
+	{
+		String[] values = new String[columns.length];
+		int i, begin, end, column, size = columns.length, len = line.length();
+		
+		for (i=0; i<size; i++)
+		{
+			column = columns[i];
+			
+			for (begin=0; column>0 && begin<=len; column--)
+			{
+				end = line.indexOf('\t', begin);
+				begin = (end < 0) ? len+1 : end+1;
+			}
+			
+			if (begin > len)
+				values[i] = "";
+			else
+			{
+				end = line.indexOf('\t', begin);
+				values[i] = line.substring(begin, (end < 0) ? len : end);
+			}
+		}
+		
+		return values;
+	}
+	
+	/** The counts of a chunk. */
+	private class Chunk
+	{
+		T            t_counts;
+		IntArrayList l_sentences;
+	}
+	
+	/** Called by {@link AbstractEvaluate#evaluate(String, String, int[], int[])}. */
+	private class ChunkTask implements Callable<Chunk>
+	{
+		List<String[][]> c_gold;
+		List<String[][]> c_auto;
+		
+		public ChunkTask(List<String[][]> gold, List<String[][]> auto)
+		{
+			c_gold = gold;
+			c_auto = auto;
+		}
+		
+		public Chunk call()
+		{
+			int i, size = c_gold.size(), n = getSentenceCountSize();
+			int[] sentence = new int[n];
+			Chunk chunk = new Chunk();
+			
+			chunk.t_counts    = createCounts();
+			chunk.l_sentences = new IntArrayList(size * n);
+			
+			for (i=0; i<size; i++)
+			{
+				Arrays.fill(sentence, 0);
+				evaluate(c_gold.get(i), c_auto.get(i), chunk.t_counts, sentence);
+				chunk.l_sentences.add(sentence, 0, n);
+			}
+			
+			return chunk;
+		}
+	}
+	
+//	====================================== BOOTSTRAP ======================================
+	
+	/** Prints the 95% confidence intervals of the scores if {@link AbstractEvaluate#n_bootstrap} is positive. */
+	protected void printConfidenceIntervals()
+	{
+		if (n_bootstrap <= 0)	return;
+		
+		String[] names = getScoreNames();
+		double[][] intervals = getConfidenceIntervals(n_bootstrap, 0.95, n_seed);
+		int i;
+		
+		System.out.printf("95%% confidence intervals (%d bootstrap samples):\n", n_bootstrap);
+		
+		for (i=0; i<names.length; i++)
+			System.out.printf("%10s [%6.2f, %6.2f]\n", names[i], intervals[i][0], intervals[i][1]);
+	}
+	
+	/**
+	 * Estimates confidence intervals by resampling sentences with replacement, where samples are drawn by multiple threads.
+	 * Each thread uses its own random generator seeded by {@code seed} and its index, so the results are reproducible for the same number of threads.
+	 * @param samples the number of bootstrap samples.
+	 * @param confidence the confidence level (e.g., 0.95).
+	 * @return the lower and upper bounds of each score.
+	 */
+	public double[][] getConfidenceIntervals(int samples, double confidence, long seed)
+	{
+		int i, j, threads = Math.max(1, Math.min(n_threads, samples)), size = getScoreNames().length;
+		double[][] scores = new double[size][samples];
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		
+		for (i=0; i<threads; i++)
+			futures.add(executor.submit(new BootstrapTask(scores, samples * i / threads, samples * (i+1) / threads, seed + i)));
+		
+		try
+		{
+			for (Future<?> future : futures)
+				future.get();
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		executor.shutdown();
+		
+		double[][] intervals = new double[size][2];
+		double alpha = (1 - confidence) / 2;
+		
+		for (i=0; i<size; i++)
+		{
+			Arrays.sort(scores[i]);
+			j = (int)Math.floor(alpha * (samples - 1));
+			intervals[i][0] = scores[i][j];
+			intervals[i][1] = scores[i][samples - 1 - j];
+		}
+		
+		return intervals;
+	}
+	
+	/** Called by {@link AbstractEvaluate#getConfidenceIntervals(int, double, long)}. */
+	private class BootstrapTask implements Runnable
+	{
+		double[][] b_scores;
+		int        b_begin;
+		int        b_end;
+		long       b_seed;
+		
+		public BootstrapTask(double[][] scores, int begin, int end, long seed)
+		{
+			b_scores = scores;
+			b_begin  = begin;
+			b_end    = end;
+			b_seed   = seed;
+		}
+		
+		public void run()
+		{
+			int i, j, k, n = getSentenceCountSize(), size = l_sentences.size() / n;
+			int[] sentences = l_sentences.buffer;
+			long[] counts = new long[n];
+			Random rand = new Random(b_seed);
+			double[] scores;
+			
+			for (i=b_begin; i<b_end; i++)
+			{
+				Arrays.fill(counts, 0);
+				
+				for (j=0; j<size; j++)
+				{
+					int offset = rand.nextInt(size) * n;
+					
+					for (k=0; k<n; k++)
+						counts[k] += sentences[offset + k];
+				}
+				
+				scores = getScores(counts);
+				
+				for (k=0; k<scores.length; k++)
+					b_scores[k][i] = scores[k];
+			}
+		}
+	}
+	
+	/** @return the sums of the overall counts of all sentences. */
+	protected long[] getSentenceCountSums()
+	{
+		int i, n = getSentenceCountSize(), size = l_sentences.size();
+		long[] counts = new long[n];
+		
+		for (i=0; i<size; i++)
+			counts[i % n] += l_sentences.get(i);
+		
+		return counts;
+	}
+	
+	/** @return {@code 100 * numerator / denominator}, or 0 if the denominator is 0. */
+	static protected double getPercentage(long numerator, long denominator)
+	{
+		return (denominator == 0) ? 0 : 100d * numerator / denominator;
+	}
+}
@@ -25,7 +25,14 @@ package com.googlecode.clearnlp.run;
 
 import java.io.FileInputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.kohsuke.args4j.Option;
 
@@ -63,6 +70,11 @@ public class C2DConvert extends AbstractRun
 	private String s_mergeLabels = null;
 	@Option(name="-n", usage="if set, normalize empty category indices", required=false, metaVar="<boolean>")
 	private boolean b_normalize = false;
+	@Option(name="-t", usage="the number of threads (default: 1)", required=false, metaVar="<integer>")
+	private int n_threads = 1;
+	
+	/** The number of trees read from a file at a time when converting with multiple threads. */
+	static private final int BATCH_SIZE = 1024;
 
 	public C2DConvert() {}
 	
@@ -70,9 +82,16 @@ public class C2DConvert extends AbstractRun
 	{
 		initArgs(args);
 		
-		AbstractC2DConverter c2d = EngineGetter.getC2DConverter(s_language, s_headruleFile, s_mergeLabels);
 		AbstractComponent morph = EngineGetter.getComponent(new FileInputStream(s_dictFile), s_language, NLPLib.MODE_MORPH);
 		List<String[]> filenames = getFilenames(s_inputPath, s_inputExt, s_outputExt);
+		
+		if (n_threads > 1)
+		{
+			convert(filenames, morph, s_language, s_headruleFile, s_mergeLabels, b_normalize, n_threads);
+			return;
+		}
+		
+		AbstractC2DConverter c2d = EngineGetter.getC2DConverter(s_language, s_headruleFile, s_mergeLabels);
 		int n;
 		
 		for (String[] io : filenames)
@@ -86,34 +105,172 @@ public class C2DConvert extends AbstractRun
 	{
 		CTReader  reader = new CTReader(UTInput.createBufferedFileReader(inputFile));
 		PrintStream fout = UTOutput.createPrintBufferedFileStream(outputFile);
-		CTTree  cTree;
-		DEPTree dTree;
+		CTTree cTree;
 		int n;
 		
 		for (n=0; (cTree = reader.nextTree()) != null; n++)
+			fout.println(convert(c2d, morph, language, cTree, normalize)+"\n");
+		
+		reader.close();
+		fout.close();
+		
+		return n;
+	}
+	
+	/** @return the dependency tree converted from the specific constituent tree in the string format. */
+	protected String convert(AbstractC2DConverter c2d, AbstractComponent morph, String language, CTTree cTree, boolean normalize)
+	{
+		if (normalize)	CTLib.normalizeIndices(cTree);
+		
+		if (language.equals(AbstractReader.LANG_EN))
+			CTLibEn.preprocessTree(cTree);
+		
+		DEPTree dTree = c2d.toDEPTree(cTree);
+		
+		if (dTree == null)
+			return getNullTree().toString();
+		
+		morph.process(dTree);
+		return dTree.toStringDAG();
+	}
+	
+	/**
+	 * Converts the specific files using multiple threads.
+	 * Files are converted concurrently, and trees within each file are converted concurrently;
+	 * each file is written in the same order as it is read.
+	 * Each thread converting trees uses its own converter, whereas the morphological analyzer is shared.
+	 */
+	protected void convert(List<String[]> filenames, AbstractComponent morph, String language, String headruleFile, String mergeLabels, boolean normalize, int numThreads) throws Exception
+	{
+		BlockingQueue<AbstractC2DConverter> converters = new ArrayBlockingQueue<AbstractC2DConverter>(numThreads);
+		ExecutorService eFiles = Executors.newFixedThreadPool(numThreads);
+		ExecutorService eTrees = Executors.newFixedThreadPool(numThreads);
+		int i;
+		
+		int[] counts = new int[filenames.size()];
+		
+		for (i=0; i<numThreads; i++)
+			converters.add(EngineGetter.getC2DConverter(language, headruleFile, mergeLabels));
+		
+		for (i=0; i<counts.length; i++)
+			eFiles.execute(new FileTask(filenames.get(i)[0], filenames.get(i)[1], converters, morph, language, normalize, eTrees, counts, i));
+		
+		eFiles.shutdown();
+		eFiles.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		eTrees.shutdown();
+		
+		for (i=0; i<counts.length; i++)
+			System.out.printf("%s: %d trees\n", filenames.get(i)[0], counts[i]);
+	}
+	
+	/** Called by {@link C2DConvert#convert(List, AbstractComponent, String, String, String, boolean, int)}. */
+	private class FileTask implements Runnable
+	{
+		String s_inputFile;
+		String s_outputFile;
+		BlockingQueue<AbstractC2DConverter> q_converters;
+		AbstractComponent c_morph;
+		String  s_language;
+		boolean b_normalize;
+		ExecutorService e_trees;
+		/** The number of trees converted from each file, where this file is at {@link FileTask#i_file}. */
+		int[] n_counts;
+		int   i_file;
+		
+		public FileTask(String inputFile, String outputFile, BlockingQueue<AbstractC2DConverter> converters, AbstractComponent morph, String language, boolean normalize, ExecutorService eTrees, int[] counts, int index)
 		{
-			if (normalize)	CTLib.normalizeIndices(cTree);
+			s_inputFile  = inputFile;
+			s_outputFile = outputFile;
+			q_converters = converters;
+			c_morph      = morph;
+			s_language   = language;
+			b_normalize  = normalize;
+			e_trees      = eTrees;
+			n_counts     = counts;
+			i_file       = index;
+		}
+		
+		public void run()
+		{
+			CTReader  reader = new CTReader(UTInput.createBufferedFileReader(s_inputFile));
+			PrintStream fout = UTOutput.createPrintBufferedFileStream(s_outputFile);
+			List<CTTree> cTrees = new ArrayList<CTTree>(BATCH_SIZE);
+			CTTree cTree;
+			int n = 0;
 			
-			if (language.equals(AbstractReader.LANG_EN))
-				CTLibEn.preprocessTree(cTree);
+			try
+			{
+				do
+				{
+					cTrees.clear();
+					while (cTrees.size() < BATCH_SIZE && (cTree = reader.nextTree()) != null)
+						cTrees.add(cTree);
+					
+					for (String tree : convert(cTrees))
+						fout.println(tree+"\n");
+					
+					n += cTrees.size();
+				}
+				while (cTrees.size() == BATCH_SIZE);
+			}
+			catch (InterruptedException e) {e.printStackTrace();}
 			
-			dTree = c2d.toDEPTree(cTree);
+			reader.close();
+			fout.close();
 			
-			if (dTree == null)
+			n_counts[i_file] = n;
+		}
+		
+		/** @return the converted trees in the same order as the specific trees. */
+		private String[] convert(List<CTTree> cTrees) throws InterruptedException
+		{
+			int i, size = cTrees.size();
+			String[] dTrees = new String[size];
+			CountDownLatch latch = new CountDownLatch(size);
+			
+			for (i=0; i<size; i++)
+				e_trees.execute(new TreeTask(cTrees.get(i), dTrees, i, latch));
+			
+			latch.await();
+			return dTrees;
+		}
+		
+		private class TreeTask implements Runnable
+		{
+			CTTree   c_tree;
+			String[] d_trees;
+			int      i_tree;
+			CountDownLatch c_latch;
+			
+			public TreeTask(CTTree cTree, String[] dTrees, int index, CountDownLatch latch)
 			{
-				fout.println(getNullTree()+"\n");
+				c_tree  = cTree;
+				d_trees = dTrees;
+				i_tree  = index;
+				c_latch = latch;
 			}
-			else
+			
+			public void run()
 			{
-				morph.process(dTree);
-				fout.println(dTree.toStringDAG()+"\n");
+				AbstractC2DConverter c2d = null;
+				
+				try
+				{
+					c2d = q_converters.take();
+					d_trees[i_tree] = C2DConvert.this.convert(c2d, c_morph, s_language, c_tree, b_normalize);
+				}
+				catch (Exception e)
+				{
+					e.printStackTrace();
+					d_trees[i_tree] = getNullTree().toString();
+				}
+				finally
+				{
+					if (c2d != null)	q_converters.add(c2d);
+					c_latch.countDown();
+				}
 			}
 		}
-		
-		reader.close();
-		fout.close();
-		
-		return n;
 	}
 	
 	private DEPTree getNullTree()
@@ -29,6 +29,11 @@ import java.io.FileInputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.kohsuke.args4j.Option;
@@ -86,6 +91,8 @@ public class C2DConvertMulti extends AbstractRun
 	private String s_mergeLabels = null;
 	@Option(name="-v", usage="if set, add only verb predicates in PropBank", required=false, metaVar="<boolean>")
 	private boolean b_verbs_only = false;
+	@Option(name="-t", usage="the number of threads (default: 1)", required=false, metaVar="<integer>")
+	private int n_threads = 1;
 	
 	final Pattern P_SPACE  = Pattern.compile(" ");
 	final Pattern P_HYPHEN = Pattern.compile("-");
@@ -100,75 +107,158 @@ public class C2DConvertMulti extends AbstractRun
 	public void convert(String headruleFile, String dictFile, String language, String mergeLabels, String inputPath, String parseExt, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt) throws Exception
 	{
 		AbstractComponent morph = EngineGetter.getComponent(new FileInputStream(s_dictFile), s_language, NLPLib.MODE_MORPH);
+		
+		if (n_threads > 1)
+		{
+			convert(headruleFile, morph, language, mergeLabels, inputPath, parseExt, propExt, senseExt, vclassExt, nameExt, outputExt, n_threads);
+			return;
+		}
+		
 		AbstractC2DConverter c2d = EngineGetter.getC2DConverter(s_language, s_headruleFile, s_mergeLabels);
 		
 		convertRec(c2d, morph, language, inputPath, parseExt, propExt, senseExt, vclassExt, nameExt, outputExt);
 	}
 	
-	private void convertRec(AbstractC2DConverter c2d, AbstractComponent morph, String language, String inputPath, String parseExt, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt)
+	/**
+	 * Converts all parse files under the specific path using multiple threads, one file per thread at a time.
+	 * Each thread uses its own converter, whereas the morphological analyzer is shared.
+	 */
+	private void convert(String headruleFile, AbstractComponent morph, String language, String mergeLabels, String inputPath, String parseExt, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt, int numThreads) throws Exception
+	{
+		BlockingQueue<AbstractC2DConverter> converters = new ArrayBlockingQueue<AbstractC2DConverter>(numThreads);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		List<String> parseFiles = new ArrayList<String>();
+		int i;
+		
+		for (i=0; i<numThreads; i++)
+			converters.add(EngineGetter.getC2DConverter(language, headruleFile, mergeLabels));
+		
+		getParseFilesRec(inputPath, parseExt, parseFiles);
+		
+		for (String parseFile : parseFiles)
+			executor.execute(new FileTask(converters, morph, language, parseFile, propExt, senseExt, vclassExt, nameExt, outputExt));
+		
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+	}
+	
+	/** Collects the paths of all parse files under the specific path, in the order visited by {@link C2DConvertMulti#convertRec}. */
+	private void getParseFilesRec(String inputPath, String parseExt, List<String> parseFiles)
 	{
 		File file = new File(inputPath);
 		
 		if (file.isDirectory())
 		{
 			for (String filePath : file.list())
-				convertRec(c2d, morph, language, inputPath+File.separator+filePath, parseExt, propExt, senseExt, vclassExt, nameExt, outputExt);
+				getParseFilesRec(inputPath+File.separator+filePath, parseExt, parseFiles);
 		}
 		else if (inputPath.endsWith(parseExt))
+			parseFiles.add(inputPath);
+	}
+	
+	private class FileTask implements Runnable
+	{
+		BlockingQueue<AbstractC2DConverter> q_converters;
+		AbstractComponent c_morph;
+		String s_language, s_parseFile, s_propExt, s_senseExt, s_vclassExt, s_nameExt, s_outputExt;
+		
+		public FileTask(BlockingQueue<AbstractC2DConverter> converters, AbstractComponent morph, String language, String parseFile, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt)
+		{
+			q_converters = converters;
+			c_morph      = morph;
+			s_language   = language;
+			s_parseFile  = parseFile;
+			s_propExt    = propExt;
+			s_senseExt   = senseExt;
+			s_vclassExt  = vclassExt;
+			s_nameExt    = nameExt;
+			s_outputExt  = outputExt;
+		}
+		
+		public void run()
 		{
-			System.out.println(inputPath);
-			IntObjectOpenHashMap<List<PBInstance>>    mProp   = null;
-			IntObjectOpenHashMap<List<StringIntPair>> mSense  = null;
-			IntObjectOpenHashMap<List<StringIntPair>> mVclass = null;
-			IntObjectOpenHashMap<List<String>>        mName   = null;
+			AbstractC2DConverter c2d = null;
 			
 			try
 			{
-				mProp   = getPBInstances(UTFile.replaceExtension(inputPath, propExt));
-				mSense  = getWordSenses (UTFile.replaceExtension(inputPath, senseExt));
-				mVclass = getVerbClasses(UTFile.replaceExtension(inputPath, vclassExt));
-				mName   = getNames      (UTFile.replaceExtension(inputPath, nameExt));
+				c2d = q_converters.take();
+				convertFile(c2d, c_morph, s_language, s_parseFile, s_propExt, s_senseExt, s_vclassExt, s_nameExt, s_outputExt);
 			}
 			catch (Exception e) {e.printStackTrace();}
+			finally
+			{
+				if (c2d != null)	q_converters.add(c2d);
+			}
+		}
+	}
+	
+	private void convertRec(AbstractC2DConverter c2d, AbstractComponent morph, String language, String inputPath, String parseExt, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt)
+	{
+		File file = new File(inputPath);
+		
+		if (file.isDirectory())
+		{
+			for (String filePath : file.list())
+				convertRec(c2d, morph, language, inputPath+File.separator+filePath, parseExt, propExt, senseExt, vclassExt, nameExt, outputExt);
+		}
+		else if (inputPath.endsWith(parseExt))
+			convertFile(c2d, morph, language, inputPath, propExt, senseExt, vclassExt, nameExt, outputExt);
+	}
+	
+	private void convertFile(AbstractC2DConverter c2d, AbstractComponent morph, String language, String inputPath, String propExt, String senseExt, String vclassExt, String nameExt, String outputExt)
+	{
+		System.out.println(inputPath);
+		IntObjectOpenHashMap<List<PBInstance>>    mProp   = null;
+		IntObjectOpenHashMap<List<StringIntPair>> mSense  = null;
+		IntObjectOpenHashMap<List<StringIntPair>> mVclass = null;
+		IntObjectOpenHashMap<List<String>>        mName   = null;
+		
+		try
+		{
+			mProp   = getPBInstances(UTFile.replaceExtension(inputPath, propExt));
+			mSense  = getWordSenses (UTFile.replaceExtension(inputPath, senseExt));
+			mVclass = getVerbClasses(UTFile.replaceExtension(inputPath, vclassExt));
+			mName   = getNames      (UTFile.replaceExtension(inputPath, nameExt));
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		PrintStream fout = UTOutput.createPrintBufferedFileStream(UTFile.replaceExtension(inputPath, outputExt));
+		CTReader reader = new CTReader(UTInput.createBufferedFileReader(inputPath));
+		CTTree cTree; DEPTree dTree; int n;
+		List<PBInstance> instances = null;
+		
+		for (n=0; (cTree = reader.nextTree()) != null; n++)
+		{
+			if (language.equals(AbstractReader.LANG_EN))
+				CTLibEn.preprocessTree(cTree);
 			
-			PrintStream fout = UTOutput.createPrintBufferedFileStream(UTFile.replaceExtension(inputPath, outputExt));
-			CTReader reader = new CTReader(UTInput.createBufferedFileReader(inputPath));
-			CTTree cTree; DEPTree dTree; int n;
-			List<PBInstance> instances = null;
+			if (mProp != null)
+			{
+				instances = mProp.get(n);
+				addPBInstances(cTree, instances);
+			}
 			
-			for (n=0; (cTree = reader.nextTree()) != null; n++)
+			dTree = c2d.toDEPTree(cTree);
+			
+			if (dTree == null)
 			{
-				if (language.equals(AbstractReader.LANG_EN))
-					CTLibEn.preprocessTree(cTree);
-				
-				if (mProp != null)
-				{
-					instances = mProp.get(n);
-					addPBInstances(cTree, instances);
-				}
-				
-				dTree = c2d.toDEPTree(cTree);
-				
-				if (dTree == null)
-				{
-				//	fout.println(getNullTree()+"\n");
-				}
-				else
-				{
-					if (morph   != null)	morph.process(dTree);
-					if (mProp   != null)	addRolesets(cTree, dTree, instances);
-					if (mSense  != null)	addWordSenses(cTree, dTree, mSense.get(n), DEPLibEn.FEAT_WS);
-					if (mVclass != null)	addWordSenses(cTree, dTree, mVclass.get(n), DEPLibEn.FEAT_VN);
-					if (mName   != null)	addNames(cTree, dTree, mName.get(n));
-				
-					dTree = getDEPTreeWithoutEdited(cTree, dTree);
-					fout.println(dTree+"\n");					
-				}
+			//	fout.println(getNullTree()+"\n");
 			}
+			else
+			{
+				if (morph   != null)	morph.process(dTree);
+				if (mProp   != null)	addRolesets(cTree, dTree, instances);
+				if (mSense  != null)	addWordSenses(cTree, dTree, mSense.get(n), DEPLibEn.FEAT_WS);
+				if (mVclass != null)	addWordSenses(cTree, dTree, mVclass.get(n), DEPLibEn.FEAT_VN);
+				if (mName   != null)	addNames(cTree, dTree, mName.get(n));
 			
-			fout.close();
-			reader.close();
+				dTree = getDEPTreeWithoutEdited(cTree, dTree);
+				fout.println(dTree+"\n");					
+			}
 		}
+		
+		fout.close();
+		reader.close();
 	}
 	
 	public DEPTree getDEPTreeWithoutEdited(CTTree cTree, DEPTree dTree)
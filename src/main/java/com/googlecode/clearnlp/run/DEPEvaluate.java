@@ -23,8 +23,6 @@
 */
 package com.googlecode.clearnlp.run;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,11 +32,8 @@ import java.util.Map;
 
 import org.kohsuke.args4j.Option;
 
-import com.googlecode.clearnlp.reader.AbstractColumnReader;
-import com.googlecode.clearnlp.util.UTInput;
 
-
-public class DEPEvaluate extends AbstractRun
+public class DEPEvaluate extends AbstractEvaluate<Map<String,int[]>>
 {
 	@Option(name="-g", usage="gold-standard file (required)", required=true, metaVar="<filename>")
 	private String s_goldFile;
@@ -53,8 +48,6 @@ public class DEPEvaluate extends AbstractRun
 	@Option(name="-sd", usage="column index of system dependency label (required)", required=true, metaVar="<integer>")
 	private int    i_autoDeprel;
 	
-	private Map<String,int[]> m_labels;
-	
 	public DEPEvaluate() {}
 	
 	public DEPEvaluate(String[] args)
@@ -65,42 +58,82 @@ public class DEPEvaluate extends AbstractRun
 	
 	public void run(String goldFile, String autoFile, int goldHeadId, int goldDeprel, int autoHeadId, int autoDeprel)
 	{
-		BufferedReader fGold = UTInput.createBufferedFileReader(goldFile);
-		BufferedReader fAuto = UTInput.createBufferedFileReader(autoFile);
-		String[] gold, auto;
-		int[] counts;
-		String line;
+		evaluate(goldFile, autoFile, new int[]{goldHeadId, goldDeprel}, new int[]{autoHeadId, autoDeprel});
+		print();
+		printConfidenceIntervals();
+	}
+	
+	@Override
+	protected Map<String,int[]> createCounts()
+	{
+		return new HashMap<String,int[]>();
+	}
+	
+	@Override
+	protected void merge(Map<String,int[]> target, Map<String,int[]> source)
+	{
+		int[] counts, sCounts;
+		int i;
 		
-		m_labels = new HashMap<String,int[]>();
+		for (String tag : source.keySet())
+		{
+			counts  = getCounts(target, tag);
+			sCounts = source.get(tag);
+			
+			for (i=0; i<counts.length; i++)
+				counts[i] += sCounts[i];
+		}
+	}
+	
+	@Override
+	protected int getSentenceCountSize()
+	{
+		return 4;
+	}
+	
+	/** Each row contains the head ID and the dependency label of a token. */
+	@Override
+	protected void evaluate(String[][] gold, String[][] auto, Map<String,int[]> labels, int[] sentence)
+	{
+		int i, size = gold.length;
+		String[] g, a;
+		int[] counts;
 		
-		try
+		for (i=0; i<size; i++)
 		{
-			while ((line = fGold.readLine()) != null)
+			g = gold[i];
+			a = auto[i];
+			counts = getCounts(labels, g[1]);
+			
+			if (g[1].equals(a[1]))
 			{
-				gold = line.split(AbstractColumnReader.DELIM_COLUMN);
-				auto = fAuto.readLine().split(AbstractColumnReader.DELIM_COLUMN);
+				counts[2]++;	sentence[2]++;
 				
-				line = line.trim();
-				if (line.isEmpty())	 continue;
-				counts = getCounts(gold[goldDeprel]);
-				
-				if (gold[goldDeprel].equals(auto[autoDeprel]))
+				if (g[0].equals(a[0]))
 				{
-					counts[2]++;
-					
-					if (gold[goldHeadId].equals(auto[autoHeadId]))
-						counts[0]++;
+					counts[0]++;	sentence[0]++;
 				}
-				
-				if (gold[goldHeadId].equals(auto[autoHeadId]))
-					counts[1]++;
-				
-				counts[3]++;
 			}
+			
+			if (g[0].equals(a[0]))
+			{
+				counts[1]++;	sentence[1]++;
+			}
+			
+			counts[3]++;	sentence[3]++;
 		}
-		catch (IOException e) {e.printStackTrace();}
-		
-		print();
+	}
+	
+	@Override
+	protected String[] getScoreNames()
+	{
+		return new String[]{"LAS", "UAS", "LS"};
+	}
+	
+	@Override
+	protected double[] getScores(long[] counts)
+	{
+		return new double[]{getPercentage(counts[0], counts[3]), getPercentage(counts[1], counts[3]), getPercentage(counts[2], counts[3])};
 	}
 	
 	private void print()
@@ -117,11 +150,11 @@ public class DEPEvaluate extends AbstractRun
 		printAccuracy("ALL", total, counts);
 		System.out.println(hline);
 		
-		List<String> tags = new ArrayList<String>(m_labels.keySet());
+		List<String> tags = new ArrayList<String>(t_counts.keySet());
 		Collections.sort(tags);
 		
 		for (String tag : tags)
-			printAccuracy(tag, total, m_labels.get(tag));
+			printAccuracy(tag, total, t_counts.get(tag));
 		System.out.println(hline);
 	}
 	
@@ -131,16 +164,16 @@ public class DEPEvaluate extends AbstractRun
 		System.out.printf("%10s%10d%10.2f%10.2f%10.2f%10.2f\n", label, t, 100d*t/total, 100d*counts[0]/t, 100d*counts[1]/t, 100d*counts[2]/t);
 	}
 	
-	private int[] getCounts(String tag)
+	private int[] getCounts(Map<String,int[]> labels, String tag)
 	{
 		int[] counts;
 		
-		if (m_labels.containsKey(tag))
-			counts = m_labels.get(tag);
+		if (labels.containsKey(tag))
+			counts = labels.get(tag);
 		else
 		{
 			counts = new int[4];
-			m_labels.put(tag, counts);
+			labels.put(tag, counts);
 		}
 		
 		return counts;
@@ -151,9 +184,9 @@ public class DEPEvaluate extends AbstractRun
 		int[] gCounts = null, lCounts;
 		int i;
 		
-		for (String tag : m_labels.keySet())
+		for (String tag : t_counts.keySet())
 		{
-			lCounts = m_labels.get(tag);
+			lCounts = t_counts.get(tag);
 			
 			if (gCounts == null)
 				gCounts = Arrays.copyOf(lCounts, lCounts.length);
@@ -0,0 +1,68 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.run;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.kohsuke.args4j.Option;
+
+import com.googlecode.clearnlp.propbank.verbnet.PVBinaryMap;
+import com.googlecode.clearnlp.propbank.verbnet.PVMap;
+
+/**
+ * Compiles a PropBank to VerbNet map into the binary format of {@link PVBinaryMap}.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class PB2VNCompile extends AbstractRun
+{
+	@Option(name="-i", usage="PB2VN mapping file or directory containing PropBank frameset files (required)", required=true, metaVar="<filepath>")
+	private String s_inputPath;
+	@Option(name="-o", usage="binary output file (required)", required=true, metaVar="<filename>")
+	private String s_outputFile;
+	
+	public PB2VNCompile(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			compile(s_inputPath, s_outputFile);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	public void compile(String inputPath, String outputFile) throws Exception
+	{
+		PVMap pvMap = new File(inputPath).isDirectory() ? new PVMap(inputPath) : new PVMap(new BufferedInputStream(new FileInputStream(inputPath)));
+		PVBinaryMap map = new PVBinaryMap(pvMap);
+		OutputStream fout = new FileOutputStream(outputFile);
+		
+		map.save(fout);
+		fout.close();
+		
+		System.out.println("# of rolesets: "+map.size());
+	}
+	
+	static public void main(String[] args)
+	{
+		new PB2VNCompile(args);
+	}
+}
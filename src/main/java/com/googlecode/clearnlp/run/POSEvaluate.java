@@ -23,8 +23,6 @@
 */
 package com.googlecode.clearnlp.run;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,14 +32,11 @@ import java.util.Map;
 
 import org.kohsuke.args4j.Option;
 
-import com.googlecode.clearnlp.reader.AbstractColumnReader;
-import com.googlecode.clearnlp.util.UTInput;
-
 /**
  * @since 1.0.0
  * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
  */
-public class POSEvaluate extends AbstractRun
+public class POSEvaluate extends AbstractEvaluate<Map<String,int[]>>
 {
 	@Option(name="-g", usage="gold-standard file (required)", required=true, metaVar="<filename>")
 	private String s_goldFile;
@@ -52,8 +47,6 @@ public class POSEvaluate extends AbstractRun
 	@Option(name="-si", usage="column index of POS tags in a system-generated file (required)", required=true, metaVar="<integer>")
 	private int    i_autoIndex;
 	
-	private Map<String,int[]> m_labels;
-	
 	public POSEvaluate() {}
 	
 	public POSEvaluate(String[] args)
@@ -64,34 +57,69 @@ public class POSEvaluate extends AbstractRun
 	
 	public void run(String goldFile, String autoFile, int goldIndex, int autoIndex)
 	{
-		BufferedReader fGold = UTInput.createBufferedFileReader(goldFile);
-		BufferedReader fAuto = UTInput.createBufferedFileReader(autoFile);
-		String[] gold, auto;
-		int[] counts;
-		String line;
+		evaluate(goldFile, autoFile, new int[]{goldIndex}, new int[]{autoIndex});
+		print();
+		printConfidenceIntervals();
+	}
+	
+	@Override
+	protected Map<String,int[]> createCounts()
+	{
+		return new HashMap<String,int[]>();
+	}
+	
+	@Override
+	protected void merge(Map<String,int[]> target, Map<String,int[]> source)
+	{
+		int[] counts, sCounts;
+		int i;
 		
-		m_labels = new HashMap<String,int[]>();
+		for (String tag : source.keySet())
+		{
+			counts  = getCounts(target, tag);
+			sCounts = source.get(tag);
+			
+			for (i=0; i<counts.length; i++)
+				counts[i] += sCounts[i];
+		}
+	}
+	
+	@Override
+	protected int getSentenceCountSize()
+	{
+		return 2;
+	}
+	
+	/** Each row contains the POS tag of a token. */
+	@Override
+	protected void evaluate(String[][] gold, String[][] auto, Map<String,int[]> labels, int[] sentence)
+	{
+		int i, size = gold.length;
+		int[] counts;
 		
-		try
+		for (i=0; i<size; i++)
 		{
-			while ((line = fGold.readLine()) != null)
+			counts = getCounts(labels, gold[i][0]);
+			
+			if (gold[i][0].equals(auto[i][0]))
 			{
-				gold = line.split(AbstractColumnReader.DELIM_COLUMN);
-				auto = fAuto.readLine().split(AbstractColumnReader.DELIM_COLUMN);
-				
-				line = line.trim();
-				if (line.isEmpty())	 continue;
-				counts = getCounts(gold[goldIndex]);
-				
-				if (gold[goldIndex].equals(auto[autoIndex]))
-					counts[0]++;
-				
-				counts[1]++;
+				counts[0]++;	sentence[0]++;
 			}
+			
+			counts[1]++;	sentence[1]++;
 		}
-		catch (IOException e) {e.printStackTrace();}
-		
-		print();
+	}
+	
+	@Override
+	protected String[] getScoreNames()
+	{
+		return new String[]{"Acc."};
+	}
+	
+	@Override
+	protected double[] getScores(long[] counts)
+	{
+		return new double[]{getPercentage(counts[0], counts[1])};
 	}
 	
 	private void print()
@@ -108,11 +136,11 @@ public class POSEvaluate extends AbstractRun
 		printAccuracy("ALL", total, counts);
 		System.out.println(hline);
 		
-		List<String> tags = new ArrayList<String>(m_labels.keySet());
+		List<String> tags = new ArrayList<String>(t_counts.keySet());
 		Collections.sort(tags);
 		
 		for (String tag : tags)
-			printAccuracy(tag, total, m_labels.get(tag));
+			printAccuracy(tag, total, t_counts.get(tag));
 		System.out.println(hline);
 	}
 	
@@ -121,16 +149,16 @@ public class POSEvaluate extends AbstractRun
 		System.out.printf("%10s%10d%10.2f%10.2f\n", label, counts[1], 100d*counts[1]/total, 100d*counts[0]/counts[1]);
 	}
 	
-	private int[] getCounts(String tag)
+	private int[] getCounts(Map<String,int[]> labels, String tag)
 	{
 		int[] counts;
 		
-		if (m_labels.containsKey(tag))
-			counts = m_labels.get(tag);
+		if (labels.containsKey(tag))
+			counts = labels.get(tag);
 		else
 		{
 			counts = new int[2];
-			m_labels.put(tag, counts);
+			labels.put(tag, counts);
 		}
 		
 		return counts;
@@ -141,9 +169,9 @@ public class POSEvaluate extends AbstractRun
 		int[] gCounts = null, lCounts;
 		int i;
 		
-		for (String tag : m_labels.keySet())
+		for (String tag : t_counts.keySet())
 		{
-			lCounts = m_labels.get(tag);
+			lCounts = t_counts.get(tag);
 			
 			if (gCounts == null)
 				gCounts = Arrays.copyOf(lCounts, lCounts.length);
@@ -23,19 +23,15 @@
 */
 package com.googlecode.clearnlp.run;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-
 import org.kohsuke.args4j.Option;
 
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.srl.SRLEval;
 import com.googlecode.clearnlp.reader.AbstractColumnReader;
-import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.pair.StringIntPair;
 
 
-public class SRLEvaluate extends AbstractRun
+public class SRLEvaluate extends AbstractEvaluate<SRLEval>
 {
 	@Option(name="-g", usage="the gold-standard file (input; required)", required=true, metaVar="<filename>")
 	private String s_goldFile;
@@ -56,31 +52,68 @@ public class SRLEvaluate extends AbstractRun
 	
 	public void run(String goldFile, String autoFile, int goldIndex, int autoIndex)
 	{
-		BufferedReader fGold = UTInput.createBufferedFileReader(goldFile);
-		BufferedReader fAuto = UTInput.createBufferedFileReader(autoFile);
-		StringIntPair[] gHeads, aHeads;
-		SRLEval eval = new SRLEval();
-		String[] gold, auto;
-		String line;
+		evaluate(goldFile, autoFile, new int[]{goldIndex}, new int[]{autoIndex});
+		t_counts.print();
+		printConfidenceIntervals();
+	}
+	
+	@Override
+	protected SRLEval createCounts()
+	{
+		return new SRLEval();
+	}
+	
+	@Override
+	protected void merge(SRLEval target, SRLEval source)
+	{
+		target.merge(source);
+	}
+	
+	/** The correct, system, and gold counts of {@link SRLEval#UAS} followed by those of {@link SRLEval#LAS}. */
+	@Override
+	protected int getSentenceCountSize()
+	{
+		return 6;
+	}
+	
+	/** Each row contains the semantic heads of a token. */
+	@Override
+	protected void evaluate(String[][] gold, String[][] auto, SRLEval eval, int[] sentence)
+	{
+		int[] uas = eval.getCounts(SRLEval.UAS), las = eval.getCounts(SRLEval.LAS);
+		int i, size = gold.length;
+		
+		for (i=0; i<3; i++)
+		{
+			sentence[i]   = -uas[i];
+			sentence[i+3] = -las[i];
+		}
+		
+		for (i=0; i<size; i++)
+			eval.evaluate(toSHeads(gold[i][0]), toSHeads(auto[i][0]));
 		
-		try
+		for (i=0; i<3; i++)
 		{
-			while ((line = fGold.readLine()) != null)
-			{
-				gold = line.split(AbstractColumnReader.DELIM_COLUMN);
-				auto = fAuto.readLine().split(AbstractColumnReader.DELIM_COLUMN);
-				
-				line = line.trim();
-				if (line.isEmpty())	 continue;
-				
-				gHeads = toSHeads(gold[goldIndex]);
-				aHeads = toSHeads(auto[autoIndex]);
-				eval.evaluate(gHeads, aHeads);
-			}
+			sentence[i]   += uas[i];
+			sentence[i+3] += las[i];
 		}
-		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	@Override
+	protected String[] getScoreNames()
+	{
+		return new String[]{"UAS-F1", "LAS-P", "LAS-R", "LAS-F1"};
+	}
+	
+	@Override
+	protected double[] getScores(long[] counts)
+	{
+		double up = getPercentage(counts[0], counts[1]);
+		double ur = getPercentage(counts[0], counts[2]);
+		double lp = getPercentage(counts[3], counts[4]);
+		double lr = getPercentage(counts[3], counts[5]);
 		
-		eval.print();
+		return new double[]{SRLEval.getF1(up, ur), lp, lr, SRLEval.getF1(lp, lr)};
 	}
 	
 	private StringIntPair[] toSHeads(String sHeads)
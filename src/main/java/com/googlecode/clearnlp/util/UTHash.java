@@ -0,0 +1,111 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util;
+
+/**
+ * 64-bit hash functions used for fingerprinting.
+ * Two independent lanes ({@link UTHash#hashA(long, String)} and {@link UTHash#hashB(long, String)})
+ * are combined to give 128-bit fingerprints.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class UTHash
+{
+	/** The initial value of lane A (FNV-1a offset basis). */
+	static public final long SEED_A = 0xcbf29ce484222325L;
+	/** The initial value of lane B. */
+	static public final long SEED_B = 0x9e3779b97f4a7c15L;
+
+	static private final long PRIME_A = 0x100000001b3L;
+	static private final long PRIME_B = 0xc2b2ae3d27d4eb4fL;
+
+	/** @return the lane A hash (FNV-1a) of the specific string continued from {@code h}. */
+	static public long hashA(long h, String s)
+	{
+		int i, size = s.length();
+
+		for (i=0; i<size; i++)
+		{
+			h ^= s.charAt(i);
+			h *= PRIME_A;
+		}
+
+		return h;
+	}
+
+	/** @return the lane A hash of the specific value continued from {@code h}. */
+	static public long hashA(long h, long v)
+	{
+		h ^= v;
+		h *= PRIME_A;
+
+		return h;
+	}
+
+	/** @return the lane A hash of the first {@code length} bytes continued from {@code h}. */
+	static public long hashA(long h, byte[] bytes, int length)
+	{
+		int i;
+
+		for (i=0; i<length; i++)
+		{
+			h ^= bytes[i] & 0xff;
+			h *= PRIME_A;
+		}
+
+		return h;
+	}
+
+	/** @return the lane B hash (multiplicative polynomial) of the specific string continued from {@code h}. */
+	static public long hashB(long h, String s)
+	{
+		int i, size = s.length();
+
+		for (i=0; i<size; i++)
+			h = (h + s.charAt(i)) * PRIME_B;
+
+		return h;
+	}
+
+	/** @return the lane B hash of the specific value continued from {@code h}. */
+	static public long hashB(long h, long v)
+	{
+		return (h + v) * PRIME_B;
+	}
+
+	/** @return the lane B hash of the first {@code length} bytes continued from {@code h}. */
+	static public long hashB(long h, byte[] bytes, int length)
+	{
+		int i;
+
+		for (i=0; i<length; i++)
+			h = (h + (bytes[i] & 0xff)) * PRIME_B;
+
+		return h;
+	}
+
+	/** @return the 64-bit finalizer of MurmurHash3 applied to {@code h}. */
+	static public long mix(long h)
+	{
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+}
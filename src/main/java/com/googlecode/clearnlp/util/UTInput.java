@@ -25,7 +25,9 @@ package com.googlecode.clearnlp.util;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.DataInput;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
@@ -143,4 +145,20 @@ public class UTInput
 	{
 		return new ByteArrayInputStream(s.getBytes());
 	}
+	
+	/** @return the integer written by {@link UTOutput#writeVarInt(DataOutput, int)}. */
+	static public int readVarInt(DataInput in) throws IOException
+	{
+		int b, v = 0, shift = 0;
+		
+		do
+		{
+			b = in.readByte();
+			v |= (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		
+		return v;
+	}
 }
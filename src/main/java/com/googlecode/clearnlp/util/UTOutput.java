@@ -24,7 +24,9 @@
 package com.googlecode.clearnlp.util;
 
 import java.io.BufferedOutputStream;
+import java.io.DataOutput;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.Map;
@@ -120,4 +122,16 @@ public class UTOutput
 			fout.println(build.toString());
 		}
 	}
+	
+	/** Writes the specific non-negative integer in 1-5 bytes, 7 bits per byte (low-order first). */
+	static public void writeVarInt(DataOutput out, int v) throws IOException
+	{
+		while ((v & ~0x7f) != 0)
+		{
+			out.writeByte((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		
+		out.writeByte(v);
+	}
 }
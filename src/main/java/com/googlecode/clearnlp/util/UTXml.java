@@ -24,12 +24,19 @@
 package com.googlecode.clearnlp.util;
 
 import java.io.InputStream;
+import java.io.StringWriter;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 public class UTXml
@@ -120,4 +127,22 @@ public class UTXml
 		
 		return build.toString();
 	}
+	
+	/** @return the XML string of the specific node without the XML declaration. */
+	static public String toString(Node node)
+	{
+		String s = null;
+		
+		try
+		{
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+			StringWriter writer = new StringWriter();
+			transformer.transform(new DOMSource(node), new StreamResult(writer));
+			s = writer.getBuffer().toString();
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		return s;
+	}
 }
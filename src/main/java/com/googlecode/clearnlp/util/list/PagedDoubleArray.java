@@ -0,0 +1,193 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.list;
+
+import java.util.Arrays;
+
+/**
+ * Growable 2-dimensional array of doubles stored in fixed-size pages.
+ * The cell {@code (row, column)} is located at {@code row * stride + column} of its page,
+ * where the stride is the column capacity, doubled whenever a column is added beyond it.
+ * Adding a row never copies existing rows; adding a column copies only when the stride grows.
+ * Snapshots share pages with this array, which copies a shared page before writing to it.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class PagedDoubleArray
+{
+	/** log2 of the number of rows per page. */
+	static private final int PAGE_SHIFT = 10;
+	static private final int PAGE_ROWS  = 1 << PAGE_SHIFT;
+	static private final int PAGE_MASK  = PAGE_ROWS - 1;
+
+	private double[][] d_pages;
+	/** {@code true} if the page is shared with a snapshot. */
+	private boolean[]  b_shared;
+	private int n_rows;
+	private int n_columns;
+	private int n_stride;
+
+	/** @param columns the initial number of columns. */
+	public PagedDoubleArray(int columns)
+	{
+		d_pages   = new double[1][];
+		b_shared  = new boolean[1];
+		n_rows    = 0;
+		n_columns = columns;
+		n_stride  = Math.max(1, columns);
+	}
+
+	/** @return the number of rows. */
+	public int getRowSize()
+	{
+		return n_rows;
+	}
+
+	/** @return the number of columns. */
+	public int getColumnSize()
+	{
+		return n_columns;
+	}
+
+	/** Adds a row initialized with 0's. */
+	public void addRow()
+	{
+		int page = n_rows >> PAGE_SHIFT;
+
+		if (page == d_pages.length)
+		{
+			d_pages  = Arrays.copyOf(d_pages , page << 1);
+			b_shared = Arrays.copyOf(b_shared, page << 1);
+		}
+
+		if (d_pages[page] == null)
+			d_pages[page] = new double[PAGE_ROWS * n_stride];
+
+		n_rows++;
+	}
+
+	/** Adds rows initialized with 0's until there are {@code size} rows. */
+	public void ensureRowSize(int size)
+	{
+		while (n_rows < size)
+			addRow();
+	}
+
+	/** Adds a column initialized with 0's. */
+	public void addColumn()
+	{
+		if (n_columns == n_stride)
+			setStride(n_stride << 1);
+
+		n_columns++;
+	}
+
+	/** Called by {@link PagedDoubleArray#addColumn()}. */
+	private void setStride(int stride)
+	{
+		int i, j, size = d_pages.length;
+		double[] oPage, nPage;
+
+		for (i=0; i<size && (oPage = d_pages[i]) != null; i++)
+		{
+			nPage = new double[PAGE_ROWS * stride];
+
+			for (j=0; j<PAGE_ROWS; j++)
+				System.arraycopy(oPage, j * n_stride, nPage, j * stride, n_columns);
+
+			d_pages [i] = nPage;
+			b_shared[i] = false;
+		}
+
+		n_stride = stride;
+	}
+
+	public double get(int row, int column)
+	{
+		return d_pages[row >> PAGE_SHIFT][(row & PAGE_MASK) * n_stride + column];
+	}
+
+	public void set(int row, int column, double value)
+	{
+		getWritablePage(row >> PAGE_SHIFT)[(row & PAGE_MASK) * n_stride + column] = value;
+	}
+
+	public void add(int row, int column, double value)
+	{
+		getWritablePage(row >> PAGE_SHIFT)[(row & PAGE_MASK) * n_stride + column] += value;
+	}
+
+	/** @return the specific page, copied first if it is shared with a snapshot. */
+	private double[] getWritablePage(int page)
+	{
+		if (b_shared[page])
+		{
+			d_pages [page] = d_pages[page].clone();
+			b_shared[page] = false;
+		}
+
+		return d_pages[page];
+	}
+
+	/**
+	 * Returns a snapshot of this array, which shares all pages with this array.
+	 * Writing to either array copies the written page first so the other array is not affected.
+	 * @return a snapshot of this array.
+	 */
+	public PagedDoubleArray getSnapshot()
+	{
+		PagedDoubleArray snapshot = new PagedDoubleArray(n_columns);
+
+		snapshot.d_pages  = d_pages.clone();
+		snapshot.b_shared = new boolean[d_pages.length];
+		snapshot.n_rows   = n_rows;
+		snapshot.n_stride = n_stride;
+
+		Arrays.fill(b_shared, true);
+		Arrays.fill(snapshot.b_shared, true);
+
+		return snapshot;
+	}
+
+	/** @return a copy of the specific row. */
+	public double[] getRow(int row)
+	{
+		double[] copy = new double[n_columns];
+		System.arraycopy(d_pages[row >> PAGE_SHIFT], (row & PAGE_MASK) * n_stride, copy, 0, n_columns);
+
+		return copy;
+	}
+
+	/** Adds {@code weight} times the specific row to {@code vector}. */
+	public void addRowTo(int row, double weight, double[] vector)
+	{
+		double[] page = d_pages[row >> PAGE_SHIFT];
+		int i, offset = (row & PAGE_MASK) * n_stride;
+
+		for (i=0; i<n_columns; i++)
+			vector[i] += page[offset+i] * weight;
+	}
+
+	/** Adds the specific row to {@code vector}. */
+	public void addRowTo(int row, double[] vector)
+	{
+		double[] page = d_pages[row >> PAGE_SHIFT];
+		int i, offset = (row & PAGE_MASK) * n_stride;
+
+		for (i=0; i<n_columns; i++)
+			vector[i] += page[offset+i];
+	}
+}
@@ -0,0 +1,87 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counter (e.g., the number of classifications).
+ * Each thread adds to its own cell so that threads do not contend on the hot path; cells are summed when the count is read.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class CounterMetrics implements CounterMetricsMBean
+{
+	private String s_name;
+	/** The cells of all threads that have added to this counter. */
+	private List<AtomicLong> l_cells;
+	private ThreadLocal<AtomicLong> t_cell;
+	/** The sum of cells at the last {@link CounterMetrics#reset()}. */
+	private volatile long n_base;
+	
+	public CounterMetrics(String name)
+	{
+		s_name  = name;
+		l_cells = new CopyOnWriteArrayList<AtomicLong>();
+		n_base  = 0;
+		
+		t_cell = new ThreadLocal<AtomicLong>()
+		{
+			@Override
+			protected AtomicLong initialValue()
+			{
+				AtomicLong cell = new AtomicLong();
+				l_cells.add(cell);
+				return cell;
+			}
+		};
+	}
+	
+	public void add(long n)
+	{
+		AtomicLong cell = t_cell.get();
+		// only the owning thread writes to its cell
+		cell.lazySet(cell.get() + n);
+	}
+	
+	public String getName()
+	{
+		return s_name;
+	}
+	
+	public long getCount()
+	{
+		return getSum() - n_base;
+	}
+	
+	/** Cells are not cleared because other threads may be writing to them; the current sum becomes the new base instead. */
+	synchronized public void reset()
+	{
+		n_base = getSum();
+	}
+	
+	private long getSum()
+	{
+		long sum = 0;
+		
+		for (AtomicLong cell : l_cells)
+			sum += cell.get();
+		
+		return sum;
+	}
+}
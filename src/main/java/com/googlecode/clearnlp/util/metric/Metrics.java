@@ -0,0 +1,201 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Registry of pipeline metrics.
+ * Metrics are collected only after {@link Metrics#enable()} is called (or the system property {@code clearnlp.metrics} is {@code true}),
+ * so instrumented code costs a volatile read when metrics are disabled.
+ * Each stage and counter is registered as a JMX MBean under the domain {@link Metrics#JMX_DOMAIN}.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class Metrics
+{
+	static private final Logger LOG = Logger.getLogger(Metrics.class);
+	
+	static public final String JMX_DOMAIN = "com.googlecode.clearnlp";
+	
+	static public final String STAGE_TOKENIZE = "tok";
+	static public final String STAGE_SEGMENT  = "seg";
+	
+	static public final String COUNT_CLASSIFICATIONS = "classifications";
+	static public final String COUNT_FEATURES        = "features";
+	static public final String COUNT_TRANSITIONS     = "transitions";
+	static public final String COUNT_CACHE_HITS      = "model_cache_hits";
+	static public final String COUNT_CACHE_MISSES    = "model_cache_misses";
+	static public final String COUNT_SENTENCE_HITS   = "sentence_cache_hits";
+	static public final String COUNT_SENTENCE_MISSES = "sentence_cache_misses";
+	
+	static private volatile boolean b_enabled = Boolean.getBoolean("clearnlp.metrics");
+	
+	static private final ConcurrentMap<String,StageMetrics>   m_stages   = new ConcurrentHashMap<String,StageMetrics>();
+	static private final ConcurrentMap<String,CounterMetrics> m_counters = new ConcurrentHashMap<String,CounterMetrics>();
+	
+	static private final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	static private final boolean      ALLOCATION = isAllocationSupported();
+	
+	/** Starts collecting metrics. */
+	static public void enable()
+	{
+		b_enabled = true;
+	}
+	
+	/** Stops collecting metrics; collected metrics are kept. */
+	static public void disable()
+	{
+		b_enabled = false;
+	}
+	
+	static public boolean isEnabled()
+	{
+		return b_enabled;
+	}
+	
+	/** Resets all stages and counters. */
+	static public void reset()
+	{
+		for (StageMetrics stage : m_stages.values())
+			stage.reset();
+		
+		for (CounterMetrics counter : m_counters.values())
+			counter.reset();
+	}
+	
+//	====================================== STAGES ======================================
+	
+	/** @return the stage with the specific name, created and registered to JMX if it does not exist. */
+	static public StageMetrics getStage(String name)
+	{
+		StageMetrics stage = m_stages.get(name);
+		
+		if (stage == null)
+		{
+			StageMetrics prev = m_stages.putIfAbsent(name, stage = new StageMetrics(name));
+			
+			if (prev != null)	stage = prev;
+			else				register("Stage", name, stage);
+		}
+		
+		return stage;
+	}
+	
+	/** @return all stages sorted by their names. */
+	static public List<StageMetrics> getStages()
+	{
+		List<String> names = new ArrayList<String>(m_stages.keySet());
+		List<StageMetrics> stages = new ArrayList<StageMetrics>(names.size());
+		Collections.sort(names);
+		
+		for (String name : names)
+			stages.add(m_stages.get(name));
+		
+		return stages;
+	}
+	
+//	====================================== COUNTERS ======================================
+	
+	/** Adds {@code n} to the specific counter if metrics are enabled. */
+	static public void count(String name, long n)
+	{
+		if (b_enabled)	getCounter(name).add(n);
+	}
+	
+	/** @return the counter with the specific name, created and registered to JMX if it does not exist. */
+	static public CounterMetrics getCounter(String name)
+	{
+		CounterMetrics counter = m_counters.get(name);
+		
+		if (counter == null)
+		{
+			CounterMetrics prev = m_counters.putIfAbsent(name, counter = new CounterMetrics(name));
+			
+			if (prev != null)	counter = prev;
+			else				register("Counter", name, counter);
+		}
+		
+		return counter;
+	}
+	
+	/** @return all counters sorted by their names. */
+	static public List<CounterMetrics> getCounters()
+	{
+		List<String> names = new ArrayList<String>(m_counters.keySet());
+		List<CounterMetrics> counters = new ArrayList<CounterMetrics>(names.size());
+		Collections.sort(names);
+		
+		for (String name : names)
+			counters.add(m_counters.get(name));
+		
+		return counters;
+	}
+	
+//	====================================== ALLOCATION ======================================
+	
+	/** @return the number of bytes allocated by the current thread so far, or {@code -1} if it is not supported by the JVM. */
+	static public long getAllocatedBytes()
+	{
+		return ALLOCATION ? ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+	
+	static private boolean isAllocationSupported()
+	{
+		try
+		{
+			if (THREADS instanceof com.sun.management.ThreadMXBean)
+			{
+				com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)THREADS;
+				
+				if (bean.isThreadAllocatedMemorySupported())
+				{
+					bean.setThreadAllocatedMemoryEnabled(true);
+					return true;
+				}
+			}
+		}
+		catch (Throwable t) {}
+		
+		return false;
+	}
+	
+//	====================================== JMX ======================================
+	
+	static private void register(String type, String name, Object mbean)
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  oName  = new ObjectName(JMX_DOMAIN+":type="+type+",name="+ObjectName.quote(name));
+			
+			if (!server.isRegistered(oName))
+				server.registerMBean(mbean, oName);
+		}
+		catch (Exception e) {LOG.warn("Failed to register the MBean of "+name+": "+e.getMessage()+"\n");}
+	}
+}
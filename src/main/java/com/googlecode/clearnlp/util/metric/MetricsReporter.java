@@ -0,0 +1,121 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Periodically reports {@link Metrics} to the log and, optionally, appends them to a CSV file.
+ * Each CSV row contains {@code time,name,calls,tokens,millis,max_micros,allocated_bytes},
+ * where the name of a sentence-length bucket is {@code stage[lower-upper]} and counters fill only {@code calls}.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class MetricsReporter implements Runnable
+{
+	private final Logger LOG = Logger.getLogger(this.getClass());
+	
+	static public final String CSV_HEADER = "time,name,calls,tokens,millis,max_micros,allocated_bytes";
+	
+	private ScheduledExecutorService e_scheduler;
+	private PrintStream f_csv;
+	
+	/** @param csvFile the CSV file to append metrics to, where the header is written only if the file is new or empty; {@code null} to report to the log only. */
+	public MetricsReporter(String csvFile) throws IOException
+	{
+		if (csvFile != null)
+		{
+			File file = new File(csvFile);
+			boolean isNew = !file.exists() || file.length() == 0;
+			
+			f_csv = new PrintStream(new FileOutputStream(file, true), true, "UTF-8");
+			if (isNew)	f_csv.println(CSV_HEADER);
+		}
+	}
+	
+	/** Reports metrics every {@code periodSeconds} seconds on a daemon thread. */
+	public void start(long periodSeconds)
+	{
+		e_scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "MetricsReporter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		
+		e_scheduler.scheduleAtFixedRate(this, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+	
+	/** Stops reporting after a final report and closes the CSV file. */
+	public void stop()
+	{
+		if (e_scheduler != null)
+		{
+			e_scheduler.shutdown();
+			
+			try
+			{
+				e_scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {e.printStackTrace();}
+		}
+		
+		run();
+		if (f_csv != null)	f_csv.close();
+	}
+	
+	synchronized public void run()
+	{
+		long time = System.currentTimeMillis();
+		int i;
+		
+		for (StageMetrics stage : Metrics.getStages())
+		{
+			LOG.info(String.format("%s: %d calls, %d tokens, %d ms, %.1f us/call, %.0f tokens/sec\n", stage.getName(), stage.getCalls(), stage.getTokens(), stage.getTotalMillis(), stage.getAverageMicros(), stage.getTokensPerSecond()));
+			
+			if (f_csv != null)
+			{
+				printCSV(time, stage.getName(), stage.getCalls(), Long.toString(stage.getTokens()), Long.toString(stage.getTotalMillis()), Long.toString(stage.getMaxMicros()), Long.toString(stage.getAllocatedBytes()));
+				
+				for (i=0; i<StageMetrics.LENGTH_BOUNDS.length; i++)
+					printCSV(time, stage.getName()+"["+StageMetrics.getBucketLabel(i)+"]", stage.getBucketCalls(i), "", Long.toString(stage.getBucketNanos(i) / 1000000), "", "");
+			}
+		}
+		
+		for (CounterMetrics counter : Metrics.getCounters())
+		{
+			LOG.info(counter.getName()+": "+counter.getCount()+"\n");
+			if (f_csv != null)	printCSV(time, counter.getName(), counter.getCount(), "", "", "", "");
+		}
+	}
+	
+	private void printCSV(long time, String name, long calls, String tokens, String millis, String maxMicros, String allocated)
+	{
+		f_csv.println(time+","+name+","+calls+","+tokens+","+millis+","+maxMicros+","+allocated);
+	}
+}
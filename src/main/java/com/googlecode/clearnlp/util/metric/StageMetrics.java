@@ -0,0 +1,173 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and throughput of a pipeline stage (e.g., part-of-speech tagging).
+ * Latencies are also accumulated per bucket of sentence lengths (see {@link StageMetrics#LENGTH_BOUNDS}).
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class StageMetrics implements StageMetricsMBean
+{
+	/** The inclusive upper bound of sentence lengths in each bucket. */
+	static public final int[] LENGTH_BOUNDS = {10, 20, 40, 80, Integer.MAX_VALUE};
+	
+	private String s_name;
+	private AtomicLong n_calls;
+	private AtomicLong n_tokens;
+	private AtomicLong n_nanos;
+	private AtomicLong n_maxNanos;
+	private AtomicLong n_allocated;
+	private AtomicLongArray n_bucketCalls;
+	private AtomicLongArray n_bucketNanos;
+	
+	public StageMetrics(String name)
+	{
+		s_name        = name;
+		n_calls       = new AtomicLong();
+		n_tokens      = new AtomicLong();
+		n_nanos       = new AtomicLong();
+		n_maxNanos    = new AtomicLong();
+		n_allocated   = new AtomicLong();
+		n_bucketCalls = new AtomicLongArray(LENGTH_BOUNDS.length);
+		n_bucketNanos = new AtomicLongArray(LENGTH_BOUNDS.length);
+	}
+	
+	/**
+	 * Adds a call of this stage.
+	 * @param tokens the number of tokens processed by the call.
+	 * @param nanos the latency of the call in nanoseconds.
+	 * @param allocated the number of bytes allocated by the call, or a negative value if unknown.
+	 */
+	public void add(int tokens, long nanos, long allocated)
+	{
+		int bucket = getBucket(tokens);
+		long max;
+		
+		n_calls .incrementAndGet();
+		n_tokens.addAndGet(tokens);
+		n_nanos .addAndGet(nanos);
+		n_bucketCalls.incrementAndGet(bucket);
+		n_bucketNanos.addAndGet(bucket, nanos);
+		if (allocated > 0)	n_allocated.addAndGet(allocated);
+		
+		while ((max = n_maxNanos.get()) < nanos && !n_maxNanos.compareAndSet(max, nanos));
+	}
+	
+	/** @return the index of the bucket containing the specific sentence length. */
+	static public int getBucket(int tokens)
+	{
+		int i;
+		
+		for (i=0; tokens > LENGTH_BOUNDS[i]; i++);
+		return i;
+	}
+	
+	/** @return the label of the specific bucket (e.g., {@code "11-20"}). */
+	static public String getBucketLabel(int bucket)
+	{
+		int lower = (bucket == 0) ? 1 : LENGTH_BOUNDS[bucket-1] + 1;
+		return (LENGTH_BOUNDS[bucket] == Integer.MAX_VALUE) ? lower+"+" : lower+"-"+LENGTH_BOUNDS[bucket];
+	}
+	
+	public String getName()
+	{
+		return s_name;
+	}
+	
+	public long getCalls()
+	{
+		return n_calls.get();
+	}
+	
+	public long getTokens()
+	{
+		return n_tokens.get();
+	}
+	
+	public long getTotalMillis()
+	{
+		return n_nanos.get() / 1000000;
+	}
+	
+	public double getAverageMicros()
+	{
+		long calls = n_calls.get();
+		return (calls > 0) ? n_nanos.get() / 1000d / calls : 0;
+	}
+	
+	public long getMaxMicros()
+	{
+		return n_maxNanos.get() / 1000;
+	}
+	
+	public double getTokensPerSecond()
+	{
+		long nanos = n_nanos.get();
+		return (nanos > 0) ? n_tokens.get() * 1e9 / nanos : 0;
+	}
+	
+	public long getAllocatedBytes()
+	{
+		return n_allocated.get();
+	}
+	
+	/** @return the number of calls in the specific bucket. */
+	public long getBucketCalls(int bucket)
+	{
+		return n_bucketCalls.get(bucket);
+	}
+	
+	/** @return the total latency of the specific bucket in nanoseconds. */
+	public long getBucketNanos(int bucket)
+	{
+		return n_bucketNanos.get(bucket);
+	}
+	
+	public String[] getLatencyHistogram()
+	{
+		String[] histogram = new String[LENGTH_BOUNDS.length];
+		long calls;
+		int i;
+		
+		for (i=0; i<histogram.length; i++)
+		{
+			calls = n_bucketCalls.get(i);
+			histogram[i] = String.format("%s: %d calls, %.1f us", getBucketLabel(i), calls, (calls > 0) ? n_bucketNanos.get(i) / 1000d / calls : 0);
+		}
+		
+		return histogram;
+	}
+	
+	public void reset()
+	{
+		n_calls    .set(0);
+		n_tokens   .set(0);
+		n_nanos    .set(0);
+		n_maxNanos .set(0);
+		n_allocated.set(0);
+		
+		for (int i=0; i<LENGTH_BOUNDS.length; i++)
+		{
+			n_bucketCalls.set(i, 0);
+			n_bucketNanos.set(i, 0);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+/**
+ * JMX view of {@link StageMetrics}.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public interface StageMetricsMBean
+{
+	String getName();
+	long getCalls();
+	long getTokens();
+	long getTotalMillis();
+	double getAverageMicros();
+	long getMaxMicros();
+	double getTokensPerSecond();
+	long getAllocatedBytes();
+	/** @return the number of calls and the average latency of each sentence-length bucket. */
+	String[] getLatencyHistogram();
+	void reset();
+}
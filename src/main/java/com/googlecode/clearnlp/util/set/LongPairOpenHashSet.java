@@ -0,0 +1,131 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.set;
+
+import java.util.Arrays;
+
+import com.googlecode.clearnlp.util.UTHash;
+
+/**
+ * Open-addressing set of 128-bit keys, each given as a pair of longs.
+ * Every key remembers the order in which it was inserted.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class LongPairOpenHashSet
+{
+	static private final int   DEFAULT_CAPACITY = 16;
+	static private final float LOAD_FACTOR      = 0.75f;
+
+	private long[] k_hi;
+	private long[] k_lo;
+	/** Insertion order + 1 of each slot; 0 if the slot is empty. */
+	private int[]  i_order;
+	private int    n_size;
+	private int    n_resize;
+
+	public LongPairOpenHashSet()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongPairOpenHashSet(int expectedSize)
+	{
+		int capacity = DEFAULT_CAPACITY;
+
+		while (capacity * LOAD_FACTOR < expectedSize)
+			capacity <<= 1;
+
+		init(capacity);
+	}
+
+	private void init(int capacity)
+	{
+		k_hi     = new long[capacity];
+		k_lo     = new long[capacity];
+		i_order  = new int [capacity];
+		n_resize = (int)(capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Adds the specific key if it does not already exist.
+	 * @return -1 if the key is newly added; otherwise, the insertion order of the existing key.
+	 */
+	public int add(long hi, long lo)
+	{
+		int slot = getSlot(hi, lo);
+
+		if (i_order[slot] > 0)
+			return i_order[slot] - 1;
+
+		k_hi[slot]    = hi;
+		k_lo[slot]    = lo;
+		i_order[slot] = ++n_size;
+
+		if (n_size > n_resize)	rehash();
+		return -1;
+	}
+
+	/** @return {@code true} if this set contains the specific key. */
+	public boolean contains(long hi, long lo)
+	{
+		return i_order[getSlot(hi, lo)] > 0;
+	}
+
+	/** @return the number of keys in this set. */
+	public int size()
+	{
+		return n_size;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(i_order, 0);
+		n_size = 0;
+	}
+
+	/** @return the slot containing the specific key, or the empty slot where it should be inserted. */
+	private int getSlot(long hi, long lo)
+	{
+		int mask = i_order.length - 1;
+		int slot = (int)UTHash.mix(hi ^ lo) & mask;
+
+		while (i_order[slot] > 0 && (k_hi[slot] != hi || k_lo[slot] != lo))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	private void rehash()
+	{
+		long[] hs = k_hi, ls = k_lo;
+		int[]  os = i_order;
+		int i, slot, size = os.length;
+
+		init(size << 1);
+
+		for (i=0; i<size; i++)
+		{
+			if (os[i] > 0)
+			{
+				slot = getSlot(hs[i], ls[i]);
+				k_hi[slot]    = hs[i];
+				k_lo[slot]    = ls[i];
+				i_order[slot] = os[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.googlecode.clearnlp.coreference.Mention;
+import com.googlecode.clearnlp.dependency.DEPArc;
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.reader.DEPBinaryReader;
+import com.googlecode.clearnlp.util.UTOutput;
+
+/**
+ * Writes dependency trees in the binary format read by {@link DEPBinaryReader}.
+ * Strings are dictionary-coded: the first occurrence of a string is written in full (its UTF-8 length and bytes), later occurrences as its index.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPBinaryWriter extends AbstractWriter<DEPTree>
+{
+	private DataOutputStream f_out;
+	/** Takes {@code index + 1} of each string; {@code 0} is reserved for {@code null}. */
+	private ObjectIntOpenHashMap<String> m_dictionary;
+	
+	/**
+	 * @param out the output stream.
+	 * @param type the type of annotation the trees carry (e.g., {@link com.googlecode.clearnlp.reader.AbstractReader#TYPE_DEP}).
+	 */
+	public DEPBinaryWriter(OutputStream out, String type)
+	{
+		f_out = new DataOutputStream(new BufferedOutputStream(out, 65536));
+		m_dictionary = new ObjectIntOpenHashMap<String>();
+		
+		try
+		{
+			f_out.writeInt(DEPBinaryReader.MAGIC);
+			f_out.writeInt(DEPBinaryReader.VERSION);
+			f_out.writeUTF(type);
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	@Override
+	public void write(DEPTree tree)
+	{
+		try
+		{
+			writeTree(tree);
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	private void writeTree(DEPTree tree) throws IOException
+	{
+		int i, size = tree.size();
+		boolean reset = m_dictionary.size() >= DEPBinaryReader.MAX_DICTIONARY;
+		DEPNode node, head;
+		
+		if (reset)	m_dictionary.clear();
+		UTOutput.writeVarInt(f_out, (size << 1) | (reset ? 1 : 0));
+		
+		for (i=1; i<size; i++)
+		{
+			node = tree.get(i);
+			head = node.getHead();
+			
+			writeString(node.form);
+			writeString(node.lemma);
+			writeString(node.pos);
+			writeString(node.nament);
+			writeFeats(node.getFeats());
+			
+			UTOutput.writeVarInt(f_out, (head != null) ? head.id + 1 : 0);
+			writeString(node.getLabel());
+		}
+		
+		for (i=0; i<size; i++)
+		{
+			node = tree.get(i);
+			writeArcs(node.getXHeads());
+			writeArcs(node.getSHeads());
+		}
+		
+		writeMentions(tree.getMentions());
+	}
+	
+	private void writeString(String s) throws IOException
+	{
+		if (s == null)
+		{
+			UTOutput.writeVarInt(f_out, 0);
+			return;
+		}
+		
+		int index = m_dictionary.get(s);
+		
+		if (index > 0)
+			UTOutput.writeVarInt(f_out, index);
+		else
+		{
+			// a length and raw bytes instead of writeUTF, which fails on strings longer than 65535 bytes
+			byte[] bytes = s.getBytes("UTF-8");
+			index = m_dictionary.size() + 1;
+			
+			UTOutput.writeVarInt(f_out, index);
+			UTOutput.writeVarInt(f_out, bytes.length);
+			f_out.write(bytes);
+			m_dictionary.put(s, index);
+		}
+	}
+	
+	private void writeFeats(DEPFeat feats) throws IOException
+	{
+		if (feats == null)
+		{
+			UTOutput.writeVarInt(f_out, 0);
+			return;
+		}
+		
+		UTOutput.writeVarInt(f_out, feats.size() + 1);
+		
+		for (Map.Entry<String,String> entry : feats.entrySet())
+		{
+			writeString(entry.getKey());
+			writeString(entry.getValue());
+		}
+	}
+	
+	private void writeArcs(List<DEPArc> arcs) throws IOException
+	{
+		if (arcs == null)
+		{
+			UTOutput.writeVarInt(f_out, 0);
+			return;
+		}
+		
+		UTOutput.writeVarInt(f_out, arcs.size() + 1);
+		
+		for (DEPArc arc : arcs)
+		{
+			UTOutput.writeVarInt(f_out, arc.getNode().id);
+			writeString(arc.getLabel());
+		}
+	}
+	
+	private void writeMentions(List<Mention> mentions) throws IOException
+	{
+		if (mentions == null)
+		{
+			UTOutput.writeVarInt(f_out, 0);
+			return;
+		}
+		
+		UTOutput.writeVarInt(f_out, mentions.size() + 1);
+		
+		for (Mention mention : mentions)
+		{
+			writeString(mention.id);
+			writeString(mention.type);
+			UTOutput.writeVarInt(f_out, mention.beginIndex);
+			UTOutput.writeVarInt(f_out, mention.endIndex);
+		}
+	}
+	
+	@Override
+	public void close()
+	{
+		try
+		{
+			f_out.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+}
@@ -0,0 +1,224 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.clearnlp.dependency.DEPArc;
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.dependency.DEPLib;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.reader.AbstractColumnReader;
+import com.googlecode.clearnlp.reader.AbstractReader;
+
+/**
+ * Writes dependency trees in the text format of the specific reader type, followed by a blank line.
+ * The output is the same as {@link DEPTree#toStringPOS()}, {@link DEPTree#toStringMorph()}, {@link DEPTree#toStringDEP()},
+ * {@link DEPTree#toStringDAG()}, or {@link DEPTree#toStringSRL()}, but each tree is appended to a reusable buffer
+ * without creating strings per node, and arcs are sorted in a copy instead of in place.
+ * @since 1.3.2
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPTextWriter extends AbstractWriter<DEPTree>
+{
+	static private final String LINE_SEPARATOR = System.getProperty("line.separator");
+	
+	private Writer        f_out;
+	private String        s_type;
+	private StringBuilder s_build;
+	private char[]        c_buffer;
+	private String[]      a_keys;
+	private DEPArc[]      a_arcs;
+	
+	/**
+	 * @param out the output stream, encoded in UTF-8.
+	 * @param type {@link AbstractReader#TYPE_POS}, {@link AbstractReader#TYPE_MORPH}, {@link AbstractReader#TYPE_DEP}, {@link AbstractReader#TYPE_DAG}, or {@link AbstractReader#TYPE_SRL}.
+	 */
+	public DEPTextWriter(OutputStream out, String type)
+	{
+		try
+		{
+			f_out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 65536);
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		s_type   = type;
+		s_build  = new StringBuilder();
+		c_buffer = new char[1024];
+		a_keys   = new String[8];
+		a_arcs   = new DEPArc[8];
+	}
+	
+	@Override
+	public void write(DEPTree tree)
+	{
+		s_build.setLength(0);
+		append(s_build, tree);
+		s_build.append(LINE_SEPARATOR);
+		s_build.append(LINE_SEPARATOR);
+		
+		int len = s_build.length();
+		if (c_buffer.length < len)	c_buffer = new char[len * 2];
+		s_build.getChars(0, len, c_buffer, 0);
+		
+		try
+		{
+			f_out.write(c_buffer, 0, len);
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	/** Appends the specific tree in the format of this writer to {@code build}, without the trailing line breaks. */
+	public void append(StringBuilder build, DEPTree tree)
+	{
+		int i, size = tree.size();
+		
+		for (i=1; i<size; i++)
+		{
+			if (i > 1)	build.append(AbstractColumnReader.DELIM_SENTENCE);
+			append(build, tree.get(i));
+		}
+	}
+	
+	private void append(StringBuilder build, DEPNode node)
+	{
+		if      (s_type.equals(AbstractReader.TYPE_POS))
+		{
+			build.append(node.form);	build.append(AbstractColumnReader.DELIM_COLUMN);
+			build.append(node.pos);		build.append(AbstractColumnReader.DELIM_COLUMN);
+			append(build, node.getFeats());
+		}
+		else if (s_type.equals(AbstractReader.TYPE_MORPH))
+		{
+			build.append(node.form);	build.append(AbstractColumnReader.DELIM_COLUMN);
+			build.append(node.lemma);	build.append(AbstractColumnReader.DELIM_COLUMN);
+			build.append(node.pos);
+		}
+		else
+		{
+			appendDEP(build, node);
+			
+			if (s_type.equals(AbstractReader.TYPE_DAG))
+			{
+				build.append(AbstractColumnReader.DELIM_COLUMN);
+				append(build, node.getXHeads());
+			}
+			else if (!s_type.equals(AbstractReader.TYPE_DEP))
+			{
+				build.append(AbstractColumnReader.DELIM_COLUMN);
+				append(build, node.getSHeads());
+			}
+		}
+	}
+	
+	/** See {@link DEPNode#toStringDEP()}. */
+	private void appendDEP(StringBuilder build, DEPNode node)
+	{
+		build.append(node.id);		build.append(AbstractColumnReader.DELIM_COLUMN);
+		build.append(node.form);	build.append(AbstractColumnReader.DELIM_COLUMN);
+		build.append(node.lemma);	build.append(AbstractColumnReader.DELIM_COLUMN);
+		build.append(node.pos);		build.append(AbstractColumnReader.DELIM_COLUMN);
+		append(build, node.getFeats());
+		build.append(AbstractColumnReader.DELIM_COLUMN);
+		
+		if (node.hasHead())
+		{
+			build.append(node.getHead().id);	build.append(AbstractColumnReader.DELIM_COLUMN);
+			build.append(node.getLabel());
+		}
+		else
+		{
+			build.append(AbstractColumnReader.BLANK_COLUMN);	build.append(AbstractColumnReader.DELIM_COLUMN);
+			build.append(AbstractColumnReader.BLANK_COLUMN);
+		}
+	}
+	
+	/** See {@link DEPFeat#toString()}. */
+	private void append(StringBuilder build, DEPFeat feats)
+	{
+		int i, size = (feats != null) ? feats.size() : 0;
+		
+		if (size == 0)
+		{
+			build.append(AbstractColumnReader.BLANK_COLUMN);
+			return;
+		}
+		
+		if (a_keys.length < size)	a_keys = new String[size * 2];
+		a_keys = feats.keySet().toArray(a_keys);
+		Arrays.sort(a_keys, 0, size);
+		
+		for (i=0; i<size; i++)
+		{
+			if (i > 0)	build.append(DEPFeat.DELIM_FEATS);
+			build.append(a_keys[i]);
+			build.append(DEPFeat.DELIM_KEY_VALUE);
+			build.append(feats.get(a_keys[i]));
+		}
+	}
+	
+	/** See {@code DEPNode#toString(List)}; the arcs are sorted by their node IDs (stable) in a copy. */
+	private void append(StringBuilder build, List<DEPArc> arcs)
+	{
+		int i, j, size = (arcs != null) ? arcs.size() : 0;
+		DEPArc arc;
+		
+		if (size == 0)
+		{
+			build.append(AbstractColumnReader.BLANK_COLUMN);
+			return;
+		}
+		
+		if (a_arcs.length < size)	a_arcs = new DEPArc[size * 2];
+		
+		for (i=0; i<size; i++)
+		{
+			arc = arcs.get(i);
+			
+			for (j=i; j>0 && a_arcs[j-1].compareTo(arc) > 0; j--)
+				a_arcs[j] = a_arcs[j-1];
+			
+			a_arcs[j] = arc;
+		}
+		
+		for (i=0; i<size; i++)
+		{
+			arc = a_arcs[i];
+			if (i > 0)	build.append(DEPLib.DELIM_HEADS);
+			build.append(arc.getNode().id);
+			build.append(DEPLib.DELIM_HEADS_KEY);
+			build.append(arc.getLabel());
+			a_arcs[i] = null;
+		}
+	}
+	
+	@Override
+	public void close()
+	{
+		try
+		{
+			f_out.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+}
@@ -0,0 +1,41 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class ONStringModelTest
+{
+	@Test
+	public void testGetLabel()
+	{
+		ONStringModel model = new ONStringModel(0.01, 0.1);
+		
+		model.addLabel("NO_SHIFT_");
+		model.addLabel("LA_NO_nsubj");
+		model.addLabel("NO_SHIFT_");
+		
+		assertEquals(2, model.getLabelSize());
+		assertEquals("NO_SHIFT_"  , model.getLabel(0));
+		assertEquals("LA_NO_nsubj", model.getLabel(1));
+		
+		model.addLabel("RA_NO_dobj");
+		assertEquals("RA_NO_dobj", model.getLabel(2));
+	}
+}
@@ -0,0 +1,96 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class StringModelCacheTest
+{
+	@Test
+	public void testStringModelCache() throws Exception
+	{
+		StringModelCache cache = new StringModelCache(4, 18);
+		String[] labels = {"A", "B", "C"};
+		int i;
+		
+		for (i=0; i<3; i++)
+			cache.put(i, new ByteArrayInputStream(getModel(labels[i], i+1)));
+		
+		assertEquals(4, cache.size());
+		assertEquals(0, cache.getCachedSize());
+		assertNull(cache.get(3));
+		
+		StringModel model = cache.get(0);
+		assertEquals("A", predict(model));
+		assertSame(model, cache.get(0));
+		assertEquals(1, cache.getCachedSize());
+		
+		// each model has 3 labels x 3 features = 9 weights; the least recently used model is evicted
+		assertEquals("B", predict(cache.get(1)));
+		assertEquals(18, cache.getCachedWeightSize());
+		cache.get(0);
+		assertEquals("C", predict(cache.get(2)));
+		assertEquals(2, cache.getCachedSize());
+		assertSame(model, cache.get(0));
+		
+		StringModel[] models = cache.toArray();
+		assertEquals(4, models.length);
+		for (i=0; i<3; i++)	assertEquals(labels[i], predict(models[i]));
+		assertNull(models[3]);
+		
+		cache.setCacheSize(0);
+		assertEquals(0, cache.getCachedSize());
+	}
+	
+	private String predict(StringModel model)
+	{
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("f", "x");
+		
+		return model.predictBest(vector).label;
+	}
+	
+	private byte[] getModel(String label, double weight)
+	{
+		StringModel model = new StringModel();
+		model.addLabel(label);
+		model.addLabel("Y");
+		model.addLabel("Z");
+		model.initLabelArray();
+		model.addFeature("f", "x");
+		model.addFeature("f", "y");
+		model.initWeightVector();
+		model.copyWeightVector(0, new double[]{0, weight, 0});
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream fout = new PrintStream(out);
+		model.save(fout);
+		fout.close();
+		
+		return out.toByteArray();
+	}
+}
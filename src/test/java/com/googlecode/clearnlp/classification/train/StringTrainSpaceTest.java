@@ -0,0 +1,74 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class StringTrainSpaceTest
+{
+	@Test
+	public void testSaveLoad() throws Exception
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		
+		space.addInstance("A f:0 f:1 g:x");
+		space.addInstance("B f:1 g:y");
+		space.addInstance("A f:0 g:y");
+		space.build();
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream fout = new DataOutputStream(bout);
+		space.save(fout);
+		fout.close();
+		
+		StringTrainSpace copy = new StringTrainSpace(false, 0, 0);
+		copy.load(new DataInputStream(new ByteArrayInputStream(bout.toByteArray())));
+		copy.build();
+		
+		int i, size = space.getInstanceSize();
+		assertEquals(size, copy.getInstanceSize());
+		assertEquals(space.getLabelSize()  , copy.getLabelSize());
+		assertEquals(space.getFeatureSize(), copy.getFeatureSize());
+		
+		for (i=0; i<size; i++)
+		{
+			assertEquals(space.getYs().get(i), copy.getYs().get(i));
+			assertArrayEquals(space.getXs().get(i), copy.getXs().get(i));
+		}
+		
+		StringModel oModel = (StringModel)space.getModel();
+		StringModel nModel = (StringModel)copy.getModel();
+		StringFeatureVector vector = new StringFeatureVector();
+		
+		vector.addFeature("f", "1");
+		vector.addFeature("g", "y");
+		
+		assertEquals(oModel.getLabelIndex("B"), nModel.getLabelIndex("B"));
+		assertArrayEquals(oModel.toSparseFeatureVector(vector).getIndices(), nModel.toSparseFeatureVector(vector).getIndices());
+	}
+}
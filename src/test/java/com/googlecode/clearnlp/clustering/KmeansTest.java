@@ -0,0 +1,145 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.clustering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.googlecode.clearnlp.util.pair.IntDoublePair;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class KmeansTest
+{
+	@Test
+	public void testKmeans()
+	{
+		for (boolean plusPlus : new boolean[]{false, true})
+		{
+			List<List<IntDoublePair>> c1 = getKmeans(2000, 100, 5, 10, 1).cluster(5, 1, plusPlus);
+			List<List<IntDoublePair>> c4 = getKmeans(2000, 100, 5, 10, 4).cluster(5, 1, plusPlus);
+			IntOpenHashSet units = new IntOpenHashSet();
+			int k, i;
+			
+			assertEquals(5, c1.size());
+			assertEquals(5, c4.size());
+			
+			for (k=0; k<5; k++)
+			{
+				assertEquals(c1.get(k).size(), c4.get(k).size());
+				
+				for (i=0; i<c1.get(k).size(); i++)
+				{
+					assertEquals(c1.get(k).get(i).i, c4.get(k).get(i).i);
+					assertEquals(c1.get(k).get(i).d, c4.get(k).get(i).d, 0);
+					assertTrue(0 <= c1.get(k).get(i).d && c1.get(k).get(i).d <= 1);
+					units.add(c1.get(k).get(i).i);
+				}
+			}
+			
+			assertEquals(2000, units.size());
+		}
+	}
+	
+	@Test
+	public void testKmeansSmall()
+	{
+		Kmeans kmeans = new Kmeans(2);
+		
+		kmeans.addUnit(getUnit("a", "b"));
+		kmeans.addUnit(getUnit("x", "y"));
+		kmeans.addUnit(getUnit("a", "b"));
+		kmeans.addUnit(getUnit("x", "y"));
+		kmeans.addUnit(getUnit("a", "c"));
+		kmeans.addUnit(getUnit("x", "z"));
+		
+		List<List<IntDoublePair>> cluster = kmeans.cluster(2, 1, true);
+		int[] c0 = getUnits(cluster.get(0)), c1 = getUnits(cluster.get(1));
+		
+		// {a,b,c} and {x,y,z} are separated regardless of the order of clusters
+		if (c0[0] != 0)
+		{
+			int[] t = c0;	c0 = c1;	c1 = t;
+			cluster = Arrays.asList(cluster.get(1), cluster.get(0));
+		}
+		
+		assertTrue(Arrays.equals(new int[]{0, 2, 4}, c0));
+		assertTrue(Arrays.equals(new int[]{1, 3, 5}, c1));
+		
+		// each centroid is (a:3, b:2, c:1)/3, so the similarities are 5/sqrt(28) for {a,b} and 4/sqrt(28) for {a,c}
+		double hi = 5 / Math.sqrt(28), lo = 4 / Math.sqrt(28);
+		
+		for (List<IntDoublePair> ck : cluster)
+		{
+			assertEquals(hi, ck.get(0).d, 1e-9);
+			assertEquals(hi, ck.get(1).d, 1e-9);
+			assertEquals(lo, ck.get(2).d, 1e-9);
+		}
+		
+		// the RSS is the average similarity to the centroids the units were assigned to, divided by the number of units once
+		assertEquals((2 * hi + lo) / 3, kmeans.getRSS(), 1e-9);
+	}
+	
+	private Set<String> getUnit(String... lexica)
+	{
+		return new HashSet<String>(Arrays.asList(lexica));
+	}
+	
+	private int[] getUnits(List<IntDoublePair> ck)
+	{
+		int[] units = new int[ck.size()];
+		
+		for (int i=0; i<units.length; i++)
+			units[i] = ck.get(i).i;
+		
+		return units;
+	}
+	
+	/** @return k-means on a synthetic corpus, where each unit draws most of its lexica from the vocabulary of one topic. */
+	private Kmeans getKmeans(int numUnits, int numLexica, int numTopics, int unitSize, int numThreads)
+	{
+		Kmeans kmeans = new Kmeans(numThreads);
+		Random rand = new Random(0);
+		int i, j, topic, topicSize = numLexica / numTopics;
+		Set<String> unit;
+		
+		for (i=0; i<numUnits; i++)
+		{
+			unit  = new HashSet<String>();
+			topic = i % numTopics;
+			
+			for (j=0; j<unitSize; j++)
+			{
+				if (rand.nextInt(10) < 8)
+					unit.add("w"+(topic * topicSize + rand.nextInt(topicSize)));
+				else
+					unit.add("w"+rand.nextInt(numLexica));
+			}
+			
+			kmeans.addUnit(unit);
+		}
+		
+		return kmeans;
+	}
+}
@@ -0,0 +1,267 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.feature.xml.FtrToken;
+import com.googlecode.clearnlp.util.pair.Pair;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class AbstractStatisticalComponentTest
+{
+	@Test
+	public void testLoadStatisticalModels() throws Exception
+	{
+		String[] labels = {"A", "B", "C", "D", "E"};
+		byte[][] models = new byte[labels.length][];
+		
+		for (int i=0; i<labels.length; i++)
+			models[i] = getModel(labels[i]);
+		
+		TestComponent component = new TestComponent();
+		component.loadModels(getZip(models));
+		
+		assertEquals(labels.length, component.s_models.length);
+		
+		for (int i=0; i<labels.length; i++)
+			assertEquals(labels[i], predict(component.s_models[i]));
+	}
+	
+	@Test
+	public void testLoadStatisticalModelsCorrupt() throws Exception
+	{
+		byte[][] models = {getModel("A"), "corrupt".getBytes("UTF-8"), getModel("C")};
+		TestComponent component = new TestComponent();
+		
+		try
+		{
+			component.loadModels(getZip(models));
+			fail();
+		}
+		catch (IllegalStateException e) {assertTrue(e.getCause() instanceof NumberFormatException);}
+		
+		// the loader is shut down after a failure, so the component can load again
+		models[1] = getModel("B");
+		component.loadModels(getZip(models));
+		assertEquals("B", predict(component.s_models[1]));
+	}
+	
+	@Test
+	public void testGetTrimmedInstances()
+	{
+		List<Pair<String,StringFeatureVector>> insts = new ArrayList<Pair<String,StringFeatureVector>>();
+		List<String> originals = new ArrayList<String>();
+		
+		insts.add(getInstance("A", null, "f:x", "g:y"));
+		insts.add(getInstance("A", null, "f:x", "g:y"));	// duplicate
+		insts.add(getInstance("B", null, "f:x", "g:y"));	// different label
+		insts.add(getInstance("A", null, "f:x", "g:z"));	// different value
+		insts.add(getInstance("A", null, "f:xg", "y"));		// same characters split differently
+		insts.add(getInstance("A", null, "g:y", "f:x"));	// same features in a different order
+		insts.add(getInstance("A", new double[]{1, 2}, "f:x", "g:y"));
+		insts.add(getInstance("A", new double[]{1, 3}, "f:x", "g:y"));	// different weight
+		insts.add(getInstance("A", new double[]{1, 2}, "f:x", "g:y"));	// duplicate
+		insts.add(getInstance("B", null, "f:x", "g:y"));	// duplicate
+		
+		for (Pair<String,StringFeatureVector> p : insts)
+			originals.add(p.o1+" "+p.o2.toString());
+		
+		List<Pair<String,StringFeatureVector>> trimmed = new TestComponent().getTrimmedInstances(insts);
+		int[] kept = {0, 2, 3, 4, 6, 7};
+		
+		assertEquals(kept.length, trimmed.size());
+		
+		for (int i=0; i<kept.length; i++)
+		{
+			assertSame(insts.get(kept[i]), trimmed.get(i));
+			assertEquals(originals.get(kept[i]), trimmed.get(i).o1+" "+trimmed.get(i).o2.toString());
+		}
+	}
+	
+	@Test
+	public void testGetTrimmedInstancesCounts()
+	{
+		List<Pair<String,StringFeatureVector>> insts = new ArrayList<Pair<String,StringFeatureVector>>();
+		
+		insts.add(getInstance("A", null, "f:x", "g:y"));
+		insts.add(getInstance("B", null, "f:x", "g:y"));
+		insts.add(getInstance("A", null, "g:y", "f:x"));	// duplicate of 0
+		insts.add(getInstance("C", null, "f:x"));
+		insts.add(getInstance("A", null, "f:x", "g:y"));	// duplicate of 0
+		insts.add(getInstance("C", null, "f:x"));			// duplicate of 3
+		
+		// counts already in the list belong to earlier instances and are kept as they are
+		IntArrayList counts = new IntArrayList();
+		counts.add(7);
+		
+		TestComponent component = new TestComponent();
+		List<Pair<String,StringFeatureVector>> trimmed = component.getTrimmedInstances(insts, counts);
+		
+		assertEquals(3, trimmed.size());
+		assertSame(insts.get(0), trimmed.get(0));
+		assertSame(insts.get(1), trimmed.get(1));
+		assertSame(insts.get(3), trimmed.get(2));
+		assertArrayEquals(new int[]{7, 3, 1, 2}, counts.toArray());
+		
+		// the total weight is preserved
+		int sum = 0;
+		for (int i=1; i<counts.size(); i++)	sum += counts.get(i);
+		assertEquals(insts.size(), sum);
+		
+		assertEquals(trimmed, component.getTrimmedInstances(insts, null));
+	}
+	
+	private Pair<String,StringFeatureVector> getInstance(String label, double[] weights, String... features)
+	{
+		StringFeatureVector vector = new StringFeatureVector(weights != null);
+		String[] t;
+		
+		for (int i=0; i<features.length; i++)
+		{
+			t = features[i].split(":");
+			
+			if (weights != null)
+				vector.addFeature(t[0], (t.length > 1) ? t[1] : "", weights[i]);
+			else
+				vector.addFeature(t[0], (t.length > 1) ? t[1] : "");
+		}
+		
+		return new Pair<String,StringFeatureVector>(label, vector);
+	}
+	
+	private ZipInputStream getZip(byte[][] models) throws Exception
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ZipOutputStream zout = new ZipOutputStream(bout);
+		
+		zout.putNextEntry(new ZipEntry(TestComponent.ENTRY_CONFIGURATION));
+		zout.write((models.length+"\n").getBytes("UTF-8"));
+		zout.closeEntry();
+		
+		for (int i=0; i<models.length; i++)
+		{
+			zout.putNextEntry(new ZipEntry(TestComponent.ENTRY_MODEL+i));
+			zout.write(models[i]);
+			zout.closeEntry();
+		}
+		
+		zout.close();
+		return new ZipInputStream(new ByteArrayInputStream(bout.toByteArray()));
+	}
+	
+	private byte[] getModel(String label)
+	{
+		StringModel model = new StringModel();
+		model.addLabel(label);
+		model.addLabel("Y");
+		model.addLabel("Z");
+		model.initLabelArray();
+		model.addFeature("f", "x");
+		model.addFeature("f", "y");
+		model.initWeightVector();
+		model.copyWeightVector(0, new double[]{0, 1, 0});
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream fout = new PrintStream(out);
+		model.save(fout);
+		fout.close();
+		
+		return out.toByteArray();
+	}
+	
+	private String predict(StringModel model)
+	{
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("f", "x");
+		
+		return model.predictBest(vector).label;
+	}
+	
+	/** Loads a configuration and statistical models only; an error while loading is thrown as {@link IllegalStateException}. */
+	static private class TestComponent extends AbstractStatisticalComponent
+	{
+		static final String ENTRY_CONFIGURATION = "configuration";
+		static final String ENTRY_MODEL         = "model";
+		
+		@Override
+		public void loadModels(ZipInputStream zin)
+		{
+			ZipEntry zEntry;
+			String   entry;
+			
+			try
+			{
+				while ((zEntry = zin.getNextEntry()) != null)
+				{
+					entry = zEntry.getName();
+					
+					if (entry.equals(ENTRY_CONFIGURATION))
+						loadDefaultConfiguration(zin);
+					else if (entry.startsWith(ENTRY_MODEL))
+						loadStatisticalModels(zin, Integer.parseInt(entry.substring(ENTRY_MODEL.length())));
+				}
+				
+				finishStatisticalModels();
+			}
+			catch (Exception e) {throw new IllegalStateException(e);}
+			finally
+			{
+				shutdownStatisticalModels();
+			}
+		}
+		
+		@Override
+		protected void initLexia(Object[] lexica) {}
+		
+		@Override
+		public void saveModels(ZipOutputStream zout) {}
+		
+		@Override
+		public Object[] getLexica() {return null;}
+		
+		@Override
+		public void countAccuracy(int[] counts) {}
+		
+		@Override
+		protected String getField(FtrToken token) {return null;}
+		
+		@Override
+		protected String[] getFields(FtrToken token) {return null;}
+		
+		@Override
+		public void process(DEPTree tree) {}
+	}
+}
@@ -0,0 +1,240 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.model.ONStringModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class ONConcurrentLearnerTest
+{
+	static private final int WORDS = 6;
+	
+	@Test
+	public void testStopWithoutStart()
+	{
+		ONConcurrentLearner learner = new ONConcurrentLearner(new TestComponent(), 10, 5);
+		learner.stop();
+		assertEquals(0, learner.getVersion());
+	}
+	
+	@Test
+	public void testFailedTrees() throws Exception
+	{
+		ONConcurrentLearner learner = new ONConcurrentLearner(new TestComponent(), 10, 5);
+		learner.start();
+		
+		for (int i=0; i<3; i++)
+			learner.submit(getBadTree());
+		
+		learner.stop();
+		assertEquals(3, learner.getSubmittedSize());
+		assertEquals(0, learner.getTrainedSize());
+		assertEquals(3, learner.getFailedSize());
+		assertEquals(0, learner.getVersion());
+		assertEquals(0, learner.getMaxLag());
+		
+		learner = new ONConcurrentLearner(new TestComponent(), 10, 5);
+		learner.start();
+		
+		for (int i=0; i<10; i++)
+			learner.submit((i % 2 == 0) ? getTree() : getBadTree());
+		
+		learner.stop();
+		assertEquals(10, learner.getSubmittedSize());
+		assertEquals(5, learner.getTrainedSize());
+		assertEquals(5, learner.getFailedSize());
+		assertEquals(0, learner.getPendingSize());
+		assertTrue(learner.getVersion() > 0);
+	}
+	
+	@Test
+	public void testConcurrentUpdates() throws Exception
+	{
+		final ONConcurrentLearner learner = new ONConcurrentLearner(new TestComponent(), 10, 5);
+		final AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(7);
+		List<Future<Integer>> submitters = new ArrayList<Future<Integer>>();
+		List<Future<Integer>> readers    = new ArrayList<Future<Integer>>();
+		int i;
+		
+		learner.start();
+		
+		for (i=0; i<4; i++)
+		{
+			submitters.add(executor.submit(new Callable<Integer>()
+			{
+				public Integer call() throws Exception
+				{
+					for (int j=0; j<50; j++)
+						learner.submit(getTree());
+					
+					return 50;
+				}
+			}));
+		}
+		
+		for (i=0; i<3; i++)
+		{
+			readers.add(executor.submit(new Callable<Integer>()
+			{
+				public Integer call() throws Exception
+				{
+					int checks = 0;
+					
+					do
+					{
+						checkSnapshot(learner.getSnapshot());
+						checks++;
+					}
+					while (!done.get());
+					
+					return checks;
+				}
+			}));
+		}
+		
+		for (Future<Integer> future : submitters)
+			future.get();
+		
+		learner.stop();
+		done.set(true);
+		
+		for (Future<Integer> future : readers)
+			assertTrue(future.get() > 0);
+		
+		executor.shutdown();
+		assertEquals(200, learner.getSubmittedSize());
+		assertEquals(200, learner.getTrainedSize());
+		assertEquals(0, learner.getFailedSize());
+		assertEquals(0, learner.getPendingSize());
+		assertTrue(learner.getVersion() > 0);
+		
+		ONStringModel snapshot = learner.getSnapshot();
+		checkSnapshot(snapshot);
+		
+		for (i=0; i<WORDS; i++)
+			assertEquals(getPOS(i), snapshot.predictBest(getVector(i)).label);
+	}
+	
+	/** A snapshot must be read-only, self-consistent, and unaffected by updates published after it. */
+	private void checkSnapshot(ONStringModel snapshot) throws Exception
+	{
+		assertTrue(snapshot.isSnapshot());
+		int i, size = snapshot.getLabelSize();
+		double[][] scores = new double[WORDS][];
+		
+		for (i=0; i<size; i++)
+			assertTrue(snapshot.getLabel(i).startsWith("P"));
+		
+		for (i=0; i<WORDS; i++)
+		{
+			scores[i] = snapshot.getScores(snapshot.toSparseFeatureVector(getVector(i)));
+			assertEquals(size, scores[i].length);
+		}
+		
+		Thread.sleep(1);
+		
+		for (i=0; i<WORDS; i++)
+			assertTrue(Arrays.equals(scores[i], snapshot.getScores(snapshot.toSparseFeatureVector(getVector(i)))));
+		
+		try
+		{
+			snapshot.updateWeights("P0", getVector(0));
+			fail();
+		}
+		catch (UnsupportedOperationException e) {}
+	}
+	
+	private DEPTree getTree()
+	{
+		DEPTree tree = new DEPTree();
+		
+		for (int i=0; i<WORDS; i++)
+		{
+			DEPNode node = new DEPNode(i+1, "w"+i);
+			node.pos = getPOS(i);
+			tree.add(node);
+		}
+		
+		return tree;
+	}
+	
+	/** @return a tree whose last node has no POS tag, which {@link TestComponent} fails to learn. */
+	private DEPTree getBadTree()
+	{
+		DEPTree tree = getTree();
+		tree.get(WORDS).pos = null;
+		return tree;
+	}
+	
+	static private String getPOS(int i)
+	{
+		return "P"+(i%3);
+	}
+	
+	static private StringFeatureVector getVector(int i)
+	{
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("f", "w"+i);
+		return vector;
+	}
+	
+	/** Learns the POS tag of each word-form with an online model. */
+	static private class TestComponent implements ONComponent
+	{
+		ONStringModel m_model = new ONStringModel(0.1, 0.1);
+		
+		public void train(DEPTree tree)
+		{
+			for (int i=1; i<tree.size(); i++)
+			{
+				if (tree.get(i).pos == null)
+					throw new IllegalArgumentException("No POS tag: "+tree.get(i).form);
+			}
+			
+			for (int i=1; i<tree.size(); i++)
+				m_model.updateWeights(tree.get(i).pos, getVector(i-1));
+		}
+		
+		public ONStringModel getOnlineModel()
+		{
+			return m_model;
+		}
+		
+		public void setOnlineModel(ONStringModel model)
+		{
+			m_model = model;
+		}
+	}
+}
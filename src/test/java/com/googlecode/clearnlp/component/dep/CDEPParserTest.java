@@ -0,0 +1,199 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component.dep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.prediction.StringPrediction;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.feature.xml.JointFtrXml;
+import com.googlecode.clearnlp.reader.DEPReader;
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.pair.Pair;
+import com.googlecode.clearnlp.util.triple.Triple;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class CDEPParserTest
+{
+	@Test
+	public void testGetBestTwo()
+	{
+		StringModel model = new StringModel();
+		List<StringPrediction> list = new ArrayList<StringPrediction>();
+		Pair<StringPrediction,StringPrediction> p;
+		Random rand = new Random(0);
+		int[] top = new int[2];
+		double[] scores;
+		int i, j, size;
+		
+		for (i=0; i<1000; i++)
+		{
+			size   = 2 + rand.nextInt(8);
+			scores = new double[size];
+			list.clear();
+			
+			// few distinct values so that ties are common
+			for (j=0; j<size; j++)
+			{
+				scores[j] = rand.nextInt(4) - 2;
+				list.add(new StringPrediction("L"+j, scores[j]));
+			}
+			
+			CDEPParser.getBestTwo(scores, size, top);
+			p = model.predictTwo(list);
+			
+			assertEquals(p.o1.label, "L"+top[0]);
+			assertEquals(p.o2.label, "L"+top[1]);
+			assertEquals(p.o1.score, scores[top[0]], 0);
+			assertEquals(p.o2.score, scores[top[1]], 0);
+		}
+	}
+	
+	@Test
+	public void testSecondBestMargin()
+	{
+		CDEPParser parser = new CDEPParser();
+		
+		assertTrue (parser.isSecondBestKept(1.0, 0.5));
+		assertTrue (parser.isSecondBestKept(1.0, 1.0));
+		assertFalse(parser.isSecondBestKept(1.0, 0.0));
+		
+		parser.setSecondBestMargin(2);
+		assertTrue (parser.isSecondBestKept(1.0, 0.0));
+		assertFalse(parser.isSecondBestKept(1.0, -1.0));
+		
+		parser.setSecondBestMargin(0.25);
+		assertFalse(parser.isSecondBestKept(1.0, 0.5));
+		
+		parser.setSecondBestMargin(0);
+		assertFalse(parser.isSecondBestKept(1.0, 1.0));
+	}
+	
+	@Test
+	public void testPostProcessWindow() throws Exception
+	{
+		JointFtrXml[] xmls = {new JointFtrXml(new FileInputStream("src/main/resources/feature/feature_en_dep.xml"))};
+		StringModel[] models = {new HashModel("L_R_nsubj", "L_P_nsubj", "L_R_det", "R_S_dobj", "R_P_dobj", "R_S_prep", "N_S_", "N_R_", "N_P_")};
+		Set<String> punc = new HashSet<String>();
+		Object[] lexica = {punc};
+		
+		WindowParser full   = new WindowParser(xmls, models, lexica);
+		WindowParser window = new WindowParser(xmls, models, lexica);
+		List<DEPTree> trees = getTrees(), copies = getTrees();
+		int i, size = trees.size();
+		
+		// the window covers every sentence, and no score computed during parsing is reused
+		full  .setSecondBestMargin(0);
+		window.setSecondBestMargin(0);
+		window.setPostProcessWindow(1000);
+		
+		for (i=0; i<size; i++)
+		{
+			full  .process(trees .get(i));
+			window.process(copies.get(i));
+			assertEquals(trees.get(i).toStringDEP(), copies.get(i).toStringDEP());
+		}
+		
+		assertTrue(window.n_calls > 0);
+	}
+	
+	private List<DEPTree> getTrees() throws Exception
+	{
+		DEPReader reader = new DEPReader(0, 1, 2, 3, 4, 5, 6);
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		reader.open(UTInput.createBufferedFileReader("src/main/resources/sample/wsj_0001.parse.dep"));
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		return trees;
+	}
+	
+	/** Clears the scores computed during parsing before post-processing and counts calls to {@link CDEPParser#postProcessWindow(DEPNode, int, Triple)}. */
+	static private class WindowParser extends CDEPParser
+	{
+		int n_calls = 0;
+		
+		public WindowParser(JointFtrXml[] xmls, StringModel[] models, Object[] lexica)
+		{
+			super(xmls, models, lexica);
+		}
+		
+		@Override
+		protected void postProcess()
+		{
+			if (m_scores != null)	m_scores.clear();
+			super.postProcess();
+		}
+		
+		@Override
+		protected void postProcessWindow(DEPNode node, int dir, Triple<DEPNode,String,Double> max)
+		{
+			n_calls++;
+			super.postProcessWindow(node, dir, max);
+		}
+	}
+	
+	/** Gives each feature vector deterministic pseudo-random scores so that both post-processing methods see the same scores. */
+	static private class HashModel extends StringModel
+	{
+		public HashModel(String... labels)
+		{
+			for (String label : labels)
+				addLabel(label);
+			
+			initLabelArray();
+		}
+		
+		@Override
+		public SparseFeatureVector toSparseFeatureVector(StringFeatureVector vector)
+		{
+			SparseFeatureVector sparse = new SparseFeatureVector();
+			sparse.addFeature(vector.toString().hashCode() & Integer.MAX_VALUE);
+			return sparse;
+		}
+		
+		@Override
+		public double[] getScores(SparseFeatureVector x)
+		{
+			Random rand = new Random(x.getIndex(0));
+			double[] scores = new double[getLabelSize()];
+			
+			for (int i=0; i<scores.length; i++)
+				scores[i] = 2 * rand.nextGaussian();
+			
+			return scores;
+		}
+	}
+}
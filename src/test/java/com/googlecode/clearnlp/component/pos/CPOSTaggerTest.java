@@ -0,0 +1,80 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component.pos;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.engine.EngineGetter;
+import com.googlecode.clearnlp.nlp.NLPLib;
+import com.googlecode.clearnlp.reader.AbstractReader;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class CPOSTaggerTest
+{
+	@Test
+	public void testLoadModelsCorrupt() throws Exception
+	{
+		try
+		{
+			new CPOSTagger(new ZipInputStream(getCorruptModel()));
+			fail();
+		}
+		catch (IllegalStateException e) {assertTrue(e.getCause() instanceof NumberFormatException);}
+	}
+	
+	@Test
+	public void testGetComponentsCorrupt() throws Exception
+	{
+		InputStream[] streams = {getCorruptModel()};
+		String[] modes = {NLPLib.MODE_POS};
+		
+		try
+		{
+			AbstractComponent[] components = EngineGetter.getComponents(streams, AbstractReader.LANG_EN, modes);
+			fail(components[0]+" should not have been loaded.");
+		}
+		catch (IllegalStateException e) {assertTrue(e.getCause() instanceof NumberFormatException);}
+	}
+	
+	/** @return a model whose only statistical model entry is not a model. */
+	private InputStream getCorruptModel() throws Exception
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ZipOutputStream zout = new ZipOutputStream(bout);
+		
+		zout.putNextEntry(new ZipEntry(NLPLib.MODE_POS + NLPLib.ENTRY_CONFIGURATION));
+		zout.write("1\n".getBytes("UTF-8"));
+		zout.closeEntry();
+		
+		zout.putNextEntry(new ZipEntry(NLPLib.MODE_POS + NLPLib.ENTRY_MODEL + 0));
+		zout.write("corrupt".getBytes("UTF-8"));
+		zout.closeEntry();
+		
+		zout.close();
+		return new ByteArrayInputStream(bout.toByteArray());
+	}
+}
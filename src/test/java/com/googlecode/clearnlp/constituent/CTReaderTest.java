@@ -24,6 +24,7 @@
 package com.googlecode.clearnlp.constituent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.BufferedReader;
 import java.io.StringReader;
@@ -71,4 +72,36 @@ public class CTReaderTest
 		
 		reader.close();
 	}
+	
+	@Test
+	public void testCTReaderMultiLine()
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (int i=0; i<10000; i++)
+			build.append('a');
+		
+		String form = build.toString();
+		String line = "(TOP (S (NP (NNP John)) (VP (VBD "+form+"))))";
+		String multi = "\r\n( (S\n\t(NP (NNP John))\r\n\t(VP (VBD\r"+form+")) ) \n)\n";
+		
+		CTReader reader = new CTReader(new BufferedReader(new StringReader(line)));
+		String   gold   = reader.nextTree().toString();
+		reader.close();
+		
+		reader = new CTReader(new BufferedReader(new StringReader(multi+multi)));
+		assertEquals(gold, reader.nextTree().toString());
+		assertEquals(gold, reader.nextTree().toString());
+		assertNull(reader.nextTree());
+		reader.close();
+		
+		reader = new CTReader(new BufferedReader(new StringReader("(TOP (S (NP (NNP John))")));
+		assertNull(reader.nextTree());
+		reader.close();
+		
+		// the input ends in the middle of a word
+		reader = new CTReader(new BufferedReader(new StringReader("(TOP (S (NP (NNP John)) (VP (VBD ran")));
+		assertNull(reader.nextTree());
+		reader.close();
+	}
 }
@@ -0,0 +1,83 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.constituent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.UTOutput;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class CTTreebankTest
+{
+	@Test
+	public void testCTTreebank() throws Exception
+	{
+		String filename = "src/test/resources/constituent/CTLibEnTest.parse";
+		List<String> trees = new ArrayList<String>();
+		CTReader reader = new CTReader(UTInput.createBufferedFileReader(filename));
+		CTTree tree;
+		
+		while ((tree = reader.nextTree()) != null)
+			trees.add(tree.toString());
+		
+		reader.close();
+		
+		File treeDir = File.createTempFile("treebank", "");
+		treeDir.delete();
+		treeDir.mkdir();
+		
+		UTOutput.createPrintBufferedFileStream(treeDir+File.separator+"a.parse").close();
+		PrintStream fout = UTOutput.createPrintBufferedFileStream(treeDir+File.separator+"b.parse");
+		for (String s : trees)	fout.println(s+"\n");
+		fout.close();
+		
+		CTTreebank treebank = new CTTreebank(treeDir.getPath(), 2);
+		int i, size = trees.size();
+		
+		assertEquals(size, treebank.getTreeSize("b.parse"));
+		assertEquals(0, treebank.getTreeSize("a.parse"));
+		assertNull(treebank.getTree("a.parse", 0));
+		
+		for (i=size-1; i>=0; i--)
+			assertEquals(trees.get(i), treebank.getTree("b.parse", i).toString());
+		
+		assertNull(treebank.getTree("b.parse", size));
+		assertSame(treebank.getTree("b.parse", 0), treebank.getTree("b.parse", 0));
+		treebank.close();
+		
+		File index = new File(treeDir, CTTreebank.INDEX_FILENAME);
+		assertTrue(index.isFile());
+		
+		treebank = new CTTreebank(treeDir.getPath());
+		assertEquals(size, treebank.getTreeSize("b.parse"));
+		assertEquals(trees.get(1), treebank.getTree("b.parse", 1).toString());
+		treebank.close();
+		
+		for (File file : treeDir.listFiles())	file.delete();
+		treeDir.delete();
+	}
+}
@@ -0,0 +1,151 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.conversion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.constituent.CTNode;
+import com.googlecode.clearnlp.constituent.CTReader;
+import com.googlecode.clearnlp.constituent.CTTree;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.headrule.HeadRule;
+import com.googlecode.clearnlp.headrule.HeadRuleMap;
+import com.googlecode.clearnlp.headrule.HeadTagSet;
+import com.googlecode.clearnlp.util.UTInput;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class EnglishC2DConverterTest
+{
+	static private final String HEADRULE_FILE = "src/main/resources/headrule/headrule_en_conll.txt";
+	static private final String[] PARSE_FILES = {"src/test/resources/constituent/CTLibEnTest.parse", "src/test/resources/constituent/CTLibTest.parse", "src/test/resources/constituent/CTReaderTest.parse"};
+	
+	@Test
+	public void testEquivalence()
+	{
+		HeadRuleMap headrules = new HeadRuleMap(UTInput.createBufferedFileReader(HEADRULE_FILE));
+		EnglishC2DConverter converter = new EnglishC2DConverter(headrules, null);
+		EnglishC2DConverter reference = new ReferenceC2DConverter(headrules);
+		int count = 0;
+		
+		for (String filename : PARSE_FILES)
+		{
+			List<String> gold = convert(reference, filename);
+			List<String> auto = convert(converter, filename);
+			
+			assertEquals(gold, auto);
+			count += gold.size();
+		}
+		
+		assertTrue(count > 0);
+	}
+	
+	private List<String> convert(EnglishC2DConverter converter, String filename)
+	{
+		CTReader reader = new CTReader(UTInput.createBufferedFileReader(filename));
+		List<String> trees = new ArrayList<String>();
+		CTTree cTree;
+		DEPTree dTree;
+		
+		while ((cTree = reader.nextTree()) != null)
+		{
+			dTree = converter.toDEPTree(cTree);
+			trees.add(dTree == null ? null : dTree.toStringDAG());
+		}
+		
+		reader.close();
+		return trees;
+	}
+	
+	/** Finds heads by copying (and reversing) the list of nodes and matching tags by regular expressions. */
+	private class ReferenceC2DConverter extends EnglishC2DConverter
+	{
+		public ReferenceC2DConverter(HeadRuleMap headrules)
+		{
+			super(headrules, null);
+		}
+		
+		@Override
+		protected CTNode getHead(HeadRule rule, List<CTNode> nodes, int flagSize)
+		{
+			nodes = new ArrayList<CTNode>(nodes);
+			if (rule.isRightToLeft())	Collections.reverse(nodes);
+			
+			int i, size = nodes.size(), flag;
+			int[] flags = new int[size];
+			
+			for (i=0; i<size; i++)
+				flags[i] = getHeadFlag(nodes.get(i));
+			
+			CTNode head = null, child;
+			
+			outer: for (flag=0; flag<flagSize; flag++)
+			{
+				for (HeadTagSet tagset : rule.getHeadTags())
+				{
+					for (i=0; i<size; i++)
+					{
+						child = nodes.get(i);
+						
+						if (flags[i] == flag && matches(tagset, child))
+						{
+							head = child;
+							break outer;
+						}
+					}
+				}
+			}
+			
+			CTNode parent = head.getParent();
+			
+			for (CTNode node : nodes)
+			{
+				if (node != head && !node.c2d.hasHead())
+					node.c2d.setHead(head, getDEPLabel(node, parent, head));
+			}
+			
+			return head;
+		}
+		
+		private boolean matches(HeadTagSet tagset, CTNode node)
+		{
+			StringBuilder pTags = new StringBuilder();
+			
+			for (String tag : tagset.toString().split("\\"+HeadTagSet.DELIM_TAGS))
+			{
+				if (tag.charAt(0) == HeadTagSet.PREFIX_FTAG)
+				{
+					if (node.hasFTag(tag.substring(1)))
+						return true;
+				}
+				else
+				{
+					pTags.append(HeadTagSet.DELIM_TAGS);
+					pTags.append(tag);
+				}
+			}
+			
+			return pTags.length() > 0 && Pattern.compile("^("+pTags.substring(1)+")$").matcher(node.pTag).find();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.reader.JointReader;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class DEPTreeStoreTest
+{
+	@Test
+	public void testDEPTreeStore()
+	{
+		String s = "1\tJohn\tjohn\tNNP\t_\t2\tnsubj\t2:A0\tB-PERSON\n"
+		         + "2\tbought\tbuy\tVBD\tpb=buy.01\t0\troot\t_\tO\n"
+		         + "3\ta\ta\tDT\t_\t4\tdet\t_\tO\n"
+		         + "4\tcar\tcar\tNN\t_\t2\tdobj\t2:A1\tO\n\n"
+		         + "1\tMary\tmary\tNNP\t_\t2\tnsubj\t2:A0;3:A0\tB-PERSON\n"
+		         + "2\tlikes\tlike\tVBZ\tpb=like.01|x=y\t0\troot\t_\tO\n"
+		         + "3\tit\tit\tPRP\tpb=it.01\t2\tdobj\t2:A1\tO\n\n";
+		
+		JointReader reader = new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, 8, -1);
+		reader.open(new BufferedReader(new StringReader(s)));
+		
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTreeStore  store = new DEPTreeStore();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		trees.get(1).setDependents();
+		store.addAll(trees);
+		
+		assertEquals(trees.size(), store.size());
+		assertEquals(7, store.getNodeSize());
+		assertEquals(5, store.getTreeSize(0));
+		
+		for (int i=0; i<trees.size(); i++)
+		{
+			tree = store.get(i);
+			assertNotSame(tree, store.get(i));
+			assertEquals(trees.get(i).toStringSRL(), tree.toStringSRL());
+			assertEquals(trees.get(i).toStringDEP(), tree.toStringDEP());
+		}
+		
+		tree = store.get(1);
+		assertEquals(2, tree.get(2).getDependents().size());
+		assertEquals("pb=like.01|x=y", tree.get(2).getFeats().toString());
+		
+		assertEquals("bought", store.getForm(0, 2));
+		assertEquals("buy"   , store.getLemma(0, 2));
+		assertEquals("NN"    , store.getPOS(0, 4));
+		assertEquals(2       , store.getHeadId(0, 4));
+		assertEquals("dobj"  , store.getLabel(1, 3));
+	}
+}
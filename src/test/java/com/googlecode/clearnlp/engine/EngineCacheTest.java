@@ -0,0 +1,154 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class EngineCacheTest
+{
+	@Test
+	public void testEngineCache() throws Exception
+	{
+		final AtomicInteger calls = new AtomicInteger();
+		AbstractComponent[] components = {new AbstractComponent()
+		{
+			@Override
+			public void process(DEPTree tree)
+			{
+				int i, size = tree.size();
+				DEPNode node;
+				
+				calls.incrementAndGet();
+				tree.initXHeads();
+				tree.initSHeads();
+				
+				for (i=1; i<size; i++)
+				{
+					node = tree.get(i);
+					node.pos   = "NN"+i;
+					node.lemma = node.form.toLowerCase();
+					node.addFeat("pb", node.lemma+".01");
+					node.setHead(tree.get(i-1), "dep"+i);
+					node.addXHead(tree.get(0), "x"+i);
+					if (i > 1)	node.addSHead(tree.get(1), "A"+i);
+				}
+			}
+		}};
+		
+		EngineCache cache = new EngineCache("srl", 2);
+		DEPTree tree1 = getTree("John", "loves", "Mary"), tree2 = getTree("John", "loves", "Mary");
+		
+		cache.process(components, tree1);
+		cache.process(components, tree2);
+		assertEquals(1, calls.get());
+		assertEquals(tree1.toStringSRL(), tree2.toStringSRL());
+		assertEquals(tree1.toStringDAG(), tree2.toStringDAG());
+		assertEquals("x3", tree2.get(3).getXHead(tree2.get(0)).getLabel());
+		
+		cache.process(components, getTree("Mary", "loves", "John"));
+		cache.process(components, getTree("Mary", "runs"));
+		assertEquals(3, calls.get());
+		assertEquals(2, cache.size());
+		
+		File file = File.createTempFile("cache", ".bin");
+		cache.save(file.getPath());
+		
+		EngineCache loaded = new EngineCache("srl", 2);
+		loaded.load(file.getPath());
+		tree2 = getTree("Mary", "runs");
+		loaded.process(components, tree2);
+		assertEquals(3, calls.get());
+		
+		tree1 = getTree("Mary", "runs");
+		components[0].process(tree1);
+		assertEquals(tree1.toStringSRL(), tree2.toStringSRL());
+		assertEquals("x2", tree2.get(2).getXHead(tree2.get(0)).getLabel());
+		
+		EngineCache other = new EngineCache("dep", 2);
+		other.load(file.getPath());
+		assertEquals(0, other.size());
+		file.delete();
+	}
+	
+	@Test
+	public void testEngineCacheFingerprint() throws Exception
+	{
+		AbstractComponent[] components = {new AbstractComponent()
+		{
+			@Override
+			public void process(DEPTree tree)
+			{
+				for (int i=1; i<tree.size(); i++)
+					tree.get(i).pos = "NN";
+			}
+		}};
+		
+		File model = File.createTempFile("model", ".jar"), file = File.createTempFile("cache", ".bin");
+		List<String> filenames = Collections.singletonList(model.getPath());
+		writeString(model, "model-1");
+		long fingerprint = EngineCache.getFingerprint(filenames);
+		
+		EngineCache cache = new EngineCache("pos", 2, fingerprint);
+		cache.process(components, getTree("John", "runs"));
+		cache.save(file.getPath());
+		
+		EngineCache loaded = new EngineCache("pos", 2, EngineCache.getFingerprint(filenames));
+		loaded.load(file.getPath());
+		assertEquals(1, loaded.size());
+		
+		writeString(model, "model-2");
+		assertTrue(fingerprint != EngineCache.getFingerprint(filenames));
+		
+		loaded = new EngineCache("pos", 2, EngineCache.getFingerprint(filenames));
+		loaded.load(file.getPath());
+		assertEquals(0, loaded.size());
+		
+		model.delete();
+		file.delete();
+	}
+	
+	private void writeString(File file, String s) throws IOException
+	{
+		FileOutputStream fout = new FileOutputStream(file);
+		fout.write(s.getBytes("UTF-8"));
+		fout.close();
+	}
+	
+	private DEPTree getTree(String... forms)
+	{
+		DEPTree tree = new DEPTree();
+		
+		for (int i=0; i<forms.length; i++)
+			tree.add(new DEPNode(i+1, forms[i]));
+		
+		return tree;
+	}
+}
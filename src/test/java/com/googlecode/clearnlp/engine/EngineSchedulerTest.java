@@ -0,0 +1,157 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class EngineSchedulerTest
+{
+	@Test
+	public void testEngineScheduler()
+	{
+		final int workers = 3;
+		final AtomicBoolean shared = new AtomicBoolean();
+		AbstractComponent[][] components = new AbstractComponent[workers][];
+		
+		for (int w=0; w<workers; w++)
+		{
+			final String id = Integer.toString(w);
+			
+			components[w] = new AbstractComponent[]{new AbstractComponent()
+			{
+				Thread t_owner;
+				
+				@Override
+				public void process(DEPTree tree)
+				{
+					if (t_owner == null)	t_owner = Thread.currentThread();
+					else if (t_owner != Thread.currentThread())	shared.set(true);
+					
+					// simulates a quadratic component
+					long sum = 0;
+					for (int i=0; i<tree.size(); i++)
+						for (int j=0; j<tree.size(); j++)
+							sum += i ^ j;
+					
+					tree.get(1).pos = (tree.get(1).pos == null) ? id : "twice";
+					tree.get(1).lemma = Long.toString(sum);
+				}
+			}};
+		}
+		
+		EngineScheduler scheduler = new EngineScheduler(components);
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		int i, j, len;
+		
+		for (i=0; i<500; i++)
+		{
+			tree = new DEPTree();
+			len  = (i % 50 == 0) ? 150 : 1 + i % 20;
+			
+			for (j=1; j<=len; j++)
+				tree.add(new DEPNode(j, "w"+i));
+			
+			trees.add(tree);
+		}
+		
+		scheduler.process(trees);
+		scheduler.process(new ArrayList<DEPTree>());
+		
+		for (i=0; i<500; i++)
+		{
+			tree = trees.get(i);
+			assertEquals("w"+i, tree.get(1).form);
+			assertTrue(tree.get(1).pos.matches("[0-2]"));
+		}
+		
+		long total = 0;
+		for (long count : scheduler.getTreeCounts())	total += count;
+		
+		assertEquals(500, total);
+		assertFalse(shared.get());
+		assertTrue(scheduler.getUtilizationReport().startsWith("Worker utilization:"));
+		assertTrue(EngineScheduler.getCost(trees.get(0)) > EngineScheduler.getCost(trees.get(1)));
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testEngineSchedulerFailure()
+	{
+		final int workers = 2;
+		AbstractComponent[][] components = new AbstractComponent[workers][];
+		
+		for (int w=0; w<workers; w++)
+		{
+			components[w] = new AbstractComponent[]{new AbstractComponent()
+			{
+				@Override
+				public void process(DEPTree tree)
+				{
+					if (tree.get(1).form.equals("w3"))
+						throw new IllegalArgumentException("w3");
+					
+					tree.get(1).pos = "done";
+				}
+			}};
+		}
+		
+		EngineScheduler scheduler = new EngineScheduler(components);
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		int i;
+		
+		for (i=0; i<20; i++)
+		{
+			tree = new DEPTree();
+			tree.add(new DEPNode(1, "w"+i));
+			trees.add(tree);
+		}
+		
+		try
+		{
+			scheduler.process(trees);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("w3", e.getCause().getMessage());
+		}
+		
+		// all other trees are processed before the failure is thrown
+		for (i=0; i<20; i++)
+		{
+			if (i == 3)	assertEquals(null, trees.get(i).get(1).pos);
+			else		assertEquals("done", trees.get(i).get(1).pos);
+		}
+		
+		scheduler.shutdown();
+	}
+}
@@ -0,0 +1,119 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class TopicMatcherTest
+{
+	@Test
+	public void testTopicMatcher()
+	{
+		String[] vocab = {"a", "b", "c", "d", "e"};
+		Random rand = new Random(0);
+		List<List<String[]>> topics = new ArrayList<List<String[]>>();
+		List<String[]> topic;
+		String[] phrase;
+		int i, j, k;
+		
+		for (i=0; i<20; i++)
+		{
+			topics.add(topic = new ArrayList<String[]>());
+			
+			for (j=rand.nextInt(5); j>=0; j--)
+			{
+				topic.add(phrase = new String[1+rand.nextInt(4)]);
+				for (k=0; k<phrase.length; k++)	phrase[k] = vocab[rand.nextInt(vocab.length)];
+			}
+		}
+		
+		TopicMatcher matcher = new TopicMatcher(topics);
+		
+		for (i=0; i<100; i++)
+		{
+			DEPTree tree = new DEPTree();
+			
+			for (j=rand.nextInt(30); j>0; j--)
+			{
+				String form = (rand.nextInt(10) == 0) ? "x" : vocab[rand.nextInt(vocab.length)];
+				tree.add(new DEPNode(tree.size(), rand.nextBoolean() ? form.toUpperCase() : form));
+			}
+			
+			IntOpenHashSet[] gold = getTopics(topics, tree), sets = matcher.getTopics(tree);
+			
+			for (j=1; j<tree.size(); j++)
+				assertEquals(toString(gold[j]), toString(sets[j]));
+		}
+	}
+	
+	private String toString(IntOpenHashSet set)
+	{
+		int[] indices = set.toArray();
+		Arrays.sort(indices);
+		return Arrays.toString(indices);
+	}
+	
+	/** Matches every phrase at every position. */
+	private IntOpenHashSet[] getTopics(List<List<String[]>> topics, DEPTree tree)
+	{
+		int nodeId, topicId, i, nSize = tree.size();
+		IntOpenHashSet[] sets = new IntOpenHashSet[nSize];
+		boolean match;
+		
+		for (nodeId=1; nodeId<nSize; nodeId++)
+			sets[nodeId] = new IntOpenHashSet();
+		
+		for (nodeId=1; nodeId<nSize; nodeId++)
+		{
+			for (topicId=0; topicId<topics.size(); topicId++)
+			{
+				for (String[] topic : topics.get(topicId))
+				{
+					match = true;
+					
+					for (i=0; i<topic.length; i++)
+					{
+						if (nodeId+i >= nSize || !tree.get(nodeId+i).form.toLowerCase().equals(topic[i]))
+						{
+							match = false;
+							break;
+						}
+					}
+					
+					if (match)
+					{
+						for (i=0; i<topic.length; i++)
+							sets[nodeId+i].add(topicId);
+					}
+				}
+			}
+		}
+		
+		return sets;
+	}
+}
@@ -0,0 +1,228 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.reader.AbstractReader;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class NLPServerTest
+{
+	@Test
+	public void testNLPServer() throws Exception
+	{
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicBoolean concurrent = new AtomicBoolean();
+		
+		AbstractComponent tagger = new AbstractComponent()
+		{
+			@Override
+			public void process(DEPTree tree)
+			{
+				if (active.incrementAndGet() > 1)	concurrent.set(true);
+				
+				for (int i=1; i<tree.size(); i++)
+					tree.get(i).pos = "X";
+				
+				active.decrementAndGet();
+			}
+		};
+		
+		final NLPServer server = new NLPServer(null, new AbstractComponent[]{tagger}, AbstractReader.TYPE_POS, 4, 2);
+		server.start(0);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		
+		for (int i=0; i<8; i++)
+		{
+			final int id = i;
+			
+			futures.add(executor.submit(new Callable<String>()
+			{
+				public String call() throws Exception
+				{
+					NLPClient client = new NLPClient("localhost", server.getPort());
+					StringBuilder build = new StringBuilder();
+					
+					for (int j=0; j<20; j++)
+						build.append(client.process(NLPServer.REQUEST_TOK, "", "a"+id+" b"+j+"\nc"));
+					
+					client.close();
+					return build.toString();
+				}
+			}));
+		}
+		
+		for (int i=0; i<8; i++)
+		{
+			String output = futures.get(i).get();
+			
+			for (int j=0; j<20; j++)
+			{
+				assertTrue(output.contains("a"+i+"\tX\t"));
+				assertTrue(output.contains("b"+j+"\tX\t"));
+			}
+			
+			assertTrue(output.contains("c\tX\t"));
+		}
+		
+		executor.shutdown();
+		assertFalse(concurrent.get());
+		
+		NLPClient client = new NLPClient("localhost", server.getPort());
+		assertTrue(client.process(NLPServer.REQUEST_TOK, NLPServer.FORMAT_CONLL, "a b").contains("X"));
+		
+		try
+		{
+			client.process("raw text");
+			fail();
+		}
+		catch (IOException e) {assertEquals(true, e.getMessage().contains("not supported"));}
+		
+		try
+		{
+			client.process(NLPServer.REQUEST_TOK, "unknown", "a b");
+			fail();
+		}
+		catch (IOException e) {assertTrue(e.getMessage().contains("Unknown format"));}
+		
+		assertTrue(client.process(NLPServer.REQUEST_TOK, "", "a b").contains("X"));
+		client.close();
+		server.stop();
+	}
+	
+	@Test
+	public void testNLPServerMaxLength() throws Exception
+	{
+		NLPServer server = new NLPServer(null, new AbstractComponent[0], AbstractReader.TYPE_POS, 4, 2);
+		server.setMaxLength(16);
+		server.start(0);
+		
+		Socket socket = new Socket("localhost", server.getPort());
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		DataInputStream  in  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		
+		out.writeInt(NLPServer.REQUEST_TOK);
+		NLPServer.writeString(out, "");
+		out.writeInt(Integer.MAX_VALUE);
+		out.flush();
+		
+		assertEquals(NLPServer.STATUS_ERROR, in.readInt());
+		assertTrue(NLPServer.readString(in).contains("Invalid string length"));
+		assertEquals(-1, in.read());
+		socket.close();
+		
+		NLPClient client = new NLPClient("localhost", server.getPort());
+		assertTrue(client.process(NLPServer.REQUEST_TOK, "", "a b").contains("a\t"));
+		client.close();
+		server.stop();
+	}
+	
+	@Test
+	public void testNLPServerWorkers() throws Exception
+	{
+		final int workers = 3;
+		final AtomicInteger[] counts = new AtomicInteger[workers];
+		AbstractComponent[][] components = new AbstractComponent[workers][];
+		
+		for (int w=0; w<workers; w++)
+		{
+			final AtomicInteger count = counts[w] = new AtomicInteger();
+			final AtomicInteger active = new AtomicInteger();
+			
+			components[w] = new AbstractComponent[]{new AbstractComponent()
+			{
+				@Override
+				public void process(DEPTree tree)
+				{
+					// a chain of components must never be used by two threads at once
+					if (active.incrementAndGet() > 1)	throw new IllegalStateException("shared components");
+					count.incrementAndGet();
+					
+					for (int i=1; i<tree.size(); i++)
+						tree.get(i).pos = "X";
+					
+					try
+					{
+						Thread.sleep(1);
+					}
+					catch (InterruptedException e) {}
+					
+					active.decrementAndGet();
+				}
+			}};
+		}
+		
+		final NLPServer server = new NLPServer(null, components, AbstractReader.TYPE_POS, 1, 0);
+		server.start(0);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		
+		for (int i=0; i<6; i++)
+		{
+			futures.add(executor.submit(new Callable<String>()
+			{
+				public String call() throws Exception
+				{
+					NLPClient client = new NLPClient("localhost", server.getPort());
+					StringBuilder build = new StringBuilder();
+					
+					for (int j=0; j<20; j++)
+						build.append(client.process(NLPServer.REQUEST_TOK, "", "a b"));
+					
+					client.close();
+					return build.toString();
+				}
+			}));
+		}
+		
+		int total = 0;
+		
+		for (Future<String> future : futures)
+			assertTrue(future.get().contains("b\tX\t"));
+		
+		for (AtomicInteger count : counts)
+			total += count.get();
+		
+		executor.shutdown();
+		server.stop();
+		assertEquals(120, total);
+	}
+}
@@ -0,0 +1,103 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.propbank.verbnet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.dependency.DEPFeat;
+import com.googlecode.clearnlp.dependency.DEPLib;
+import com.googlecode.clearnlp.dependency.DEPNode;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.engine.EngineProcess;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class PVBinaryMapTest
+{
+	static private final String XML =
+		"<pbvnmap>\n"+
+		"<verb lemma=\"give\">\n"+
+		"  <roleset id=\"give.01\">\n"+
+		"    <roles vncls=\"13.1\">\n"+
+		"      <role n=\"0\" f=\"\" vntheta=\"Agent\"/>\n"+
+		"      <role n=\"1\" f=\"\" vntheta=\"Theme\"/>\n"+
+		"      <role n=\"2\" f=\"\" vntheta=\"Recipient\"/>\n"+
+		"    </roles>\n"+
+		"    <roles vncls=\"13.1-1\">\n"+
+		"      <role n=\"0\" f=\"\" vntheta=\"Agent\"/>\n"+
+		"    </roles>\n"+
+		"  </roleset>\n"+
+		"</verb>\n"+
+		"<verb lemma=\"run\">\n"+
+		"  <roleset id=\"run.02\">\n"+
+		"    <roles vncls=\"51.3.2\">\n"+
+		"      <role n=\"0\" f=\"\" vntheta=\"Theme\"/>\n"+
+		"    </roles>\n"+
+		"  </roleset>\n"+
+		"</verb>\n"+
+		"</pbvnmap>\n";
+	
+	@Test
+	public void testPVBinaryMap() throws Exception
+	{
+		PVMap pvMap = new PVMap(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		
+		new PVBinaryMap(pvMap).save(bout);
+		PVBinaryMap map = new PVBinaryMap(new ByteArrayInputStream(bout.toByteArray()));
+		
+		int r = map.getRolesetIndex("give.01");
+		assertEquals(2, map.size());
+		assertEquals(-1, map.getRolesetIndex("give.02"));
+		assertEquals("13.1,13.1-1", map.getVNClasses(r));
+		assertEquals(2, map.getVNClassSize(r));
+		assertEquals("Recipient", map.getVNTheta(r, 0, 2));
+		assertNull(map.getVNTheta(r, 1, 2));
+		
+		DEPTree tree1 = getTree(), tree2 = getTree();
+		EngineProcess.addVerbNet(pvMap, tree1);
+		EngineProcess.addVerbNet(map, tree2);
+		
+		assertEquals(tree1.toStringSRL(), tree2.toStringSRL());
+		assertEquals("13.1,13.1-1", tree2.get(2).getFeat(DEPLib.FEAT_VN));
+		assertEquals("A0,Agent,Agent", tree2.get(1).getSHeads().get(0).getLabel());
+	}
+	
+	private DEPTree getTree()
+	{
+		DEPTree tree = new DEPTree();
+		
+		tree.add(new DEPNode(1, "John", "john", "NNP", new DEPFeat()));
+		tree.add(new DEPNode(2, "gave", "give", "VBD", new DEPFeat("pb=give.01")));
+		tree.add(new DEPNode(3, "Mary", "mary", "NNP", new DEPFeat()));
+		tree.add(new DEPNode(4, "books", "book", "NNS", new DEPFeat()));
+		tree.add(new DEPNode(5, "ran", "run", "VBD", new DEPFeat("pb=run.03")));
+		tree.initSHeads();
+		
+		tree.get(1).addSHead(tree.get(2), "A0");
+		tree.get(3).addSHead(tree.get(2), "A2");
+		tree.get(4).addSHead(tree.get(2), "A1");
+		tree.get(4).addSHead(tree.get(2), "AM-TMP");
+		tree.get(1).addSHead(tree.get(5), "A0");
+		
+		return tree;
+	}
+}
@@ -0,0 +1,127 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.writer.DEPBinaryWriter;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class DEPBinaryReaderTest
+{
+	@Test
+	public void testDEPBinaryReader()
+	{
+		StringBuilder build = new StringBuilder();
+		int i, size = 5;
+		
+		for (i=0; i<size; i++)
+		{
+			build.append("1\tJohn"+i+"\tjohn\tNNP\t_\t2\tnsubj\t2:A0\n");
+			build.append("2\tbuys\tbuy\tVBZ\tpb=buy.01|vn=13.5\t0\troot\t_\n");
+			build.append("3\tcafés\tcafé\tNNS\t_\t2\tdobj\t2:A1;2:A2\n\n");
+		}
+		
+		JointReader jReader = new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, -1, -1);
+		jReader.open(new BufferedReader(new StringReader(build.toString())));
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DEPBinaryWriter writer = new DEPBinaryWriter(bout, AbstractReader.TYPE_SRL);
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		while ((tree = jReader.next()) != null)
+		{
+			if (trees.isEmpty())
+			{
+				tree.initXHeads();
+				tree.get(3).addXHead(tree.get(1), "xcomp");
+			}
+			
+			trees.add(tree);
+			writer.write(tree);
+		}
+		
+		writer.close();
+		
+		DEPBinaryReader bReader = new DEPBinaryReader();
+		bReader.open(new ByteArrayInputStream(bout.toByteArray()));
+		assertEquals(AbstractReader.TYPE_SRL, bReader.getType());
+		
+		for (i=0; i<size; i++)
+		{
+			tree = bReader.next();
+			assertEquals(trees.get(i).toStringSRL(), tree.toStringSRL());
+			
+			if (i == 0)
+				assertEquals(trees.get(i).toStringDAG(), tree.toStringDAG());
+			else
+				assertNull(tree.get(3).getXHeads());
+		}
+		
+		assertNull(bReader.next());
+		bReader.close();
+	}
+	
+	@Test
+	public void testDEPBinaryReaderLongString()
+	{
+		StringBuilder form = new StringBuilder();
+		
+		// longer than the 65535 bytes allowed by writeUTF
+		for (int i=0; i<40000; i++)
+			form.append("\u00e9");
+		
+		String line = "1\t"+form+"\t_\tNN\t_\t0\troot\t_\n\n";
+		String next = "1\tJohn\tjohn\tNNP\t_\t2\tnsubj\t_\n2\truns\trun\tVBZ\t_\t0\troot\t_\n\n";
+		
+		JointReader jReader = new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, -1, -1);
+		jReader.open(new BufferedReader(new StringReader(line+next)));
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DEPBinaryWriter writer = new DEPBinaryWriter(bout, AbstractReader.TYPE_SRL);
+		List<DEPTree> trees = new ArrayList<DEPTree>();
+		DEPTree tree;
+		
+		while ((tree = jReader.next()) != null)
+		{
+			trees.add(tree);
+			writer.write(tree);
+		}
+		
+		writer.close();
+		
+		DEPBinaryReader bReader = new DEPBinaryReader();
+		bReader.open(new ByteArrayInputStream(bout.toByteArray()));
+		
+		for (DEPTree gold : trees)
+			assertEquals(gold.toStringSRL(), bReader.next().toStringSRL());
+		
+		assertNull(bReader.next());
+		bReader.close();
+	}
+}
@@ -0,0 +1,100 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.UTOutput;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class MappedJointReaderTest
+{
+	@Test
+	public void testMappedJointReader() throws Exception
+	{
+		File file = File.createTempFile("mapped", ".srl");
+		file.deleteOnExit();
+		
+		PrintStream fout = UTOutput.createPrintBufferedFileStream(file.getPath());
+		int i, size = 200;
+		
+		for (i=0; i<size; i++)
+		{
+			fout.println("1\tJohn"+i+"\tjohn\tNNP\t_\t2\tnsubj\t2:A0");
+			fout.println("2\tbuys\tbuy\tVBZ\tpb=buy.01\t0\troot\t_");
+			fout.println("3\tcafés\tcafé\tNNS\t_\t2\tdobj\t2:A1\r");
+			if (i % 7 == 0)	fout.println(" \t");
+			fout.println();
+		}
+		
+		fout.close();
+		
+		JointReader jReader = new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, -1, -1);
+		MappedJointReader mReader = new MappedJointReader(jReader, 3);
+		DEPTree jTree;
+		
+		jReader.open(UTInput.createBufferedFileReader(file.getPath()));
+		mReader.open(file.getPath());
+		
+		for (i=0; (jTree = jReader.next()) != null; i++)
+			assertEquals(jTree.toStringSRL(), mReader.next().toStringSRL());
+		
+		assertEquals(size, i);
+		assertNull(mReader.next());
+		
+		jReader.close();
+		mReader.close();
+	}
+	
+	@Test
+	public void testMappedJointReaderFailure() throws Exception
+	{
+		File file = File.createTempFile("mapped", ".srl");
+		file.deleteOnExit();
+		
+		PrintStream fout = UTOutput.createPrintBufferedFileStream(file.getPath());
+		fout.println("1\tJohn\tjohn\tNNP\t_\t0\troot\t_");
+		fout.println();
+		fout.println("x\tbuys\tbuy\tVBZ\t_\t0\troot\t_");
+		fout.println();
+		fout.close();
+		
+		MappedJointReader mReader = new MappedJointReader(new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, -1, -1), 1);
+		mReader.open(file.getPath());
+		assertEquals("John", mReader.next().get(1).form);
+		
+		try
+		{
+			mReader.next();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals(NumberFormatException.class, e.getCause().getClass());
+		}
+		
+		mReader.close();
+	}
+}
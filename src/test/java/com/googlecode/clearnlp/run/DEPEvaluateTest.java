@@ -0,0 +1,108 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.run;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.util.UTOutput;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class DEPEvaluateTest
+{
+	@Test
+	public void testGetColumns()
+	{
+		assertArrayEquals(new String[]{"c", "a", ""}, AbstractEvaluate.getColumns("a\tb\tc", new int[]{2, 0, 3}));
+		assertArrayEquals(new String[]{"", "b"}, AbstractEvaluate.getColumns("\tb\t", new int[]{0, 1}));
+	}
+	
+	@Test
+	public void testDEPEvaluate() throws Exception
+	{
+		File goldFile = File.createTempFile("gold", ".dep");
+		File autoFile = File.createTempFile("auto", ".dep");
+		PrintStream fGold = UTOutput.createPrintBufferedFileStream(goldFile.getPath());
+		PrintStream fAuto = UTOutput.createPrintBufferedFileStream(autoFile.getPath());
+		Map<String,int[]> expected = new HashMap<String,int[]>();
+		String[] labels = {"nsubj", "dobj", "root", "prep"};
+		Random rand = new Random(1);
+		String gLabel, aLabel;
+		int i, j, len, gHead, aHead;
+		int[] counts;
+		
+		for (i=0; i<2500; i++)
+		{
+			len = 1 + rand.nextInt(15);
+			
+			for (j=1; j<=len; j++)
+			{
+				gHead  = rand.nextInt(j);
+				aHead  = rand.nextBoolean() ? gHead : rand.nextInt(j+1);
+				gLabel = labels[rand.nextInt(labels.length)];
+				aLabel = rand.nextBoolean() ? gLabel : labels[rand.nextInt(labels.length)];
+				
+				fGold.println(j+"\tw\t"+gHead+"\t"+gLabel);
+				fAuto.println(j+"\tw\t"+aHead+"\t"+aLabel);
+				
+				if ((counts = expected.get(gLabel)) == null)
+					expected.put(gLabel, counts = new int[4]);
+				
+				if (gLabel.equals(aLabel) && gHead == aHead)	counts[0]++;
+				if (gHead == aHead)			counts[1]++;
+				if (gLabel.equals(aLabel))	counts[2]++;
+				counts[3]++;
+			}
+			
+			fGold.println();
+			fAuto.println();
+		}
+		
+		fGold.close();
+		fAuto.close();
+		
+		DEPEvaluate eval = new DEPEvaluate();
+		eval.n_threads = 4;
+		eval.evaluate(goldFile.getPath(), autoFile.getPath(), new int[]{2, 3}, new int[]{2, 3});
+		
+		assertEquals(expected.size(), eval.t_counts.size());
+		for (String label : expected.keySet())
+			assertArrayEquals(expected.get(label), eval.t_counts.get(label));
+		
+		assertEquals(2500 * 4, eval.l_sentences.size());
+		
+		double[] scores = eval.getScores(eval.getSentenceCountSums());
+		double[][] intervals = eval.getConfidenceIntervals(200, 0.95, 0);
+		
+		for (i=0; i<scores.length; i++)
+		{
+			assertTrue(intervals[i][0] <= scores[i] && scores[i] <= intervals[i][1]);
+			assertTrue(intervals[i][1] - intervals[i][0] < 5);
+		}
+		
+		goldFile.delete();
+		autoFile.delete();
+	}
+}
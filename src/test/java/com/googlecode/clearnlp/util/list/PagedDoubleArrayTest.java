@@ -0,0 +1,84 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.list;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class PagedDoubleArrayTest
+{
+	@Test
+	public void test()
+	{
+		PagedDoubleArray array = new PagedDoubleArray(1);
+		int i, j, rows = 10000, columns = 5;
+		
+		for (i=0; i<rows; i++)
+		{
+			array.addRow();
+			array.set(i, 0, i * 10);
+		}
+		
+		for (j=1; j<columns; j++)
+			array.addColumn();
+		
+		assertEquals(99990.0, array.get(9999, 0), 0);
+		
+		for (i=0; i<rows; i++)
+			for (j=1; j<columns; j++)
+				array.set(i, j, i * 10 + j);
+		
+		assertEquals(rows   , array.getRowSize());
+		assertEquals(columns, array.getColumnSize());
+		assertEquals(2.0, array.get(0, 2), 0);
+		assertEquals(99994.0, array.get(9999, 4), 0);
+		
+		array.add(1, 0, 5);
+		assertArrayEquals(new double[]{15, 11, 12, 13, 14}, array.getRow(1), 0);
+		
+		double[] vector = new double[columns];
+		array.addRowTo(2, vector);
+		array.addRowTo(3, 2, vector);
+		assertArrayEquals(new double[]{80, 83, 86, 89, 92}, vector, 0);
+	}
+	
+	@Test
+	public void testSnapshot()
+	{
+		PagedDoubleArray array = new PagedDoubleArray(2);
+		array.ensureRowSize(3000);
+		array.set(0, 0, 1);
+		array.set(2999, 1, 2);
+		
+		PagedDoubleArray snapshot = array.getSnapshot();
+		array.add(0, 0, 10);
+		array.addRow();
+		array.addColumn();
+		array.set(2999, 2, 3);
+		
+		assertEquals(11, array.get(0, 0), 0);
+		assertEquals( 1, snapshot.get(0, 0), 0);
+		assertEquals( 2, snapshot.get(2999, 1), 0);
+		assertEquals(3000, snapshot.getRowSize());
+		assertEquals(2, snapshot.getColumnSize());
+		
+		snapshot.set(1, 1, 5);
+		assertEquals(0, array.get(1, 1), 0);
+	}
+}
@@ -0,0 +1,141 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.util.UTInput;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class MetricsTest
+{
+	@Test
+	public void testMetrics() throws Exception
+	{
+		Metrics.disable();
+		Metrics.count("test_counter", 5);
+		assertEquals(0, Metrics.getCounter("test_counter").getCount());
+		
+		Metrics.enable();
+		Metrics.count("test_counter", 5);
+		Metrics.count("test_counter", 2);
+		assertEquals(7, Metrics.getCounter("test_counter").getCount());
+		
+		StageMetrics stage = Metrics.getStage("test_stage");
+		stage.add( 5, 2000, -1);
+		stage.add(15, 4000, 100);
+		stage.add(90, 6000, 100);
+		
+		assertEquals(3  , stage.getCalls());
+		assertEquals(110, stage.getTokens());
+		assertEquals(6  , stage.getMaxMicros());
+		assertEquals(200, stage.getAllocatedBytes());
+		assertEquals(1  , stage.getBucketCalls(StageMetrics.getBucket(20)));
+		assertEquals(1  , stage.getBucketCalls(StageMetrics.LENGTH_BOUNDS.length-1));
+		assertEquals("11-20", StageMetrics.getBucketLabel(1));
+		assertEquals("81+"  , StageMetrics.getBucketLabel(4));
+		
+		AbstractComponent component = new AbstractComponent()
+		{
+			@Override
+			public void process(DEPTree tree) {}
+		};
+		
+		assertTrue(component.getStageName().isEmpty());
+		component.setStageName("test_stage");
+		assertTrue(stage == Metrics.getStage(component.getStageName()));
+		
+		ObjectName name = new ObjectName(Metrics.JMX_DOMAIN+":type=Stage,name="+ObjectName.quote("test_stage"));
+		assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls"));
+		
+		File file = File.createTempFile("metrics", ".csv");
+		file.deleteOnExit();
+		
+		MetricsReporter reporter = new MetricsReporter(file.getPath());
+		reporter.stop();
+		
+		BufferedReader fin = UTInput.createBufferedFileReader(file.getPath());
+		assertEquals(MetricsReporter.CSV_HEADER, fin.readLine());
+		boolean found = false;
+		String line;
+		
+		while ((line = fin.readLine()) != null)
+			if (line.contains(",test_stage,3,110,"))	found = true;
+		
+		fin.close();
+		assertTrue(found);
+		
+		// the header is not written again when appending to the same file
+		reporter = new MetricsReporter(file.getPath());
+		reporter.stop();
+		
+		fin = UTInput.createBufferedFileReader(file.getPath());
+		int headers = 0;
+		
+		while ((line = fin.readLine()) != null)
+			if (line.equals(MetricsReporter.CSV_HEADER))	headers++;
+		
+		fin.close();
+		assertEquals(1, headers);
+		
+		Metrics.reset();
+		Metrics.disable();
+		assertEquals(0, stage.getCalls());
+		assertEquals(0, Metrics.getCounter("test_counter").getCount());
+	}
+	
+	@Test
+	public void testCounterMetrics() throws Exception
+	{
+		final CounterMetrics counter = new CounterMetrics("test_threads");
+		Thread[] threads = new Thread[4];
+		int i;
+		
+		for (i=0; i<threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					for (int j=0; j<10000; j++)
+						counter.add(1);
+				}
+			};
+			
+			threads[i].start();
+		}
+		
+		for (Thread thread : threads)
+			thread.join();
+		
+		assertEquals(40000, counter.getCount());
+		counter.reset();
+		assertEquals(0, counter.getCount());
+		counter.add(3);
+		assertEquals(3, counter.getCount());
+	}
+}
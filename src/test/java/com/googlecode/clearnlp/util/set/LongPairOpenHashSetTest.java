@@ -0,0 +1,48 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.util.set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class LongPairOpenHashSetTest
+{
+	@Test
+	public void testAdd()
+	{
+		LongPairOpenHashSet set = new LongPairOpenHashSet(2);
+		int i;
+		
+		for (i=0; i<1000; i++)
+			assertEquals(-1, set.add(i, -i));
+		
+		assertEquals(1000, set.size());
+		assertEquals(0  , set.add(0, 0));
+		assertEquals(512, set.add(512, -512));
+		assertEquals(-1 , set.add(512, 512));
+		
+		assertTrue (set.contains(999, -999));
+		assertFalse(set.contains(999,  999));
+		
+		set.clear();
+		assertEquals(0, set.size());
+		assertFalse(set.contains(0, 0));
+	}
+}
@@ -0,0 +1,69 @@
+/**
+* Copyright 2012-2013 University of Massachusetts Amherst
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.writer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.reader.AbstractReader;
+import com.googlecode.clearnlp.reader.JointReader;
+
+/** @author Jinho D. Choi ({@code jdchoi77@gmail.com}) */
+public class DEPTextWriterTest
+{
+	@Test
+	public void testDEPTextWriter() throws Exception
+	{
+		String s = "1\tJohn\tjohn\tNNP\t_\t2\tnsubj\t2:A0\n"
+		         + "2\tbuys\tbuy\tVBZ\tvn=13.5|pb=buy.01\t0\troot\t_\n"
+		         + "3\tcafés\tcafé\tNNS\t_\t_\t_\t2:A2;1:R-A0;2:A1\n";
+		
+		JointReader reader = new JointReader(0, 1, 2, 3, 4, 5, 6, -1, 7, -1, -1);
+		reader.open(new BufferedReader(new StringReader(s)));
+		DEPTree tree = reader.next();
+		
+		tree.initXHeads();
+		tree.get(3).addXHead(tree.get(2), "dobj");
+		tree.get(3).addXHead(tree.get(1), "xcomp");
+		
+		String[] types = {AbstractReader.TYPE_POS, AbstractReader.TYPE_MORPH, AbstractReader.TYPE_DEP, AbstractReader.TYPE_DAG, AbstractReader.TYPE_SRL};
+		String[] golds = new String[types.length];
+		String nl = System.getProperty("line.separator");
+		int i;
+		
+		for (i=0; i<types.length; i++)
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			DEPTextWriter writer = new DEPTextWriter(bout, types[i]);
+			
+			writer.write(tree);
+			writer.close();
+			golds[i] = bout.toString("UTF-8");
+		}
+		
+		assertEquals(tree.toStringPOS()  +nl+nl, golds[0]);
+		assertEquals(tree.toStringMorph()+nl+nl, golds[1]);
+		assertEquals(tree.toStringDEP()  +nl+nl, golds[2]);
+		assertEquals(tree.toStringDAG()  +nl+nl, golds[3]);
+		assertEquals(tree.toStringSRL()  +nl+nl, golds[4]);
+	}
+}